@@ -1,15 +1,30 @@
 package com.example.manager;
 
 import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import com.example.manager.timetable.TimetableLog;
 import com.google.firebase.database.FirebaseDatabase;
 
 public class ManagerApplication extends Application {
-    
+
     @Override
     public void onCreate() {
         super.onCreate();
-        
+
         // Enable offline capabilities
         FirebaseDatabase.getInstance().setPersistenceEnabled(true);
+
+        // Send timetable engine logs to logcat; solver debug output only in debuggable builds
+        TimetableLog.setSink((level, tag, message, error) -> {
+            if (error != null) {
+                Log.println(level, tag, message + '\n' + Log.getStackTraceString(error));
+            } else {
+                Log.println(level, tag, message);
+            }
+        });
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        TimetableLog.setMinLevel(debuggable ? TimetableLog.DEBUG : TimetableLog.INFO);
     }
 }
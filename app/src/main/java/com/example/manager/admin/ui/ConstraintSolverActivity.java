@@ -23,6 +23,9 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.manager.R;
 import com.example.manager.admin.model.CourseItem;
 import com.example.manager.admin.model.Resource;
+import com.example.manager.data.CachedNode;
+import com.example.manager.data.FirebaseRepository;
+import com.example.manager.data.SessionIndex;
 import com.example.manager.model.Lecturer;
 import com.example.manager.timetable.ChocoSolverTimetableGenerator;
 import com.example.manager.timetable.Course;
@@ -101,6 +104,7 @@ public class ConstraintSolverActivity extends AppCompatActivity {
     
     // Firebase
     private DatabaseReference database;
+    private FirebaseRepository repository;
     
     // Background processing
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
@@ -119,6 +123,7 @@ public class ConstraintSolverActivity extends AppCompatActivity {
         
         // Initialize Firebase
         database = FirebaseDatabase.getInstance().getReference();
+        repository = FirebaseRepository.getInstance(this);
         
         // Initialize UI elements
         initializeUI();
@@ -396,95 +401,98 @@ public class ConstraintSolverActivity extends AppCompatActivity {
     private void loadLecturersInBackground(CountDownLatch latch) {
         Log.d(TAG, "Loading lecturers from Firebase...");
         
-        // Get all lecturer IDs
-        database.child("Users").orderByChild("role").equalTo("lecture")
-            .addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    Log.d(TAG, "Found " + dataSnapshot.getChildrenCount() + " lecturers");
-                    Map<String, String> lecturerNames = new HashMap<>();
-                    Map<String, String> lecturerContacts = new HashMap<>();
-                    
-                    // Extract basic lecturer info
-                    for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                        String id = snapshot.getKey();
-                        String name = snapshot.child("name").getValue(String.class);
-                        String contact = snapshot.child("contact").getValue(String.class);
-                        
-                        if (id != null && name != null) {
-                            lecturerNames.put(id, name);
-                            lecturerContacts.put(id, contact != null ? contact : "No Contact");
-                            Log.d(TAG, "Lecturer found: " + name + " (ID: " + id + ")");
-                        }
+        // Get all lecturer IDs from the cached users
+        repository.load("Users", new FirebaseRepository.SnapshotCallback() {
+            @Override
+            public void onDataChange(@NonNull CachedNode dataSnapshot) {
+                Map<String, String> lecturerNames = new HashMap<>();
+                Map<String, String> lecturerContacts = new HashMap<>();
+                
+                // Extract basic lecturer info
+                for (CachedNode snapshot : dataSnapshot.getChildren()) {
+                    if (!"lecture".equals(snapshot.child("role").getValue(String.class))) {
+                        continue;
                     }
+                    String id = snapshot.getKey();
+                    String name = snapshot.child("name").getValue(String.class);
+                    String contact = snapshot.child("contact").getValue(String.class);
                     
-                    // Now fetch department data for each lecturer
-                    database.child("lecturer_departments").addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot departmentsSnapshot) {
-                            lecturers.clear();
-                            int skippedCount = 0;
+                    if (id != null && name != null) {
+                        lecturerNames.put(id, name);
+                        lecturerContacts.put(id, contact != null ? contact : "No Contact");
+                        Log.d(TAG, "Lecturer found: " + name + " (ID: " + id + ")");
+                    }
+                }
+                
+                Log.d(TAG, "Found " + lecturerNames.size() + " lecturers");
+                
+                // Now fetch department data for each lecturer
+                repository.load("lecturer_departments", new FirebaseRepository.SnapshotCallback() {
+                    @Override
+                    public void onDataChange(@NonNull CachedNode departmentsSnapshot) {
+                        lecturers.clear();
+                        int skippedCount = 0;
+                        
+                        for (String lecturerId : lecturerNames.keySet()) {
+                            CachedNode lecturerDeptSnapshot = departmentsSnapshot.child(lecturerId);
                             
-                            for (String lecturerId : lecturerNames.keySet()) {
-                                DataSnapshot lecturerDeptSnapshot = departmentsSnapshot.child(lecturerId);
+                            if (lecturerDeptSnapshot.exists()) {
+                                // Check if this lecturer belongs to the selected department
+                                List<String> departments = new ArrayList<>();
                                 
-                                if (lecturerDeptSnapshot.exists()) {
-                                    // Check if this lecturer belongs to the selected department
-                                    List<String> departments = new ArrayList<>();
-                                    
-                                    // Get the list of departments this lecturer belongs to
-                                    DataSnapshot deptsSnapshot = lecturerDeptSnapshot.child("departments");
-                                    if (deptsSnapshot.exists()) {
-                                        for (DataSnapshot deptSnapshot : deptsSnapshot.getChildren()) {
-                                            String dept = deptSnapshot.getValue(String.class);
-                                            if (dept != null) {
-                                                departments.add(dept);
-                                            }
+                                // Get the list of departments this lecturer belongs to
+                                CachedNode deptsSnapshot = lecturerDeptSnapshot.child("departments");
+                                if (deptsSnapshot.exists()) {
+                                    for (CachedNode deptSnapshot : deptsSnapshot.getChildren()) {
+                                        String dept = deptSnapshot.getValue(String.class);
+                                        if (dept != null) {
+                                            departments.add(dept);
                                         }
                                     }
+                                }
+                                
+                                // Check if the lecturer belongs to the selected department
+                                if (departments.contains(selectedDepartment)) {
+                                    // This lecturer belongs to the selected department
+                                    String name = lecturerNames.get(lecturerId);
+                                    String contact = lecturerContacts.get(lecturerId);
                                     
-                                    // Check if the lecturer belongs to the selected department
-                                    if (departments.contains(selectedDepartment)) {
-                                        // This lecturer belongs to the selected department
-                                        String name = lecturerNames.get(lecturerId);
-                                        String contact = lecturerContacts.get(lecturerId);
-                                        
-                                        // Create a new lecturer with a random proximity score (1-100) and add to list
-                                        Lecturer lecturer = new Lecturer(lecturerId, name, contact, 
-                                                new Random().nextInt(100) + 1, selectedDepartment);
-                                        lecturers.add(lecturer);
-                                        
-                                        Log.d(TAG, "Added lecturer for " + selectedDepartment + ": " + name);
-                                    } else {
-                                        Log.d(TAG, "Skipping lecturer not in " + selectedDepartment + ": " + 
-                                              lecturerNames.get(lecturerId) + ", belongs to: " + departments);
-                                        skippedCount++;
-                                    }
+                                    // Create a new lecturer with a random proximity score (1-100) and add to list
+                                    Lecturer lecturer = new Lecturer(lecturerId, name, contact, 
+                                            new Random().nextInt(100) + 1, selectedDepartment);
+                                    lecturers.add(lecturer);
+                                    
+                                    Log.d(TAG, "Added lecturer for " + selectedDepartment + ": " + name);
                                 } else {
-                                    Log.d(TAG, "No department data for lecturer: " + lecturerNames.get(lecturerId));
-                                    // If no department data, we'll skip this lecturer
+                                    Log.d(TAG, "Skipping lecturer not in " + selectedDepartment + ": " + 
+                                          lecturerNames.get(lecturerId) + ", belongs to: " + departments);
                                     skippedCount++;
                                 }
+                            } else {
+                                Log.d(TAG, "No department data for lecturer: " + lecturerNames.get(lecturerId));
+                                // If no department data, we'll skip this lecturer
+                                skippedCount++;
                             }
-                            
-                            Log.d(TAG, "Loaded " + lecturers.size() + " lecturers for " + selectedDepartment + 
-                                  " department, skipped " + skippedCount);
-                            
-                            latch.countDown();
                         }
                         
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError databaseError) {
-                            Log.e(TAG, "Error loading lecturer departments", databaseError.toException());
-                        }
-                    });
-                }
-                
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error loading lecturers", databaseError.toException());
-                }
-            });
+                        Log.d(TAG, "Loaded " + lecturers.size() + " lecturers for " + selectedDepartment + 
+                              " department, skipped " + skippedCount);
+                        
+                        latch.countDown();
+                    }
+                    
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.e(TAG, "Error loading lecturer departments", databaseError.toException());
+                    }
+                });
+            }
+            
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "Error loading lecturers", databaseError.toException());
+            }
+        });
     }
     
     private void loadCoursesInBackground(CountDownLatch latch) {
@@ -682,6 +690,7 @@ public class ConstraintSolverActivity extends AppCompatActivity {
             options.setPreferEvenDistribution(evenDistribution);
             options.setSpreadCourseSessions(spreadCourseSessions);
             options.setMaxHoursPerDay(maxHoursPerDay);
+            options.setUseCompactModel(true); // Linear-size Choco model
             
             // Add existing sessions from other departments as constraints
             options.setExistingTimetableSessions(existingSessionsFromOtherDepts);
@@ -864,11 +873,14 @@ public class ConstraintSolverActivity extends AppCompatActivity {
                         // Add the unique session key to the session object
                         session.setUniqueSessionKey(uniqueSessionKey);
                         
-                        // Save the session under the department path
+                        // Save the session under the department path, together with its index entries
                         String sessionId = database.child("department_timetableSessions").child(selectedDepartment).push().getKey();
                         if (sessionId != null) {
                             session.setId(sessionId);
-                            database.child("department_timetableSessions").child(selectedDepartment).child(sessionId).setValue(session)
+                            Map<String, Object> sessionUpdates = new HashMap<>();
+                            sessionUpdates.put(SessionIndex.sessionPath(selectedDepartment, sessionId), session.toMap());
+                            SessionIndex.addEntries(sessionUpdates, selectedDepartment, session);
+                            database.updateChildren(sessionUpdates)
                                     .addOnSuccessListener(aVoid1 -> {
                                         savedCount[0]++;
                                         Log.d(TAG, "Saved session " + savedCount[0] + " of " + sessionsToSave);
@@ -32,6 +32,7 @@ import com.example.manager.R;
 import com.example.manager.admin.adapter.CourseAdapter;
 import com.example.manager.admin.model.CourseItem;
 import com.example.manager.admin.model.Resource;
+import com.example.manager.data.SessionIndex;
 import com.example.manager.timetable.TimetableSession;
 import com.example.manager.model.User;
 import com.example.manager.databinding.ActivityCourseManagementBinding;
@@ -952,41 +953,78 @@ public class CourseManagementActivity extends AppCompatActivity implements Cours
             }
         });
 
-        // Step 2: Find department timetable sessions for this course
-        database.child("department_timetableSessions").addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    // For each department
-                    for (DataSnapshot departmentSnapshot : dataSnapshot.getChildren()) {
-                        String department = departmentSnapshot.getKey();
-                        Map<String, Object> departmentUpdates = new HashMap<>();
-                        boolean hasUpdates = false;
+        // Step 2: Find department timetable sessions for this course by key from the course index.
+        // Until every stored session has been indexed, the sessions are found by scanning every department
+        Runnable scanDepartmentSessions = () -> {
+            database.child("department_timetableSessions").addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                    if (dataSnapshot.exists()) {
+                        // For each department
+                        for (DataSnapshot departmentSnapshot : dataSnapshot.getChildren()) {
+                            String department = departmentSnapshot.getKey();
+                            Map<String, Object> departmentUpdates = new HashMap<>();
+                            boolean hasUpdates = false;
                         
-                        // Look for sessions with this course ID
-                        for (DataSnapshot sessionSnapshot : departmentSnapshot.getChildren()) {
-                            DataSnapshot courseIdSnapshot = sessionSnapshot.child("courseId");
-                            if (courseIdSnapshot.exists() && courseId.equals(courseIdSnapshot.getValue(String.class))) {
-                                String sessionKey = sessionSnapshot.getKey();
-                                departmentUpdates.put(sessionKey, null);
-                                hasUpdates = true;
+                            // Look for sessions with this course ID
+                            for (DataSnapshot sessionSnapshot : departmentSnapshot.getChildren()) {
+                                DataSnapshot courseIdSnapshot = sessionSnapshot.child("courseId");
+                                if (courseIdSnapshot.exists() && courseId.equals(courseIdSnapshot.getValue(String.class))) {
+                                    String sessionKey = sessionSnapshot.getKey();
+                                    departmentUpdates.put(sessionKey, null);
+                                    hasUpdates = true;
                                 
-                                if (!affectedDepartments.contains(department)) {
-                                    affectedDepartments.add(department);
+                                    if (!affectedDepartments.contains(department)) {
+                                        affectedDepartments.add(department);
+                                    }
                                 }
                             }
-                        }
                         
-                        // Execute the batch deletion for this department if needed
-                        if (hasUpdates) {
-                            DatabaseReference deptRef = database.child("department_timetableSessions").child(department);
-                            Task<Void> task = deptRef.updateChildren(departmentUpdates);
-                            allDeletionTasks.add(task);
-                            Log.d(TAG, "Found and marked " + departmentUpdates.size() + " department timetable sessions for deletion in " + department);
+                            // Execute the batch deletion for this department if needed
+                            if (hasUpdates) {
+                                DatabaseReference deptRef = database.child("department_timetableSessions").child(department);
+                                Task<Void> task = deptRef.updateChildren(departmentUpdates);
+                                allDeletionTasks.add(task);
+                                Log.d(TAG, "Found and marked " + departmentUpdates.size() + " department timetable sessions for deletion in " + department);
+                            }
                         }
+                    } else {
+                        Log.d(TAG, "No department timetable sessions found");
+                    }
+                    // Check if this was the last operation to complete
+                    if (pendingOperations.decrementAndGet() == 0) {
+                        finishDeletion.run();
+                    }
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError databaseError) {
+                    Log.e(TAG, "Failed to query department timetable sessions: " + databaseError.getMessage());
+                    // Check if this was the last operation to complete
+                    if (pendingOperations.decrementAndGet() == 0) {
+                        finishDeletion.run();
+                    }
+                }
+            });
+        };
+
+        SessionIndex.load(database, SessionIndex.byCourse(courseId), new SessionIndex.Callback() {
+            @Override
+            public void onLoaded(@NonNull List<TimetableSession> indexedSessions) {
+                // Delete the sessions and their index entries in one update
+                Map<String, Object> sessionUpdates = new HashMap<>();
+                for (TimetableSession session : indexedSessions) {
+                    sessionUpdates.put(SessionIndex.sessionPath(session.getDepartment(), session.getId()), null);
+                    SessionIndex.removeEntries(sessionUpdates, session);
+                    if (!affectedDepartments.contains(session.getDepartment())) {
+                        affectedDepartments.add(session.getDepartment());
                     }
-                } else {
-                    Log.d(TAG, "No department timetable sessions found");
+                }
+
+                if (!sessionUpdates.isEmpty()) {
+                    Task<Void> task = database.updateChildren(sessionUpdates);
+                    allDeletionTasks.add(task);
+                    Log.d(TAG, "Found and marked " + indexedSessions.size() + " indexed department timetable sessions for deletion");
                 }
                 // Check if this was the last operation to complete
                 if (pendingOperations.decrementAndGet() == 0) {
@@ -994,13 +1032,15 @@ public class CourseManagementActivity extends AppCompatActivity implements Cours
                 }
             }
 
+            @Override
+            public void onNotIndexed() {
+                scanDepartmentSessions.run();
+            }
+
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Failed to query department timetable sessions: " + databaseError.getMessage());
-                // Check if this was the last operation to complete
-                if (pendingOperations.decrementAndGet() == 0) {
-                    finishDeletion.run();
-                }
+                Log.e(TAG, "Failed to read course session index: " + databaseError.getMessage());
+                scanDepartmentSessions.run();
             }
         });
 
@@ -1156,6 +1196,9 @@ public class CourseManagementActivity extends AppCompatActivity implements Cours
                 deletionTasks.add(defaultTimetableTask);
             }
             
+            // 5. Delete the session indexes, which only point at the deleted sessions
+            deletionTasks.add(database.child(SessionIndex.ROOT).removeValue());
+            
             // Wait for all deletion tasks to complete
             Tasks.whenAll(deletionTasks)
                 .addOnCompleteListener(task -> {
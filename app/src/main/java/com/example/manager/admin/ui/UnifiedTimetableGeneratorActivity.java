@@ -24,16 +24,26 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.manager.R;
 import com.example.manager.admin.model.CourseItem;
 import com.example.manager.admin.model.Resource;
+import com.example.manager.data.CachedNode;
+import com.example.manager.data.FirebaseRepository;
+import com.example.manager.data.SessionIndex;
+import com.example.manager.data.TimetableWriteBatch;
 import com.example.manager.model.Lecturer;
 import com.example.manager.timetable.ChocoSolverTimetableGenerator;
+import com.example.manager.timetable.ConflictDetector;
 import com.example.manager.timetable.Course;
 import com.example.manager.timetable.CourseConverter;
+import com.example.manager.timetable.GenerationMetrics;
+import com.example.manager.timetable.PortfolioTimetableGenerator;
+import com.example.manager.timetable.ReservationLedger;
 import com.example.manager.timetable.SimpleTimetableGenerator;
+import com.example.manager.timetable.SlotCalendar;
 import com.example.manager.timetable.SolverType;
 import com.example.manager.timetable.Timetable;
 import com.example.manager.timetable.TimetableGenerator;
 import com.example.manager.timetable.TimetableGeneratorOptions;
 import com.example.manager.timetable.TimetableSession;
+import com.example.manager.timetable.TimetableSymbols;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
@@ -42,8 +52,11 @@ import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -55,10 +68,14 @@ import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -87,7 +104,8 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     // Solver Type enum
     private enum SolverType {
         SIMPLE,
-        CHOCO
+        CHOCO,
+        PORTFOLIO
     }
     
     // Currently selected solver type
@@ -97,10 +115,26 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     private List<String> allDepartments = new ArrayList<>();
     
     // Data structures to hold department-specific information
-    private Map<String, List<Resource>> departmentResources = new HashMap<>();
-    private Map<String, List<Lecturer>> departmentLecturers = new HashMap<>();
-    private Map<String, List<Course>> departmentCourses = new HashMap<>();
-    private Map<String, Timetable> departmentTimetables = new HashMap<>();
+    private Map<String, List<Resource>> departmentResources = new ConcurrentHashMap<>();
+    private Map<String, List<Lecturer>> departmentLecturers = new ConcurrentHashMap<>();
+    private Map<String, List<Course>> departmentCourses = new ConcurrentHashMap<>();
+    private Map<String, Timetable> departmentTimetables = new ConcurrentHashMap<>();
+    
+    // Rooms and lecturers claimed by departments that are generated concurrently
+    private ReservationLedger reservationLedger = new ReservationLedger();
+    private static final int MAX_RESERVATION_ATTEMPTS = 3;
+    
+    // Everything a run saves, written together once all departments are generated
+    private TimetableWriteBatch timetableWrites;
+    
+    // Teaching week every department is generated into
+    private SlotCalendar slotCalendar = new SlotCalendar();
+    
+    // Time a portfolio race may take per department
+    private static final long PORTFOLIO_DEADLINE_MS = 30000;
+    
+    // Time the Choco solver spends improving a department's first solution
+    private static final long LNS_TIME_LIMIT_MS = 5000;
     
     // Cross-department lecturer map to track lecturers who work in multiple departments
     private Map<String, Set<String>> lecturerDepartments = new HashMap<>();
@@ -110,18 +144,30 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     
     // Firebase
     private DatabaseReference database;
+    private FirebaseRepository repository;
     
-    // Background processing
+    // Background processing: pipeline stages run on executorService, departments on generationPool
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private volatile ExecutorService generationPool;
     private Handler mainHandler = new Handler(Looper.getMainLooper());
     
+    // The running generation, cancelled if the activity is destroyed
+    private CompletableFuture<Void> currentRun;
+    private final List<CompletableFuture<Void>> departmentLoads = new CopyOnWriteArrayList<>();
+    // Set when the current run is cancelled; each run gets a new flag, which its solvers check between steps
+    private volatile AtomicBoolean runCancelled = new AtomicBoolean(false);
+    
+    // Time a department's data may take to load before the department is skipped
+    private static final long DEPARTMENT_LOAD_TIMEOUT_MS = 30000;
+    
+    // Timings, model sizes and solver statistics of the current run, saved as JSON when it ends
+    private volatile GenerationMetrics runMetrics;
+    private static final String METRICS_DIRECTORY = "generation_metrics";
+    
     // Maps to store all resources and lecturers for reference
     private Map<String, Resource> allResourcesMap = new HashMap<>();
     private Map<String, Lecturer> allLecturersMap = new HashMap<>();
     
-    // Error tracking
-    private StringBuilder allErrors = new StringBuilder();
-    
     // Resource monitoring variables
     private long lastCpuTime = 0;
     private long lastAppTime = 0;
@@ -142,6 +188,7 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         
         // Initialize Firebase
         database = FirebaseDatabase.getInstance().getReference();
+        repository = FirebaseRepository.getInstance(this);
         
         // Initialize UI elements
         initializeUI();
@@ -160,6 +207,14 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         };
     }
     
+    @Override
+    protected void onDestroy() {
+        cancelGeneration();
+        monitoringHandler.removeCallbacks(monitoringRunnable);
+        executorService.shutdownNow();
+        super.onDestroy();
+    }
+    
     private void initializeUI() {
         avoidBackToBackCheckbox = findViewById(R.id.avoidBackToBackCheckbox);
         avoidBackToBackStudentsCheckbox = findViewById(R.id.avoidBackToBackStudentsCheckbox);
@@ -189,6 +244,9 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             } else if (checkedId == R.id.chocoSolverRadioButton) {
                 selectedSolverType = SolverType.CHOCO;
                 Log.d(TAG, "Selected Choco Solver");
+            } else if (checkedId == R.id.portfolioSolverRadioButton) {
+                selectedSolverType = SolverType.PORTFOLIO;
+                Log.d(TAG, "Selected Portfolio Solver");
             }
         });
         
@@ -206,6 +264,11 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         // Reset resource warning flag
         resourceWarningShown = false;
         
+        // Start recording the metrics of this run
+        runMetrics = new GenerationMetrics(UUID.randomUUID().toString());
+        runMetrics.setAttribute("solver", selectedSolverType.name());
+        runMetrics.setAttribute("slotMinutes", slotCalendar.getSlotMinutes());
+        
         // Start resource monitoring
         monitoringHandler.post(monitoringRunnable);
         
@@ -320,18 +383,28 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     }
     
     /**
-     * Prefetch all resources and lecturers from Firebase and store them in maps for easy lookup
+     * Prefetch all resources and lecturers and store them in maps for easy lookup.
+     * Both come from the shared repository, so only the first generation downloads them.
      */
     private void prefetchResourcesAndLecturers() {
-        CountDownLatch prefetchLatch = new CountDownLatch(2);
+        AtomicInteger pending = new AtomicInteger(2);
+        AtomicBoolean proceeded = new AtomicBoolean(false);
+        
+        // Proceed with generation after prefetching, or after 30 seconds at most
+        Runnable proceed = () -> {
+            if (proceeded.compareAndSet(false, true)) {
+                proceedWithGeneration();
+            }
+        };
+        mainHandler.postDelayed(proceed, 30000);
         
         // Prefetch all resources
-        database.child("resources").addListenerForSingleValueEvent(new ValueEventListener() {
+        loadTimed("resources", new FirebaseRepository.SnapshotCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Resource resource = snapshot.getValue(Resource.class);
-                    if (resource != null && resource.getId() != null) {
+            public void onDataChange(@NonNull CachedNode dataSnapshot) {
+                for (CachedNode snapshot : dataSnapshot.getChildren()) {
+                    try {
+                        Resource resource = readResource(snapshot);
                         allResourcesMap.put(resource.getId(), resource);
                         Log.d(TAG, "Prefetched resource: " + resource.getName() + " (ID: " + resource.getId() + ")");
                         
@@ -341,52 +414,68 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                             resource.setLocation(inferredLocation);
                             Log.d(TAG, "Added inferred location for resource " + resource.getName() + ": " + inferredLocation);
                         }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error prefetching resource " + snapshot.getKey() + ": " + e.getMessage());
                     }
                 }
                 Log.d(TAG, "Prefetched " + allResourcesMap.size() + " resources");
-                prefetchLatch.countDown();
+                if (pending.decrementAndGet() == 0) {
+                    proceed.run();
+                }
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
                 Log.e(TAG, "Error prefetching resources", databaseError.toException());
-                prefetchLatch.countDown();
+                if (pending.decrementAndGet() == 0) {
+                    proceed.run();
+                }
             }
         });
         
         // Prefetch all lecturers
-        database.child("lecturers").addListenerForSingleValueEvent(new ValueEventListener() {
+        loadTimed("lecturers", new FirebaseRepository.SnapshotCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Lecturer lecturer = snapshot.getValue(Lecturer.class);
-                    if (lecturer != null && lecturer.getId() != null) {
+            public void onDataChange(@NonNull CachedNode dataSnapshot) {
+                for (CachedNode snapshot : dataSnapshot.getChildren()) {
+                    try {
+                        String id = snapshot.child("id").getValue(String.class);
+                        if (id == null) id = snapshot.getKey();
+                        String name = snapshot.child("name").getValue(String.class);
+                        String contact = snapshot.child("contact").getValue(String.class);
+                        Integer proximityScore = snapshot.child("proximityScore").getValue(Integer.class);
+                        String department = snapshot.child("department").getValue(String.class);
+                        
+                        Lecturer lecturer = new Lecturer(id, name, contact,
+                                proximityScore != null ? proximityScore : 1, department);
                         allLecturersMap.put(lecturer.getId(), lecturer);
                         Log.d(TAG, "Prefetched lecturer: " + lecturer.getName() + " (ID: " + lecturer.getId() + ")");
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error prefetching lecturer " + snapshot.getKey() + ": " + e.getMessage());
                     }
                 }
                 Log.d(TAG, "Prefetched " + allLecturersMap.size() + " lecturers");
-                prefetchLatch.countDown();
+                if (pending.decrementAndGet() == 0) {
+                    proceed.run();
+                }
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
                 Log.e(TAG, "Error prefetching lecturers", databaseError.toException());
-                prefetchLatch.countDown();
+                if (pending.decrementAndGet() == 0) {
+                    proceed.run();
+                }
             }
         });
-        
-        try {
-            // Wait up to 30 seconds for prefetch to complete
-            prefetchLatch.await(30, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Log.e(TAG, "Prefetch interrupted", e);
-        }
-        
-        // Proceed with generation after prefetching
-        proceedWithGeneration();
     }
     
+    /**
+     * Run the generation pipeline: load the data of every department concurrently, generate the
+     * departments in parallel, validate and resolve conflicts across them, save everything and
+     * show the results. Each stage is a future, so nothing blocks while waiting for Firebase and
+     * the run can be cancelled between stages.
+     */
     private void proceedWithGeneration() {
         // Get constraint options from UI
         final boolean avoidBackToBack = avoidBackToBackCheckbox.isChecked();
@@ -395,183 +484,380 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         final boolean spreadCourseSessions = spreadCourseSessionsCheckbox.isChecked();
         final int maxHoursPerDay = Integer.parseInt(maxHoursSpinner.getSelectedItem().toString());
         
-        // Create CountDownLatch for all departments
-        final CountDownLatch departmentLatch = new CountDownLatch(allDepartments.size());
+        // Track generation results; departments that fail to load are reported here too
+        final Map<String, Boolean> generationSuccess = new ConcurrentHashMap<>();
+        final Map<String, String> generationErrors = new ConcurrentHashMap<>();
         
-        // Use AtomicBoolean to track errors
-        final AtomicBoolean hasError = new AtomicBoolean(false);
-        final StringBuilder errorMessage = new StringBuilder();
+        runCancelled = new AtomicBoolean(false);
+        GenerationMetrics metrics = runMetrics != null ? runMetrics : new GenerationMetrics(UUID.randomUUID().toString());
+        runMetrics = metrics;
+        metrics.setAttribute("departments", allDepartments.size());
+        long loadStart = SystemClock.elapsedRealtime();
         
-        // Start a new thread for the overall process
-        new Thread(() -> {
-            try {
-                // Load data for each department
-                for (String department : allDepartments) {
-                    Log.d(TAG, "Loading data for department: " + department);
-                    loadDepartmentData(department, departmentLatch, hasError, errorMessage);
-                }
-                
-                // Wait for all departments to load data
-                if (!departmentLatch.await(60, TimeUnit.SECONDS)) {
-                    throw new InterruptedException("Timed out waiting for departments to load data");
+        // Load stage: a department that fails or times out is skipped instead of failing the run
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        for (String department : allDepartments) {
+            CompletableFuture<Void> load = loadDepartmentData(department);
+            departmentLoads.add(load);
+            loads.add(load.handle((ignored, error) -> {
+                metrics.recordPhase(department, "load", SystemClock.elapsedRealtime() - loadStart);
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    Log.e(TAG, "Error loading data for " + department, cause);
+                    // Late callbacks of this department's loads must not touch the lists generation reads
+                    departmentResources.put(department, new ArrayList<>());
+                    departmentLecturers.put(department, new ArrayList<>());
+                    departmentCourses.put(department, new ArrayList<>());
+                    generationSuccess.put(department, false);
+                    generationErrors.put(department, "Loading failed: " + cause.getMessage());
                 }
-                
-                // If there were any errors, show them and abort
-                if (hasError.get()) {
+                return null;
+            }));
+        }
+        
+        currentRun = CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    metrics.recordPhase("load", SystemClock.elapsedRealtime() - loadStart);
+                    return prepareGeneration(generationErrors.keySet());
+                }, executorService)
+                .thenCompose(departments -> generateDepartments(departments, avoidBackToBack, avoidBackToBackStudents,
+                        preferEvenDistribution, spreadCourseSessions, maxHoursPerDay, generationSuccess, generationErrors))
+                .thenApplyAsync(ignored -> {
+                    long validateStart = SystemClock.elapsedRealtime();
+                    ConflictReport report = validateAndResolveConflicts();
+                    metrics.recordPhase("validate", SystemClock.elapsedRealtime() - validateStart);
+                    return report;
+                }, executorService)
+                .thenComposeAsync(report -> {
+                    ensureNotCancelled();
+                    long saveStart = SystemClock.elapsedRealtime();
+                    // Save the department timetables together with the lecturer and admin views
+                    // built from them, after conflict resolution has moved any sessions
+                    consolidateLecturerTimetables(departmentTimetables);
+                    return consolidateAllDepartmentsTimetable(departmentTimetables).thenComposeAsync(consolidated -> {
+                        metrics.set(null, "save", "paths", timetableWrites.size());
+                        return commitTimetableWrites().thenApply(saved -> {
+                            metrics.recordPhase("save", SystemClock.elapsedRealtime() - saveStart);
+                            return report;
+                        });
+                    }, executorService);
+                }, executorService)
+                .handle((report, error) -> {
+                    departmentLoads.clear();
+                    metrics.set(null, "result", "status", runCancelled.get() ? "cancelled" : error != null ? "failed" : "completed");
+                    if (!executorService.isShutdown()) {
+                        executorService.execute(() -> exportMetrics(metrics));
+                    }
+                    if (runCancelled.get()) {
+                        Log.d(TAG, "Timetable generation cancelled");
+                        return null;
+                    }
                     mainHandler.post(() -> {
                         progressBar.setVisibility(View.GONE);
-                        statusTextView.setText("Failed");
-                        showError("Errors occurred while loading data:\n" + errorMessage.toString());
                         generateButton.setEnabled(true);
-                    });
-                    return;
-                }
-                
-                // Process assigned lecturers from courses to ensure we have all needed lecturers
-                ensureAssignedLecturersExist();
-                
-                // After all loading is complete, check total session count for IT department
-                if (allDepartments.contains("Information Technology") && departmentCourses.containsKey("Information Technology")) {
-                    int totalSessions = 0;
-                    StringBuilder sessionDetails = new StringBuilder("Information Technology department sessions breakdown:\n");
-                    
-                    for (Course course : departmentCourses.get("Information Technology")) {
-                        CourseItem item = convertCourseToItem(course);
-                        int courseSessions = item.getNumberOfLectures() + item.getNumberOfLabs();
-                        totalSessions += courseSessions;
                         
-                        sessionDetails.append("Course: ").append(course.getName())
-                                   .append(", credit hours: ").append(course.getCreditHours())
-                                   .append(", lectures: ").append(item.getNumberOfLectures())
-                                   .append(", labs: ").append(item.getNumberOfLabs())
-                                   .append(", total: ").append(courseSessions)
-                                   .append(", room type: ").append(course.getRequiredRoomType())
-                                   .append("\n");
-                    }
-                    
-                    Log.d(TAG, "TOTAL Information Technology sessions: " + totalSessions);
-                    Log.d(TAG, sessionDetails.toString());
-                }
-                
-                // Generate timetables for each department
-                mainHandler.post(() -> statusTextView.setText("Generating timetables for " + allDepartments.size() + " departments..."));
-                
-                // Track generation results
-                final Map<String, Boolean> generationSuccess = new HashMap<>();
-                final Map<String, String> generationErrors = new HashMap<>();
-                
-                // Generate timetable for each department
-                for (String department : allDepartments) {
-                    try {
-                        mainHandler.post(() -> statusTextView.setText("Generating timetable for " + department + "..."));
+                        // Stop resource monitoring
+                        monitoringHandler.removeCallbacks(monitoringRunnable);
                         
-                        // Check if we have resources and courses for this department
-                        if (departmentResources.get(department).isEmpty()) {
-                            throw new Exception("No resources available for " + department);
-                        }
-                        
-                        if (departmentLecturers.get(department).isEmpty()) {
-                            throw new Exception("No lecturers available for " + department);
-                        }
-                        
-                        if (departmentCourses.get(department).isEmpty()) {
-                            throw new Exception("No courses available for " + department);
+                        if (error != null) {
+                            Throwable cause = unwrap(error);
+                            Log.e(TAG, "Error in timetable generation process", cause);
+                            statusTextView.setText("Failed");
+                            showError("Error: " + cause.getMessage());
+                        } else {
+                            showGenerationResults(report, generationSuccess, generationErrors);
                         }
-                        
-                        // Generate timetable for this department
-                        Log.d(TAG, "Generating timetable for " + department + " with " +
-                              departmentResources.get(department).size() + " resources, " +
-                              departmentLecturers.get(department).size() + " lecturers, and " +
-                              departmentCourses.get(department).size() + " courses");
-                        
-                        generateTimetableForDepartment(department, avoidBackToBack, avoidBackToBackStudents,
-                                                       preferEvenDistribution, spreadCourseSessions, maxHoursPerDay);
-                        
-                        generationSuccess.put(department, true);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error generating timetable for " + department, e);
-                        generationSuccess.put(department, false);
-                        generationErrors.put(department, e.getMessage());
-                    }
-                }
-                
-                // Validate the entire timetable across all departments to ensure no resource conflicts exist
-                Map<String, List<ResourceConflict>> departmentConflicts = validateNoResourceConflictsAcrossDepartments();
+                    });
+                    return null;
+                });
+    }
+    
+    /**
+     * Prepare the loaded data for generation and reset the state of the previous run
+     *
+     * @param failedDepartments Departments whose data could not be loaded
+     * @return The departments to generate
+     */
+    private List<String> prepareGeneration(Set<String> failedDepartments) {
+        ensureNotCancelled();
+        List<String> departments = new ArrayList<>();
+        for (String department : allDepartments) {
+            if (!failedDepartments.contains(department)) {
+                departments.add(department);
+            }
+        }
+        if (departments.isEmpty()) {
+            throw new IllegalStateException("No department data could be loaded");
+        }
+        
+        // Process assigned lecturers from courses to ensure we have all needed lecturers
+        ensureAssignedLecturersExist();
+        
+        // After all loading is complete, check total session count for IT department
+        if (departments.contains("Information Technology") && departmentCourses.containsKey("Information Technology")) {
+            int totalSessions = 0;
+            StringBuilder sessionDetails = new StringBuilder("Information Technology department sessions breakdown:\n");
+            
+            for (Course course : departmentCourses.get("Information Technology")) {
+                CourseItem item = convertCourseToItem(course);
+                int courseSessions = item.getNumberOfLectures() + item.getNumberOfLabs();
+                totalSessions += courseSessions;
                 
-                // Attempt to automatically resolve any conflicts that were found
-                boolean conflictsResolved = false;
-                if (!areAllConflictsEmpty(departmentConflicts)) {
-                    Log.d(TAG, "Attempting to automatically resolve cross-department conflicts");
-                    departmentConflicts = resolveResourceConflicts(departmentConflicts);
-                    conflictsResolved = resolvedConflictsCount > 0;
-                }
-                // Create final copies for lambda
-                final Map<String, List<ResourceConflict>> finalDepartmentConflicts = departmentConflicts;
-                final boolean finalConflictsResolved = conflictsResolved;
-                final int finalResolvedCount = resolvedConflictsCount;
-
-                // Display results
-                mainHandler.post(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    generateButton.setEnabled(true);
-                    
-                    // Stop resource monitoring
-                    monitoringHandler.removeCallbacks(monitoringRunnable);
+                sessionDetails.append("Course: ").append(course.getName())
+                           .append(", credit hours: ").append(course.getCreditHours())
+                           .append(", lectures: ").append(item.getNumberOfLectures())
+                           .append(", labs: ").append(item.getNumberOfLabs())
+                           .append(", total: ").append(courseSessions)
+                           .append(", room type: ").append(course.getRequiredRoomType())
+                           .append("\n");
+            }
+            
+            Log.d(TAG, "TOTAL Information Technology sessions: " + totalSessions);
+            Log.d(TAG, sessionDetails.toString());
+        }
+        
+        // Departments are generated concurrently; shared rooms and lecturers are claimed
+        // through the reservation ledger as they are assigned
+        departmentTimetables.clear();
+        reservationLedger = new ReservationLedger(slotCalendar.getSlotMinutes());
+        timetableWrites = new TimetableWriteBatch(database);
+        return departments;
+    }
+    
+    /**
+     * Generate the departments in parallel on a pool sized to the cores
+     *
+     * @return A future that completes when every department has finished, successfully or not
+     */
+    private CompletableFuture<Void> generateDepartments(List<String> departments, boolean avoidBackToBack,
+                                                        boolean avoidBackToBackStudents, boolean preferEvenDistribution,
+                                                        boolean spreadCourseSessions, int maxHoursPerDay,
+                                                        Map<String, Boolean> generationSuccess,
+                                                        Map<String, String> generationErrors) {
+        ensureNotCancelled();
+        mainHandler.post(() -> statusTextView.setText("Generating timetables for " + departments.size() + " departments..."));
+        
+        int poolSize = Math.max(1, Math.min(departments.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        generationPool = pool;
+        Log.d(TAG, "Generating " + departments.size() + " departments on " + poolSize + " threads");
+        long generationStart = System.currentTimeMillis();
+        
+        List<CompletableFuture<Void>> generationTasks = new ArrayList<>();
+        for (String department : departments) {
+            generationTasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    ensureNotCancelled();
+                    mainHandler.post(() -> statusTextView.setText("Generating timetable for " + department + "..."));
                     
-                    // Count successful generations
-                    long successCount = generationSuccess.values().stream().filter(success -> success).count();
+                    // Check if we have resources and courses for this department
+                    if (departmentResources.get(department).isEmpty()) {
+                        throw new Exception("No resources available for " + department);
+                    }
                     
-                    if (successCount == allDepartments.size()) {
-                        statusTextView.setText("Successfully generated timetables for all " + allDepartments.size() + " departments");
-                        showSuccess("All timetables generated successfully");
-                    } else {
-                        statusTextView.setText("Generated " + successCount + " of " + allDepartments.size() + " timetables");
-                        
-                        // Build error message
-                        StringBuilder errors = new StringBuilder("Errors occurred in some departments:\n");
-                        for (String dept : generationErrors.keySet()) {
-                            errors.append("• ").append(dept).append(": ").append(generationErrors.get(dept)).append("\n");
-                        }
-                        
-                        showError(errors.toString());
+                    if (departmentLecturers.get(department).isEmpty()) {
+                        throw new Exception("No lecturers available for " + department);
                     }
-
-                    // Display resource conflicts if any
-                    if (!areAllConflictsEmpty(finalDepartmentConflicts)) {
-                        StringBuilder conflictMessage = new StringBuilder("Resource conflicts found across departments:\n");
-                        for (Map.Entry<String, List<ResourceConflict>> entry : finalDepartmentConflicts.entrySet()) {
-                            if (entry.getValue().isEmpty()) {
-                                continue;
-                            }
-                            conflictMessage.append("• ").append(entry.getKey()).append(":\n");
-                            for (ResourceConflict conflict : entry.getValue()) {
-                                conflictMessage.append("  • ").append(conflict.toString()).append("\n");
-                            }
-                        }
-                        showError(conflictMessage.toString());
-                    } else if (finalConflictsResolved) {
-                        showSuccess("Successfully resolved " + finalResolvedCount + " resource conflicts across departments");
+                    
+                    if (departmentCourses.get(department).isEmpty()) {
+                        throw new Exception("No courses available for " + department);
                     }
                     
-                    // Consolidate and upload lecturer timetables
-                    consolidateAndUploadLecturerTimetables(departmentTimetables);
+                    // Generate timetable for this department
+                    Log.d(TAG, "Generating timetable for " + department + " with " +
+                          departmentResources.get(department).size() + " resources, " +
+                          departmentLecturers.get(department).size() + " lecturers, and " +
+                          departmentCourses.get(department).size() + " courses");
                     
-                    // Consolidate all department timetables into a single view for admin access
-                    consolidateAllDepartmentsTimetable();
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Error in timetable generation process", e);
-                mainHandler.post(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    statusTextView.setText("Failed");
-                    showError("Error: " + e.getMessage());
-                    generateButton.setEnabled(true);
+                    long departmentStart = SystemClock.elapsedRealtime();
+                    generateTimetableForDepartment(department, avoidBackToBack, avoidBackToBackStudents,
+                                                   preferEvenDistribution, spreadCourseSessions, maxHoursPerDay);
+                    runMetrics.recordPhase(department, "generate", SystemClock.elapsedRealtime() - departmentStart);
                     
-                    // Stop resource monitoring
-                    monitoringHandler.removeCallbacks(monitoringRunnable);
+                    generationSuccess.put(department, true);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error generating timetable for " + department, e);
+                    reservationLedger.releaseAll(department);
+                    generationSuccess.put(department, false);
+                    generationErrors.put(department, String.valueOf(e.getMessage()));
+                }
+            }, pool));
+        }
+        
+        return CompletableFuture.allOf(generationTasks.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    pool.shutdown();
+                    runMetrics.recordPhase("generate", System.currentTimeMillis() - generationStart);
+                    runMetrics.set(null, "ledger", "rejectedClaims", reservationLedger.getRejectedClaimCount());
+                    Log.d(TAG, "Generated " + departments.size() + " departments in " +
+                          (System.currentTimeMillis() - generationStart) + "ms, " +
+                          reservationLedger.getRejectedClaimCount() + " slot claims lost to other departments");
                 });
+    }
+    
+    /**
+     * Validate the timetables of all departments against each other and try to resolve the
+     * resource conflicts that were found
+     */
+    private ConflictReport validateAndResolveConflicts() {
+        ensureNotCancelled();
+        
+        // Validate the entire timetable across all departments to ensure no resource conflicts exist
+        Map<String, List<ResourceConflict>> departmentConflicts = validateNoResourceConflictsAcrossDepartments();
+        
+        // Attempt to automatically resolve any conflicts that were found
+        boolean conflictsResolved = false;
+        if (!areAllConflictsEmpty(departmentConflicts)) {
+            Log.d(TAG, "Attempting to automatically resolve cross-department conflicts");
+            departmentConflicts = resolveResourceConflicts(departmentConflicts);
+            conflictsResolved = resolvedConflictsCount > 0;
+        }
+        return new ConflictReport(departmentConflicts, conflictsResolved, resolvedConflictsCount);
+    }
+    
+    /**
+     * Show the outcome of a run: which departments were generated, and the conflicts that
+     * were resolved or remain
+     */
+    private void showGenerationResults(ConflictReport report, Map<String, Boolean> generationSuccess,
+                                       Map<String, String> generationErrors) {
+        // Count successful generations
+        long successCount = generationSuccess.values().stream().filter(success -> success).count();
+        
+        if (successCount == allDepartments.size()) {
+            statusTextView.setText("Successfully generated timetables for all " + allDepartments.size() + " departments");
+            showSuccess("All timetables generated successfully");
+        } else {
+            statusTextView.setText("Generated " + successCount + " of " + allDepartments.size() + " timetables");
+            
+            // Build error message
+            StringBuilder errors = new StringBuilder("Errors occurred in some departments:\n");
+            for (String dept : generationErrors.keySet()) {
+                errors.append("• ").append(dept).append(": ").append(generationErrors.get(dept)).append("\n");
+            }
+            
+            showError(errors.toString());
+        }
+
+        // Display resource conflicts if any
+        if (!areAllConflictsEmpty(report.departmentConflicts)) {
+            StringBuilder conflictMessage = new StringBuilder("Resource conflicts found across departments:\n");
+            for (Map.Entry<String, List<ResourceConflict>> entry : report.departmentConflicts.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                conflictMessage.append("• ").append(entry.getKey()).append(":\n");
+                for (ResourceConflict conflict : entry.getValue()) {
+                    conflictMessage.append("  • ").append(conflict.toString()).append("\n");
+                }
+            }
+            showError(conflictMessage.toString());
+        } else if (report.conflictsResolved) {
+            showSuccess("Successfully resolved " + report.resolvedCount + " resource conflicts across departments");
+        }
+    }
+    
+    /**
+     * Cancel the running generation: pending loads are abandoned, stages that have not started
+     * are skipped and department solvers are interrupted
+     */
+    private void cancelGeneration() {
+        runCancelled.set(true);
+        for (CompletableFuture<Void> load : departmentLoads) {
+            load.cancel(true);
+        }
+        departmentLoads.clear();
+        if (currentRun != null) {
+            currentRun.cancel(true);
+        }
+        ExecutorService pool = generationPool;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void ensureNotCancelled() {
+        if (runCancelled.get()) {
+            throw new CancellationException("Timetable generation was cancelled");
+        }
+    }
+    
+    /**
+     * Complete a future with a TimeoutException if it hasn't completed within the given time
+     */
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs, String message) {
+        Runnable timeout = () -> future.completeExceptionally(new TimeoutException(message));
+        mainHandler.postDelayed(timeout, timeoutMs);
+        future.whenComplete((result, error) -> mainHandler.removeCallbacks(timeout));
+        return future;
+    }
+    
+    /**
+     * Load a path from the repository, recording how long it took in the run's metrics
+     */
+    private void loadTimed(String path, FirebaseRepository.SnapshotCallback callback) {
+        GenerationMetrics metrics = runMetrics;
+        long start = SystemClock.elapsedRealtime();
+        repository.load(path, new FirebaseRepository.SnapshotCallback() {
+            @Override
+            public void onDataChange(@NonNull CachedNode node) {
+                if (metrics != null) {
+                    metrics.recordFetch(path, SystemClock.elapsedRealtime() - start);
+                }
+                callback.onDataChange(node);
             }
-        }).start();
+            
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                if (metrics != null) {
+                    metrics.recordFetch(path, SystemClock.elapsedRealtime() - start);
+                }
+                callback.onCancelled(databaseError);
+            }
+        });
+    }
+    
+    /**
+     * Log the metrics of a finished run and save them as JSON in the app's files, one file per
+     * run, so runs can be compared over time
+     */
+    private void exportMetrics(GenerationMetrics metrics) {
+        metrics.finish();
+        String json = metrics.toJson();
+        Log.i(TAG, "Generation metrics: " + json);
+        File directory = new File(getFilesDir(), METRICS_DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create metrics directory " + directory);
+            return;
+        }
+        File file = new File(directory, System.currentTimeMillis() + "-" + metrics.getRunId() + ".json");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save generation metrics to " + file, e);
+        }
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    /**
+     * Cross-department conflicts left after a run, and how many were resolved
+     */
+    private static class ConflictReport {
+        final Map<String, List<ResourceConflict>> departmentConflicts;
+        final boolean conflictsResolved;
+        final int resolvedCount;
+        
+        ConflictReport(Map<String, List<ResourceConflict>> departmentConflicts, boolean conflictsResolved, int resolvedCount) {
+            this.departmentConflicts = departmentConflicts;
+            this.conflictsResolved = conflictsResolved;
+            this.resolvedCount = resolvedCount;
+        }
     }
     
     /**
@@ -591,9 +877,19 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         options.setPreferEvenDistribution(preferEvenDistribution);
         options.setSpreadCourseSessions(spreadCourseSessions);
         options.setMaxHoursPerDay(maxHoursPerDay);
+        options.setUseCompactModel(true); // Linear-size Choco model
+        options.setUseBookingTables(true); // Other departments' sessions don't grow the model
+        options.setBreakSymmetries(true); // Don't search permutations of identical sessions and rooms
+        options.setSlotCalendar(slotCalendar);
+        
+        // Claim rooms and lecturers in the shared ledger while departments are generated concurrently
+        options.setReservationLedger(reservationLedger, department);
         
-        // Add existing timetable sessions from other departments to avoid conflicts
-        options.setExistingTimetableSessions(getAllExistingTimetableSessions(department));
+        // Record the model size and solver statistics of this department
+        options.setMetrics(runMetrics, department);
+        
+        // Stop the solver as soon as the run is cancelled
+        options.setCancellationFlag(runCancelled);
         
         // Create appropriate timetable generator based on selected solver type
         TimetableGenerator generator;
@@ -601,6 +897,15 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         if (selectedSolverType == SolverType.CHOCO) {
             Log.d(TAG, "Using CHOCO solver for " + department);
             generator = new ChocoSolverTimetableGenerator();
+            // Start the search from the greedy timetable, and keep it if the search finds nothing
+            options.setWarmStart(true);
+            // Then spend a fixed budget lowering its penalty by large neighbourhood search
+            options.setLnsTimeLimitMs(LNS_TIME_LIMIT_MS);
+        } else if (selectedSolverType == SolverType.PORTFOLIO) {
+            // Departments already run in parallel, so the cores are shared between their races
+            int chocoSearches = Runtime.getRuntime().availableProcessors() / Math.max(1, allDepartments.size());
+            Log.d(TAG, "Using PORTFOLIO solver for " + department);
+            generator = new PortfolioTimetableGenerator(PORTFOLIO_DEADLINE_MS, chocoSearches);
         } else {
             Log.d(TAG, "Using SIMPLE solver for " + department);
             generator = new SimpleTimetableGenerator();
@@ -622,12 +927,49 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         // Generate the timetable
         Timetable timetable = null;
         try {
-            timetable = generator.generateTimetable(
-                departmentResources.get(department),
-                departmentLecturers.get(department),
-                courses,
-                options
-            );
+            // Solve against the sessions other departments have committed so far, then commit ours.
+            // If another department committed a clashing slot in the meantime, solve again.
+            for (int attempt = 1; ; attempt++) {
+                // Add existing timetable sessions from other departments to avoid conflicts
+                options.setExistingTimetableSessions(getAllExistingTimetableSessions(department));
+                
+                if (generator instanceof ChocoSolverTimetableGenerator) {
+                    // Show every improving timetable as Choco finds it; stop refining once the
+                    // days are balanced to within one session
+                    timetable = ((ChocoSolverTimetableGenerator) generator).generateTimetable(
+                        departmentResources.get(department),
+                        departmentLecturers.get(department),
+                        courses,
+                        options,
+                        (solution, score) -> {
+                            Log.d(TAG, department + ": " + score);
+                            mainHandler.post(() -> statusTextView.setText(department + ": timetable found (day imbalance "
+                                    + score.getDayImbalance() + "), refining..."));
+                            return score.getDayImbalance() > 1;
+                        }
+                    );
+                } else {
+                    timetable = generator.generateTimetable(
+                        departmentResources.get(department),
+                        departmentLecturers.get(department),
+                        courses,
+                        options
+                    );
+                }
+                
+                if (timetable == null || timetable.getSessions() == null
+                        || reservationLedger.tryCommit(department, timetable.getSessions())) {
+                    break;
+                }
+                if (attempt == MAX_RESERVATION_ATTEMPTS) {
+                    // Keep the timetable; the cross-department validation pass will repair what's left
+                    Log.w(TAG, "Could not reserve all slots for " + department + " after " + attempt + " attempts");
+                    break;
+                }
+                Log.d(TAG, "Slots for " + department + " were taken by another department, regenerating (attempt " +
+                      (attempt + 1) + ")");
+                reservationLedger.releaseAll(department);
+            }
             
             // Verify complete coverage after timetable generation
             // Create a set of all course IDs that need to be scheduled
@@ -760,54 +1102,30 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     }
 
     /**
-     * Add back the loadDepartmentData method that was accidentally removed
+     * Load the resources, lecturers and courses of a department concurrently
+     *
+     * @return A future that completes when all three are loaded, or fails if the department
+     *         has no courses or doesn't load within DEPARTMENT_LOAD_TIMEOUT_MS
      */
-    private void loadDepartmentData(String department, CountDownLatch departmentLatch, AtomicBoolean hasError, StringBuilder errorMessage) {
-        try {
-            Log.d(TAG, "Loading data for department: " + department);
-            
-            // Initialize empty lists for this department if they don't exist
-            if (!departmentResources.containsKey(department)) {
-                departmentResources.put(department, new ArrayList<>());
-            }
-            
-            if (!departmentLecturers.containsKey(department)) {
-                departmentLecturers.put(department, new ArrayList<>());
-            }
-            
-            if (!departmentCourses.containsKey(department)) {
-                departmentCourses.put(department, new ArrayList<>());
-            }
-            
-            // Create a separate CountDownLatch to wait for resource, lecturer, and course loading
-            // We need 3 countdown operations (resources, lecturers, courses)
-            CountDownLatch loadingLatch = new CountDownLatch(3);
-            
-            // Load resources for the department
-            loadResourcesForDepartment(department, loadingLatch);
-            
-            // Load lecturers for the department
-            loadLecturersForDepartment(department, loadingLatch);
-            
-            // Load courses for the department
-            loadCoursesForDepartment(department, loadingLatch);
-            
-            // Wait for all loading operations to complete
-            loadingLatch.await(30, TimeUnit.SECONDS); // Add timeout to prevent hanging
-            
-            // Now that loading is complete, check if we have required data
-            if (departmentCourses.get(department) == null || departmentCourses.get(department).isEmpty()) {
-                throw new Exception("No courses found for " + department);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading data for " + department, e);
-            hasError.set(true);
-            synchronized (errorMessage) {
-                errorMessage.append("- ").append(department).append(": ").append(e.getMessage()).append("\n");
-            }
-        } finally {
-            departmentLatch.countDown();
-        }
+    private CompletableFuture<Void> loadDepartmentData(String department) {
+        Log.d(TAG, "Loading data for department: " + department);
+        
+        CompletableFuture<Void> resourcesLoaded = new CompletableFuture<>();
+        CompletableFuture<Void> lecturersLoaded = new CompletableFuture<>();
+        CompletableFuture<Void> coursesLoaded = new CompletableFuture<>();
+        loadResourcesForDepartment(department, resourcesLoaded);
+        loadLecturersForDepartment(department, lecturersLoaded);
+        loadCoursesForDepartment(department, coursesLoaded);
+        
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(resourcesLoaded, lecturersLoaded, coursesLoaded)
+                .thenRun(() -> {
+                    // Now that loading is complete, check if we have required data
+                    if (departmentCourses.get(department) == null || departmentCourses.get(department).isEmpty()) {
+                        throw new IllegalStateException("No courses found for " + department);
+                    }
+                });
+        return withTimeout(loaded, DEPARTMENT_LOAD_TIMEOUT_MS,
+                "Timed out loading data for " + department + " after " + DEPARTMENT_LOAD_TIMEOUT_MS / 1000 + " seconds");
     }
 
     // Add these utility methods for showing error and success messages
@@ -853,14 +1171,18 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             
             Log.d(TAG, String.format("Memory usage: %d MB / %d MB (%.2f%%)", 
                   usedMemoryMB, maxMemoryMB, memoryUsagePercent));
+            GenerationMetrics metrics = runMetrics;
+            if (metrics != null) {
+                metrics.recordMax("memory", "peakUsedMb", usedMemoryMB);
+            }
                   
             // Alert or adapt when approaching threshold
             if (memoryUsagePercent > MEMORY_THRESHOLD_PERCENT && !resourceWarningShown) {
                 Log.w(TAG, "High memory usage detected during timetable generation!");
                 showResourceWarning("High memory usage detected", memoryUsagePercent);
                 
-                // If memory is critically low, switch to SIMPLE solver if using CHOCO
-                if (memoryUsagePercent > 90 && selectedSolverType == SolverType.CHOCO) {
+                // If memory is critically low, switch to SIMPLE solver if using CHOCO or PORTFOLIO
+                if (memoryUsagePercent > 90 && selectedSolverType != SolverType.SIMPLE) {
                     Log.w(TAG, "Switching to SIMPLE solver due to critical memory constraints");
                     mainHandler.post(() -> {
                         simpleSolverRadioButton.setChecked(true);
@@ -884,6 +1206,10 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             float cpuUsage = getCpuUsagePercent();
             
             Log.d(TAG, String.format("CPU usage: %.1f%%", cpuUsage));
+            GenerationMetrics metrics = runMetrics;
+            if (metrics != null) {
+                metrics.recordMax("cpu", "peakPercent", Math.round(cpuUsage));
+            }
             
             // Alert when usage is too high
             if (cpuUsage > CPU_THRESHOLD_PERCENT && !resourceWarningShown) {
@@ -1068,26 +1394,17 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     private List<TimetableSession> getAllExistingTimetableSessions(String currentDepartment) {
         List<TimetableSession> existingSessions = new ArrayList<>();
         
-        // Collect all sessions from other departments that have already been generated
-        for (String dept : departmentTimetables.keySet()) {
-            // Skip the current department
-            if (dept.equals(currentDepartment)) {
-                continue;
-            }
-            
-            // Get the timetable for this department
-            Timetable timetable = departmentTimetables.get(dept);
-            if (timetable != null && timetable.getSessions() != null) {
-                existingSessions.addAll(timetable.getSessions());
-            }
-        }
+        // Collect all sessions that other departments have committed to the reservation ledger
+        existingSessions.addAll(reservationLedger.getCommittedSessions(currentDepartment));
+        // and the slots that departments still being generated have claimed so far
+        existingSessions.addAll(reservationLedger.getPendingClaims(currentDepartment));
         
         Log.d(TAG, "Found " + existingSessions.size() + " existing sessions from other departments");
         return existingSessions;
     }
 
     /**
-     * Save timetable sessions to Firebase
+     * Stage timetable sessions, metadata and the default timetable reference in the run's write batch
      */
     private void saveTimetableSessions(String department, Timetable timetable, List<Course> courses) {
         if (timetable == null || timetable.getSessions() == null || timetable.getSessions().isEmpty()) {
@@ -1115,9 +1432,6 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         timetableInfo.put("name", department + " Timetable");
         timetableInfo.put("sessionCount", timetable.getSessions().size());
         
-        // Track all operations for batch completion
-        Map<String, Object> allUpdates = new HashMap<>();
-        
         // Create a map of courses by ID for quick lookup
         Map<String, Course> coursesById = new HashMap<>();
         for (Course course : courses) {
@@ -1168,112 +1482,45 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             // IMPORTANT: Explicitly set the department for each session to ensure proper filtering
             session.setDepartment(department);
             
-            // Create session path
-            String sessionPath = session.getId();
-            allUpdates.put(sessionPath, session);
-            
             Log.d(TAG, "Added session: " + session.getCourseName() + " on " + session.getDayOfWeek() + 
                   " at " + session.getStartTime() + " in " + session.getResourceName() + 
                   " with " + session.getLecturerName());
         }
         
-        // Save all sessions in a batch
-        final int sessionCount = allUpdates.size();
-        sessionRef.updateChildren(allUpdates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Successfully saved " + sessionCount + " sessions for " + department);
-                    
-                    // After sessions are saved, update the timetable metadata
-                    DatabaseReference timetableMetaRef = database.child("department_timetables")
-                            .child(department).child(timetableId);
-                    
-                    timetableMetaRef.setValue(timetableInfo)
-                            .addOnSuccessListener(aVoid2 -> {
-                                Log.d(TAG, "Successfully saved timetable metadata for " + department);
-                                
-                                // Finally, update the default timetable reference
-                                database.child("default_timetables").child(department)
-                                        .setValue(timetableId)
-                                        .addOnSuccessListener(aVoid3 -> {
-                                            Log.d(TAG, "Successfully updated default timetable for " + department);
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Failed to update default timetable: " + e.getMessage());
-                                        });
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Failed to save timetable metadata: " + e.getMessage());
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error saving timetable sessions: " + e.getMessage(), e);
-                });
+        // Stage the sessions and their index entries, then the metadata, then the default pointer;
+        // the run's batch writes them together with every other department once generation has finished
+        Map<String, Object> indexEntries = new HashMap<>();
+        for (TimetableSession session : timetable.getSessions()) {
+            timetableWrites.put(SessionIndex.sessionPath(department, session.getId()), session);
+            SessionIndex.addEntries(indexEntries, department, session);
+        }
+        for (Map.Entry<String, Object> entry : indexEntries.entrySet()) {
+            timetableWrites.put(entry.getKey(), entry.getValue());
+        }
+        timetableWrites.put("department_timetables/" + department + "/" + timetableId, timetableInfo);
+        timetableWrites.putPointer("default_timetables/" + department, timetableId);
+        Log.d(TAG, "Staged " + timetable.getSessions().size() + " sessions for " + department);
     }
     
     /**
      * Load resources for a specific department
      */
-    private void loadResourcesForDepartment(String department, CountDownLatch latch) {
-        DatabaseReference resourcesRef = database.child("resources");
-        
+    private void loadResourcesForDepartment(String department, CompletableFuture<Void> loaded) {
         List<Resource> resources = new ArrayList<>();
         departmentResources.put(department, resources);
         String deptPrefix = getDepartmentPrefix(department);
         
-        resourcesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        loadTimed("resources", new FirebaseRepository.SnapshotCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+            public void onDataChange(@NonNull CachedNode dataSnapshot) {
                 Log.d(TAG, "Found " + dataSnapshot.getChildrenCount() + " total resources in database");
                 
                 // First pass: Check for traditional matching method (by name/location)
-                for (DataSnapshot resourceSnapshot : dataSnapshot.getChildren()) {
+                for (CachedNode resourceSnapshot : dataSnapshot.getChildren()) {
                     try {
-                        String id = resourceSnapshot.getKey();
-                        String name = resourceSnapshot.child("name").getValue(String.class);
-                        String type = resourceSnapshot.child("type").getValue(String.class);
-                        String adminId = resourceSnapshot.child("adminId").getValue(String.class);
-                        String location = resourceSnapshot.child("location").getValue(String.class);
-                        
-                        // Handle capacity field - could be Integer or String
-                        String capacity;
-                        try {
-                            // First try to read as Integer
-                            Integer capacityInt = resourceSnapshot.child("capacity").getValue(Integer.class);
-                            capacity = capacityInt != null ? String.valueOf(capacityInt) : "30"; // Default capacity
-                        } catch (Exception e) {
-                            // If that fails, try to read as String
-                            try {
-                                capacity = resourceSnapshot.child("capacity").getValue(String.class);
-                                if (capacity == null) capacity = "30"; // Default capacity
-                            } catch (Exception e2) {
-                                Log.e(TAG, "Could not read capacity as Integer or String: " + e2.getMessage());
-                                capacity = "30"; // Default capacity
-                            }
-                        }
-                        
-                        // Handle availability - could be Boolean or String
-                        String isAvailable;
-                        try {
-                            Boolean isAvailableBool = resourceSnapshot.child("isAvailable").getValue(Boolean.class);
-                            isAvailable = (isAvailableBool != null && isAvailableBool) ? "yes" : "no";
-                        } catch (Exception e) {
-                            // If that fails, try to read as String
-                            try {
-                                String isAvailableStr = resourceSnapshot.child("isAvailable").getValue(String.class);
-                                isAvailable = "yes".equalsIgnoreCase(isAvailableStr) ? "yes" : "no";
-                            } catch (Exception e2) {
-                                Log.e(TAG, "Could not read isAvailable as Boolean or String: " + e2.getMessage());
-                                isAvailable = "yes"; // Default availability
-                            }
-                        }
-                        
-                        // Set defaults if fields are not present
-                        if (name == null) name = "Unknown";
-                        if (type == null) type = "Room";
-                        if (adminId == null) adminId = "";
-                        if (location == null) location = "";
-                        
-                        Resource resource = new Resource(id, name, type, capacity, adminId, location, isAvailable);
+                        Resource resource = readResource(resourceSnapshot);
+                        String name = resource.getName();
+                        String location = resource.getLocation();
                         
                         // Store in all resources map (needed for course assignments)
                         allResourcesMap.put(resource.getId(), resource);
@@ -1334,90 +1581,142 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                 if (resources.isEmpty()) {
                     Log.d(TAG, "No resources matched by name/location for " + department + ", checking course assignments");
                     
-                    // Query the courses database to find courses for this department
-                    database.child("courses")
-                        .orderByChild("department")
-                        .equalTo(department)
-                        .addListenerForSingleValueEvent(new ValueEventListener() {
-                            @Override
-                            public void onDataChange(@NonNull DataSnapshot coursesSnapshot) {
-                                Set<String> resourceIdsUsedByDepartment = new HashSet<>();
-                                
-                                // Find all resource IDs used by courses in this department
-                                for (DataSnapshot courseSnapshot : coursesSnapshot.getChildren()) {
-                                    String resourceId = courseSnapshot.child("assignedResourceId").getValue(String.class);
-                                    if (resourceId != null && !resourceId.isEmpty()) {
-                                        resourceIdsUsedByDepartment.add(resourceId);
-                                        Log.d(TAG, "Found resource ID " + resourceId + " used by course in department " + department);
-                                    }
+                    // Check the cached courses to find courses for this department
+                    loadTimed("courses", new FirebaseRepository.SnapshotCallback() {
+                        @Override
+                        public void onDataChange(@NonNull CachedNode coursesSnapshot) {
+                            Set<String> resourceIdsUsedByDepartment = new HashSet<>();
+                            
+                            // Find all resource IDs used by courses in this department
+                            for (CachedNode courseSnapshot : coursesSnapshot.getChildren()) {
+                                if (!department.equals(courseSnapshot.child("department").getValue(String.class))) {
+                                    continue;
                                 }
-                                
-                                // Add all resources used by courses in this department
-                                for (String resourceId : resourceIdsUsedByDepartment) {
-                                    Resource resource = allResourcesMap.get(resourceId);
-                                    if (resource != null) {
-                                        resources.add(resource);
-                                        
-                                        // Also track which departments each resource belongs to
-                                        Set<String> depts = resourceDepartments.getOrDefault(resourceId, new HashSet<>());
-                                        depts.add(department);
-                                        resourceDepartments.put(resourceId, depts);
-                                        
-                                        Log.d(TAG, "Added resource " + resource.getName() + " to " + department + " based on course assignment");
-                                    }
+                                String resourceId = courseSnapshot.child("assignedResourceId").getValue(String.class);
+                                if (resourceId != null && !resourceId.isEmpty()) {
+                                    resourceIdsUsedByDepartment.add(resourceId);
+                                    Log.d(TAG, "Found resource ID " + resourceId + " used by course in department " + department);
                                 }
-                                
-                                if (resources.isEmpty()) {
-                                    Log.w(TAG, "No resources found for department: " + department + " after checking course assignments");
-                                } else {
-                                    Log.d(TAG, "Loaded " + resources.size() + " resources for " + department + " based on course assignments");
+                            }
+                            
+                            // Add all resources used by courses in this department
+                            for (String resourceId : resourceIdsUsedByDepartment) {
+                                Resource resource = allResourcesMap.get(resourceId);
+                                if (resource != null) {
+                                    resources.add(resource);
+                                    
+                                    // Also track which departments each resource belongs to
+                                    Set<String> depts = resourceDepartments.getOrDefault(resourceId, new HashSet<>());
+                                    depts.add(department);
+                                    resourceDepartments.put(resourceId, depts);
+                                    
+                                    Log.d(TAG, "Added resource " + resource.getName() + " to " + department + " based on course assignment");
                                 }
-                                
-                                latch.countDown();
                             }
                             
-                            @Override
-                            public void onCancelled(@NonNull DatabaseError databaseError) {
-                                Log.e(TAG, "Error loading courses for resources: " + databaseError.getMessage());
-                                latch.countDown();
+                            if (resources.isEmpty()) {
+                                Log.w(TAG, "No resources found for department: " + department + " after checking course assignments");
+                            } else {
+                                Log.d(TAG, "Loaded " + resources.size() + " resources for " + department + " based on course assignments");
                             }
-                        });
+                            
+                            loaded.complete(null);
+                        }
+                        
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError databaseError) {
+                            Log.e(TAG, "Error loading courses for resources: " + databaseError.getMessage());
+                            loaded.complete(null);
+                        }
+                    });
                 } else {
                     Log.d(TAG, "Loaded " + resources.size() + " resources for " + department + " by traditional matching");
-                    latch.countDown();
+                    loaded.complete(null);
                 }
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
                 Log.e(TAG, "Error loading resources for " + department, databaseError.toException());
-                latch.countDown();
+                loaded.complete(null);
             }
         });
     }
 
+    /**
+     * Read a resource from its cached node. Capacity and availability may be stored as
+     * numbers/booleans or as strings, depending on which screen saved the resource.
+     */
+    private Resource readResource(CachedNode snapshot) {
+        String id = snapshot.getKey();
+        String name = snapshot.child("name").getValue(String.class);
+        String type = snapshot.child("type").getValue(String.class);
+        String adminId = snapshot.child("adminId").getValue(String.class);
+        String location = snapshot.child("location").getValue(String.class);
+
+        // Handle capacity field - could be Integer or String
+        String capacity;
+        try {
+            // First try to read as Integer
+            Integer capacityInt = snapshot.child("capacity").getValue(Integer.class);
+            capacity = capacityInt != null ? String.valueOf(capacityInt) : "30"; // Default capacity
+        } catch (Exception e) {
+            // If that fails, try to read as String
+            try {
+                capacity = snapshot.child("capacity").getValue(String.class);
+                if (capacity == null) capacity = "30"; // Default capacity
+            } catch (Exception e2) {
+                Log.e(TAG, "Could not read capacity as Integer or String: " + e2.getMessage());
+                capacity = "30"; // Default capacity
+            }
+        }
+
+        // Handle availability - could be Boolean or String
+        String isAvailable;
+        try {
+            Boolean isAvailableBool = snapshot.child("isAvailable").getValue(Boolean.class);
+            isAvailable = (isAvailableBool != null && isAvailableBool) ? "yes" : "no";
+        } catch (Exception e) {
+            // If that fails, try to read as String
+            try {
+                String isAvailableStr = snapshot.child("isAvailable").getValue(String.class);
+                isAvailable = "yes".equalsIgnoreCase(isAvailableStr) ? "yes" : "no";
+            } catch (Exception e2) {
+                Log.e(TAG, "Could not read isAvailable as Boolean or String: " + e2.getMessage());
+                isAvailable = "yes"; // Default availability
+            }
+        }
+
+        // Set defaults if fields are not present
+        if (name == null) name = "Unknown";
+        if (type == null) type = "Room";
+        if (adminId == null) adminId = "";
+        if (location == null) location = "";
+
+        return new Resource(id, name, type, capacity, adminId, location, isAvailable);
+    }
+    
     /**
      * Load lecturers for a specific department
      */
-    private void loadLecturersForDepartment(String department, CountDownLatch latch) {
+    private void loadLecturersForDepartment(String department, CompletableFuture<Void> loaded) {
         List<Lecturer> lecturers = new ArrayList<>();
         departmentLecturers.put(department, lecturers);
         String deptPrefix = getDepartmentPrefix(department);
         
         // First, check the lecturer_departments node to find lecturer IDs for this department
-        DatabaseReference lecturerDeptRef = database.child("lecturer_departments");
-        lecturerDeptRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        loadTimed("lecturer_departments", new FirebaseRepository.SnapshotCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+            public void onDataChange(@NonNull CachedNode dataSnapshot) {
                 Log.d(TAG, "Checking lecturer_departments for " + department + " lecturers");
                 Set<String> lecturerIdsForDepartment = new HashSet<>();
                 
                 // Find all lecturer IDs that are assigned to this department
-                for (DataSnapshot lecturerSnapshot : dataSnapshot.getChildren()) {
+                for (CachedNode lecturerSnapshot : dataSnapshot.getChildren()) {
                     String lecturerId = lecturerSnapshot.getKey();
                     if (lecturerId != null) {
-                        DataSnapshot departmentsSnapshot = lecturerSnapshot.child("departments");
-                        for (DataSnapshot deptSnapshot : departmentsSnapshot.getChildren()) {
+                        CachedNode departmentsSnapshot = lecturerSnapshot.child("departments");
+                        for (CachedNode deptSnapshot : departmentsSnapshot.getChildren()) {
                             String deptName = deptSnapshot.getValue(String.class);
                             if (deptName != null && deptName.equalsIgnoreCase(department)) {
                                 lecturerIdsForDepartment.add(lecturerId);
@@ -1431,17 +1730,16 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                 if (lecturerIdsForDepartment.isEmpty()) {
                     Log.w(TAG, "No lecturers found in lecturer_departments for " + department);
                     // Proceed to second method: checking course assignments
-                    findLecturersByCourseAssignment(department, lecturers, latch);
+                    findLecturersByCourseAssignment(department, lecturers, loaded);
                     return;
                 }
                 
                 // Now fetch the actual lecturer data from Users node for these IDs
-                DatabaseReference usersRef = FirebaseDatabase.getInstance().getReference("Users");
-                usersRef.addListenerForSingleValueEvent(new ValueEventListener() {
+                loadTimed("Users", new FirebaseRepository.SnapshotCallback() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot usersSnapshot) {
+                    public void onDataChange(@NonNull CachedNode usersSnapshot) {
                         for (String lecturerId : lecturerIdsForDepartment) {
-                            DataSnapshot lecturerData = usersSnapshot.child(lecturerId);
+                            CachedNode lecturerData = usersSnapshot.child(lecturerId);
                             if (lecturerData.exists()) {
                                 try {
                                     String name = lecturerData.child("name").getValue(String.class);
@@ -1478,10 +1776,10 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                         if (lecturers.isEmpty()) {
                             Log.w(TAG, "Failed to load any lecturers for " + department + " from Users node, checking course assignments");
                             // Try course assignments as last resort
-                            findLecturersByCourseAssignment(department, lecturers, latch);
+                            findLecturersByCourseAssignment(department, lecturers, loaded);
                         } else {
                             Log.d(TAG, "Loaded " + lecturers.size() + " lecturers for " + department + " from lecturer_departments");
-                            latch.countDown();
+                            loaded.complete(null);
                         }
                     }
                     
@@ -1489,7 +1787,7 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                     public void onCancelled(@NonNull DatabaseError databaseError) {
                         Log.e(TAG, "Error loading lecturer data from Users: " + databaseError.getMessage());
                         // Try course assignments as last resort
-                        findLecturersByCourseAssignment(department, lecturers, latch);
+                        findLecturersByCourseAssignment(department, lecturers, loaded);
                     }
                 });
             }
@@ -1498,7 +1796,7 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             public void onCancelled(@NonNull DatabaseError databaseError) {
                 Log.e(TAG, "Error checking lecturer_departments: " + databaseError.getMessage());
                 // Try course assignments as last resort
-                findLecturersByCourseAssignment(department, lecturers, latch);
+                findLecturersByCourseAssignment(department, lecturers, loaded);
             }
         });
     }
@@ -1506,106 +1804,111 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
     /**
      * Find lecturers for a department by checking course assignments
      */
-    private void findLecturersByCourseAssignment(String department, List<Lecturer> lecturers, CountDownLatch latch) {
+    private void findLecturersByCourseAssignment(String department, List<Lecturer> lecturers, CompletableFuture<Void> loaded) {
         Log.d(TAG, "Checking course assignments for " + department + " lecturers");
         
-        database.child("courses")
-            .orderByChild("department")
-            .equalTo(department)
-            .addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot coursesSnapshot) {
-                    Set<String> lecturerIdsUsedByDepartment = new HashSet<>();
-                    
-                    // Find all lecturer IDs used by courses in this department
-                    for (DataSnapshot courseSnapshot : coursesSnapshot.getChildren()) {
-                        String lecturerId = courseSnapshot.child("assignedLecturerId").getValue(String.class);
-                        if (lecturerId != null && !lecturerId.isEmpty()) {
-                            lecturerIdsUsedByDepartment.add(lecturerId);
-                            Log.d(TAG, "Found lecturer ID " + lecturerId + " used by course in department " + department);
-                        }
+        loadTimed("courses", new FirebaseRepository.SnapshotCallback() {
+            @Override
+            public void onDataChange(@NonNull CachedNode coursesSnapshot) {
+                Set<String> lecturerIdsUsedByDepartment = new HashSet<>();
+                
+                // Find all lecturer IDs used by courses in this department
+                for (CachedNode courseSnapshot : coursesSnapshot.getChildren()) {
+                    if (!department.equals(courseSnapshot.child("department").getValue(String.class))) {
+                        continue;
                     }
-                    
-                    // Now fetch the actual lecturer data for these IDs from the Users node
-                    if (!lecturerIdsUsedByDepartment.isEmpty()) {
-                        DatabaseReference usersRef = FirebaseDatabase.getInstance().getReference("Users");
-                        usersRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                            @Override
-                            public void onDataChange(@NonNull DataSnapshot usersSnapshot) {
-                                for (String lecturerId : lecturerIdsUsedByDepartment) {
-                                    DataSnapshot lecturerData = usersSnapshot.child(lecturerId);
-                                    if (lecturerData.exists()) {
-                                        try {
-                                            String name = lecturerData.child("name").getValue(String.class);
-                                            String contact = lecturerData.child("contact").getValue(String.class);
-                                            
-                                            // Add default values for missing fields
-                                            if (name == null) name = "Unknown Lecturer";
-                                            if (contact == null) contact = "No contact";
-                                            
-                                            // Default proximity score
-                                            int proximityScore = 1;
-                                            
-                                            // Create lecturer object with department field
-                                            Lecturer lecturer = new Lecturer(lecturerId, name, contact, proximityScore, department);
-                                            
-                                            // Add lecturer to the department's list
-                                            lecturers.add(lecturer);
-                                            
-                                            // Store in all lecturers map
-                                            allLecturersMap.put(lecturer.getId(), lecturer);
-                                            
-                                            // Track which departments this lecturer belongs to
-                                            Set<String> depts = lecturerDepartments.getOrDefault(lecturer.getId(), new HashSet<>());
-                                            depts.add(department);
-                                            lecturerDepartments.put(lecturer.getId(), depts);
-                                            
-                                            Log.d(TAG, "Added lecturer " + name + " to " + department + " based on course assignment");
-                                        } catch (Exception e) {
-                                            Log.e(TAG, "Error processing lecturer data from course assignment: " + e.getMessage());
-                                        }
+                    String lecturerId = courseSnapshot.child("assignedLecturerId").getValue(String.class);
+                    if (lecturerId != null && !lecturerId.isEmpty()) {
+                        lecturerIdsUsedByDepartment.add(lecturerId);
+                        Log.d(TAG, "Found lecturer ID " + lecturerId + " used by course in department " + department);
+                    }
+                }
+                
+                // Now fetch the actual lecturer data for these IDs from the Users node
+                if (!lecturerIdsUsedByDepartment.isEmpty()) {
+                    loadTimed("Users", new FirebaseRepository.SnapshotCallback() {
+                        @Override
+                        public void onDataChange(@NonNull CachedNode usersSnapshot) {
+                            for (String lecturerId : lecturerIdsUsedByDepartment) {
+                                CachedNode lecturerData = usersSnapshot.child(lecturerId);
+                                if (lecturerData.exists()) {
+                                    try {
+                                        String name = lecturerData.child("name").getValue(String.class);
+                                        String contact = lecturerData.child("contact").getValue(String.class);
+                                        
+                                        // Add default values for missing fields
+                                        if (name == null) name = "Unknown Lecturer";
+                                        if (contact == null) contact = "No contact";
+                                        
+                                        // Default proximity score
+                                        int proximityScore = 1;
+                                        
+                                        // Create lecturer object with department field
+                                        Lecturer lecturer = new Lecturer(lecturerId, name, contact, proximityScore, department);
+                                        
+                                        // Add lecturer to the department's list
+                                        lecturers.add(lecturer);
+                                        
+                                        // Store in all lecturers map
+                                        allLecturersMap.put(lecturer.getId(), lecturer);
+                                        
+                                        // Track which departments this lecturer belongs to
+                                        Set<String> depts = lecturerDepartments.getOrDefault(lecturer.getId(), new HashSet<>());
+                                        depts.add(department);
+                                        lecturerDepartments.put(lecturer.getId(), depts);
+                                        
+                                        Log.d(TAG, "Added lecturer " + name + " to " + department + " based on course assignment");
+                                    } catch (Exception e) {
+                                        Log.e(TAG, "Error processing lecturer data from course assignment: " + e.getMessage());
                                     }
                                 }
-                                
-                                if (lecturers.isEmpty()) {
-                                    Log.w(TAG, "No lecturers found for department: " + department + " after all attempts");
-                                } else {
-                                    Log.d(TAG, "Loaded " + lecturers.size() + " lecturers for " + department + " based on course assignments");
-                                }
-                                
-                                latch.countDown();
                             }
                             
-                            @Override
-                            public void onCancelled(@NonNull DatabaseError databaseError) {
-                                Log.e(TAG, "Error loading lecturer data from Users for course assignments: " + databaseError.getMessage());
-                                latch.countDown();
+                            if (lecturers.isEmpty()) {
+                                Log.w(TAG, "No lecturers found for department: " + department + " after all attempts");
+                            } else {
+                                Log.d(TAG, "Loaded " + lecturers.size() + " lecturers for " + department + " based on course assignments");
                             }
-                        });
-                    } else {
-                        Log.w(TAG, "No lecturer IDs found in course assignments for department: " + department);
-                        latch.countDown();
-                    }
-                }
-                
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error loading courses for lecturers: " + databaseError.getMessage());
-                    latch.countDown();
+                            
+                            loaded.complete(null);
+                        }
+                        
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError databaseError) {
+                            Log.e(TAG, "Error loading lecturer data from Users for course assignments: " + databaseError.getMessage());
+                            loaded.complete(null);
+                        }
+                    });
+                } else {
+                    Log.w(TAG, "No lecturer IDs found in course assignments for department: " + department);
+                    loaded.complete(null);
                 }
-            });
+            }
+            
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "Error loading courses for lecturers: " + databaseError.getMessage());
+                loaded.complete(null);
+            }
+        });
     }
     
     /**
      * Load courses for a specific department
      */
-    private void loadCoursesForDepartment(String department, CountDownLatch latch) {
+    private void loadCoursesForDepartment(String department, CompletableFuture<Void> loaded) {
+        List<Course> courses = new ArrayList<>();
+        departmentCourses.put(department, courses);
         DatabaseReference coursesRef = database.child("courses");
+        GenerationMetrics metrics = runMetrics;
+        long fetchStart = SystemClock.elapsedRealtime();
         
         coursesRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Course> courses = new ArrayList<>();
+                if (metrics != null) {
+                    metrics.recordFetch("courses (direct)", SystemClock.elapsedRealtime() - fetchStart);
+                }
                 
                 // Create a StringBuilder to keep track of resource needs
                 StringBuilder resourceNeeds = new StringBuilder();
@@ -1709,7 +2012,6 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                 // If no courses matched for this department, log an error
                 if (courses.isEmpty()) {
                     Log.e(TAG, "No matching courses found for " + department);
-                    allErrors.append("Error: No matching courses found for " + department + ".\n");
                 }
                 
                 // Log resource needs if any were identified
@@ -1718,15 +2020,13 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                 }
                 
                 Log.d(TAG, "Loaded " + courses.size() + " courses for " + department);
-                departmentCourses.put(department, courses);
-                latch.countDown();
+                loaded.complete(null);
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
                 Log.e(TAG, "Error loading courses for " + department, databaseError.toException());
-                allErrors.append("Error loading courses for " + department + ": " + databaseError.getMessage() + "\n");
-                latch.countDown();
+                loaded.completeExceptionally(databaseError.toException());
             }
         });
     }
@@ -1804,10 +2104,9 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         
         Map<String, List<ResourceConflict>> departmentConflicts = new HashMap<>();
         
-        // Create a map to track resource usage: resourceId -> day -> hour -> session
-        Map<String, Map<String, Map<String, TimetableSession>>> resourceUsage = new HashMap<>();
-        
-        // Process all department timetables
+        // Collect the sessions of all departments, remembering which department each came from
+        List<TimetableSession> allSessions = new ArrayList<>();
+        List<String> sessionDepartments = new ArrayList<>();
         for (String department : departmentTimetables.keySet()) {
             Timetable timetable = departmentTimetables.get(department);
             if (timetable == null || timetable.getSessions() == null) {
@@ -1817,15 +2116,10 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
             // Initialize conflicts list for this department
             departmentConflicts.put(department, new ArrayList<>());
             
-            // Check each session
             for (TimetableSession session : timetable.getSessions()) {
-                String resourceId = session.getResourceId();
-                String dayOfWeek = session.getDayOfWeek();
-                String startTime = session.getStartTime();
-                String endTime = session.getEndTime();
-                
                 // Skip if any required fields are missing
-                if (resourceId == null || dayOfWeek == null || startTime == null || endTime == null) {
+                if (session.getResourceId() == null || session.getDayOfWeek() == null ||
+                        session.getStartTime() == null || session.getEndTime() == null) {
                     Log.w(TAG, "Skipping session with missing data: " + session.getId());
                     continue;
                 }
@@ -1834,63 +2128,37 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
                 if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
                     session.setDepartment(department);
                 }
-                
-                // Initialize resource map if needed
-                if (!resourceUsage.containsKey(resourceId)) {
-                    resourceUsage.put(resourceId, new HashMap<>());
-                }
-                
-                // Initialize day map if needed
-                Map<String, Map<String, TimetableSession>> dayMap = resourceUsage.get(resourceId);
-                if (!dayMap.containsKey(dayOfWeek)) {
-                    dayMap.put(dayOfWeek, new HashMap<>());
-                }
-                
-                // Check each time slot for this session
-                Map<String, TimetableSession> timeMap = dayMap.get(dayOfWeek);
-                
-                // Extract hours from time strings (assuming format like "09:00" or "9:00")
-                int startHour = parseHour(startTime);
-                int endHour = parseHour(endTime);
-                
-                // Validate each hour of this session
-                for (int hour = startHour; hour < endHour; hour++) {
-                    String timeSlot = String.format("%02d:00", hour);
-                    
-                    // Check if this time slot is already booked
-                    if (timeMap.containsKey(timeSlot)) {
-                        // We have a conflict!
-                        TimetableSession existingSession = timeMap.get(timeSlot);
-                        String existingDept = existingSession.getDepartment();
-                        
-                        // Create conflict object
-                        ResourceConflict conflict = new ResourceConflict(
-                            resourceId,
-                            getResourceNameById(resourceId),
-                            dayOfWeek,
-                            timeSlot,
-                            department,
-                            existingDept,
-                            session,
-                            existingSession
-                        );
-                        
-                        // Add to both departments' conflict lists
-                        departmentConflicts.get(department).add(conflict);
-                        
-                        // Add to the other department's list if it exists
-                        if (departmentConflicts.containsKey(existingDept)) {
-                            departmentConflicts.get(existingDept).add(conflict);
-                        }
-                        
-                        Log.e(TAG, "Found resource conflict: " + resourceId + " on " + dayOfWeek + 
-                                " at " + timeSlot + " between " + department + " and " + existingDept);
-                    } else {
-                        // Book this time slot
-                        timeMap.put(timeSlot, session);
-                    }
-                }
+                allSessions.add(session);
+                sessionDepartments.add(department);
+            }
+        }
+        
+        // A conflict is a resource booked by two sessions at overlapping times
+        for (ConflictDetector.Conflict overlap : ConflictDetector.findConflicts(allSessions, ConflictDetector.BY_RESOURCE)) {
+            String department = sessionDepartments.get(overlap.getSecondIndex());
+            String existingDept = sessionDepartments.get(overlap.getFirstIndex());
+            String dayOfWeek = overlap.getSecond().getDayOfWeek();
+            String timeSlot = overlap.getStartTime();
+            
+            ResourceConflict conflict = new ResourceConflict(
+                overlap.getOwnerId(),
+                getResourceNameById(overlap.getOwnerId()),
+                dayOfWeek,
+                timeSlot,
+                department,
+                existingDept,
+                overlap.getSecond(),
+                overlap.getFirst()
+            );
+            
+            // Add to both departments' conflict lists
+            departmentConflicts.get(department).add(conflict);
+            if (!existingDept.equals(department)) {
+                departmentConflicts.get(existingDept).add(conflict);
             }
+            
+            Log.e(TAG, "Found resource conflict: " + overlap.getOwnerId() + " on " + dayOfWeek + 
+                    " at " + timeSlot + " between " + department + " and " + existingDept);
         }
         
         // Count total conflicts
@@ -1916,24 +2184,6 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         return resource != null ? resource.getName() : "Unknown Resource";
     }
     
-    /**
-     * Parse hour from time string (e.g., "09:00" -> 9)
-     */
-    private int parseHour(String timeString) {
-        if (timeString == null || timeString.isEmpty()) {
-            return 0;
-        }
-        
-        try {
-            // Handle various formats like "9:00" or "09:00"
-            String hourPart = timeString.split(":")[0];
-            return Integer.parseInt(hourPart);
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing hour from time: " + timeString, e);
-            return 0;
-        }
-    }
-    
     /**
      * Class to represent a resource conflict
      */
@@ -2147,20 +2397,29 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
         Log.d(TAG, "Attempting to reschedule session while preserving assigned room: " + 
               originalResourceName + " (ID: " + originalResourceId + ")");
         
-        // Try to find an alternative time slot
-        String[] daysOfWeek = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-        String[] timeSlots = {"09:00", "10:00", "11:00", "12:00", "13:00", "14:00", "15:00", "16:00"};
-        
-        for (String day : daysOfWeek) {
-            for (String time : timeSlots) {
+        // Keep the session's own length, one hour if it can't be read
+        int currentStart = TimetableSymbols.minuteOfDay(currentStartTime);
+        int currentEnd = TimetableSymbols.minuteOfDay(originalSession.getEndTime());
+        int sessionMinutes = currentStart >= 0 && currentEnd > currentStart ? currentEnd - currentStart : 60;
+        int sessionSlots = (sessionMinutes + slotCalendar.getSlotMinutes() - 1) / slotCalendar.getSlotMinutes();
+        
+        // Try to find an alternative time slot within the teaching week
+        for (int dayIndex = 0; dayIndex < slotCalendar.getDays(); dayIndex++) {
+            String day = TimetableSymbols.dayName(dayIndex);
+            for (int slot = 0; slot < slotCalendar.getSlotsPerDay(); slot++) {
+                if (!slotCalendar.isOpen(dayIndex, slot, sessionSlots)) {
+                    continue;
+                }
+                int startMinute = slotCalendar.getSlotStartMinute(slot);
+                
                 // Skip the current time slot
-                if (day.equals(currentDay) && time.equals(currentStartTime)) {
+                if (day.equalsIgnoreCase(currentDay) && startMinute == currentStart) {
                     continue;
                 }
                 
-                // Calculate end time (assume 1-hour sessions)
-                int hour = Integer.parseInt(time.substring(0, 2));
-                String endTime = String.format("%02d:00", hour + 1);
+                String time = String.format("%02d:%02d", startMinute / 60, startMinute % 60);
+                int endMinute = startMinute + sessionMinutes;
+                String endTime = String.format("%02d:%02d", endMinute / 60, endMinute % 60);
                 
                 // Check if this time slot is available
                 if (isTimeSlotAvailable(owningDept, originalSession, day, time, endTime)) {
@@ -2266,199 +2525,165 @@ public class UnifiedTimetableGeneratorActivity extends AppCompatActivity {
      * Check if two time ranges overlap
      */
     private boolean timeOverlaps(String start1, String end1, String start2, String end2) {
-        try {
-            int s1 = Integer.parseInt(start1.substring(0, 2));
-            int e1 = Integer.parseInt(end1.substring(0, 2));
-            int s2 = Integer.parseInt(start2.substring(0, 2));
-            int e2 = Integer.parseInt(end2.substring(0, 2));
-            
-            // Check for overlap
-            return (s1 < e2 && s2 < e1);
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing time for overlap check", e);
+        // Compare minutes since midnight, so "9:00" and "09:30" are read correctly
+        int s1 = TimetableSymbols.minuteOfDay(start1);
+        int e1 = TimetableSymbols.minuteOfDay(end1);
+        int s2 = TimetableSymbols.minuteOfDay(start2);
+        int e2 = TimetableSymbols.minuteOfDay(end2);
+        if (s1 < 0 || e1 < 0 || s2 < 0 || e2 < 0) {
+            Log.e(TAG, "Error parsing time for overlap check: " + start1 + "-" + end1 + ", " + start2 + "-" + end2);
             return false;
         }
+        
+        // Check for overlap
+        return (s1 < e2 && s2 < e1);
     }
     
     /**
-     * Consolidate and upload lecturer timetables
+     * Consolidate lecturer timetables across all departments and stage them in the run's write batch
      */
-    private void consolidateAndUploadLecturerTimetables(Map<String, Timetable> departmentTimetables) {
+    private void consolidateLecturerTimetables(Map<String, Timetable> departmentTimetables) {
         if (departmentTimetables == null || departmentTimetables.isEmpty()) {
             Log.e(TAG, "Cannot consolidate lecturer timetables: No department timetables available");
             return;
         }
 
-        Log.d(TAG, "Consolidating and uploading lecturer timetables");
-        runOnUiThread(() -> Toast.makeText(this, "Consolidating lecturer timetables...", Toast.LENGTH_SHORT).show());
+        Log.d(TAG, "Consolidating lecturer timetables");
 
-        // CRITICAL: Move all of this processing to a background thread to avoid ANR
-        new Thread(() -> {
-            try {
-                // Map to hold lecturer timetables across all departments
-                Map<String, List<TimetableSession>> lecturerTimetables = new HashMap<>();
-        
-                // Iterate through all department sessions to extract sessions by lecturer
-                for (Map.Entry<String, Timetable> entry : departmentTimetables.entrySet()) {
-                    String department = entry.getKey();
-                    Timetable timetable = entry.getValue();
-        
-                    if (timetable == null || timetable.getSessions() == null) continue;
-        
-                    for (TimetableSession session : timetable.getSessions()) {
-                        String lecturerId = session.getLecturerId();
-                        if (lecturerId == null || lecturerId.isEmpty()) continue;
-        
-                        // Add department information to the session if it's not already there
-                        if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
-                            session.setDepartment(department);
-                        }
-        
-                        // Get or create the session list for this lecturer
-                        List<TimetableSession> lecturerSessions = lecturerTimetables.getOrDefault(lecturerId, new ArrayList<>());
-                        lecturerSessions.add(session);
-                        lecturerTimetables.put(lecturerId, lecturerSessions);
-                    }
-                }
-        
-                // Upload each lecturer's consolidated timetable to Firebase
-                DatabaseReference baseRef = FirebaseDatabase.getInstance().getReference().child("lecturer_timetables");
-                
-                // Keep track of how many uploads are pending
-                final CountDownLatch latch = new CountDownLatch(lecturerTimetables.size());
-                final AtomicBoolean hasError = new AtomicBoolean(false);
-        
-                for (Map.Entry<String, List<TimetableSession>> entry : lecturerTimetables.entrySet()) {
-                    String lecturerId = entry.getKey();
-                    List<TimetableSession> sessions = entry.getValue();
-        
-                    Log.d(TAG, "Uploading " + sessions.size() + " sessions for lecturer: " + lecturerId);
-        
-                    // Create a map entry for this lecturer's timetable
-                    // This will overwrite any existing timetable for this lecturer
-                    baseRef.child(lecturerId).setValue(sessions)
-                        .addOnSuccessListener(aVoid -> {
-                            Log.d(TAG, "Successfully uploaded timetable for lecturer: " + lecturerId);
-                            latch.countDown();
-                            
-                            // If this was the last upload and there were no errors, show success message
-                            if (latch.getCount() == 0 && !hasError.get()) {
-                                runOnUiThread(() -> {
-                                    Toast.makeText(UnifiedTimetableGeneratorActivity.this, 
-                                        "All lecturer timetables uploaded successfully", Toast.LENGTH_SHORT).show();
-                                });
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            hasError.set(true);
-                            Log.e(TAG, "Failed to upload timetable for lecturer: " + lecturerId, e);
-                            
-                            // Show error for the first failure only
-                            if (!hasError.getAndSet(true)) {
-                                runOnUiThread(() -> {
-                                    Toast.makeText(UnifiedTimetableGeneratorActivity.this, 
-                                        "Error uploading lecturer timetables", Toast.LENGTH_SHORT).show();
-                                });
-                            }
-                            
-                            // Still decrement the counter to avoid waiting forever
-                            latch.countDown();
-                        });
-                }
-                
-                // Wait for all uploads to complete with a timeout
-                try {
-                    // Wait up to 30 seconds for all uploads to complete
-                    boolean completed = latch.await(30, TimeUnit.SECONDS);
-                    if (!completed) {
-                        Log.w(TAG, "Some lecturer timetable uploads did not complete within timeout");
-                    }
-                } catch (InterruptedException e) {
-                    Log.e(TAG, "Interrupted while waiting for lecturer timetable uploads", e);
-                    Thread.currentThread().interrupt();
+        // Map to hold lecturer timetables across all departments
+        Map<String, List<TimetableSession>> lecturerTimetables = new HashMap<>();
+
+        // Iterate through all department sessions to extract sessions by lecturer
+        for (Map.Entry<String, Timetable> entry : departmentTimetables.entrySet()) {
+            String department = entry.getKey();
+            Timetable timetable = entry.getValue();
+
+            if (timetable == null || timetable.getSessions() == null) continue;
+
+            for (TimetableSession session : timetable.getSessions()) {
+                String lecturerId = session.getLecturerId();
+                if (lecturerId == null || lecturerId.isEmpty()) continue;
+
+                // Add department information to the session if it's not already there
+                if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
+                    session.setDepartment(department);
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error in lecturer timetable consolidation", e);
-                runOnUiThread(() -> {
-                    Toast.makeText(UnifiedTimetableGeneratorActivity.this, 
-                        "Error processing lecturer timetables", Toast.LENGTH_SHORT).show();
-                });
+
+                // Get or create the session list for this lecturer
+                List<TimetableSession> lecturerSessions = lecturerTimetables.getOrDefault(lecturerId, new ArrayList<>());
+                lecturerSessions.add(session);
+                lecturerTimetables.put(lecturerId, lecturerSessions);
             }
-        }).start();
+        }
+
+        // Each lecturer's consolidated timetable overwrites any existing one for that lecturer
+        for (Map.Entry<String, List<TimetableSession>> entry : lecturerTimetables.entrySet()) {
+            Log.d(TAG, "Staging " + entry.getValue().size() + " sessions for lecturer: " + entry.getKey());
+            timetableWrites.put("lecturer_timetables/" + entry.getKey(), entry.getValue());
+        }
     }
     
     /**
-     * Consolidate all department timetables into a single view for admin access
-     * This creates a unified view of all department timetables in Firebase
+     * Consolidate all department timetables into a single view for admin access.
+     * The view replaces the previous one and holds the sessions of this run, keyed by session ID,
+     * plus the stored sessions of departments this run didn't regenerate, e.g. because they failed.
+     *
+     * @return A future that completes when the view is staged in the run's write batch
      */
-    private void consolidateAllDepartmentsTimetable() {
+    private CompletableFuture<Void> consolidateAllDepartmentsTimetable(Map<String, Timetable> departmentTimetables) {
         Log.d(TAG, "Consolidating all department timetables for admin view");
         
-        // Reference to the new consolidated timetable node in Firebase
-        DatabaseReference allDeptTimetableRef = FirebaseDatabase.getInstance().getReference()
-                .child("all_departments_timetable");
-                
-        // Clear the existing consolidated timetable first
-        allDeptTimetableRef.removeValue().addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                // Get reference to all department timetables
-                DatabaseReference deptTimetablesRef = FirebaseDatabase.getInstance().getReference()
-                        .child("department_timetableSessions");
-                
-                deptTimetablesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        // Prepare a batch update for all sessions
-                        Map<String, Object> consolidatedSessions = new HashMap<>();
-                        
-                        // Process all departments
-                        for (DataSnapshot deptSnapshot : dataSnapshot.getChildren()) {
-                            String departmentName = deptSnapshot.getKey();
-                            
-                            // Process all sessions in this department
-                            for (DataSnapshot sessionSnapshot : deptSnapshot.getChildren()) {
-                                try {
-                                    TimetableSession session = sessionSnapshot.getValue(TimetableSession.class);
-                                    if (session != null) {
-                                        // Add the department name to the session if not already there
-                                        if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
-                                            session.setDepartment(departmentName);
-                                        }
-                                        
-                                        // Add to our consolidated batch with a unique key
-                                        String key = sessionSnapshot.getKey();
-                                        consolidatedSessions.put(key, session);
-                                    }
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error consolidating session from " + departmentName, e);
+        Map<String, Object> consolidatedSessions = new HashMap<>();
+        for (Map.Entry<String, Timetable> entry : departmentTimetables.entrySet()) {
+            Timetable timetable = entry.getValue();
+            if (timetable == null || timetable.getSessions() == null) continue;
+            
+            for (TimetableSession session : timetable.getSessions()) {
+                // Add the department name to the session if not already there
+                if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
+                    session.setDepartment(entry.getKey());
+                }
+                if (session.getId() != null) {
+                    consolidatedSessions.put(session.getId(), session);
+                }
+            }
+        }
+        
+        // Add the stored sessions of the departments this run didn't regenerate
+        CompletableFuture<Void> consolidated = new CompletableFuture<>();
+        database.child(SessionIndex.SESSIONS).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                int kept = 0;
+                for (DataSnapshot deptSnapshot : dataSnapshot.getChildren()) {
+                    String departmentName = deptSnapshot.getKey();
+                    if (departmentTimetables.containsKey(departmentName)) {
+                        continue;
+                    }
+                    for (DataSnapshot sessionSnapshot : deptSnapshot.getChildren()) {
+                        try {
+                            TimetableSession session = sessionSnapshot.getValue(TimetableSession.class);
+                            if (session != null) {
+                                if (session.getDepartment() == null || session.getDepartment().isEmpty()) {
+                                    session.setDepartment(departmentName);
                                 }
+                                consolidatedSessions.put(sessionSnapshot.getKey(), session);
+                                kept++;
                             }
+                        } catch (Exception e) {
+                            Log.e(TAG, "Error consolidating session from " + departmentName, e);
                         }
-                        
-                        // Upload the consolidated batch
-                        if (!consolidatedSessions.isEmpty()) {
-                            allDeptTimetableRef.updateChildren(consolidatedSessions)
-                                    .addOnSuccessListener(aVoid -> {
-                                        Log.d(TAG, "Successfully uploaded consolidated timetable with " 
-                                                + consolidatedSessions.size() + " sessions");
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Failed to upload consolidated timetable", e);
-                                    });
-                        } else {
-                            Log.w(TAG, "No sessions found to consolidate");
-                        }
-                    }
-                    
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        Log.e(TAG, "Error reading department timetables for consolidation", databaseError.toException());
                     }
-                });
-            } else {
-                Log.e(TAG, "Failed to clear existing consolidated timetable", task.getException());
+                }
+                Log.d(TAG, "Kept " + kept + " stored sessions of departments not regenerated");
+                if (consolidatedSessions.isEmpty()) {
+                    Log.w(TAG, "No sessions found to consolidate");
+                } else {
+                    timetableWrites.put("all_departments_timetable", consolidatedSessions);
+                }
+                consolidated.complete(null);
+            }
+            
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                // Leave the previous view in place rather than replace it with a partial one
+                Log.e(TAG, "Error reading stored sessions for consolidation; keeping the previous admin view",
+                        databaseError.toException());
+                consolidated.complete(null);
             }
         });
+        return consolidated;
+    }
+    
+    /**
+     * Write everything the run staged: department sessions, metadata, default timetables,
+     * lecturer timetables and the admin view
+     *
+     * @return A future that completes when everything is saved, or fails with the first error
+     */
+    private CompletableFuture<Void> commitTimetableWrites() {
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        if (timetableWrites == null || timetableWrites.isEmpty()) {
+            Log.w(TAG, "No timetable changes to save");
+            saved.complete(null);
+            return saved;
+        }
+        
+        int pathCount = timetableWrites.size();
+        timetableWrites.commit()
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Successfully saved " + pathCount + " timetable paths");
+                    runOnUiThread(() -> Toast.makeText(UnifiedTimetableGeneratorActivity.this,
+                            "All timetables saved successfully", Toast.LENGTH_SHORT).show());
+                    saved.complete(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error saving timetables: " + e.getMessage(), e);
+                    runOnUiThread(() -> Toast.makeText(UnifiedTimetableGeneratorActivity.this,
+                            "Error saving timetables", Toast.LENGTH_SHORT).show());
+                    saved.completeExceptionally(e);
+                });
+        return saved;
     }
 }
 // test 
\ No newline at end of file
@@ -40,7 +40,11 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 import com.example.manager.R;
+import com.example.manager.data.SessionIndex;
+import com.example.manager.timetable.ConflictDetector;
+import com.example.manager.timetable.TimetableGrid;
 import com.example.manager.timetable.TimetableSession;
+import com.example.manager.timetable.TimetableSymbols;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
@@ -77,6 +81,8 @@ public class ViewTimetableActivity extends AppCompatActivity {
     private String timetableId;
     private String department; // Added department field
     private List<TimetableSession> sessions = new ArrayList<>();
+    // Sessions bucketed by day and hour, rebuilt whenever the sessions are displayed
+    private TimetableGrid sessionGrid = TimetableGrid.build(null, DAYS_PER_WEEK, START_HOUR, END_HOUR);
 
     // Timetable grid dimensions
     private static final int START_HOUR = 8; // 8 AM
@@ -316,9 +322,36 @@ public class ViewTimetableActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads timetable sessions from the specified reference
+     * Loads timetable sessions by key from the timetable's index, or by querying the
+     * specified reference until every stored session has been indexed
      */
     private void loadTimetableSessions(DatabaseReference baseRef, String timetableId) {
+        SessionIndex.load(FirebaseDatabase.getInstance().getReference(), SessionIndex.byTimetable(timetableId),
+                new SessionIndex.Callback() {
+                    @Override
+                    public void onLoaded(@NonNull List<TimetableSession> indexedSessions) {
+                        Log.d(TAG, "Found " + indexedSessions.size() + " indexed sessions for " + department + " timetable ID: " + timetableId);
+                        sessions.addAll(indexedSessions);
+                        showLoadedTimetableSessions();
+                    }
+
+                    @Override
+                    public void onNotIndexed() {
+                        queryTimetableSessions(baseRef, timetableId);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.e(TAG, "Error reading timetable index: " + databaseError.getMessage());
+                        queryTimetableSessions(baseRef, timetableId);
+                    }
+                });
+    }
+
+    /**
+     * Loads timetable sessions from the specified reference
+     */
+    private void queryTimetableSessions(DatabaseReference baseRef, String timetableId) {
         // For regular (non-lecturer) view, just load by timetable ID as before
         Query query = baseRef.orderByChild("timetableId").equalTo(timetableId);
 
@@ -341,17 +374,7 @@ public class ViewTimetableActivity extends AppCompatActivity {
                     }
                 }
 
-                if (sessions.isEmpty()) {
-                    emptyView.setVisibility(View.VISIBLE);
-                    findViewById(R.id.timetableScroll).setVisibility(View.GONE);
-                } else {
-                    emptyView.setVisibility(View.GONE);
-                    findViewById(R.id.timetableScroll).setVisibility(View.VISIBLE);
-                    // Validate sessions first
-                    validateSessions();
-                    // Then render the timetable
-                    displayTimetable();
-                }
+                showLoadedTimetableSessions();
             }
 
             @Override
@@ -364,6 +387,23 @@ public class ViewTimetableActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Shows the loaded sessions of a timetable, or the empty view if there are none
+     */
+    private void showLoadedTimetableSessions() {
+        if (sessions.isEmpty()) {
+            emptyView.setVisibility(View.VISIBLE);
+            findViewById(R.id.timetableScroll).setVisibility(View.GONE);
+        } else {
+            emptyView.setVisibility(View.GONE);
+            findViewById(R.id.timetableScroll).setVisibility(View.VISIBLE);
+            // Validate sessions first
+            validateSessions();
+            // Then render the timetable
+            displayTimetable();
+        }
+    }
+
     /**
      * Loads timetable data from all departments and filters for a specific lecturer
      * This ensures we get ALL sessions for this lecturer across all departments
@@ -589,67 +629,102 @@ public class ViewTimetableActivity extends AppCompatActivity {
             }
         }).start();
 
-        // Get a reference to the timetable sessions data
-        DatabaseReference baseRef = FirebaseDatabase.getInstance().getReference()
-                .child("department_timetableSessions");
+        // Timetables saved before the lecturer index existed are found by querying every department
+        Runnable queryDepartments = () -> {
+            // Get a reference to the timetable sessions data
+            DatabaseReference baseRef = FirebaseDatabase.getInstance().getReference()
+                    .child("department_timetableSessions");
 
-        for (String dept : departments) {
-            DatabaseReference deptRef = baseRef.child(dept);
+            for (String dept : departments) {
+                DatabaseReference deptRef = baseRef.child(dept);
 
-            // This query specifically requests data from the server and ignores the cache
-            Query query = deptRef.orderByChild("lecturerId").equalTo(lecturerId);
+                // This query specifically requests data from the server and ignores the cache
+                Query query = deptRef.orderByChild("lecturerId").equalTo(lecturerId);
 
-            // Use a listener that consistently gets data updates rather than one-time
-            query.addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    // Mark this department as having responded
-                    respondedDepartments.add(dept);
+                // Use a listener that consistently gets data updates rather than one-time
+                query.addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                        // Mark this department as having responded
+                        respondedDepartments.add(dept);
 
-                    if (dataSnapshot.exists()) {
-                        Log.d(TAG, "Found " + dataSnapshot.getChildrenCount() + " sessions for lecturer " + lecturerId + " in department " + dept);
+                        if (dataSnapshot.exists()) {
+                            Log.d(TAG, "Found " + dataSnapshot.getChildrenCount() + " sessions for lecturer " + lecturerId + " in department " + dept);
 
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            TimetableSession session = snapshot.getValue(TimetableSession.class);
-                            if (session != null) {
-                                sessions.add(session);
-                                anySessionsFound.set(true);
+                            for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                                TimetableSession session = snapshot.getValue(TimetableSession.class);
+                                if (session != null) {
+                                    sessions.add(session);
+                                    anySessionsFound.set(true);
+                                }
                             }
+                        } else {
+                            Log.d(TAG, "No sessions found for lecturer " + lecturerId + " in department " + dept);
                         }
-                    } else {
-                        Log.d(TAG, "No sessions found for lecturer " + lecturerId + " in department " + dept);
-                    }
 
-                    // Check if this was the last department to process
-                    if (pendingDepartments.decrementAndGet() == 0) {
-                        // Check if we haven't already finished due to timeout
-                        if (!hasFinished.getAndSet(true)) {
-                            // Remove the hard timeout since we completed normally
-                            timeoutHandler.removeCallbacksAndMessages(null);
-                            finishLoadingLecturerTimetable(anySessionsFound.get());
+                        // Check if this was the last department to process
+                        if (pendingDepartments.decrementAndGet() == 0) {
+                            // Check if we haven't already finished due to timeout
+                            if (!hasFinished.getAndSet(true)) {
+                                // Remove the hard timeout since we completed normally
+                                timeoutHandler.removeCallbacksAndMessages(null);
+                                finishLoadingLecturerTimetable(anySessionsFound.get());
+                            }
                         }
                     }
-                }
 
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error loading lecturer sessions for " + dept + ": " + databaseError.getMessage());
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.e(TAG, "Error loading lecturer sessions for " + dept + ": " + databaseError.getMessage());
+
+                        // Mark this department as having responded (with an error)
+                        respondedDepartments.add(dept);
+
+                        // Even if there's an error, we need to continue processing
+                        if (pendingDepartments.decrementAndGet() == 0) {
+                            // Check if we haven't already finished due to timeout
+                            if (!hasFinished.getAndSet(true)) {
+                                // Remove the hard timeout since we completed normally
+                                timeoutHandler.removeCallbacksAndMessages(null);
+                                finishLoadingLecturerTimetable(anySessionsFound.get());
+                            }
+                        }
+                    }
+                });
+            }
+        };
 
-                    // Mark this department as having responded (with an error)
-                    respondedDepartments.add(dept);
+        // Fetch the lecturer's sessions by key from the index
+        SessionIndex.load(FirebaseDatabase.getInstance().getReference(), SessionIndex.byLecturer(lecturerId),
+                new SessionIndex.Callback() {
+                    @Override
+                    public void onLoaded(@NonNull List<TimetableSession> indexedSessions) {
+                        for (TimetableSession session : indexedSessions) {
+                            if (departments.contains(session.getDepartment())) {
+                                sessions.add(session);
+                                anySessionsFound.set(true);
+                            }
+                        }
+                        Log.d(TAG, "Found " + sessions.size() + " indexed sessions for lecturer " + lecturerId);
+                        respondedDepartments.addAll(departments);
 
-                    // Even if there's an error, we need to continue processing
-                    if (pendingDepartments.decrementAndGet() == 0) {
-                        // Check if we haven't already finished due to timeout
                         if (!hasFinished.getAndSet(true)) {
-                            // Remove the hard timeout since we completed normally
                             timeoutHandler.removeCallbacksAndMessages(null);
                             finishLoadingLecturerTimetable(anySessionsFound.get());
                         }
                     }
-                }
-            });
-        }
+
+                    @Override
+                    public void onNotIndexed() {
+                        queryDepartments.run();
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.e(TAG, "Error reading lecturer index: " + databaseError.getMessage());
+                        queryDepartments.run();
+                    }
+                });
     }
 
     /**
@@ -687,18 +762,7 @@ public class ViewTimetableActivity extends AppCompatActivity {
      * Convert day name to ordinal position for sorting
      */
     private int getDayOrdinal(String day) {
-        if (day == null) return -1;
-
-        switch (day.toLowerCase()) {
-            case "monday": return 0;
-            case "tuesday": return 1;
-            case "wednesday": return 2;
-            case "thursday": return 3;
-            case "friday": return 4;
-            case "saturday": return 5;
-            case "sunday": return 6;
-            default: return -1;
-        }
+        return TimetableSymbols.dayIndex(day);
     }
 
     /**
@@ -706,6 +770,7 @@ public class ViewTimetableActivity extends AppCompatActivity {
      */
     private void displayTimetable() {
         dismissProgressDialog();
+        sessionGrid = TimetableGrid.build(sessions, DAYS_PER_WEEK, START_HOUR, END_HOUR);
 
         if (sessions == null || sessions.isEmpty()) {
             emptyView.setVisibility(View.VISIBLE);
@@ -841,57 +906,19 @@ public class ViewTimetableActivity extends AppCompatActivity {
 
     private Map<String, List<TimetableSession>> detectLecturerTimeConflicts() {
         Map<String, List<TimetableSession>> conflicts = new HashMap<>();
-        Map<String, Map<String, Set<TimetableSession>>> lecturerDayTimeSessionMap = new HashMap<>();
-
-        // First, organize sessions by lecturer, day, and time
-        for (TimetableSession session : sessions) {
-            String lecturerId = session.getLecturerId();
-            if (lecturerId == null || lecturerId.isEmpty()) continue;
 
-            String dayKey = session.getDayOfWeek();
-            int startHour = parseHour(session.getStartTime());
-            int endHour = parseHour(session.getEndTime());
-
-            // Initialize maps if needed
-            if (!lecturerDayTimeSessionMap.containsKey(lecturerId)) {
-                lecturerDayTimeSessionMap.put(lecturerId, new HashMap<>());
+        // A conflict is when a lecturer has two sessions at overlapping times
+        for (ConflictDetector.Conflict conflict : ConflictDetector.findConflicts(sessions, ConflictDetector.BY_LECTURER)) {
+            List<TimetableSession> lecturerConflicts = conflicts.get(conflict.getOwnerId());
+            if (lecturerConflicts == null) {
+                lecturerConflicts = new ArrayList<>();
+                conflicts.put(conflict.getOwnerId(), lecturerConflicts);
             }
-
-            Map<String, Set<TimetableSession>> dayTimeMap = lecturerDayTimeSessionMap.get(lecturerId);
-            if (!dayTimeMap.containsKey(dayKey)) {
-                dayTimeMap.put(dayKey, new HashSet<>());
+            if (!lecturerConflicts.contains(conflict.getFirst())) {
+                lecturerConflicts.add(conflict.getFirst());
             }
-
-            // Add this session to the map for each hour it spans
-            for (int hour = startHour; hour < endHour; hour++) {
-                String timeKey = dayKey + "_" + hour;
-                if (!dayTimeMap.containsKey(timeKey)) {
-                    dayTimeMap.put(timeKey, new HashSet<>());
-                }
-                dayTimeMap.get(timeKey).add(session);
-            }
-        }
-
-        // Now check for conflicts - a conflict is when a lecturer has >1 session at a time
-        for (String lecturerId : lecturerDayTimeSessionMap.keySet()) {
-            Map<String, Set<TimetableSession>> dayTimeMap = lecturerDayTimeSessionMap.get(lecturerId);
-
-            for (String timeKey : dayTimeMap.keySet()) {
-                Set<TimetableSession> sessionsAtTime = dayTimeMap.get(timeKey);
-
-                if (sessionsAtTime.size() > 1) {
-                    // Conflict found
-                    if (!conflicts.containsKey(lecturerId)) {
-                        conflicts.put(lecturerId, new ArrayList<>());
-                    }
-
-                    // Add all conflicting sessions
-                    for (TimetableSession conflictSession : sessionsAtTime) {
-                        if (!conflicts.get(lecturerId).contains(conflictSession)) {
-                            conflicts.get(lecturerId).add(conflictSession);
-                        }
-                    }
-                }
+            if (!lecturerConflicts.contains(conflict.getSecond())) {
+                lecturerConflicts.add(conflict.getSecond());
             }
         }
 
@@ -1101,8 +1128,8 @@ public class ViewTimetableActivity extends AppCompatActivity {
 
         // Add cells for each day of the week
         for (int day = 0; day < DAYS_PER_WEEK; day++) {
-            // Find all sessions for this day and time
-            List<TimetableSession> sessionsForCell = findSessionsForDayAndTime(day, hour);
+            // Look up the sessions for this day and time
+            List<TimetableSession> sessionsForCell = sessionGrid.getSessions(day, hour);
 
             // Create and add the cell view
             View cellView = createCellView(day, hour, sessionsForCell);
@@ -1112,52 +1139,6 @@ public class ViewTimetableActivity extends AppCompatActivity {
         return timeSlotRow;
     }
 
-    private List<TimetableSession> findSessionsForDayAndTime(int day, int hour) {
-        List<TimetableSession> matchingSessions = new ArrayList<>();
-        // Set to track unique session combinations to avoid duplicates
-        Set<String> uniqueSessionKeys = new HashSet<>();
-
-        for (TimetableSession session : sessions) {
-            // Parse day of week
-            int sessionDay = parseDayOfWeek(session.getDayOfWeek());
-            if (sessionDay != day) continue; // Skip if not the right day
-
-            // Parse start and end time
-            int sessionStartHour = parseHour(session.getStartTime());
-            int sessionEndHour = parseHour(session.getEndTime());
-
-            // Check if the session covers this hour
-            // A session covers the hour if it starts at or before the hour and ends after the hour
-            if (hour >= sessionStartHour && hour < sessionEndHour) {
-                // Create a unique key for this session to prevent duplicates
-                String courseId = session.getCourseId();
-                String lecturerId = session.getLecturerId();
-                String uniqueKey = courseId + "_" + lecturerId + "_" + sessionStartHour + "_" + sessionEndHour;
-
-                if (!uniqueSessionKeys.contains(uniqueKey)) {
-                    matchingSessions.add(session);
-                    uniqueSessionKeys.add(uniqueKey);
-
-                    // Add debug logging for session matching
-                    Log.d(TAG, "Session match for day " + day + " hour " + hour + ": " +
-                            session.getCourseName() + " (" + session.getStartTime() + "-" +
-                            session.getEndTime() + ")");
-                } else {
-                    Log.d(TAG, "Skipping duplicate session for day " + day + " hour " + hour + ": " +
-                            session.getCourseName());
-                }
-            }
-        }
-
-        if (matchingSessions.isEmpty()) {
-            Log.d(TAG, "No sessions found for day " + day + " hour " + hour);
-        } else {
-            Log.d(TAG, "Found " + matchingSessions.size() + " unique sessions for day " + day + " hour " + hour);
-        }
-
-        return matchingSessions;
-    }
-
     private View createCellView(int day, int hour, List<TimetableSession> sessionsForCell) {
         // If no sessions, create empty cell
         if (sessionsForCell.isEmpty()) {
@@ -1400,17 +1381,9 @@ public class ViewTimetableActivity extends AppCompatActivity {
     }
 
     private int parseDayOfWeek(String dayOfWeek) {
-        if (dayOfWeek == null) return -1;
-
         // Map day string to index (0-4 for Monday-Friday)
-        switch (dayOfWeek.toLowerCase()) {
-            case "monday": return 0;
-            case "tuesday": return 1;
-            case "wednesday": return 2;
-            case "thursday": return 3;
-            case "friday": return 4;
-            default: return -1;
-        }
+        int day = TimetableSymbols.dayIndex(dayOfWeek);
+        return day < DAYS_PER_WEEK ? day : -1;
     }
 
     private int parseHour(String timeString) {
@@ -1711,8 +1684,8 @@ public class ViewTimetableActivity extends AppCompatActivity {
                     // Draw empty cell border
                     canvas.drawRect(x, y, x + dayColumnWidth, y + cellHeight, cellBorderPaint);
 
-                    // Find sessions for this time slot and day
-                    List<TimetableSession> sessionsForCell = getSessionsForTimeAndDay(currentHour, day);
+                    // Look up the sessions for this time slot and day
+                    List<TimetableSession> sessionsForCell = sessionGrid.getSessions(day, currentHour);
 
                     // Draw sessions in this cell
                     if (!sessionsForCell.isEmpty()) {
@@ -1731,55 +1704,6 @@ public class ViewTimetableActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * Find sessions that occur at a specific hour and day
-     */
-    private List<TimetableSession> getSessionsForTimeAndDay(int hour, int day) {
-        List<TimetableSession> result = new ArrayList<>();
-        // Set to track unique session combinations to avoid duplicates
-        Set<String> uniqueSessionKeys = new HashSet<>();
-
-        for (TimetableSession session : sessions) {
-            // Parse day of week
-            int sessionDay = parseDayOfWeek(session.getDayOfWeek());
-            if (sessionDay != day) continue; // Skip if not the right day
-
-            // Parse start and end times to check if session occurs during this hour
-            int sessionStartHour = parseHour(session.getStartTime());
-            int sessionEndHour = parseHour(session.getEndTime());
-
-            // Check if this hour falls within the session time
-            // A session covers the hour if it starts at or before the hour and ends after the hour
-            if (hour >= sessionStartHour && hour < sessionEndHour) {
-                // Create a unique key for this session to prevent duplicates
-                String courseId = session.getCourseId();
-                String lecturerId = session.getLecturerId();
-                String uniqueKey = courseId + "_" + lecturerId + "_" + sessionStartHour + "_" + sessionEndHour;
-
-                if (!uniqueSessionKeys.contains(uniqueKey)) {
-                    result.add(session);
-                    uniqueSessionKeys.add(uniqueKey);
-
-                    // Add debug logging for session matching
-                    Log.d(TAG, "Session match for day " + day + " hour " + hour + ": " +
-                            session.getCourseName() + " (" + session.getStartTime() + "-" +
-                            session.getEndTime() + ")");
-                } else {
-                    Log.d(TAG, "Skipping duplicate session for day " + day + " hour " + hour + ": " +
-                            session.getCourseName());
-                }
-            }
-        }
-
-        if (result.isEmpty()) {
-            Log.d(TAG, "No sessions found for day " + day + " hour " + hour);
-        } else {
-            Log.d(TAG, "Found " + result.size() + " unique sessions for day " + day + " hour " + hour);
-        }
-
-        return result;
-    }
-
     /**
      * Draw session information within a cell
      */
@@ -0,0 +1,146 @@
+package com.example.manager.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only node of a Firebase tree loaded through {@link FirebaseRepository}, read the same
+ * way as a {@code DataSnapshot}: {@code child("name").getValue(String.class)},
+ * {@code getChildren()}, {@code exists()}.
+ *
+ * Values are what {@code DataSnapshot.getValue()} returns: a {@code Map} for objects, a
+ * {@code List} for arrays, or a String, Long, Double or Boolean. A missing child is a node
+ * whose value is null.
+ */
+public class CachedNode {
+    private final String key;
+    private final Object value;
+
+    public CachedNode(String key, Object value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean exists() {
+        return value != null;
+    }
+
+    /**
+     * Gets the raw value of the node, or null if it doesn't exist.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Gets a child node by key, or by a path of keys separated by "/".
+     */
+    public CachedNode child(String path) {
+        CachedNode node = this;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                node = new CachedNode(segment, childValue(node.value, segment));
+            }
+        }
+        return node;
+    }
+
+    public boolean hasChild(String path) {
+        return child(path).exists();
+    }
+
+    /**
+     * Gets the children of an object or array node, in key order for objects as Firebase
+     * returns them; empty for other nodes.
+     */
+    public Iterable<CachedNode> getChildren() {
+        List<CachedNode> children = new ArrayList<>();
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                children.add(new CachedNode(String.valueOf(entry.getKey()), entry.getValue()));
+            }
+        } else if (value instanceof List) {
+            List<?> items = (List<?>) value;
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) != null) {
+                    children.add(new CachedNode(String.valueOf(i), items.get(i)));
+                }
+            }
+        }
+        return Collections.unmodifiableList(children);
+    }
+
+    public long getChildrenCount() {
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        if (value instanceof List) {
+            long count = 0;
+            for (Object item : (List<?>) value) {
+                if (item != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the value converted to a String, Long, Integer, Double or Boolean the way Firebase
+     * converts it, e.g. a Long read as Integer.
+     *
+     * @return The converted value, or null if the node doesn't exist
+     * @throws IllegalArgumentException if the value can't be read as {@code type}, e.g. a
+     *         String read as Integer
+     */
+    public <T> T getValue(Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Integer.class) {
+                return type.cast(number.intValue());
+            }
+            if (type == Long.class) {
+                return type.cast(number.longValue());
+            }
+            if (type == Double.class) {
+                return type.cast(number.doubleValue());
+            }
+            if (type == Float.class) {
+                return type.cast(number.floatValue());
+            }
+        }
+        throw new IllegalArgumentException("Can't convert " + value.getClass().getSimpleName() +
+                " at " + key + " to " + type.getSimpleName());
+    }
+
+    private static Object childValue(Object parent, String key) {
+        if (parent instanceof Map) {
+            return ((Map<?, ?>) parent).get(key);
+        }
+        if (parent instanceof List) {
+            try {
+                int index = Integer.parseInt(key);
+                List<?> items = (List<?>) parent;
+                return index >= 0 && index < items.size() ? items.get(index) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedNode{" + key + "=" + value + "}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.manager.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared access to the Firebase lists the timetable screens read in full, such as
+ * "resources", "Users", "lecturer_departments" and "courses".
+ *
+ * The first {@link #load} of a path marks it {@code keepSynced}, so the SDK's disk cache
+ * (enabled in ManagerApplication) keeps it up to date by pulling only what changed, and later
+ * loads are answered from that cache.
+ *
+ * Callbacks are always delivered on the main thread, like Firebase's own listeners.
+ */
+public class FirebaseRepository {
+    private static final String TAG = "FirebaseRepository";
+
+    /**
+     * Receives the result of {@link #load}.
+     */
+    public interface SnapshotCallback {
+        /**
+         * Called with the node at the loaded path.
+         */
+        void onDataChange(@NonNull CachedNode node);
+
+        /**
+         * Called if the path could not be read.
+         */
+        void onCancelled(@NonNull DatabaseError databaseError);
+    }
+
+    private static FirebaseRepository instance;
+
+    private final DatabaseReference database;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Only used on the main thread
+    private final Set<String> syncedPaths = new HashSet<>();
+
+    /**
+     * Gets the repository shared by all screens.
+     */
+    public static synchronized FirebaseRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new FirebaseRepository(FirebaseDatabase.getInstance().getReference());
+        }
+        return instance;
+    }
+
+    FirebaseRepository(DatabaseReference database) {
+        this.database = database;
+    }
+
+    /**
+     * Loads a path, from the SDK's cache if the path is already being kept in sync.
+     * Can be called from any thread.
+     *
+     * @param path Path below the database root, e.g. "resources"
+     * @param callback Receives the node on the main thread
+     */
+    public void load(String path, SnapshotCallback callback) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            loadOnMainThread(path, callback);
+        } else {
+            mainHandler.post(() -> loadOnMainThread(path, callback));
+        }
+    }
+
+    private void loadOnMainThread(String path, SnapshotCallback callback) {
+        DatabaseReference ref = database.child(path);
+        if (syncedPaths.add(path)) {
+            ref.keepSynced(true);
+        }
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                callback.onDataChange(toNode(dataSnapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "Load of " + path + " failed: " + databaseError.getMessage());
+                // Try to sync again on the next load
+                syncedPaths.remove(path);
+                ref.keepSynced(false);
+                callback.onCancelled(databaseError);
+            }
+        });
+    }
+
+    /**
+     * Copies a snapshot into a node, keeping the children in the order Firebase returns them.
+     */
+    private static CachedNode toNode(DataSnapshot dataSnapshot) {
+        if (!dataSnapshot.hasChildren()) {
+            return new CachedNode(dataSnapshot.getKey(), dataSnapshot.getValue());
+        }
+        Map<String, Object> children = new LinkedHashMap<>();
+        for (DataSnapshot child : dataSnapshot.getChildren()) {
+            children.put(child.getKey(), child.getValue());
+        }
+        return new CachedNode(dataSnapshot.getKey(), children);
+    }
+}
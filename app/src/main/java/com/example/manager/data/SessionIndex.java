@@ -0,0 +1,269 @@
+package com.example.manager.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.manager.timetable.TimetableSession;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index nodes for timetable sessions, so the sessions of a lecturer, course or timetable can
+ * be fetched by key instead of querying or scanning department_timetableSessions.
+ *
+ * Each index maps a key to the sessions stored for it, with the session's department as the
+ * value, which is all that is needed to build the session's path:
+ * <pre>
+ * session_index/by_lecturer/{lecturerId}/{sessionId} = department
+ * session_index/by_course/{courseId}/{sessionId} = department
+ * session_index/by_timetable/{timetableId}/{sessionId} = department
+ * </pre>
+ * Entries are added and removed in the same multi-path update as the sessions themselves.
+ *
+ * Sessions saved before the index existed have no entries, and a timetable can hold both kinds,
+ * so a missing or short index node doesn't tell whether the index is complete. Instead
+ * session_index/complete is set by a one-off backfill that indexes every stored session. Until
+ * it is set, {@link Callback#onNotIndexed()} tells readers to use their old query or scan, and
+ * the first load starts the backfill.
+ */
+public final class SessionIndex {
+    private static final String TAG = "SessionIndex";
+
+    public static final String SESSIONS = "department_timetableSessions";
+    public static final String ROOT = "session_index";
+    private static final String BY_LECTURER = ROOT + "/by_lecturer/";
+    private static final String BY_COURSE = ROOT + "/by_course/";
+    private static final String BY_TIMETABLE = ROOT + "/by_timetable/";
+    private static final String COMPLETE = ROOT + "/complete";
+
+    // Set while this process runs a backfill, so concurrent loads don't start another
+    private static final AtomicBoolean backfilling = new AtomicBoolean(false);
+
+    /**
+     * Receives the sessions listed under an index node.
+     */
+    public interface Callback {
+        /**
+         * Called with the sessions listed in the index, each with its department set.
+         */
+        void onLoaded(@NonNull List<TimetableSession> sessions);
+
+        /**
+         * Called if the index doesn't cover every stored session yet, so the caller has to query
+         * or scan the sessions instead.
+         */
+        void onNotIndexed();
+
+        void onCancelled(@NonNull DatabaseError databaseError);
+    }
+
+    private SessionIndex() {
+    }
+
+    public static String sessionPath(String department, String sessionId) {
+        return SESSIONS + "/" + department + "/" + sessionId;
+    }
+
+    public static String byLecturer(String lecturerId) {
+        return BY_LECTURER + lecturerId;
+    }
+
+    public static String byCourse(String courseId) {
+        return BY_COURSE + courseId;
+    }
+
+    public static String byTimetable(String timetableId) {
+        return BY_TIMETABLE + timetableId;
+    }
+
+    /**
+     * Adds the index entries of a session to a multi-path update.
+     */
+    public static void addEntries(Map<String, Object> updates, String department, TimetableSession session) {
+        putEntries(updates, session, department);
+    }
+
+    /**
+     * Adds the removal of a session's index entries to a multi-path update.
+     */
+    public static void removeEntries(Map<String, Object> updates, TimetableSession session) {
+        putEntries(updates, session, null);
+    }
+
+    private static void putEntries(Map<String, Object> updates, TimetableSession session, Object value) {
+        String sessionId = session.getId();
+        if (sessionId == null || sessionId.isEmpty()) {
+            return;
+        }
+        if (isKey(session.getLecturerId())) {
+            updates.put(byLecturer(session.getLecturerId()) + "/" + sessionId, value);
+        }
+        if (isKey(session.getCourseId())) {
+            updates.put(byCourse(session.getCourseId()) + "/" + sessionId, value);
+        }
+        if (isKey(session.getTimetableId())) {
+            updates.put(byTimetable(session.getTimetableId()) + "/" + sessionId, value);
+        }
+    }
+
+    /**
+     * Loads the sessions listed under an index node, fetching each one by its path.
+     * Entries whose session no longer exists are removed from the index.
+     *
+     * @param database The database root
+     * @param indexPath Path of the index node, e.g. from {@link #byLecturer}
+     */
+    public static void load(DatabaseReference database, String indexPath, Callback callback) {
+        database.child(COMPLETE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot completeSnapshot) {
+                if (Boolean.TRUE.equals(completeSnapshot.getValue(Boolean.class))) {
+                    loadIndexed(database, indexPath, callback);
+                } else {
+                    backfill(database);
+                    callback.onNotIndexed();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onCancelled(databaseError);
+            }
+        });
+    }
+
+    /**
+     * Adds index entries for every stored session and then marks the index complete, in one
+     * multi-path update. Sessions saved while it runs are indexed by their own update.
+     */
+    private static void backfill(DatabaseReference database) {
+        if (!backfilling.compareAndSet(false, true)) {
+            return;
+        }
+        database.child(SESSIONS).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot sessionsSnapshot) {
+                Map<String, Object> updates = new HashMap<>();
+                int count = 0;
+                for (DataSnapshot departmentSnapshot : sessionsSnapshot.getChildren()) {
+                    String department = departmentSnapshot.getKey();
+                    for (DataSnapshot sessionSnapshot : departmentSnapshot.getChildren()) {
+                        TimetableSession session;
+                        try {
+                            session = sessionSnapshot.getValue(TimetableSession.class);
+                        } catch (RuntimeException e) {
+                            Log.w(TAG, "Skipping unreadable session " + sessionSnapshot.getKey() + ": " + e.getMessage());
+                            continue;
+                        }
+                        if (session == null) {
+                            continue;
+                        }
+                        // The index is keyed by the session's path, not by the ID stored inside it
+                        session.setId(sessionSnapshot.getKey());
+                        addEntries(updates, department, session);
+                        count++;
+                    }
+                }
+                updates.put(COMPLETE, true);
+                int indexed = count;
+                database.updateChildren(updates).addOnCompleteListener(task -> {
+                    backfilling.set(false);
+                    if (task.isSuccessful()) {
+                        Log.d(TAG, "Indexed " + indexed + " existing sessions");
+                    } else {
+                        Log.e(TAG, "Could not index existing sessions", task.getException());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                backfilling.set(false);
+                Log.e(TAG, "Could not read sessions to index: " + databaseError.getMessage());
+            }
+        });
+    }
+
+    private static void loadIndexed(DatabaseReference database, String indexPath, Callback callback) {
+        database.child(indexPath).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot indexSnapshot) {
+                // The index is complete, so a key without entries has no sessions
+
+                Map<String, String> departments = new HashMap<>();
+                for (DataSnapshot entry : indexSnapshot.getChildren()) {
+                    String department = entry.getValue(String.class);
+                    if (department != null) {
+                        departments.put(entry.getKey(), department);
+                    }
+                }
+                if (departments.isEmpty()) {
+                    callback.onLoaded(new ArrayList<>());
+                    return;
+                }
+
+                List<TimetableSession> sessions = Collections.synchronizedList(new ArrayList<>());
+                Map<String, Object> staleEntries = Collections.synchronizedMap(new HashMap<>());
+                AtomicInteger pending = new AtomicInteger(departments.size());
+                for (Map.Entry<String, String> entry : departments.entrySet()) {
+                    String sessionId = entry.getKey();
+                    String department = entry.getValue();
+                    database.child(sessionPath(department, sessionId)).addListenerForSingleValueEvent(new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot sessionSnapshot) {
+                            TimetableSession session = sessionSnapshot.exists()
+                                    ? sessionSnapshot.getValue(TimetableSession.class) : null;
+                            if (session != null) {
+                                if (session.getId() == null || session.getId().isEmpty()) {
+                                    session.setId(sessionId);
+                                }
+                                session.setDepartment(department);
+                                sessions.add(session);
+                            } else {
+                                staleEntries.put(indexPath + "/" + sessionId, null);
+                            }
+                            finish();
+                        }
+
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError databaseError) {
+                            Log.e(TAG, "Error loading indexed session " + sessionId + ": " + databaseError.getMessage());
+                            finish();
+                        }
+
+                        private void finish() {
+                            if (pending.decrementAndGet() > 0) {
+                                return;
+                            }
+                            if (!staleEntries.isEmpty()) {
+                                Log.d(TAG, "Removing " + staleEntries.size() + " stale entries from " + indexPath);
+                                database.updateChildren(new HashMap<>(staleEntries));
+                            }
+                            callback.onLoaded(new ArrayList<>(sessions));
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onCancelled(databaseError);
+            }
+        });
+    }
+
+    private static boolean isKey(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
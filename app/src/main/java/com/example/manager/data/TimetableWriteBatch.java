@@ -0,0 +1,195 @@
+package com.example.manager.data;
+
+import android.util.Log;
+
+import com.example.manager.timetable.TimetableSession;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DatabaseReference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the writes of a timetable generation run and sends them as multi-location
+ * updates, so sessions, metadata and the lecturer and admin views are saved together
+ * instead of one round trip per department and lecturer.
+ *
+ * Each update replaces the value at its path. Updates are sent in as few chunks as fit the
+ * payload limit, each applied atomically by Firebase. Pointers, such as the default timetable
+ * of a department, go in the last chunk so that they are only written once everything they
+ * point to is saved; if a chunk fails the remaining chunks are not sent.
+ *
+ * Values are converted when the batch is committed, so sessions changed after being added,
+ * e.g. by conflict resolution, are saved as they are at that point. Adding is thread-safe.
+ */
+public class TimetableWriteBatch {
+    private static final String TAG = "TimetableWriteBatch";
+
+    // Well below the size Firebase accepts in a single write
+    public static final int DEFAULT_MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private final DatabaseReference database;
+    private final int maxChunkBytes;
+    private final Map<String, Object> data = new LinkedHashMap<>();
+    private final Map<String, Object> pointers = new LinkedHashMap<>();
+
+    public TimetableWriteBatch(DatabaseReference database) {
+        this(database, DEFAULT_MAX_CHUNK_BYTES);
+    }
+
+    /**
+     * @param database Reference that update paths are relative to, normally the database root
+     * @param maxChunkBytes Approximate maximum size of one update, in bytes of JSON
+     */
+    public TimetableWriteBatch(DatabaseReference database, int maxChunkBytes) {
+        if (maxChunkBytes <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + maxChunkBytes);
+        }
+        this.database = database;
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    /**
+     * Adds a value to write at a path, replacing any value added for it before.
+     *
+     * @param path Path relative to the batch's reference, e.g. "department_timetables/IT/abc"
+     * @param value A String, Number, Boolean, Map, List or TimetableSession, or null to delete
+     */
+    public synchronized void put(String path, Object value) {
+        data.put(path, value);
+    }
+
+    /**
+     * Adds a value that refers to other data in the batch; it is written in the last chunk.
+     */
+    public synchronized void putPointer(String path, Object value) {
+        pointers.put(path, value);
+    }
+
+    public synchronized int size() {
+        return data.size() + pointers.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return data.isEmpty() && pointers.isEmpty();
+    }
+
+    /**
+     * Sends the batch. The batch is emptied, so it can be reused for the next run.
+     *
+     * @return A task that succeeds when every chunk is written, or fails with the first error
+     */
+    public Task<Void> commit() {
+        List<Map<String, Object>> chunks;
+        synchronized (this) {
+            chunks = chunk(data);
+            List<Map<String, Object>> pointerChunks = chunk(pointers);
+            // Pointers get their own last chunk unless the previous one has room for them
+            if (!pointerChunks.isEmpty() && !chunks.isEmpty() && pointerChunks.size() == 1 &&
+                    estimateSize(chunks.get(chunks.size() - 1)) + estimateSize(pointerChunks.get(0)) <= maxChunkBytes) {
+                chunks.get(chunks.size() - 1).putAll(pointerChunks.get(0));
+            } else {
+                chunks.addAll(pointerChunks);
+            }
+            data.clear();
+            pointers.clear();
+        }
+
+        Log.d(TAG, "Writing " + chunks.size() + " update(s)");
+        Task<Void> task = Tasks.forResult(null);
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, Object> chunk = chunks.get(i);
+            int number = i + 1;
+            int total = chunks.size();
+            task = task.continueWithTask(previous -> {
+                if (!previous.isSuccessful()) {
+                    return previous;
+                }
+                Log.d(TAG, "Writing update " + number + "/" + total + " with " + chunk.size() + " paths");
+                return database.updateChildren(chunk);
+            });
+        }
+        return task;
+    }
+
+    /**
+     * Splits updates into chunks of at most maxChunkBytes, keeping their order. An update
+     * bigger than that on its own gets a chunk to itself.
+     */
+    private List<Map<String, Object>> chunk(Map<String, Object> updates) {
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        Map<String, Object> current = new HashMap<>();
+        long currentSize = 0;
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            Object value = toValue(update.getValue());
+            long size = update.getKey().length() + estimateSize(value) + 4;
+            if (!current.isEmpty() && currentSize + size > maxChunkBytes) {
+                chunks.add(current);
+                current = new HashMap<>();
+                currentSize = 0;
+            }
+            current.put(update.getKey(), value);
+            currentSize += size;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * Converts sessions, also inside maps and lists, to the plain maps Firebase stores.
+     */
+    private static Object toValue(Object value) {
+        if (value instanceof TimetableSession) {
+            return ((TimetableSession) value).toMap();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(String.valueOf(entry.getKey()), toValue(entry.getValue()));
+            }
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(toValue(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    /**
+     * Estimates the size of a value as JSON.
+     */
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof String) {
+            // Quotes, and room for escapes and multi-byte characters
+            return ((String) value).length() * 2L + 2;
+        }
+        if (value instanceof Map) {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + 4 + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List) {
+            long size = 2;
+            for (Object item : (List<?>) value) {
+                size += estimateSize(item) + 1;
+            }
+            return size;
+        }
+        return 24;
+    }
+}
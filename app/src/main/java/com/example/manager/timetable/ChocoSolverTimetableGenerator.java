@@ -4,7 +4,6 @@
  */
 package com.example.manager.timetable;
 
-import android.util.Log;
 
 import com.example.manager.admin.model.Resource;
 import com.example.manager.model.Lecturer;
@@ -17,13 +16,19 @@ import com.example.manager.timetable.TimetableGeneratorOptions;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.monitors.NogoodFromRestarts;
 import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMin;
+import org.chocosolver.solver.search.strategy.selectors.variables.DomOverWDeg;
+import org.chocosolver.solver.search.strategy.strategy.WarmStart;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
@@ -34,6 +39,9 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * ChocoSolverTimetableGenerator - Advanced Timetable Generator using Choco Solver
@@ -57,48 +65,98 @@ import java.util.UUID;
 public class ChocoSolverTimetableGenerator implements TimetableGenerator {
     private static final String TAG = "ChocoSolverTimetable";
     
-    // Constants for timetable dimensions
-    private static final int DAYS_PER_WEEK = 5; // Monday to Friday
-    private static final int HOURS_PER_DAY = 8; // 9 AM to 5 PM
-    private static final int START_HOUR = 9;    // Starting at 9 AM
-    
-    // Days of the week for output formatting
-    private static final String[] DAYS_OF_WEEK = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-    
     // Timeout for solver (in milliseconds)
     private static final int DEFAULT_TIMEOUT_MS = 30000; // 30 seconds
     
+    // Large neighbourhood search: time per round, and rounds without improvement before another
+    // random session is freed on top of the neighbourhood
+    private static final long LNS_ROUND_MS = 250;
+    private static final int LNS_ROUNDS_BEFORE_WIDENING = 3;
+    // Neighbourhoods by the session value they share: day, lecturer and resource
+    private static final int[] LNS_NEIGHBOURHOODS = {0, 3, 2};
+    
+    // Restarts: fails before the first restart, growth of the geometric policy, and restarts
+    // after which the search runs to completion
+    private static final int RESTART_BASE_FAILS = 100;
+    private static final double RESTART_GROWTH = 1.5;
+    private static final int MAX_RESTARTS = 10000;
+
+    // Set by updateTimetable: how many sessions to place per course, and sessions that stay put
+    private Map<String, Integer> sessionCountOverrides = new HashMap<>();
+    private List<TimetableSession> pinnedSessions = new ArrayList<>();
+    
+    // Set by the anytime overload of generateTimetable
+    private TimetableSolutionListener solutionListener;
+    
+    // Set from the options of each run: slot length and opening hours of the week
+    private SlotCalendar calendar = new SlotCalendar();
+    
     @Override
     public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses) {
         // Use default options
         return generateTimetable(resources, lecturers, courses, new TimetableGeneratorOptions());
     }
 
+    /**
+     * Generates a timetable as an anytime search: the first timetable is passed to the listener
+     * as soon as it is found, followed by every better one. The search stops when the listener
+     * returns false, the day imbalance can't be improved, the time limit passes or the options'
+     * cancellation flag is set; the best timetable found is returned.
+     *
+     * @param resources List of available resources (rooms/labs)
+     * @param lecturers List of available lecturers
+     * @param courses List of courses to be scheduled
+     * @param options Configuration options for timetable generation
+     * @param listener Receives each improving timetable with its score
+     * @return The best timetable found
+     */
+    public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses,
+                                       TimetableGeneratorOptions options, TimetableSolutionListener listener) {
+        solutionListener = listener;
+        try {
+            return generateTimetable(resources, lecturers, courses, options);
+        } finally {
+            solutionListener = null;
+        }
+    }
+
     @Override
     public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses, 
                                      TimetableGeneratorOptions options) {
-        Log.d(TAG, "Starting timetable generation with Choco Solver");
-        Log.d(TAG, "Resources: " + resources.size() + ", Lecturers: " + lecturers.size() + ", Courses: " + courses.size());
+        TimetableLog.d(TAG, "Starting timetable generation with Choco Solver");
+        TimetableLog.d(TAG, () -> "Resources: " + resources.size() + ", Lecturers: " + lecturers.size() + ", Courses: " + courses.size());
         
         if (options == null) {
-            Log.w(TAG, "No options provided, using defaults");
+            TimetableLog.w(TAG, "No options provided, using defaults");
             options = new TimetableGeneratorOptions();
         }
         
-        Log.d(TAG, "Options - avoidBackToBack: " + options.shouldAvoidBackToBackClasses() + 
+        TimetableLog.d(TAG, "Options - avoidBackToBack: " + options.shouldAvoidBackToBackClasses() + 
               ", avoidBackToBackStudents: " + options.shouldAvoidBackToBackStudents() +
               ", preferEvenDistribution: " + options.shouldPreferEvenDistribution() + 
               ", spreadCourseSessions: " + options.shouldSpreadCourseSessions() + 
               ", maxHoursPerDay: " + options.getMaxHoursPerDay());
         
+        // Days and hours of the model are slots of the teaching week
+        calendar = options.getSlotCalendar();
+        TimetableLog.d(TAG, "Scheduling into " + calendar);
+        
         // Create a new model
+        long buildStart = System.currentTimeMillis();
         Model model = new Model("University Timetable");
         
         // Get the solver associated with the model
         Solver solver = model.getSolver();
         
         // Set a timeout to avoid infinite solving
-        solver.limitTime(DEFAULT_TIMEOUT_MS);
+        long timeLimitMs = options.getTimeLimitMs() > 0 ? options.getTimeLimitMs() : DEFAULT_TIMEOUT_MS;
+        solver.limitTime(timeLimitMs);
+        
+        // Stop searching as soon as another thread cancels the generation
+        AtomicBoolean cancellationFlag = options.getCancellationFlag();
+        if (cancellationFlag != null) {
+            solver.addStopCriterion(cancellationFlag::get);
+        }
         
         // Create a copy of the collections to avoid modification of the originals
         List<Resource> resourcesCopy = new ArrayList<>(resources);
@@ -108,16 +166,16 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         List<TimetableSession> existingSessionsFromOtherDepts = new ArrayList<>();
         if (options != null && options.getExistingTimetableSessions() != null) {
             existingSessionsFromOtherDepts = options.getExistingTimetableSessions();
-            Log.d(TAG, "Received " + existingSessionsFromOtherDepts.size() + 
+            TimetableLog.d(TAG, "Received " + existingSessionsFromOtherDepts.size() + 
                   " existing sessions from other departments to avoid conflicts");
         }
         
         if (resources == null || resources.isEmpty() || lecturers == null || lecturers.isEmpty() || courses == null || courses.isEmpty()) {
-            Log.e(TAG, "Cannot generate timetable with empty resources, lecturers, or courses");
+            TimetableLog.e(TAG, "Cannot generate timetable with empty resources, lecturers, or courses");
             return new Timetable();
         }
         
-        Log.d(TAG, "Starting Choco Solver timetable generation with " + courses.size() + " courses");
+        TimetableLog.d(TAG, () -> "Starting Choco Solver timetable generation with " + courses.size() + " courses");
         
         // Make copies of the input collections to avoid modifying the originals
         List<Course> coursesToSchedule = new ArrayList<>(courses);
@@ -130,34 +188,34 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         for (Course course : coursesToScheduleCopy) {
             // Make sure all courses have basic requirements filled
             if (course.getName() == null || course.getName().isEmpty()) {
-                Log.e(TAG, "Course name is missing, skipping: " + course.getId());
+                TimetableLog.e(TAG, "Course name is missing, skipping: " + course.getId());
                 continue;
             }
             
             // Check if course has valid required sessions
             if (course.getRequiredSessionsPerWeek() <= 0) {
-                Log.w(TAG, "Course has no required sessions, setting to 1: " + course.getName());
+                TimetableLog.w(TAG, "Course has no required sessions, setting to 1: " + course.getName());
                 course.setRequiredSessionsPerWeek(1);
             }
             
             validCourses.add(course);
-            Log.d(TAG, "Validated course: " + course.getName() + " with " + course.getRequiredSessionsPerWeek() + " sessions");
+            TimetableLog.d(TAG, () -> "Validated course: " + course.getName() + " with " + course.getRequiredSessionsPerWeek() + " sessions");
         }
         
         // Exit early if no valid courses
         if (validCourses.isEmpty()) {
-            Log.e(TAG, "No valid courses to schedule!");
+            TimetableLog.e(TAG, "No valid courses to schedule!");
             return new Timetable();
         }
         
         // Ensure all courses are processed
-        Log.d(TAG, "Verifying course data consistency...");
+        TimetableLog.d(TAG, "Verifying course data consistency...");
         for (Course course : courses) {
-            Log.d(TAG, "Course: " + course.getName() + " ID: " + course.getId() + " Sessions: " + course.getRequiredSessionsPerWeek());
+            TimetableLog.d(TAG, () -> "Course: " + course.getName() + " ID: " + course.getId() + " Sessions: " + course.getRequiredSessionsPerWeek());
         }
 
         // Adjust constraints if necessary
-        Log.d(TAG, "Adjusting constraints to ensure all courses are considered...");
+        TimetableLog.d(TAG, "Adjusting constraints to ensure all courses are considered...");
 
         // Create flat list of all sessions to schedule
         List<SessionToSchedule> allSessions = new ArrayList<>();
@@ -165,7 +223,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         Map<String, List<IntVar>> courseDayVars = new HashMap<>();
 
         // Add logging to track the scheduling process
-        Log.d(TAG, "Starting to schedule sessions for each course...");
+        TimetableLog.d(TAG, "Starting to schedule sessions for each course...");
 
         int sessionIndex = 0;
         for (Course course : validCourses) {
@@ -175,37 +233,46 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
             // First check if numberOfLectures is set (this is from the Course Management UI)
             if (course.getNumberOfLectures() > 0) {
                 sessionsNeeded = course.getNumberOfLectures();
-                Log.d(TAG, "Using numberOfLectures (" + sessionsNeeded + ") from course management for: " + course.getName());
+                TimetableLog.d(TAG, "Using numberOfLectures (" + sessionsNeeded + ") from course management for: " + course.getName());
             } 
             // Fall back to requiredSessionsPerWeek if numberOfLectures is not set
             else if (course.getRequiredSessionsPerWeek() > 0) {
                 sessionsNeeded = course.getRequiredSessionsPerWeek();
-                Log.d(TAG, "Using requiredSessionsPerWeek (" + sessionsNeeded + ") as fallback for: " + course.getName());
+                TimetableLog.d(TAG, "Using requiredSessionsPerWeek (" + sessionsNeeded + ") as fallback for: " + course.getName());
             } 
             // Default to 1 if neither is set
             else {
                 sessionsNeeded = 1;
-                Log.d(TAG, "No session count specified, defaulting to 1 session for: " + course.getName());
+                TimetableLog.d(TAG, () -> "No session count specified, defaulting to 1 session for: " + course.getName());
             }
             
             // Add lab sessions if specified
             int labSessions = course.getNumberOfLabs();
             if (labSessions > 0) {
-                Log.d(TAG, "Adding " + labSessions + " lab sessions for: " + course.getName());
+                TimetableLog.d(TAG, () -> "Adding " + labSessions + " lab sessions for: " + course.getName());
                 // We'll handle these as regular sessions for now
                 sessionsNeeded += labSessions;
             }
             
+            // When updating a timetable only the displaced sessions are placed again
+            if (sessionCountOverrides.containsKey(course.getId())) {
+                sessionsNeeded = sessionCountOverrides.get(course.getId());
+                TimetableLog.d(TAG, "Placing " + sessionsNeeded + " displaced sessions for: " + course.getName());
+            }
+            
             // Create sessions based on the calculated count
             for (int i = 0; i < sessionsNeeded; i++) {
-                SessionToSchedule session = new SessionToSchedule(sessionIndex++, course);
+                SessionToSchedule session = new SessionToSchedule(sessionIndex++, course,
+                        calendar.slotsForDuration(course.getDurationHours()));
                 allSessions.add(session);
-                Log.d(TAG, "Added session " + i + " for course " + course.getName() + " (index=" + session.getIndex() + ")");
+                if (TimetableLog.isDebugEnabled()) {
+                    TimetableLog.d(TAG, "Added session " + i + " for course " + course.getName() + " (index=" + session.getIndex() + ")");
+                }
             }
         }
         
         // Log the number of sessions created
-        Log.d(TAG, "Total sessions created: " + allSessions.size());
+        TimetableLog.d(TAG, () -> "Total sessions created: " + allSessions.size());
         
         // Create variables for each session
         Map<Integer, IntVar> sessionDayVars = new HashMap<>();
@@ -213,49 +280,60 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         Map<Integer, IntVar> sessionResourceVars = new HashMap<>();
         Map<Integer, IntVar> sessionLecturerVars = new HashMap<>();
         
+        // Work out the legal rooms, lecturers and start slots of every session up front, so the
+        // variables only hold those values
+        long filterStart = System.currentTimeMillis();
+        SessionDomainFilter domainFilter = new SessionDomainFilter(calendar, resourcesCopy, lecturersCopy);
+        for (TimetableSession existingSession : existingSessionsFromOtherDepts) {
+            int[] range = slotRange(existingSession);
+            if (range != null) {
+                domainFilter.addBooking(range[0], range[1], range[2],
+                        existingSession.getResourceId(), existingSession.getLecturerId());
+            }
+        }
+        
+        int bookingTables = 0;
+        
         // Create variables for each session
         for (SessionToSchedule session : allSessions) {
             int sIndex = session.getIndex();
             Course course = session.getCourse();
             
-            // Variables for day, hour, resource, and lecturer
-            IntVar day = model.intVar("day_" + sIndex, 0, DAYS_PER_WEEK - 1);
-            IntVar hour = model.intVar("hour_" + sIndex, 0, HOURS_PER_DAY - 1);
-            
-            // Find compatible resources for this session
-            List<Integer> compatibleResourceIndices = findCompatibleResources(course, resourcesCopy);
+            // Variables for day, hour (the slot the session starts in), resource, and lecturer
+            SessionDomainFilter.Domains domains = domainFilter.filter(course, session.getSlots(),
+                    findCompatibleResources(course, resourcesCopy));
+            IntVar day;
+            IntVar hour;
             IntVar resource;
-            if (compatibleResourceIndices.isEmpty()) {
+            IntVar lecturer;
+            if (domains.isEmpty()) {
+                // Nowhere is legal, so there is no solution and the fallbacks below take over
+                model.falseConstraint().post();
+                day = model.intVar("day_" + sIndex, 0, calendar.getDays() - 1);
+                hour = model.intVar("hour_" + sIndex, 0, Math.max(0, calendar.getSlotsPerDay() - session.getSlots()));
                 resource = model.intVar("resource_" + sIndex, 0, resourcesCopy.size() - 1);
+                lecturer = model.intVar("lecturer_" + sIndex, 0, lecturersCopy.size() - 1);
             } else {
-                resource = model.intVar("resource_" + sIndex, compatibleResourceIndices.stream().mapToInt(i -> i).toArray());
-            }
-            
-            // If the course has an assigned resource, constrain to that resource
-            if (course.getAssignedResourceId() != null && !course.getAssignedResourceId().isEmpty()) {
-                for (int j = 0; j < resourcesCopy.size(); j++) {
-                    Resource res = resourcesCopy.get(j);
-                    if (res.getId().equals(course.getAssignedResourceId())) {
-                        // Set the resource variable to this specific resource index
-                        resource = model.intVar("resource_" + sIndex, j);
-                        Log.d(TAG, "Course " + course.getName() + " constrained to resource " + res.getName());
-                        break;
-                    }
+                day = model.intVar("day_" + sIndex, domains.getDays());
+                hour = model.intVar("hour_" + sIndex, domains.getStartSlots());
+                if (domains.startsDependOnDay()) {
+                    // Opening hours or bookings differ between days
+                    Tuples starts = new Tuples(domains.getStartTuples(), true);
+                    model.table(day, hour, starts).post();
                 }
-            }
-            
-            // Create lecturer variable - can be any lecturer by default
-            IntVar lecturer = model.intVar("lecturer_" + sIndex, 0, lecturersCopy.size() - 1);
-            
-            // If the course has an assigned lecturer, constrain to that lecturer
-            if (course.getAssignedLecturerId() != null && !course.getAssignedLecturerId().isEmpty()) {
-                for (int j = 0; j < lecturersCopy.size(); j++) {
-                    Lecturer lect = lecturersCopy.get(j);
-                    if (lect.getId().equals(course.getAssignedLecturerId())) {
-                        // Set the lecturer variable to this specific lecturer index
-                        lecturer = model.intVar("lecturer_" + sIndex, j);
-                        Log.d(TAG, "Course " + course.getName() + " constrained to lecturer " + lect.getName());
-                        break;
+                resource = model.intVar("resource_" + sIndex, domains.getResources());
+                lecturer = model.intVar("lecturer_" + sIndex, domains.getLecturers());
+                // Bookings of other departments as the rooms and lecturers free at each start
+                if (options.shouldUseBookingTables()) {
+                    if (domains.bookingsLimitResources()) {
+                        model.table(new IntVar[]{day, hour, resource},
+                                new Tuples(domains.getResourceTuples(), true)).post();
+                        bookingTables++;
+                    }
+                    if (domains.bookingsLimitLecturers()) {
+                        model.table(new IntVar[]{day, hour, lecturer},
+                                new Tuples(domains.getLecturerTuples(), true)).post();
+                        bookingTables++;
                     }
                 }
             }
@@ -272,27 +350,51 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
 
 
             // Log variable creation
-            Log.d(TAG, "Created variables for session " + sIndex + " of course " + course.getName() + 
+            TimetableLog.d(TAG, () -> "Created variables for session " + sIndex + " of course " + course.getName() + 
                 " (" + course.getId() + "): " + 
                 "day=" + day + ", hour=" + hour);
         }
+        long filterMs = System.currentTimeMillis() - filterStart;
+        TimetableLog.d(TAG, "Session domains filtered in " + filterMs + "ms: removed " +
+                domainFilter.getRemovedResourceValues() + " room, " + domainFilter.getRemovedLecturerValues() +
+                " lecturer and " + domainFilter.getRemovedStartValues() + " start values" +
+                (options.shouldUseBookingTables() ? ", " + bookingTables + " booking tables" : ""));
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            String scope = options.getMetricsScope();
+            metrics.recordPhase(scope, "domainFilter", filterMs);
+            metrics.set(scope, "domains", "removedResourceValues", domainFilter.getRemovedResourceValues());
+            metrics.set(scope, "domains", "removedLecturerValues", domainFilter.getRemovedLecturerValues());
+            metrics.set(scope, "domains", "removedStartValues", domainFilter.getRemovedStartValues());
+            metrics.set(scope, "domains", "bookingTables", bookingTables);
+        }
         
         // Add constraints
-        addConstraints(model, allSessions, resourcesCopy, lecturersCopy, 
-                      sessionDayVars, sessionHourVars, sessionResourceVars, sessionLecturerVars,
-                      existingSessionsFromOtherDepts, options);
+        long modelStart = System.currentTimeMillis();
+        if (options.shouldUseCompactModel()) {
+            addCompactConstraints(model, allSessions, resourcesCopy, lecturersCopy,
+                          sessionDayVars, sessionHourVars, sessionResourceVars, sessionLecturerVars,
+                          existingSessionsFromOtherDepts, options);
+        } else {
+            addConstraints(model, allSessions, resourcesCopy, lecturersCopy, 
+                          sessionDayVars, sessionHourVars, sessionResourceVars, sessionLecturerVars,
+                          existingSessionsFromOtherDepts, options);
+        }
+        TimetableLog.d(TAG, "Model built in " + (System.currentTimeMillis() - modelStart) + "ms: "
+                + model.getNbVars() + " variables, " + model.getNbCstrs() + " constraints"
+                + (options.shouldUseCompactModel() ? " (compact)" : ""));
         
         // Log all courses being scheduled
-        Log.d(TAG, "Courses being scheduled:");
+        TimetableLog.d(TAG, "Courses being scheduled:");
         for (Course course : validCourses) {
-            Log.d(TAG, "Course: " + course.getName() + " (" + course.getId() + ") - " + 
+            TimetableLog.d(TAG, () -> "Course: " + course.getName() + " (" + course.getId() + ") - " + 
                 course.getRequiredSessionsPerWeek() + " sessions");
         }
         
         // Debug variables before solving
-        Log.d(TAG, "Before solving, number of day variables: " + sessionDayVars.size());
-        Log.d(TAG, "Before solving, number of hour variables: " + sessionHourVars.size());
-        Log.d(TAG, "Variable names sample: " + 
+        TimetableLog.d(TAG, () -> "Before solving, number of day variables: " + sessionDayVars.size());
+        TimetableLog.d(TAG, () -> "Before solving, number of hour variables: " + sessionHourVars.size());
+        TimetableLog.d(TAG, () -> "Variable names sample: " + 
               (sessionDayVars.isEmpty() ? "empty" : sessionDayVars.values().iterator().next().getName()));
 
         // Apply spreadCourseSessions constraint (enforce different days for same-course sessions)
@@ -301,162 +403,129 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 List<IntVar> dayVars = entry.getValue();
                 if (dayVars.size() > 1) {
                     model.allDifferent(dayVars.toArray(new IntVar[0])).post();
-                    Log.d(TAG, "Applied allDifferent constraint to spread sessions for course: " + entry.getKey());
+                    TimetableLog.d(TAG, () -> "Applied allDifferent constraint to spread sessions for course: " + entry.getKey());
                 }
             }
         }
 
 
+        // Sessions kept from a previous timetable take their slots away from the other courses
+        if (!pinnedSessions.isEmpty()) {
+            addPinnedSessionConstraints(model, allSessions, sessionDayVars, sessionHourVars, options);
+        }
+
+        // Sessions of a course and identical rooms can be swapped without changing the timetable
+        if (options.shouldBreakSymmetries()) {
+            addSymmetryBreaking(model, allSessions, sessionDayVars, sessionHourVars, sessionResourceVars,
+                    sessionLecturerVars, resourcesCopy, existingSessionsFromOtherDepts, options);
+        }
+
+        // A seed varies the search order, e.g. when several solvers race each other
+        applySearch(solver, allSessions, sessionDayVars, sessionHourVars, sessionResourceVars,
+                sessionLecturerVars, options);
+        NogoodFromRestarts nogoods = applyRestarts(model, options);
+
         // Try to find a solution
 
-        System.gc();
+        // Collecting first only makes the memory figure below meaningful; it stalls every
+        // other thread, so skip it unless the figure is logged
+        if (TimetableLog.isDebugEnabled()) {
+            System.gc();
+        }
+        // Reads the solver's current assignment back as a timetable
+        Supplier<Timetable> readTimetable = () -> buildTimetableFromDirectValues(
+                recordSolutionValues(sessionDayVars, sessionHourVars, sessionResourceVars, sessionLecturerVars),
+                allSessions, resourcesCopy, lecturersCopy, validCourses);
+        
+        long solveStart = System.currentTimeMillis();
+        recordModelMetrics(options, model, allSessions.size(), solveStart - buildStart);
+        
+        // Start the search from the greedy timetable; it counts towards the time to first solution
+        Timetable warmStart = null;
+        if (options.shouldWarmStart() && pinnedSessions.isEmpty() && sessionCountOverrides.isEmpty()) {
+            warmStart = addWarmStartHints(solver, allSessions, resourcesCopy, lecturersCopy, validCourses,
+                    sessionDayVars, sessionHourVars, sessionResourceVars, sessionLecturerVars, options);
+        }
         long beforeUsedMem = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
         boolean solved = solver.solve();
+        long firstSolutionMs = solved ? System.currentTimeMillis() - solveStart : -1;
         long afterUsedMem = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
         long usedMemoryBytes = afterUsedMem - beforeUsedMem;
         long usedMemoryMB = usedMemoryBytes / (1024 * 1024);
-        Log.d("MemoryTest", "CHOCO Solver memory usage: " + usedMemoryMB + " MB");
+        TimetableLog.d("MemoryTest", () -> "CHOCO Solver memory usage: " + usedMemoryMB + " MB");
         
         if (solved) {
-            Log.d(TAG, "Solution found!");
-            
-            // Create a complete map of variable names to their current values
-            Map<String, Integer> variableValues = new HashMap<>();
+            TimetableLog.d(TAG, "Solution found!");
             
-            // Record all variable values after solving
-            for (Map.Entry<Integer, IntVar> entry : sessionDayVars.entrySet()) {
-                int sessionId = entry.getKey();
-                IntVar var = entry.getValue();
-                try {
-                    int value = var.getValue();
-                    variableValues.put("day_" + sessionId, value);
-                    Log.d(TAG, "Recorded day value for session " + sessionId + ": " + value);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error getting value for day variable " + sessionId, e);
+            Timetable timetable = readTimetable.get();
+            if (options.getLnsTimeLimitMs() > 0 && model.getObjective() != null) {
+                recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+                // Nogoods learned with some sessions fixed don't hold once they are freed
+                if (nogoods != null) {
+                    solver.unplugMonitor(nogoods);
                 }
+                return improveByLns(model, allSessions, sessionDayVars, sessionHourVars, sessionResourceVars,
+                        sessionLecturerVars, timetable, readTimetable, solveStart, options);
             }
-            
-            for (Map.Entry<Integer, IntVar> entry : sessionHourVars.entrySet()) {
-                int sessionId = entry.getKey();
-                IntVar var = entry.getValue();
-                try {
-                    int value = var.getValue();
-                    variableValues.put("hour_" + sessionId, value);
-                    Log.d(TAG, "Recorded hour value for session " + sessionId + ": " + value);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error getting value for hour variable " + sessionId, e);
-                }
+            if (solutionListener != null) {
+                timetable = streamImprovingSolutions(model, timetable, readTimetable, solveStart);
             }
-            
-            for (Map.Entry<Integer, IntVar> entry : sessionResourceVars.entrySet()) {
-                int sessionId = entry.getKey();
-                IntVar var = entry.getValue();
-                try {
-                    int value = var.getValue();
-                    variableValues.put("resource_" + sessionId, value);
-                    Log.d(TAG, "Recorded resource value for session " + sessionId + ": " + value);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error getting value for resource variable " + sessionId, e);
-                }
+            recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+            return timetable;
+        } else {
+            if (options.isCancelled()) {
+                recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+                throw new CancellationException("Timetable generation was cancelled");
             }
             
-            for (Map.Entry<Integer, IntVar> entry : sessionLecturerVars.entrySet()) {
-                int sessionId = entry.getKey();
-                IntVar var = entry.getValue();
-                try {
-                    int value = var.getValue();
-                    variableValues.put("lecturer_" + sessionId, value);
-                    Log.d(TAG, "Recorded lecturer value for session " + sessionId + ": " + value);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error getting value for lecturer variable " + sessionId, e);
+            // A time limit set in the options is a deadline, so only the default limit is retried
+            if (options.getTimeLimitMs() <= 0) {
+                TimetableLog.w(TAG, "No solution found. Trying with increased timeout.");
+                
+                // Increase timeout and try again
+                solver.limitTime(DEFAULT_TIMEOUT_MS * 2);
+                if (TimetableLog.isDebugEnabled()) {
+                    System.gc();
                 }
+                long beforeUsedMemRetry = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+                solved = solver.solve();
+                long afterUsedMemRetry = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+                long usedMemoryBytesRetry = afterUsedMemRetry - beforeUsedMemRetry;
+                long usedMemoryMBRetry = usedMemoryBytesRetry / (1024 * 1024);
+                TimetableLog.d("MemoryTest", () -> "CHOCO Solver retry memory usage: " + usedMemoryMBRetry + " MB");
             }
             
-            // Create a simple object to pass the values to buildTimetableFromSolution
-            ValueSolution valueSolution = new ValueSolution(variableValues);
-            
-            // Modified version of buildTimetableFromSolution that uses our values directly
-            return buildTimetableFromDirectValues(
-                valueSolution, allSessions, resourcesCopy, lecturersCopy, validCourses
-            );
-        } else {
-            Log.w(TAG, "No solution found. Trying with increased timeout.");
-            
-            // Increase timeout and try again
-            solver.limitTime(DEFAULT_TIMEOUT_MS * 2);
-            System.gc();
-            long beforeUsedMemRetry = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-            solved = solver.solve();
-            long afterUsedMemRetry = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-            long usedMemoryBytesRetry = afterUsedMemRetry - beforeUsedMemRetry;
-            long usedMemoryMBRetry = usedMemoryBytesRetry / (1024 * 1024);
-            Log.d("MemoryTest", "CHOCO Solver retry memory usage: " + usedMemoryMBRetry + " MB");
-            
             if (solved) {
-                Log.d(TAG, "Solution found with increased timeout!");
-                
-                // Create a complete map of variable names to their current values
-                Map<String, Integer> variableValues = new HashMap<>();
+                TimetableLog.d(TAG, "Solution found with increased timeout!");
+                firstSolutionMs = System.currentTimeMillis() - solveStart;
                 
-                // Record all variable values after solving
-                for (Map.Entry<Integer, IntVar> entry : sessionDayVars.entrySet()) {
-                    int sessionId = entry.getKey();
-                    IntVar var = entry.getValue();
-                    try {
-                        int value = var.getValue();
-                        variableValues.put("day_" + sessionId, value);
-                        Log.d(TAG, "Recorded day value for session " + sessionId + ": " + value);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error getting value for day variable " + sessionId, e);
+                Timetable timetable = readTimetable.get();
+                if (options.getLnsTimeLimitMs() > 0 && model.getObjective() != null) {
+                    recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+                    if (nogoods != null) {
+                        solver.unplugMonitor(nogoods);
                     }
+                    return improveByLns(model, allSessions, sessionDayVars, sessionHourVars, sessionResourceVars,
+                            sessionLecturerVars, timetable, readTimetable, solveStart, options);
                 }
-                
-                for (Map.Entry<Integer, IntVar> entry : sessionHourVars.entrySet()) {
-                    int sessionId = entry.getKey();
-                    IntVar var = entry.getValue();
-                    try {
-                        int value = var.getValue();
-                        variableValues.put("hour_" + sessionId, value);
-                        Log.d(TAG, "Recorded hour value for session " + sessionId + ": " + value);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error getting value for hour variable " + sessionId, e);
-                    }
+                if (solutionListener != null) {
+                    timetable = streamImprovingSolutions(model, timetable, readTimetable, solveStart);
                 }
-                
-                for (Map.Entry<Integer, IntVar> entry : sessionResourceVars.entrySet()) {
-                    int sessionId = entry.getKey();
-                    IntVar var = entry.getValue();
-                    try {
-                        int value = var.getValue();
-                        variableValues.put("resource_" + sessionId, value);
-                        Log.d(TAG, "Recorded resource value for session " + sessionId + ": " + value);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error getting value for resource variable " + sessionId, e);
-                    }
+                recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+                return timetable;
+            } else {
+                recordSolverMetrics(options, solver, solveStart, firstSolutionMs);
+                if (options.isCancelled()) {
+                    throw new CancellationException("Timetable generation was cancelled");
                 }
+                TimetableLog.e(TAG, "Choco Solver could not find a solution even with increased timeout.");
                 
-                for (Map.Entry<Integer, IntVar> entry : sessionLecturerVars.entrySet()) {
-                    int sessionId = entry.getKey();
-                    IntVar var = entry.getValue();
-                    try {
-                        int value = var.getValue();
-                        variableValues.put("lecturer_" + sessionId, value);
-                        Log.d(TAG, "Recorded lecturer value for session " + sessionId + ": " + value);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error getting value for lecturer variable " + sessionId, e);
-                    }
+                // The greedy timetable is kept rather than starting over, if it is complete
+                if (warmStart != null && warmStart.getSessions().size() >= allSessions.size() && !hasConflicts(warmStart)) {
+                    TimetableLog.w(TAG, "Using the warm start timetable with " + warmStart.getSessions().size() + " sessions");
+                    return warmStart;
                 }
                 
-                // Create a simple object to pass the values to buildTimetableFromSolution
-                ValueSolution valueSolution = new ValueSolution(variableValues);
-                
-                // Modified version of buildTimetableFromSolution that uses our values directly
-                return buildTimetableFromDirectValues(
-                    valueSolution, allSessions, resourcesCopy, lecturersCopy, validCourses
-                );
-            } else {
-                Log.e(TAG, "Choco Solver could not find a solution even with increased timeout.");
-                
                 // As a last resort, create a basic timetable with all courses manually scheduled
                 Timetable manualTimetable = createManualTimetable(validCourses, resourcesCopy, lecturersCopy);
                 
@@ -470,13 +539,13 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 for (Course course : validCourses) {
                     if (!scheduledCourseIds.contains(course.getId())) {
                         missingCourses.add(course);
-                        Log.e(TAG, "Course still missing after manual addition: " + course.getName() + 
+                        TimetableLog.e(TAG, "Course still missing after manual addition: " + course.getName() + 
                             " (ID: " + course.getId() + ")");
                     }
                 }
                 
                 if (!missingCourses.isEmpty()) {
-                    Log.e(TAG, "Still missing " + missingCourses.size() + " courses after manual addition!");
+                    TimetableLog.e(TAG, "Still missing " + missingCourses.size() + " courses after manual addition!");
                     
                     // Instead of trying to add these courses, we'll now throw an exception
                     // as we must enforce complete coverage and not return partial solutions
@@ -484,7 +553,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     for (Course course : missingCourses) {
                         errorMsg.append("• ").append(course.getName())
                                .append(" (").append(course.getCode()).append(") - ")
-                               .append(course.getRequiredSessionsPerWeek()).append(" sessions required\n");
+                               .append(requiredSessions(course)).append(" sessions required\n");
                     }
                     
                     // Add diagnostic information to help understand the problem
@@ -492,7 +561,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     errorMsg.append("• Resources available: ").append(resources.size()).append("\n");
                     errorMsg.append("• Lecturers available: ").append(lecturers.size()).append("\n");
                     errorMsg.append("• Total sessions required: ").append(courses.size() * 2).append(" (estimated)\n");
-                    errorMsg.append("• Solver time limit: ").append(DEFAULT_TIMEOUT_MS / 1000).append(" seconds\n");
+                    errorMsg.append("• Solver time limit: ").append(timeLimitMs / 1000).append(" seconds\n");
                     
                     // Add suggestion for what might be causing the problem
                     errorMsg.append("\nPossible causes:\n");
@@ -515,6 +584,528 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         }
     }
 
+    /**
+     * Runs the greedy {@link SimpleTimetableGenerator} and gives its assignment to the solver as
+     * hints, so the first branch of the search follows the greedy timetable and only the sessions
+     * that break a constraint of the model are searched for; Choco drops the hints once the first
+     * solution is found.
+     *
+     * The search keeps its own variable order, so besides the day, hour, resource and lecturer of
+     * each session the variables the compact model derives from them (slot, resource and lecturer
+     * keys and slot owners) are hinted too, by name.
+     *
+     * @return The greedy timetable, or null if the greedy generator failed
+     */
+    private Timetable addWarmStartHints(Solver solver, List<SessionToSchedule> allSessions,
+                                        List<Resource> resources, List<Lecturer> lecturers, List<Course> courses,
+                                        Map<Integer, IntVar> sessionDayVars, Map<Integer, IntVar> sessionHourVars,
+                                        Map<Integer, IntVar> sessionResourceVars,
+                                        Map<Integer, IntVar> sessionLecturerVars,
+                                        TimetableGeneratorOptions options) {
+        long start = System.currentTimeMillis();
+        TimetableGeneratorOptions greedyOptions = new TimetableGeneratorOptions(options);
+        // Only the solver's timetable claims slots and records metrics
+        greedyOptions.setReservationLedger(null, null);
+        greedyOptions.setMetrics(null, null);
+        greedyOptions.setWarmStart(false);
+        Timetable greedy;
+        try {
+            greedy = new SimpleTimetableGenerator().generateTimetable(resources, lecturers, courses, greedyOptions);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            TimetableLog.w(TAG, "Warm start failed, searching from scratch: " + e.getMessage());
+            return null;
+        }
+        if (greedy == null || greedy.getSessions() == null) {
+            return null;
+        }
+        
+        Map<String, Integer> resourceIndex = new HashMap<>();
+        for (int i = 0; i < resources.size(); i++) {
+            resourceIndex.put(resources.get(i).getId(), i);
+        }
+        Map<String, Integer> lecturerIndex = new HashMap<>();
+        for (int i = 0; i < lecturers.size(); i++) {
+            lecturerIndex.put(lecturers.get(i).getId(), i);
+        }
+        // Same course numbering as the slot owners of the compact model
+        Map<String, Integer> courseIndex = new HashMap<>();
+        for (SessionToSchedule session : allSessions) {
+            courseIndex.putIfAbsent(session.getCourse().getId(), courseIndex.size());
+        }
+        Map<String, List<TimetableSession>> greedyByCourse = new HashMap<>();
+        for (TimetableSession session : greedy.getSessions()) {
+            greedyByCourse.computeIfAbsent(session.getCourseId(), k -> new ArrayList<>()).add(session);
+        }
+        
+        // The n-th session of a course in the model takes the n-th greedy session of that course,
+        // in order of day and start like symmetry breaking keeps them
+        for (List<TimetableSession> courseSessions : greedyByCourse.values()) {
+            courseSessions.sort(Comparator.comparingInt((TimetableSession session) ->
+                            TimetableSymbols.dayIndex(session.getDayOfWeek()))
+                    .thenComparingInt(session -> TimetableSymbols.minuteOfDay(session.getStartTime())));
+        }
+        int slotsPerDay = calendar.getSlotsPerDay();
+        int resourceCount = resources.size();
+        int lecturerCount = lecturers.size();
+        Map<String, Integer> derivedHints = new HashMap<>();
+        Map<String, Integer> used = new HashMap<>();
+        int hinted = 0;
+        for (SessionToSchedule session : allSessions) {
+            String courseId = session.getCourse().getId();
+            List<TimetableSession> candidates = greedyByCourse.get(courseId);
+            int next = used.getOrDefault(courseId, 0);
+            if (candidates == null || next >= candidates.size()) {
+                continue;
+            }
+            used.put(courseId, next + 1);
+            TimetableSession placed = candidates.get(next);
+            int id = session.getIndex();
+            int day = TimetableSymbols.dayIndex(placed.getDayOfWeek());
+            int startMinute = TimetableSymbols.minuteOfDay(placed.getStartTime());
+            if (day < 0 || day >= calendar.getDays() || startMinute < 0) {
+                continue;
+            }
+            int hour = calendar.slotOf(startMinute);
+            Integer resource = resourceIndex.get(placed.getResourceId());
+            Integer lecturer = lecturerIndex.get(placed.getLecturerId());
+            addHint(solver, sessionDayVars.get(id), day);
+            addHint(solver, sessionHourVars.get(id), hour);
+            if (resource != null) {
+                addHint(solver, sessionResourceVars.get(id), resource);
+            }
+            if (lecturer != null) {
+                addHint(solver, sessionLecturerVars.get(id), lecturer);
+            }
+            
+            int slot = day * slotsPerDay + hour;
+            derivedHints.put("slot_" + id, slot);
+            for (int k = 0; k < session.getSlots(); k++) {
+                if (resource != null) {
+                    derivedHints.put("resourceSlot_" + id + "_" + k, (slot + k) * resourceCount + resource);
+                }
+                if (lecturer != null) {
+                    derivedHints.put("lecturerSlot_" + id + "_" + k, (slot + k) * lecturerCount + lecturer);
+                }
+                derivedHints.put("slotOwner[" + (slot + k) + "]", courseIndex.get(courseId));
+            }
+            hinted++;
+        }
+        for (Variable variable : solver.getModel().getVars()) {
+            Integer value = derivedHints.get(variable.getName());
+            if (value != null && variable instanceof IntVar) {
+                addHint(solver, (IntVar) variable, value);
+            }
+        }
+        
+        long warmStartMs = System.currentTimeMillis() - start;
+        int hintedSessions = hinted;
+        TimetableLog.d(TAG, () -> "Warm start: greedy placed " + greedy.getSessions().size() + " sessions in " +
+                warmStartMs + "ms, " + hintedSessions + "/" + allSessions.size() + " sessions hinted");
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            metrics.recordPhase(options.getMetricsScope(), "warmStart", warmStartMs);
+            metrics.set(options.getMetricsScope(), "warmStart", "greedySessions", greedy.getSessions().size());
+            metrics.set(options.getMetricsScope(), "warmStart", "hintedSessions", hintedSessions);
+        }
+        return greedy;
+    }
+    
+    /**
+     * Hints a value to the solver if the variable can still take it.
+     */
+    private static void addHint(Solver solver, IntVar var, int value) {
+        if (var != null && var.contains(value)) {
+            solver.addHint(var, value);
+        }
+    }
+    
+    /**
+     * Records the size of the model and the time it took to build, if the options have a
+     * metrics registry.
+     */
+    private void recordModelMetrics(TimetableGeneratorOptions options, Model model, int sessions, long buildMs) {
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics == null) {
+            return;
+        }
+        String scope = options.getMetricsScope();
+        metrics.recordPhase(scope, "modelBuild", buildMs);
+        metrics.set(scope, "model", "sessions", sessions);
+        metrics.set(scope, "model", "variables", model.getNbVars());
+        metrics.set(scope, "model", "constraints", model.getNbCstrs());
+        metrics.set(scope, "model", "compact", options.shouldUseCompactModel());
+    }
+    
+    /**
+     * Records the search statistics of the solver, if the options have a metrics registry.
+     *
+     * @param firstSolutionMs Time from the start of solving to the first solution, or -1 if none was found
+     */
+    private void recordSolverMetrics(TimetableGeneratorOptions options, Solver solver, long solveStart,
+                                     long firstSolutionMs) {
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics == null) {
+            return;
+        }
+        String scope = options.getMetricsScope();
+        metrics.recordPhase(scope, "solve", System.currentTimeMillis() - solveStart);
+        metrics.set(scope, "solver", "nodes", solver.getNodeCount());
+        metrics.set(scope, "solver", "backtracks", solver.getBackTrackCount());
+        metrics.set(scope, "solver", "fails", solver.getFailCount());
+        metrics.set(scope, "solver", "restarts", solver.getRestartCount());
+        metrics.set(scope, "solver", "solutions", solver.getSolutionCount());
+        metrics.set(scope, "solver", "timeToFirstSolutionMs", firstSolutionMs);
+    }
+    
+    /**
+     * Reads the values of the session variables after a successful solve.
+     */
+    private ValueSolution recordSolutionValues(Map<Integer, IntVar> sessionDayVars,
+                                               Map<Integer, IntVar> sessionHourVars,
+                                               Map<Integer, IntVar> sessionResourceVars,
+                                               Map<Integer, IntVar> sessionLecturerVars) {
+        // Create a complete map of variable names to their current values
+        Map<String, Integer> variableValues = new HashMap<>();
+        recordValues(variableValues, "day_", sessionDayVars);
+        recordValues(variableValues, "hour_", sessionHourVars);
+        recordValues(variableValues, "resource_", sessionResourceVars);
+        recordValues(variableValues, "lecturer_", sessionLecturerVars);
+        return new ValueSolution(variableValues);
+    }
+    
+    private void recordValues(Map<String, Integer> variableValues, String prefix, Map<Integer, IntVar> vars) {
+        for (Map.Entry<Integer, IntVar> entry : vars.entrySet()) {
+            int sessionId = entry.getKey();
+            try {
+                int value = entry.getValue().getValue();
+                variableValues.put(prefix + sessionId, value);
+                TimetableLog.d(TAG, () -> "Recorded " + prefix + " value for session " + sessionId + ": " + value);
+            } catch (Exception e) {
+                TimetableLog.e(TAG, "Error getting value for " + prefix + " variable " + sessionId, e);
+            }
+        }
+    }
+    
+    /**
+     * Keeps searching after the first solution and hands every improving timetable to the
+     * solution listener, until the listener is satisfied, the objective is proven optimal, the
+     * time limit passes or generation is cancelled.
+     *
+     * @return The best timetable found
+     */
+    private Timetable streamImprovingSolutions(Model model, Timetable first, Supplier<Timetable> readTimetable,
+                                               long solveStart) {
+        Solver solver = model.getSolver();
+        Timetable best = first;
+        int solutionNumber = 1;
+        boolean keepSearching = solutionListener.onSolution(best, TimetableScore.evaluate(best,
+                objectiveValue(model), solutionNumber, System.currentTimeMillis() - solveStart));
+        
+        // With an objective set, every further solve() only returns strictly better solutions
+        while (keepSearching && model.getObjective() != null && solver.solve()) {
+            best = readTimetable.get();
+            solutionNumber++;
+            TimetableScore score = TimetableScore.evaluate(best, objectiveValue(model), solutionNumber,
+                    System.currentTimeMillis() - solveStart);
+            TimetableLog.d(TAG, () -> "Improved timetable: " + score);
+            keepSearching = solutionListener.onSolution(best, score);
+        }
+        return best;
+    }
+    
+    /**
+     * Improves the first solution by large neighbourhood search for the LNS time limit of the
+     * options. Each round frees the sessions of one neighbourhood, in turn one day, one lecturer
+     * and one room, keeps every other session where it is and searches only the freed sessions
+     * for a better objective, for at most {@link #LNS_ROUND_MS}. A better solution becomes the
+     * new incumbent; a round that finds none is undone. After several rounds without
+     * improvement a few random sessions are freed as well, so the search can leave a local
+     * optimum that no single neighbourhood can escape.
+     *
+     * Every improving timetable goes to the solution listener, if there is one. The search
+     * stops early when the listener is satisfied, the objective reaches its lower bound or
+     * generation is cancelled.
+     *
+     * @return The best timetable found
+     */
+    private Timetable improveByLns(Model model, List<SessionToSchedule> allSessions,
+                                   Map<Integer, IntVar> sessionDayVars, Map<Integer, IntVar> sessionHourVars,
+                                   Map<Integer, IntVar> sessionResourceVars,
+                                   Map<Integer, IntVar> sessionLecturerVars,
+                                   Timetable first, Supplier<Timetable> readTimetable, long solveStart,
+                                   TimetableGeneratorOptions options) {
+        Solver solver = model.getSolver();
+        IntVar objective = (IntVar) model.getObjective();
+        long lnsStart = System.currentTimeMillis();
+        long deadline = lnsStart + options.getLnsTimeLimitMs();
+        
+        // The day, hour, resource and lecturer of every session in the incumbent solution
+        int sessionCount = allSessions.size();
+        IntVar[][] vars = new IntVar[sessionCount][];
+        int[][] incumbent = new int[sessionCount][];
+        for (int i = 0; i < sessionCount; i++) {
+            int id = allSessions.get(i).getIndex();
+            vars[i] = new IntVar[] {sessionDayVars.get(id), sessionHourVars.get(id),
+                    sessionResourceVars.get(id), sessionLecturerVars.get(id)};
+            incumbent[i] = new int[vars[i].length];
+            for (int v = 0; v < vars[i].length; v++) {
+                incumbent[i][v] = vars[i][v].getValue();
+            }
+        }
+        int initial = objective.getValue();
+        int best = initial;
+        Timetable bestTimetable = first;
+        int solutionNumber = 1;
+        boolean keepSearching = solutionListener == null || solutionListener.onSolution(first,
+                TimetableScore.evaluate(first, best, solutionNumber, System.currentTimeMillis() - solveStart));
+        StringBuilder trajectory = new StringBuilder("0:").append(best);
+        
+        // Back at the root, where the objective's domain is its lower bound. Warm start hints
+        // served the first solution; left in place the next solve would wrap them around themselves
+        solver.reset();
+        if (solver.getSearch() instanceof WarmStart) {
+            solver.removeHints();
+        }
+        int lowerBound = objective.getLB();
+        AtomicBoolean cancellationFlag = options.getCancellationFlag();
+        Random random = new Random(options.getSearchSeed());
+        int rounds = 0;
+        int improvements = 0;
+        int roundsWithoutImprovement = 0;
+        while (keepSearching && best > lowerBound && System.currentTimeMillis() < deadline
+                && !options.isCancelled()) {
+            // Day, lecturer and room neighbourhoods take turns: the one of a random session
+            int column = LNS_NEIGHBOURHOODS[rounds % LNS_NEIGHBOURHOODS.length];
+            int value = incumbent[random.nextInt(sessionCount)][column];
+            boolean[] free = new boolean[sessionCount];
+            for (int i = 0; i < sessionCount; i++) {
+                free[i] = incumbent[i][column] == value;
+            }
+            for (int extra = roundsWithoutImprovement / LNS_ROUNDS_BEFORE_WIDENING; extra > 0; extra--) {
+                free[random.nextInt(sessionCount)] = true;
+            }
+            rounds++;
+            
+            List<Constraint> fixed = new ArrayList<>();
+            for (int i = 0; i < sessionCount; i++) {
+                if (free[i]) {
+                    continue;
+                }
+                for (int v = 0; v < vars[i].length; v++) {
+                    if (!vars[i][v].isInstantiated()) {
+                        fixed.add(model.arithm(vars[i][v], "=", incumbent[i][v]));
+                    }
+                }
+            }
+            fixed.add(model.arithm(objective, "<", best));
+            Constraint[] neighbourhood = fixed.toArray(new Constraint[0]);
+            model.post(neighbourhood);
+            
+            solver.removeAllStopCriteria();
+            solver.limitTime(Math.max(1, Math.min(LNS_ROUND_MS, deadline - System.currentTimeMillis())));
+            if (cancellationFlag != null) {
+                solver.addStopCriterion(cancellationFlag::get);
+            }
+            boolean improved = solver.solve();
+            if (improved) {
+                best = objective.getValue();
+                for (int i = 0; i < sessionCount; i++) {
+                    for (int v = 0; v < vars[i].length; v++) {
+                        incumbent[i][v] = vars[i][v].getValue();
+                    }
+                }
+                bestTimetable = readTimetable.get();
+                solutionNumber++;
+                improvements++;
+                roundsWithoutImprovement = 0;
+                trajectory.append(',').append(System.currentTimeMillis() - lnsStart).append(':').append(best);
+                TimetableScore score = TimetableScore.evaluate(bestTimetable, best, solutionNumber,
+                        System.currentTimeMillis() - solveStart);
+                TimetableLog.d(TAG, () -> "LNS improved timetable: " + score);
+                if (solutionListener != null) {
+                    keepSearching = solutionListener.onSolution(bestTimetable, score);
+                }
+            } else {
+                roundsWithoutImprovement++;
+            }
+            solver.reset();
+            model.unpost(neighbourhood);
+        }
+        
+        long lnsMs = System.currentTimeMillis() - lnsStart;
+        int finalObjective = best;
+        int lnsRounds = rounds;
+        int lnsImprovements = improvements;
+        TimetableLog.d(TAG, () -> "LNS: objective " + initial + " -> " + finalObjective + " in " + lnsRounds +
+                " rounds (" + lnsImprovements + " improving), " + lnsMs + "ms");
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            String scope = options.getMetricsScope();
+            metrics.recordPhase(scope, "lns", lnsMs);
+            metrics.set(scope, "lns", "rounds", rounds);
+            metrics.set(scope, "lns", "improvements", improvements);
+            metrics.set(scope, "lns", "initialObjective", initial);
+            metrics.set(scope, "lns", "finalObjective", best);
+            // Milliseconds into the search and the objective reached then
+            metrics.set(scope, "lns", "trajectory", trajectory.toString());
+        }
+        return bestTimetable;
+    }
+    
+    private int objectiveValue(Model model) {
+        Variable objective = model.getObjective();
+        return objective instanceof IntVar ? ((IntVar) objective).getValue() : -1;
+    }
+    
+    /**
+     * Replaces Choco's default search with the strategy chosen in the options, wrapped in
+     * last-conflict like the default. The default search is kept unless a seed is set, in which
+     * case dom/wdeg breaks its ties by the seed, so each seed visits the assignments in another order.
+     */
+    private void applySearch(Solver solver, List<SessionToSchedule> allSessions,
+                             Map<Integer, IntVar> sessionDayVars,
+                             Map<Integer, IntVar> sessionHourVars,
+                             Map<Integer, IntVar> sessionResourceVars,
+                             Map<Integer, IntVar> sessionLecturerVars,
+                             TimetableGeneratorOptions options) {
+        SearchStrategy strategy = options.getSearchStrategy();
+        long seed = options.getSearchSeed();
+        if (strategy == SearchStrategy.DEFAULT && seed == 0) {
+            return;
+        }
+        
+        List<IntVar> decisionVars = new ArrayList<>();
+        if (strategy == SearchStrategy.MOST_CONSTRAINED) {
+            for (SessionToSchedule session : orderByScarcity(allSessions, sessionDayVars, sessionHourVars,
+                    sessionResourceVars, sessionLecturerVars)) {
+                int index = session.getIndex();
+                decisionVars.add(sessionResourceVars.get(index));
+                decisionVars.add(sessionLecturerVars.get(index));
+                decisionVars.add(sessionDayVars.get(index));
+                decisionVars.add(sessionHourVars.get(index));
+            }
+        } else {
+            decisionVars.addAll(sessionDayVars.values());
+            decisionVars.addAll(sessionHourVars.values());
+            decisionVars.addAll(sessionResourceVars.values());
+            decisionVars.addAll(sessionLecturerVars.values());
+        }
+        IntVar[] vars = decisionVars.toArray(new IntVar[0]);
+        
+        switch (strategy) {
+            case ACTIVITY:
+                solver.setSearch(Search.lastConflict(Search.activityBasedSearch(vars)));
+                break;
+            case MOST_CONSTRAINED:
+                solver.setSearch(Search.lastConflict(Search.inputOrderLBSearch(vars)));
+                break;
+            default:
+                solver.setSearch(Search.lastConflict(
+                        Search.intVarSearch(new DomOverWDeg<>(vars, seed), new IntDomainMin(), vars)));
+                break;
+        }
+        TimetableLog.d(TAG, () -> "Using " + strategy + " search (seed " + seed + ") over " + vars.length + " variables");
+        
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            metrics.set(options.getMetricsScope(), "search", "strategy", strategy.name());
+            metrics.set(options.getMetricsScope(), "search", "seed", seed);
+        }
+    }
+    
+    /**
+     * Orders sessions by how few rooms and lecturers they can use, weighing each by how many
+     * other sessions compete for it: a session whose only lab is wanted by ten others comes
+     * before one with a lecture hall to itself. Ties go to longer sessions, then to sessions
+     * with fewer start times.
+     */
+    private List<SessionToSchedule> orderByScarcity(List<SessionToSchedule> allSessions,
+                                                    Map<Integer, IntVar> sessionDayVars,
+                                                    Map<Integer, IntVar> sessionHourVars,
+                                                    Map<Integer, IntVar> sessionResourceVars,
+                                                    Map<Integer, IntVar> sessionLecturerVars) {
+        // Number of sessions that could use each room and lecturer
+        Map<Integer, Integer> roomDemand = new HashMap<>();
+        Map<Integer, Integer> lecturerDemand = new HashMap<>();
+        for (SessionToSchedule session : allSessions) {
+            countValues(sessionResourceVars.get(session.getIndex()), roomDemand);
+            countValues(sessionLecturerVars.get(session.getIndex()), lecturerDemand);
+        }
+        
+        Map<Integer, Double> scarcity = new HashMap<>();
+        for (SessionToSchedule session : allSessions) {
+            int index = session.getIndex();
+            scarcity.put(index, effectiveChoices(sessionResourceVars.get(index), roomDemand)
+                    * effectiveChoices(sessionLecturerVars.get(index), lecturerDemand));
+        }
+        
+        List<SessionToSchedule> ordered = new ArrayList<>(allSessions);
+        ordered.sort(Comparator.<SessionToSchedule>comparingDouble(session -> scarcity.get(session.getIndex()))
+                .thenComparing(Comparator.comparingInt(SessionToSchedule::getSlots).reversed())
+                .thenComparingInt(session -> sessionDayVars.get(session.getIndex()).getDomainSize()
+                        * sessionHourVars.get(session.getIndex()).getDomainSize()));
+        return ordered;
+    }
+    
+    private static void countValues(IntVar var, Map<Integer, Integer> counts) {
+        for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+            counts.merge(value, 1, Integer::sum);
+        }
+    }
+    
+    /**
+     * Gets the number of values of a variable, each counted as its share of the sessions that want it.
+     */
+    private static double effectiveChoices(IntVar var, Map<Integer, Integer> demand) {
+        double choices = 0;
+        for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+            choices += 1.0 / demand.get(value);
+        }
+        return choices;
+    }
+    
+    /**
+     * Makes the solver restart as set in the options, recording nogoods on restart if enabled.
+     *
+     * @return The nogood recorder, or null if nogoods aren't recorded
+     */
+    private NogoodFromRestarts applyRestarts(Model model, TimetableGeneratorOptions options) {
+        Solver solver = model.getSolver();
+        RestartPolicy policy = options.getRestartPolicy();
+        switch (policy) {
+            case LUBY:
+                solver.setLubyRestart(RESTART_BASE_FAILS, new FailCounter(model, RESTART_BASE_FAILS), MAX_RESTARTS);
+                break;
+            case GEOMETRIC:
+                solver.setGeometricalRestart(RESTART_BASE_FAILS, RESTART_GROWTH,
+                        new FailCounter(model, RESTART_BASE_FAILS), MAX_RESTARTS);
+                break;
+            default:
+                break;
+        }
+        
+        NogoodFromRestarts nogoods = null;
+        if (options.shouldRecordNogoods()) {
+            if (policy == RestartPolicy.NONE) {
+                TimetableLog.w(TAG, "Nogood recording needs a restart policy, not recording nogoods");
+            } else {
+                nogoods = new NogoodFromRestarts(model);
+                solver.plugMonitor(nogoods);
+            }
+        }
+        boolean recordingNogoods = nogoods != null;
+        TimetableLog.d(TAG, () -> "Restarts: " + policy + (recordingNogoods ? " with nogood recording" : ""));
+        
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            metrics.set(options.getMetricsScope(), "search", "restartPolicy", policy.name());
+            metrics.set(options.getMetricsScope(), "search", "nogoods", recordingNogoods);
+        }
+        return nogoods;
+    }
+
     private Timetable buildTimetableFromDirectValues(ValueSolution solution,
                                                   List<SessionToSchedule> allSessions,
                                                   List<Resource> resources,
@@ -555,13 +1146,15 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 // If any value wasn't found, log but don't skip (we'll use fallbacks)
                 boolean missingValues = false;
                 if (dayValue == -1 || hourValue == -1 || resourceValue == -1 || lecturerValue == -1) {
-                    Log.w(TAG, "Missing value for session " + sessionId + " of course " + course.getName() + " - using fallback values");
+                    TimetableLog.w(TAG, "Missing value for session " + sessionId + " of course " + course.getName() + " - using fallback values");
                     missingValues = true;
                 } else {
                     // Log the retrieved values
-                    Log.d(TAG, "Retrieved values for session " + sessionId + ": day=" + dayValue + 
-                          ", hour=" + hourValue + ", resource=" + resourceValue + 
-                          ", lecturer=" + lecturerValue);
+                    if (TimetableLog.isDebugEnabled()) {
+                        TimetableLog.d(TAG, "Retrieved values for session " + sessionId + ": day=" + dayValue + 
+                              ", hour=" + hourValue + ", resource=" + resourceValue + 
+                              ", lecturer=" + lecturerValue);
+                    }
                 }
                 
                 // Find the corresponding resource and lecturer
@@ -575,11 +1168,13 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     resource = resourceMap.get(assignedResourceId);
                     
                     if (resource != null) {
-                        Log.d(TAG, "Using manually assigned resource for course " + course.getName() + 
-                              ": " + resource.getName() + " (ID: " + assignedResourceId + ")");
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Using manually assigned resource for course " + course.getName() + 
+                                  ": " + resource.getName() + " (ID: " + assignedResourceId + ")");
+                        }
                     } else {
                         // Fallback to index-based resource if assigned resource not found
-                        Log.w(TAG, "Assigned resource ID " + assignedResourceId + " not found for course " + 
+                        TimetableLog.w(TAG, "Assigned resource ID " + assignedResourceId + " not found for course " + 
                               course.getName() + " - falling back to solver assignment");
                         
                         if (missingValues) {
@@ -602,8 +1197,8 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 if (missingValues) {
                     // Use fallback values if any are missing
                     int currentCount = scheduledSessionsPerCourse.getOrDefault(course.getId(), 0);
-                    dayValue = currentCount % DAYS_PER_WEEK;
-                    hourValue = (currentCount / DAYS_PER_WEEK) % HOURS_PER_DAY;
+                    dayValue = currentCount % calendar.getDays();
+                    hourValue = (currentCount / calendar.getDays()) % calendar.getSlotsPerDay();
                     lecturer = lecturers.isEmpty() ? null : lecturers.get(0);
                 } else {
                     // Make sure indices are within bounds
@@ -620,10 +1215,10 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     timetableSession.setSessionType(course.getCode() != null ? course.getCode() : "LECTURE");
                     
                     // Set day, hour, resource, and lecturer
-                    String dayOfWeek = DAYS_OF_WEEK[dayValue];
-                    int startHour = START_HOUR + hourValue;
-                    String startTime = String.format("%02d:00", startHour);
-                    String endTime = String.format("%02d:00", startHour + 1);
+                    String dayOfWeek = TimetableSymbols.dayName(dayValue);
+                    int startMinute = calendar.getSlotStartMinute(hourValue);
+                    String startTime = formatTime(startMinute);
+                    String endTime = formatTime(startMinute + session.getSlots() * calendar.getSlotMinutes());
                     
                     timetableSession.setDayOfWeek(dayOfWeek);
                     timetableSession.setStartTime(startTime);
@@ -642,34 +1237,36 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     int currentCount = scheduledSessionsPerCourse.getOrDefault(course.getId(), 0);
                     scheduledSessionsPerCourse.put(course.getId(), currentCount + 1);
                     
-                    Log.d(TAG, "Added entry for " + course.getName() + " on day " + dayValue + 
-                          " at hour " + hourValue + " with resource " + resource.getName() +
-                          " (ID: " + resource.getId() + ")" + " (session " + (currentCount + 1) + 
-                          " of " + course.getRequiredSessionsPerWeek() + ")");
+                    if (TimetableLog.isDebugEnabled()) {
+                        TimetableLog.d(TAG, "Added entry for " + course.getName() + " on day " + dayValue + 
+                              " at hour " + hourValue + " with resource " + resource.getName() +
+                              " (ID: " + resource.getId() + ")" + " (session " + (currentCount + 1) + 
+                              " of " + requiredSessions(course) + ")");
+                    }
                 }
             } catch (Exception e) {
-                Log.e(TAG, "Error accessing solution value for session " + sessionId, e);
+                TimetableLog.e(TAG, "Error accessing solution value for session " + sessionId, e);
             }
         }
         
         // Verify all courses have the correct number of sessions
         for (Course course : validCourses) {
             int scheduledSessions = scheduledSessionsPerCourse.getOrDefault(course.getId(), 0);
-            int requiredSessions = course.getRequiredSessionsPerWeek();
+            int requiredSessions = requiredSessions(course);
             
-            Log.d(TAG, "Course " + course.getName() + ": scheduled " + scheduledSessions + 
+            TimetableLog.d(TAG, () -> "Course " + course.getName() + ": scheduled " + scheduledSessions + 
                   " of " + requiredSessions + " required sessions");
             
             // Instead of adding missing sessions manually, we now check if we can't schedule all sessions
             if (scheduledSessions < requiredSessions) {
-                Log.e(TAG, "Course " + course.getName() + " is missing " + 
+                TimetableLog.e(TAG, "Course " + course.getName() + " is missing " + 
                       (requiredSessions - scheduledSessions) + " sessions - cannot complete schedule");
                 
                 // Build list of courses with missing sessions
                 List<Course> coursesWithMissingSessions = new ArrayList<>();
                 for (Course c : validCourses) {
                     int scheduled = scheduledSessionsPerCourse.getOrDefault(c.getId(), 0);
-                    if (scheduled < c.getRequiredSessionsPerWeek()) {
+                    if (scheduled < requiredSessions(c)) {
                         coursesWithMissingSessions.add(c);
                     }
                 }
@@ -678,7 +1275,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 StringBuilder errorMsg = new StringBuilder("Cannot generate complete timetable. The following courses have missing sessions:\n");
                 for (Course c : coursesWithMissingSessions) {
                     int scheduled = scheduledSessionsPerCourse.getOrDefault(c.getId(), 0);
-                    int required = c.getRequiredSessionsPerWeek();
+                    int required = requiredSessions(c);
                     errorMsg.append("• ").append(c.getName())
                            .append(" (").append(c.getCode()).append(") - ")
                            .append(scheduled).append("/").append(required)
@@ -705,7 +1302,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         }
         
         // Final verification
-        Log.d(TAG, "Final timetable has " + timetable.getSessions().size() + " total sessions");
+        TimetableLog.d(TAG, () -> "Final timetable has " + timetable.getSessions().size() + " total sessions");
         for (Course course : validCourses) {
             int finalSessionCount = 0;
             for (TimetableSession session : timetable.getSessions()) {
@@ -713,16 +1310,24 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     finalSessionCount++;
                 }
             }
-            Log.d(TAG, "Course " + course.getName() + " has " + finalSessionCount + 
-                  " sessions in final timetable (required: " + course.getRequiredSessionsPerWeek() + ")");
+            TimetableLog.d(TAG, "Course " + course.getName() + " has " + finalSessionCount + 
+                  " sessions in final timetable (required: " + requiredSessions(course) + ")");
         }
         
         return timetable;
     }
 
+    /**
+     * Gets the number of sessions of a course this run has to place: the displaced sessions when
+     * updating a timetable, otherwise the sessions required per week.
+     */
+    private int requiredSessions(Course course) {
+        return sessionCountOverrides.getOrDefault(course.getId(), course.getRequiredSessionsPerWeek());
+    }
+
     private List<Integer> findCompatibleResources(Course course, List<Resource> resources) {
-        Log.d(TAG, "Attempting to allocate resources for course: " + course.getId());
-        Log.d(TAG, "Required room type: " + course.getRequiredRoomType());
+        TimetableLog.d(TAG, () -> "Attempting to allocate resources for course: " + course.getId());
+        TimetableLog.d(TAG, () -> "Required room type: " + course.getRequiredRoomType());
         
         List<Integer> compatibleResourceIndices = new ArrayList<>();
         
@@ -734,12 +1339,12 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
             String resourceType = resource.getType();
             
             // Log the resources being checked
-            Log.d(TAG, "Checking resource: " + resource.getName() + " (Type: " + resourceType + ")");
+            TimetableLog.d(TAG, () -> "Checking resource: " + resource.getName() + " (Type: " + resourceType + ")");
             
             // Always add resource if no room type is specified
             if (requiredRoomType == null || requiredRoomType.isEmpty()) {
                 compatibleResourceIndices.add(j);
-                Log.d(TAG, "Added resource (no room type specified)");
+                TimetableLog.d(TAG, "Added resource (no room type specified)");
                 continue;
             }
             
@@ -747,7 +1352,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
             if (requiredRoomType.equals("LAB")) {
                 if (resourceType != null && resourceType.contains("LAB")) {
                     compatibleResourceIndices.add(j);
-                    Log.d(TAG, "Added LAB resource: " + resource.getName());
+                    TimetableLog.d(TAG, () -> "Added LAB resource: " + resource.getName());
                 }
             }
             // Handle LECTURE_HALL requirement
@@ -755,44 +1360,44 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 if (resourceType != null && 
                     (resourceType.contains("HALL") || resourceType.contains("ROOM"))) {
                     compatibleResourceIndices.add(j);
-                    Log.d(TAG, "Added LECTURE_HALL resource: " + resource.getName());
+                    TimetableLog.d(TAG, () -> "Added LECTURE_HALL resource: " + resource.getName());
                 }
             }
             // Handle any other room type requirements
             else {
                 if (resourceType != null && resourceType.contains(requiredRoomType)) {
                     compatibleResourceIndices.add(j);
-                    Log.d(TAG, "Added custom type resource: " + resource.getName());
+                    TimetableLog.d(TAG, () -> "Added custom type resource: " + resource.getName());
                 }
             }
         }
         
         // If no resources were found, log a warning and use all resources
         if (compatibleResourceIndices.isEmpty()) {
-            Log.w(TAG, "No compatible resources found for course: " + courseName);
-            Log.d(TAG, "Using all available resources as fallback for course: " + courseName);
+            TimetableLog.w(TAG, "No compatible resources found for course: " + courseName);
+            TimetableLog.d(TAG, () -> "Using all available resources as fallback for course: " + courseName);
             for (int j = 0; j < resources.size(); j++) {
                 compatibleResourceIndices.add(j);
             }
         }
         
-        Log.d(TAG, "Found " + compatibleResourceIndices.size() + " compatible resources for course: " + courseName);
+        TimetableLog.d(TAG, () -> "Found " + compatibleResourceIndices.size() + " compatible resources for course: " + courseName);
         
         return compatibleResourceIndices;
     }
 
     private Timetable createManualTimetable(List<Course> courses, List<Resource> resources, List<Lecturer> lecturers) {
-        Log.d(TAG, "Creating manual timetable as fallback");
+        TimetableLog.d(TAG, "Creating manual timetable as fallback");
         Timetable timetable = new Timetable();
         
         // For each course, add the required number of sessions
         // Try to distribute them evenly across the week
         int totalSessions = 0;
         for (Course course : courses) {
-            totalSessions += course.getRequiredSessionsPerWeek();
+            totalSessions += requiredSessions(course);
         }
         
-        Log.d(TAG, "Total sessions to manually schedule: " + totalSessions);
+        TimetableLog.d(TAG, "Total sessions to manually schedule: " + totalSessions);
         
         // First, assign appropriate lecturers and resources
         for (Course course : courses) {
@@ -801,7 +1406,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         
         // Check for conflicts and try to resolve them
         if (hasConflicts(timetable)) {
-            Log.w(TAG, "Manual timetable has conflicts - attempting to resolve");
+            TimetableLog.w(TAG, "Manual timetable has conflicts - attempting to resolve");
             
             // Simple strategy: If conflicts found, shift problematic sessions to later hours
             List<TimetableSession> sessions = new ArrayList<>(timetable.getSessions());
@@ -819,30 +1424,41 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
             // Fix overlapping sessions by redistributing them to available slots
             for (Map.Entry<String, List<TimetableSession>> entry : sessionsByTime.entrySet()) {
                 if (entry.getValue().size() > 1) {
-                    Log.d(TAG, "Found conflict at " + entry.getKey() + " with " + entry.getValue().size() + " sessions");
+                    TimetableLog.d(TAG, () -> "Found conflict at " + entry.getKey() + " with " + entry.getValue().size() + " sessions");
                     
                     // Keep the first session in place, move others
                     for (int i = 1; i < entry.getValue().size(); i++) {
                         TimetableSession session = entry.getValue().get(i);
                         
+                        // Keep the session's length when moving it
+                        int startMinute = TimetableSymbols.minuteOfDay(session.getStartTime());
+                        int endMinute = TimetableSymbols.minuteOfDay(session.getEndTime());
+                        int sessionMinutes = startMinute >= 0 && endMinute > startMinute ? endMinute - startMinute : 60;
+                        int sessionSlots = Math.max(1, (sessionMinutes + calendar.getSlotMinutes() - 1) / calendar.getSlotMinutes());
+                        
                         // Try to find a free slot - prioritize spreading throughout the day
                         boolean relocated = false;
-                        for (int day = 0; day < DAYS_PER_WEEK; day++) {
-                            String dayOfWeek = DAYS_OF_WEEK[day];
-                            // Try to distribute across all hours (9am-5pm)
-                            for (int hourOffset = 0; hourOffset < HOURS_PER_DAY; hourOffset++) {
-                                // Use a better distribution by trying slots in this order: 
-                                // 12pm, 10am, 2pm, 9am, 3pm, 11am, 1pm, 4pm
+                        for (int day = 0; day < calendar.getDays(); day++) {
+                            String dayOfWeek = TimetableSymbols.dayName(day);
+                            // Try to distribute across all slots of the day, in blocks of eight
+                            int blocks = (calendar.getSlotsPerDay() + 7) / 8;
+                            for (int hourOffset = 0; hourOffset < blocks * 8; hourOffset++) {
+                                // Use a better distribution by trying the slots of each block in this order
+                                // (for the default week: 12pm, 10am, 2pm, 9am, 3pm, 11am, 1pm, 4pm)
                                 int[] hourOrder = {3, 1, 5, 0, 6, 2, 4, 7};
-                                int hour = START_HOUR + hourOrder[hourOffset % hourOrder.length];
+                                int slot = hourOffset / 8 * 8 + hourOrder[hourOffset % hourOrder.length];
+                                if (!calendar.isOpen(day, slot, sessionSlots)) {
+                                    continue;
+                                }
+                                int slotStart = calendar.getSlotStartMinute(slot);
                                 
-                                String newTimeKey = dayOfWeek + "-" + String.format("%02d:00", hour);
+                                String newTimeKey = dayOfWeek + "-" + formatTime(slotStart);
                                 
                                 if (!sessionsByTime.containsKey(newTimeKey) || sessionsByTime.get(newTimeKey).isEmpty()) {
                                     // This slot is free, move the session here
                                     session.setDayOfWeek(dayOfWeek);
-                                    session.setStartTime(String.format("%02d:00", hour));
-                                    session.setEndTime(String.format("%02d:00", hour + 1));
+                                    session.setStartTime(formatTime(slotStart));
+                                    session.setEndTime(formatTime(slotStart + sessionMinutes));
                                     
                                     // Update our tracking map
                                     if (!sessionsByTime.containsKey(newTimeKey)) {
@@ -855,7 +1471,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                                     i--; // Adjust index after removal
                                     
                                     relocated = true;
-                                    Log.d(TAG, "Relocated session to " + newTimeKey);
+                                    TimetableLog.d(TAG, () -> "Relocated session to " + newTimeKey);
                                     break;
                                 }
                             }
@@ -863,7 +1479,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                         }
                         
                         if (!relocated) {
-                            Log.w(TAG, "Could not find free slot for session - keeping in original position");
+                            TimetableLog.w(TAG, "Could not find free slot for session - keeping in original position");
                         }
                     }
                 }
@@ -880,13 +1496,13 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         for (Course course : courses) {
             if (!scheduledCourseIds.contains(course.getId())) {
                 missingCourses.add(course);
-                Log.e(TAG, "Course still missing after manual addition: " + course.getName() + 
+                TimetableLog.e(TAG, "Course still missing after manual addition: " + course.getName() + 
                     " (ID: " + course.getId() + ")");
             }
         }
         
         if (!missingCourses.isEmpty()) {
-            Log.e(TAG, "Still missing " + missingCourses.size() + " courses after manual addition!");
+            TimetableLog.e(TAG, "Still missing " + missingCourses.size() + " courses after manual addition!");
             
             // Instead of trying to add these courses, we'll now throw an exception
             // as we must enforce complete coverage and not return partial solutions
@@ -894,7 +1510,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
             for (Course course : missingCourses) {
                 errorMsg.append("• ").append(course.getName())
                        .append(" (").append(course.getCode()).append(") - ")
-                       .append(course.getRequiredSessionsPerWeek()).append(" sessions required\n");
+                       .append(requiredSessions(course)).append(" sessions required\n");
             }
             
             // Add diagnostic information to help understand the problem
@@ -924,7 +1540,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
     }
 
     private void addManualSessionsForCourse(Course course, List<Resource> resources, List<Lecturer> lecturers, Timetable timetable) {
-        Log.d(TAG, "Manually adding sessions for course: " + course.getName());
+        TimetableLog.d(TAG, () -> "Manually adding sessions for course: " + course.getName());
         
         // Find appropriate resource and lecturer
         Resource resource = null;
@@ -959,32 +1575,29 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         }
         
         if (resource != null && lecturer != null) {
-            int sessionsPerCourse = course.getRequiredSessionsPerWeek();
+            int sessionsPerCourse = requiredSessions(course);
+            int days = calendar.getDays();
+            int slotsPerDay = calendar.getSlotsPerDay();
+            int sessionSlots = calendar.slotsForDuration(course.getDurationHours());
+            int sessionMinutes = sessionSlots * calendar.getSlotMinutes();
             
             // Get current session counts for better distribution
-            int[] sessionsByDay = new int[DAYS_PER_WEEK];
-            int[] sessionsByHour = new int[HOURS_PER_DAY];
+            int[] sessionsByDay = new int[days];
+            int[] sessionsByHour = new int[slotsPerDay];
             
             // Calculate current distributions from existing sessions
             for (TimetableSession session : timetable.getSessions()) {
                 String day = session.getDayOfWeek();
-                int dayIndex = Arrays.asList(DAYS_OF_WEEK).indexOf(day);
+                int dayIndex = TimetableSymbols.dayIndex(day);
                 
-                if (dayIndex >= 0) {
+                if (dayIndex >= 0 && dayIndex < days) {
                     sessionsByDay[dayIndex]++;
                     
-                    // Extract hour from time format like "09:00"
-                    String startTime = session.getStartTime();
-                    if (startTime != null && startTime.length() >= 5) {
-                        try {
-                            int hour = Integer.parseInt(startTime.substring(0, 2));
-                            int hourIndex = hour - START_HOUR;
-                            if (hourIndex >= 0 && hourIndex < HOURS_PER_DAY) {
-                                sessionsByHour[hourIndex]++;
-                            }
-                        } catch (NumberFormatException e) {
-                            Log.e(TAG, "Error parsing time: " + startTime, e);
-                        }
+                    // Find the slot of a start time like "09:00"
+                    int startMinute = TimetableSymbols.minuteOfDay(session.getStartTime());
+                    int hourIndex = startMinute >= 0 ? calendar.slotOf(startMinute) : -1;
+                    if (hourIndex >= 0 && hourIndex < slotsPerDay) {
+                        sessionsByHour[hourIndex]++;
                     }
                 }
             }
@@ -1001,8 +1614,8 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 int minDaySessions = Integer.MAX_VALUE;
                 int bestDayIndex = 0;
                 
-                for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                    if (sessionsByDay[d] < minDaySessions) {
+                for (int d = 0; d < days; d++) {
+                    if (calendar.isOpenDay(d) && sessionsByDay[d] < minDaySessions) {
                         minDaySessions = sessionsByDay[d];
                         bestDayIndex = d;
                     }
@@ -1012,21 +1625,21 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 int minHourSessions = Integer.MAX_VALUE;
                 int bestHourIndex = 0;
                 
-                for (int h = 0; h < HOURS_PER_DAY; h++) {
-                    if (sessionsByHour[h] < minHourSessions) {
+                for (int h = 0; h < slotsPerDay; h++) {
+                    if (calendar.isOpen(bestDayIndex, h, sessionSlots) && sessionsByHour[h] < minHourSessions) {
                         minHourSessions = sessionsByHour[h];
                         bestHourIndex = h;
                     }
                 }
                 
                 // Set day and time for this session
-                String day = DAYS_OF_WEEK[bestDayIndex];
-                int hour = START_HOUR + bestHourIndex;
-                String formattedHour = String.format("%02d:00", hour);
+                String day = TimetableSymbols.dayName(bestDayIndex);
+                int startMinute = calendar.getSlotStartMinute(bestHourIndex);
+                String formattedHour = formatTime(startMinute);
                 
                 session.setDayOfWeek(day);
                 session.setStartTime(formattedHour);
-                session.setEndTime(calculateEndTime(formattedHour, 1));
+                session.setEndTime(formatTime(startMinute + sessionMinutes));
                 session.setResourceId(resource.getId());
                 session.setResourceName(resource.getName());
                 session.setLecturerId(lecturer.getId());
@@ -1061,11 +1674,11 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 // If conflict detected, try alternate hours
                 if (hasConflict) {
                     // Try other hours on the same day first
-                    for (int h = 0; h < HOURS_PER_DAY; h++) {
-                        if (h == bestHourIndex) continue;
+                    for (int h = 0; h < slotsPerDay; h++) {
+                        if (h == bestHourIndex || !calendar.isOpen(bestDayIndex, h, sessionSlots)) continue;
                         
-                        int alternateHour = START_HOUR + h;
-                        String alternateFormattedHour = String.format("%02d:00", alternateHour);
+                        int alternateStart = calendar.getSlotStartMinute(h);
+                        String alternateFormattedHour = formatTime(alternateStart);
                         
                         boolean alternateHasConflict = false;
                         for (TimetableSession existingSession : timetable.getSessions()) {
@@ -1078,7 +1691,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                         
                         if (!alternateHasConflict) {
                             session.setStartTime(alternateFormattedHour);
-                            session.setEndTime(calculateEndTime(alternateFormattedHour, 1));
+                            session.setEndTime(formatTime(alternateStart + sessionMinutes));
                             hasConflict = false;
                             break;
                         }
@@ -1090,20 +1703,22 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                         int secondBestDayIndex = 0;
                         int secondMinSessions = Integer.MAX_VALUE;
                         
-                        for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                            if (d != bestDayIndex && sessionsByDay[d] < secondMinSessions) {
+                        for (int d = 0; d < days; d++) {
+                            if (d != bestDayIndex && calendar.isOpenDay(d) && sessionsByDay[d] < secondMinSessions) {
                                 secondMinSessions = sessionsByDay[d];
                                 secondBestDayIndex = d;
                             }
                         }
                         
-                        day = DAYS_OF_WEEK[secondBestDayIndex];
+                        day = TimetableSymbols.dayName(secondBestDayIndex);
                         session.setDayOfWeek(day);
                         
                         // Check all hours on this day for conflicts
-                        for (int h = 0; h < HOURS_PER_DAY; h++) {
-                            int alternateHour = START_HOUR + h;
-                            String alternateFormattedHour = String.format("%02d:00", alternateHour);
+                        for (int h = 0; h < slotsPerDay; h++) {
+                            if (!calendar.isOpen(secondBestDayIndex, h, sessionSlots)) continue;
+                            
+                            int alternateStart = calendar.getSlotStartMinute(h);
+                            String alternateFormattedHour = formatTime(alternateStart);
                             
                             boolean alternateHasConflict = false;
                             for (TimetableSession existingSession : timetable.getSessions()) {
@@ -1116,7 +1731,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                             
                             if (!alternateHasConflict) {
                                 session.setStartTime(alternateFormattedHour);
-                                session.setEndTime(calculateEndTime(alternateFormattedHour, 1));
+                                session.setEndTime(formatTime(alternateStart + sessionMinutes));
                                 hasConflict = false;
                                 break;
                             }
@@ -1129,20 +1744,21 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     timetable.addSession(session);
                     
                     // Update counts for next iteration
-                    int usedDayIndex = Arrays.asList(DAYS_OF_WEEK).indexOf(day);
+                    int usedDayIndex = TimetableSymbols.dayIndex(day);
                     sessionsByDay[usedDayIndex]++;
                     
-                    int usedHour = Integer.parseInt(session.getStartTime().substring(0, 2));
-                    int usedHourIndex = usedHour - START_HOUR;
+                    int usedHourIndex = calendar.slotOf(TimetableSymbols.minuteOfDay(session.getStartTime()));
                     sessionsByHour[usedHourIndex]++;
                     
-                    Log.d(TAG, "Added session for " + course.getName() + " on " + day + " at " + session.getStartTime());
+                    if (TimetableLog.isDebugEnabled()) {
+                        TimetableLog.d(TAG, "Added session for " + course.getName() + " on " + day + " at " + session.getStartTime());
+                    }
                 } else {
-                    Log.w(TAG, "Couldn't resolve conflicts for session of " + course.getName());
+                    TimetableLog.w(TAG, "Couldn't resolve conflicts for session of " + course.getName());
                 }
             }
         } else {
-            Log.e(TAG, "Could not add manual sessions for " + course.getName() + ": no resource or lecturer available");
+            TimetableLog.e(TAG, "Could not add manual sessions for " + course.getName() + ": no resource or lecturer available");
         }
     }
 
@@ -1154,7 +1770,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                                 Map<Integer, IntVar> sessionLecturerVars,
                                 List<TimetableSession> existingSessionsFromOtherDepts, TimetableGeneratorOptions options) {
         // Log what we're doing
-        Log.d(TAG, "Adding constraints to the timetable model");
+        TimetableLog.d(TAG, "Adding constraints to the timetable model");
 
         // Get options from the singleton
         boolean avoidBackToBackStudents = options.shouldAvoidBackToBackStudents();
@@ -1179,12 +1795,9 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 IntVar hourVar2 = sessionHourVars.get(id2);
                 IntVar resourceVar2 = sessionResourceVars.get(id2);
                 
-                // If two sessions are on the same day at the same hour, they must use different resources
+                // If two sessions overlap on the same day, they must use different resources
                 model.ifThen(
-                    model.and(
-                        model.arithm(dayVar1, "=", dayVar2),
-                        model.arithm(hourVar1, "=", hourVar2)
-                    ),
+                    overlap(model, dayVar1, hourVar1, session1.getSlots(), dayVar2, hourVar2, session2.getSlots()),
                     model.arithm(resourceVar1, "!=", resourceVar2)
                 );
             }
@@ -1205,12 +1818,9 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 IntVar hourVar2 = sessionHourVars.get(id2);
                 IntVar lecturerVar2 = sessionLecturerVars.get(id2);
                 
-                // If two sessions are on the same day at the same hour, they must have different lecturers
+                // If two sessions overlap on the same day, they must have different lecturers
                 model.ifThen(
-                    model.and(
-                        model.arithm(dayVar1, "=", dayVar2),
-                        model.arithm(hourVar1, "=", hourVar2)
-                    ),
+                    overlap(model, dayVar1, hourVar1, session1.getSlots(), dayVar2, hourVar2, session2.getSlots()),
                     model.arithm(lecturerVar1, "!=", lecturerVar2)
                 );
             }
@@ -1241,19 +1851,18 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 // Instead of just checking for same course sessions, we ensure ALL department courses
                 // are scheduled at different times.
                 model.ifThen(
-                    model.and(
-                        model.arithm(dayVar1, "=", dayVar2),
-                        model.arithm(hourVar1, "=", hourVar2)
-                    ),
+                    overlap(model, dayVar1, hourVar1, session1.getSlots(), dayVar2, hourVar2, session2.getSlots()),
                     // Force this combination to be false - essentially making it a hard constraint
                     model.arithm(model.intVar(0), "=", model.intVar(1))
                 );
             }
         }
         
-        // Add constraints for existing sessions from other departments
-        if (existingSessionsFromOtherDepts != null && !existingSessionsFromOtherDepts.isEmpty()) {
-            Log.d(TAG, "Adding constraints for " + existingSessionsFromOtherDepts.size() + " existing sessions from other departments");
+        // Add constraints for existing sessions from other departments, unless the session
+        // variables were given booking tables instead
+        if (existingSessionsFromOtherDepts != null && !existingSessionsFromOtherDepts.isEmpty()
+                && !options.shouldUseBookingTables()) {
+            TimetableLog.d(TAG, () -> "Adding constraints for " + existingSessionsFromOtherDepts.size() + " existing sessions from other departments");
             
             for (TimetableSession existingSession : existingSessionsFromOtherDepts) {
                 String day = existingSession.getDayOfWeek();
@@ -1261,23 +1870,15 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 String lecturerId = existingSession.getLecturerId();
                 String resourceId = existingSession.getResourceId();
                 
-                // Find the index of the day
-                int dayIndex = Arrays.asList(DAYS_OF_WEEK).indexOf(day);
-                
-                // Find the index of the hour
-                int hourIndex = -1;
-                try {
-                    hourIndex = Integer.parseInt(startTime.substring(0, 2)) - START_HOUR;
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing time from existing session: " + startTime, e);
-                    continue;
-                }
-                
-                // Skip if day or hour is out of range
-                if (dayIndex < 0 || dayIndex >= DAYS_PER_WEEK || hourIndex < 0 || hourIndex >= HOURS_PER_DAY) {
-                    Log.w(TAG, "Existing session day/hour out of range: " + day + " " + startTime);
+                // Find the day and the slots the session covers, skipping it if it's out of range
+                int[] range = slotRange(existingSession);
+                if (range == null) {
+                    TimetableLog.w(TAG, "Existing session day/hour out of range: " + day + " " + startTime);
                     continue;
                 }
+                int dayIndex = range[0];
+                int fromSlot = range[1];
+                int toSlot = range[2];
                 
                 // Resource conflict constraint - a hard constraint that no new session can use the same resource
                 // at the same day and time as an existing session from another department
@@ -1294,8 +1895,10 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     
                     // If we found the resource, add the constraint
                     if (resourceIndex >= 0) {
-                        Log.d(TAG, "Adding cross-department resource constraint: no session can use " +
-                               resources.get(resourceIndex).getName() + " on " + day + " at " + startTime);
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Adding cross-department resource constraint: no session can use " +
+                                   resources.get(resourceIndex).getName() + " on " + day + " at " + startTime);
+                        }
                         
                         // For all sessions, prevent using this resource at this day/time
                         for (SessionToSchedule session : allSessions) {
@@ -1304,17 +1907,14 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                             IntVar hourVar = sessionHourVars.get(sessionId);
                             IntVar resourceVar = sessionResourceVars.get(sessionId);
                             
-                            // If this session is on the same day and hour, it cannot use this resource
+                            // If this session overlaps the existing one, it cannot use this resource
                             model.ifThen(
-                                model.and(
-                                    model.arithm(dayVar, "=", dayIndex),
-                                    model.arithm(hourVar, "=", hourIndex)
-                                ),
+                                covers(model, dayVar, hourVar, session.getSlots(), dayIndex, fromSlot, toSlot),
                                 model.arithm(resourceVar, "!=", resourceIndex)
                             );
                         }
                     } else {
-                        Log.w(TAG, "Could not find resource with ID: " + resourceId + " in our resources list");
+                        TimetableLog.w(TAG, "Could not find resource with ID: " + resourceId + " in our resources list");
                     }
                 }
                 
@@ -1333,8 +1933,10 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     
                     // If we found the lecturer, add the constraint
                     if (lecturerIndex >= 0) {
-                        Log.d(TAG, "Adding cross-department lecturer constraint: no session can use " +
-                               lecturers.get(lecturerIndex).getName() + " on " + day + " at " + startTime);
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Adding cross-department lecturer constraint: no session can use " +
+                                   lecturers.get(lecturerIndex).getName() + " on " + day + " at " + startTime);
+                        }
                         
                         // For all sessions, prevent using this lecturer at this day/time
                         for (SessionToSchedule session : allSessions) {
@@ -1343,12 +1945,9 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                             IntVar hourVar = sessionHourVars.get(sessionId);
                             IntVar lecturerVar = sessionLecturerVars.get(sessionId);
                             
-                            // If this session is on the same day and hour, it cannot use this lecturer
+                            // If this session overlaps the existing one, it cannot use this lecturer
                             model.ifThen(
-                                model.and(
-                                    model.arithm(dayVar, "=", dayIndex),
-                                    model.arithm(hourVar, "=", hourIndex)
-                                ),
+                                covers(model, dayVar, hourVar, session.getSlots(), dayIndex, fromSlot, toSlot),
                                 model.arithm(lecturerVar, "!=", lecturerIndex)
                             );
                         }
@@ -1360,7 +1959,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         // NEW CONSTRAINT: Avoid back-to-back classes for students
         // This is a hard constraint to prevent consecutive classes in the same department
         if (avoidBackToBackStudents) {
-            Log.d(TAG, "Adding constraints to avoid back-to-back classes for students");
+            TimetableLog.d(TAG, "Adding constraints to avoid back-to-back classes for students");
             
             // Create a sum variable to track the total number of back-to-back classes
             List<IntVar> backToBackPenalties = new ArrayList<>();
@@ -1385,18 +1984,18 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     IntVar dayVar2 = sessionDayVars.get(id2);
                     IntVar hourVar2 = sessionHourVars.get(id2);
                     
-                    // Create constraint: if two sessions are on the same day and hours are consecutive (h, h+1),
-                    // FORBID this scheduling (hard constraint)
+                    // Create constraint: if two sessions are on the same day and one starts in the slot
+                    // the other ends at, FORBID this scheduling (hard constraint)
                     
                     // Same day check
                     BoolVar sameDay = model.arithm(dayVar1, "=", dayVar2).reify();
                     
                     // Back-to-back hours check (session1 followed by session2)
-                    BoolVar consecutiveHour1 = model.arithm(hourVar2, "-", hourVar1, "=", 1).reify();
+                    BoolVar consecutiveHour1 = model.arithm(hourVar2, "-", hourVar1, "=", session1.getSlots()).reify();
                     BoolVar backToBack1 = model.and(sameDay, consecutiveHour1).reify();
                     
                     // Back-to-back hours check (session2 followed by session1)
-                    BoolVar consecutiveHour2 = model.arithm(hourVar1, "-", hourVar2, "=", 1).reify();
+                    BoolVar consecutiveHour2 = model.arithm(hourVar1, "-", hourVar2, "=", session2.getSlots()).reify();
                     BoolVar backToBack2 = model.and(sameDay, consecutiveHour2).reify();
                     
                     // Combined back-to-back check
@@ -1414,7 +2013,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     
                     backToBackPenalties.add(backToBackPenalty);
                     
-                    Log.d(TAG, "Added hard constraint to prevent back-to-back sessions between " + 
+                    TimetableLog.d(TAG, () -> "Added hard constraint to prevent back-to-back sessions between " + 
                           session1.getCourse().getName() + " and " + session2.getCourse().getName());
                 }
             }
@@ -1435,16 +2034,16 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 // Set a primary objective
                 model.setObjective(Model.MINIMIZE, weightedPenalty);
                 
-                Log.d(TAG, "Added student back-to-back constraint with extremely high weight (20)");
+                TimetableLog.d(TAG, "Added student back-to-back constraint with extremely high weight (20)");
             }
         } else {
-            Log.d(TAG, "Skipping student back-to-back constraints (feature not enabled)");
+            TimetableLog.d(TAG, "Skipping student back-to-back constraints (feature not enabled)");
         }
         
         // Add LECTURER PREFERENCES constraint with MINIMAL WEIGHT
         // This ensures lecturer preferences are only considered when they don't conflict with student needs
         if (avoidBackToBackLecturers) {
-            Log.d(TAG, "Adding constraints for lecturer preferences with minimal weight");
+            TimetableLog.d(TAG, "Adding constraints for lecturer preferences with minimal weight");
             
             // Create penalties for lecturer preferences
             List<IntVar> lecturerPenalties = new ArrayList<>();
@@ -1467,9 +2066,9 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                     BoolVar sameLecturer = model.arithm(lecturerVar1, "=", lecturerVar2).reify();
                     BoolVar sameDay = model.arithm(dayVar1, "=", dayVar2).reify();
                     
-                    // For consecutive hours
-                    BoolVar consecutiveHour1 = model.arithm(hourVar2, "-", hourVar1, "=", 1).reify();
-                    BoolVar consecutiveHour2 = model.arithm(hourVar1, "-", hourVar2, "=", 1).reify();
+                    // For consecutive hours: one session starts in the slot the other ends at
+                    BoolVar consecutiveHour1 = model.arithm(hourVar2, "-", hourVar1, "=", session1.getSlots()).reify();
+                    BoolVar consecutiveHour2 = model.arithm(hourVar1, "-", hourVar2, "=", session2.getSlots()).reify();
                     
                     BoolVar backToBack1 = model.and(sameLecturer, sameDay, consecutiveHour1).reify();
                     BoolVar backToBack2 = model.and(sameLecturer, sameDay, consecutiveHour2).reify();
@@ -1498,17 +2097,201 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 allPenalties.add(weightedPenalty);
                 penaltyWeights.put("lecturerPreferences", 1);
                 
-                Log.d(TAG, "Added lecturer preferences constraint with minimal weight (1)");
+                TimetableLog.d(TAG, "Added lecturer preferences constraint with minimal weight (1)");
             }
         }
         
+        addDayBalanceObjective(model, allSessions, sessionDayVars);
+    }
+
+    /**
+     * Compact alternative to {@link #addConstraints}. Instead of posting a reified constraint for
+     * every pair of sessions, each session gets one combined slot variable
+     * (day * slotsPerDay + hour) and exclusivity is expressed with a handful of global constraints:
+     * - resources: allDifferent over slot * R + resource, for every slot a session covers
+     * - lecturers: allDifferent over slot * L + lecturer, for every slot a session covers
+     * - students: an owner course per slot, linked with element, so only one course can use a slot
+     * - other departments: the (slot, resource) and (slot, lecturer) keys they already hold are
+     *   removed from each session's key domain, unless booking tables are used
+     * The model therefore grows linearly with the number of sessions and their lengths.
+     *
+     * Lecturer back-to-back penalties are not modelled here: the final objective is the day
+     * imbalance, so the pairwise penalties never influenced the search in the full model either.
+     */
+    private void addCompactConstraints(Model model, List<SessionToSchedule> allSessions,
+                                       List<Resource> resources, List<Lecturer> lecturers,
+                                       Map<Integer, IntVar> sessionDayVars,
+                                       Map<Integer, IntVar> sessionHourVars,
+                                       Map<Integer, IntVar> sessionResourceVars,
+                                       Map<Integer, IntVar> sessionLecturerVars,
+                                       List<TimetableSession> existingSessionsFromOtherDepts, TimetableGeneratorOptions options) {
+        TimetableLog.d(TAG, "Adding compact constraints to the timetable model");
+
+        int days = calendar.getDays();
+        int slotsPerDay = calendar.getSlotsPerDay();
+        int slotCount = days * slotsPerDay;
+        int resourceCount = resources.size();
+        int lecturerCount = lecturers.size();
+
+        // Index the courses so every slot can record which course (if any) occupies it
+        Map<String, Integer> courseIndices = new HashMap<>();
+        for (SessionToSchedule session : allSessions) {
+            String courseId = session.getCourse().getId();
+            if (!courseIndices.containsKey(courseId)) {
+                courseIndices.put(courseId, courseIndices.size());
+            }
+        }
+        IntVar[] slotOwners = model.intVarArray("slotOwner", slotCount, -1, courseIndices.size() - 1);
+
+        // Keys already held by sessions from other departments, unless the session variables
+        // were given booking tables instead
+        Set<Integer> takenResourceKeys = new HashSet<>();
+        Set<Integer> takenLecturerKeys = new HashSet<>();
+        if (existingSessionsFromOtherDepts != null && !existingSessionsFromOtherDepts.isEmpty()
+                && !options.shouldUseBookingTables()) {
+            TimetableLog.d(TAG, () -> "Adding constraints for " + existingSessionsFromOtherDepts.size() + " existing sessions from other departments");
+
+            Map<String, Integer> resourceIndices = new HashMap<>();
+            for (int r = 0; r < resourceCount; r++) {
+                resourceIndices.put(resources.get(r).getId(), r);
+            }
+            Map<String, Integer> lecturerIndices = new HashMap<>();
+            for (int l = 0; l < lecturerCount; l++) {
+                lecturerIndices.put(lecturers.get(l).getId(), l);
+            }
+
+            for (TimetableSession existingSession : existingSessionsFromOtherDepts) {
+                int[] range = slotRange(existingSession);
+                if (range == null) {
+                    TimetableLog.w(TAG, "Existing session day/hour out of range: " + existingSession.getDayOfWeek() +
+                            " " + existingSession.getStartTime());
+                    continue;
+                }
+
+                Integer resourceIndex = resourceIndices.get(existingSession.getResourceId());
+                Integer lecturerIndex = lecturerIndices.get(existingSession.getLecturerId());
+                for (int h = range[1]; h < range[2]; h++) {
+                    int slot = range[0] * slotsPerDay + h;
+                    if (resourceIndex != null) {
+                        takenResourceKeys.add(slot * resourceCount + resourceIndex);
+                    }
+                    if (lecturerIndex != null) {
+                        takenLecturerKeys.add(slot * lecturerCount + lecturerIndex);
+                    }
+                }
+            }
+            TimetableLog.d(TAG, () -> "Cross-department bookings: " + takenResourceKeys.size() + " resource slots, "
+                    + takenLecturerKeys.size() + " lecturer slots");
+        }
+        int[] forbiddenResourceKeys = takenResourceKeys.stream().mapToInt(Integer::intValue).toArray();
+        int[] forbiddenLecturerKeys = takenLecturerKeys.stream().mapToInt(Integer::intValue).toArray();
+
+        List<IntVar> resourceKeys = new ArrayList<>();
+        List<IntVar> lecturerKeys = new ArrayList<>();
+        boolean multiSlotSessions = false;
+        for (SessionToSchedule session : allSessions) {
+            int id = session.getIndex();
+            int courseIndex = courseIndices.get(session.getCourse().getId());
+            multiSlotSessions |= session.getSlots() > 1;
+
+            IntVar slot = model.intVar("slot_" + id, 0, slotCount - 1);
+            model.scalar(new IntVar[]{sessionDayVars.get(id), sessionHourVars.get(id)},
+                    new int[]{slotsPerDay, 1}, "=", slot).post();
+
+            // The hour domain keeps the whole session within its day, so slot + k is on the same day
+            for (int k = 0; k < session.getSlots(); k++) {
+                IntVar covered = k == 0 ? slot : model.intOffsetView(slot, k);
+
+                IntVar resourceKey = model.intVar("resourceSlot_" + id + "_" + k, 0, slotCount * resourceCount - 1);
+                model.scalar(new IntVar[]{covered, sessionResourceVars.get(id)},
+                        new int[]{resourceCount, 1}, "=", resourceKey).post();
+                resourceKeys.add(resourceKey);
+
+                IntVar lecturerKey = model.intVar("lecturerSlot_" + id + "_" + k, 0, slotCount * lecturerCount - 1);
+                model.scalar(new IntVar[]{covered, sessionLecturerVars.get(id)},
+                        new int[]{lecturerCount, 1}, "=", lecturerKey).post();
+                lecturerKeys.add(lecturerKey);
+
+                // The slots this session takes are owned by its course; sessions of other courses can't use them
+                model.element(model.intVar(courseIndex), slotOwners, covered, 0).post();
+
+                if (forbiddenResourceKeys.length > 0) {
+                    model.notMember(resourceKey, forbiddenResourceKeys).post();
+                }
+                if (forbiddenLecturerKeys.length > 0) {
+                    model.notMember(lecturerKey, forbiddenLecturerKeys).post();
+                }
+            }
+        }
+
+        // Hard constraints: no resource or lecturer is booked twice in the same slot
+        if (resourceKeys.size() > 1) {
+            model.allDifferent(resourceKeys.toArray(new IntVar[0])).post();
+            model.allDifferent(lecturerKeys.toArray(new IntVar[0])).post();
+        }
+
+        // Avoid back-to-back classes for students
+        if (options.shouldAvoidBackToBackStudents()) {
+            TimetableLog.d(TAG, "Adding constraints to avoid back-to-back classes for students");
+            if (!multiSlotSessions) {
+                // Two consecutive slots of a day can't both be used
+                BoolVar[] occupied = new BoolVar[slotCount];
+                for (int s = 0; s < slotCount; s++) {
+                    occupied[s] = model.arithm(slotOwners[s], ">=", 0).reify();
+                }
+                for (int d = 0; d < days; d++) {
+                    for (int h = 0; h < slotsPerDay - 1; h++) {
+                        int s = d * slotsPerDay + h;
+                        model.arithm(occupied[s], "+", occupied[s + 1], "<=", 1).post();
+                    }
+                }
+            } else {
+                // A longer session fills consecutive slots itself, so compare where sessions start
+                // and end instead: no session may start at the boundary another one ends at.
+                // A day has slotsPerDay + 1 boundaries, so the last one of a day isn't the next day's first.
+                IntVar[] boundaries = new IntVar[allSessions.size() * 2];
+                for (int i = 0; i < allSessions.size(); i++) {
+                    SessionToSchedule session = allSessions.get(i);
+                    int id = session.getIndex();
+                    IntVar start = model.intVar("start_" + id, 0, days * (slotsPerDay + 1) - 1);
+                    model.scalar(new IntVar[]{sessionDayVars.get(id), sessionHourVars.get(id)},
+                            new int[]{slotsPerDay + 1, 1}, "=", start).post();
+                    boundaries[2 * i] = start;
+                    boundaries[2 * i + 1] = model.intOffsetView(start, session.getSlots());
+                }
+                if (boundaries.length > 2) {
+                    model.allDifferent(boundaries).post();
+                }
+            }
+        }
+
+        addDayBalanceObjective(model, allSessions, sessionDayVars);
+    }
+
+    /**
+     * Adds the day counters and sets the objective to minimize the difference between the
+     * busiest and the quietest day.
+     */
+    private void addDayBalanceObjective(Model model, List<SessionToSchedule> allSessions,
+                                        Map<Integer, IntVar> sessionDayVars) {
         // Add SPREAD constraint - try to spread courses across different days and hours
         // This helps prevent clustering classes on specific days/times
         
-        // Create counters for each day and timeslot
-        IntVar[] dayCounters = new IntVar[DAYS_PER_WEEK];
-        for (int d = 0; d < DAYS_PER_WEEK; d++) {
-            dayCounters[d] = model.intVar("day_count_" + d, 0, allSessions.size());
+        // Create counters for each teaching day
+        List<Integer> openDays = new ArrayList<>();
+        for (int d = 0; d < calendar.getDays(); d++) {
+            if (calendar.isOpenDay(d)) {
+                openDays.add(d);
+            }
+        }
+        if (openDays.isEmpty()) {
+            TimetableLog.w(TAG, "No teaching days in " + calendar);
+            return;
+        }
+        IntVar[] dayCounters = new IntVar[openDays.size()];
+        for (int k = 0; k < openDays.size(); k++) {
+            int d = openDays.get(k);
+            dayCounters[k] = model.intVar("day_count_" + d, 0, allSessions.size());
             
             // Count sessions on this day
             IntVar[] boolVars = new IntVar[allSessions.size()];
@@ -1516,7 +2299,7 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
                 IntVar dayVar = sessionDayVars.get(allSessions.get(i).getIndex());
                 boolVars[i] = model.intEqView(dayVar, d);
             }
-            model.sum(boolVars, "=", dayCounters[d]).post();
+            model.sum(boolVars, "=", dayCounters[k]).post();
         }
         
         // Create a max count variable to minimize the worst imbalance
@@ -1527,14 +2310,213 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         model.max(maxDayCount, dayCounters).post();
         model.min(minDayCount, dayCounters).post();
         
-        // Create a variable for the imbalance between days
-        IntVar dayImbalance = model.intVar("dayImbalance", 0, allSessions.size());
+        // Create a variable for the imbalance between days. Unless the sessions divide evenly
+        // over the week it can't be 0, so an imbalance of 1 is known to be optimal right away.
+        int lowestImbalance = allSessions.size() % openDays.size() == 0 ? 0 : 1;
+        IntVar dayImbalance = model.intVar("dayImbalance", lowestImbalance, Math.max(lowestImbalance, allSessions.size()));
         model.arithm(maxDayCount, "-", minDayCount, "=", dayImbalance).post();
         
         // Set objective to minimize imbalance
         model.setObjective(Model.MINIMIZE, dayImbalance);
     }
 
+    /**
+     * Posts constraints that keep only one of each set of timetables that differ by swapping
+     * interchangeable parts:
+     * - sessions of a course with the same length are identical, so their (day, start, room,
+     *   lecturer) vectors are kept in strictly increasing lexicographic order
+     * - rooms that are in the domains of exactly the same sessions and that no other department
+     *   has booked are identical, so a session only uses a room of such a group if an earlier
+     *   session uses the room before it (value precedence)
+     * Both keep the lexicographically smallest of the symmetric timetables for the same order of
+     * the variables, so together they never remove every solution.
+     */
+    private void addSymmetryBreaking(Model model, List<SessionToSchedule> allSessions,
+                                     Map<Integer, IntVar> sessionDayVars,
+                                     Map<Integer, IntVar> sessionHourVars,
+                                     Map<Integer, IntVar> sessionResourceVars,
+                                     Map<Integer, IntVar> sessionLecturerVars,
+                                     List<Resource> resources,
+                                     List<TimetableSession> existingSessionsFromOtherDepts,
+                                     TimetableGeneratorOptions options) {
+        // Interchangeable sessions, in the order of allSessions
+        Map<String, List<IntVar[]>> sessionGroups = new HashMap<>();
+        for (SessionToSchedule session : allSessions) {
+            int id = session.getIndex();
+            sessionGroups.computeIfAbsent(session.getCourse().getId() + "#" + session.getSlots(), k -> new ArrayList<>())
+                    .add(new IntVar[]{sessionDayVars.get(id), sessionHourVars.get(id),
+                            sessionResourceVars.get(id), sessionLecturerVars.get(id)});
+        }
+        int lexChains = 0;
+        for (List<IntVar[]> group : sessionGroups.values()) {
+            if (group.size() > 1) {
+                // Two sessions can't share a room at the same time, so no two vectors are equal
+                model.lexChainLess(group.toArray(new IntVar[0][])).post();
+                lexChains++;
+            }
+        }
+        
+        // Rooms grouped by the sessions that can use them; booked rooms differ from the others
+        Set<String> bookedResourceIds = new HashSet<>();
+        for (TimetableSession existingSession : existingSessionsFromOtherDepts) {
+            bookedResourceIds.add(existingSession.getResourceId());
+        }
+        Map<List<Integer>, List<Integer>> roomGroups = new HashMap<>();
+        for (int r = 0; r < resources.size(); r++) {
+            if (bookedResourceIds.contains(resources.get(r).getId())) {
+                continue;
+            }
+            List<Integer> sessionsUsingRoom = new ArrayList<>();
+            for (SessionToSchedule session : allSessions) {
+                if (sessionResourceVars.get(session.getIndex()).contains(r)) {
+                    sessionsUsingRoom.add(session.getIndex());
+                }
+            }
+            if (!sessionsUsingRoom.isEmpty()) {
+                roomGroups.computeIfAbsent(sessionsUsingRoom, k -> new ArrayList<>()).add(r);
+            }
+        }
+        int roomClasses = 0;
+        int interchangeableRooms = 0;
+        for (Map.Entry<List<Integer>, List<Integer>> group : roomGroups.entrySet()) {
+            List<Integer> rooms = group.getValue();
+            if (rooms.size() < 2) {
+                continue;
+            }
+            IntVar[] resourceVars = new IntVar[group.getKey().size()];
+            for (int i = 0; i < resourceVars.length; i++) {
+                resourceVars[i] = sessionResourceVars.get(group.getKey().get(i));
+            }
+            model.intValuePrecedeChain(resourceVars, rooms.stream().mapToInt(Integer::intValue).toArray()).post();
+            roomClasses++;
+            interchangeableRooms += rooms.size();
+        }
+        
+        int chains = lexChains;
+        int classes = roomClasses;
+        int rooms = interchangeableRooms;
+        TimetableLog.d(TAG, () -> "Symmetry breaking: " + chains + " session orderings, " + rooms +
+                " interchangeable rooms in " + classes + " groups");
+        GenerationMetrics metrics = options.getMetrics();
+        if (metrics != null) {
+            String scope = options.getMetricsScope();
+            metrics.set(scope, "symmetry", "sessionOrderings", lexChains);
+            metrics.set(scope, "symmetry", "roomGroups", roomClasses);
+            metrics.set(scope, "symmetry", "interchangeableRooms", interchangeableRooms);
+        }
+    }
+
+    /**
+     * Keeps the sessions being placed away from the slots of pinned sessions of this department:
+     * other courses can't share a pinned slot (students attend all of them), sessions can't sit
+     * next to a pinned one when back-to-back classes for students are avoided, and a course
+     * with spread sessions can't use a day it already has a pinned session on.
+     */
+    private void addPinnedSessionConstraints(Model model, List<SessionToSchedule> allSessions,
+                                             Map<Integer, IntVar> sessionDayVars,
+                                             Map<Integer, IntVar> sessionHourVars,
+                                             TimetableGeneratorOptions options) {
+        TimetableLog.d(TAG, () -> "Adding constraints for " + pinnedSessions.size() + " pinned sessions");
+        for (SessionToSchedule session : allSessions) {
+            String courseId = session.getCourse().getId();
+            IntVar dayVar = sessionDayVars.get(session.getIndex());
+            IntVar hourVar = sessionHourVars.get(session.getIndex());
+            int slots = session.getSlots();
+            int lastStart = calendar.getSlotsPerDay() - slots;
+            
+            List<Set<Integer>> forbiddenHours = new ArrayList<>();
+            for (int d = 0; d < calendar.getDays(); d++) {
+                forbiddenHours.add(new HashSet<>());
+            }
+            for (TimetableSession pinned : pinnedSessions) {
+                int[] range = slotRange(pinned);
+                if (range == null) {
+                    continue;
+                }
+                int d = range[0];
+                boolean sameCourse = courseId.equals(pinned.getCourseId());
+                if (sameCourse && options.shouldSpreadCourseSessions()) {
+                    model.arithm(dayVar, "!=", d).post();
+                }
+                if (!sameCourse) {
+                    // Every start that would overlap the pinned slots
+                    for (int h = range[1] - slots + 1; h < range[2]; h++) {
+                        forbiddenHours.get(d).add(h);
+                    }
+                }
+                if (options.shouldAvoidBackToBackStudents()) {
+                    // Ending where the pinned session starts, or starting where it ends
+                    forbiddenHours.get(d).add(range[1] - slots);
+                    forbiddenHours.get(d).add(range[2]);
+                }
+            }
+            for (int d = 0; d < calendar.getDays(); d++) {
+                int[] hours = forbiddenHours.get(d).stream()
+                        .filter(h -> h >= 0 && h <= lastStart).mapToInt(Integer::intValue).toArray();
+                if (hours.length > 0) {
+                    model.ifThen(model.arithm(dayVar, "=", d), model.notMember(hourVar, hours));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A constraint that holds when two sessions, lasting the given number of slots, are on the
+     * same day at overlapping times.
+     */
+    private Constraint overlap(Model model, IntVar dayVar1, IntVar hourVar1, int slots1,
+                               IntVar dayVar2, IntVar hourVar2, int slots2) {
+        if (slots1 == 1 && slots2 == 1) {
+            return model.and(model.arithm(dayVar1, "=", dayVar2), model.arithm(hourVar1, "=", hourVar2));
+        }
+        return model.and(
+                model.arithm(dayVar1, "=", dayVar2),
+                model.arithm(hourVar1, "-", hourVar2, "<", slots2),
+                model.arithm(hourVar2, "-", hourVar1, "<", slots1));
+    }
+
+    /**
+     * A constraint that holds when a session lasting {@code slots} slots covers any of the slots
+     * [fromSlot, toSlot) of a day.
+     */
+    private Constraint covers(Model model, IntVar dayVar, IntVar hourVar, int slots, int day, int fromSlot, int toSlot) {
+        if (slots == 1 && toSlot - fromSlot == 1) {
+            return model.and(model.arithm(dayVar, "=", day), model.arithm(hourVar, "=", fromSlot));
+        }
+        return model.and(
+                model.arithm(dayVar, "=", day),
+                model.arithm(hourVar, ">", fromSlot - slots),
+                model.arithm(hourVar, "<", toSlot));
+    }
+
+    /**
+     * Gets the day index and the slots [from, to) a session covers in the current calendar, or
+     * null if its day or time can't be read or it lies outside the teaching week. A session
+     * without a readable end time covers one hour.
+     */
+    private int[] slotRange(TimetableSession session) {
+        int day = TimetableSymbols.dayIndex(session.getDayOfWeek());
+        int start = TimetableSymbols.minuteOfDay(session.getStartTime());
+        if (day < 0 || day >= calendar.getDays() || start < 0) {
+            return null;
+        }
+        int end = TimetableSymbols.minuteOfDay(session.getEndTime());
+        if (end <= start) {
+            end = start + 60;
+        }
+        int from = Math.max(0, calendar.slotOf(start));
+        int to = Math.min(calendar.getSlotsPerDay(), calendar.slotEndingAt(end));
+        return from < to ? new int[]{day, from, to} : null;
+    }
+
+    /**
+     * Formats a minute of the day as the solver's output times, e.g. "09:00" or "13:30".
+     */
+    private static String formatTime(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
     private static class ValueSolution {
         private final Map<String, Integer> values;
         
@@ -1550,10 +2532,12 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
     private static class SessionToSchedule {
         private final int index;
         private final Course course;
+        private final int slots;
         
-        public SessionToSchedule(int index, Course course) {
+        public SessionToSchedule(int index, Course course, int slots) {
             this.index = index;
             this.course = course;
+            this.slots = slots;
         }
         
         public int getIndex() {
@@ -1563,6 +2547,69 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         public Course getCourse() {
             return course;
         }
+        
+        /**
+         * Gets the number of consecutive slots the session takes.
+         */
+        public int getSlots() {
+            return slots;
+        }
+    }
+
+    @Override
+    public Timetable updateTimetable(Timetable previous, TimetableDelta delta, List<Resource> resources,
+                                     List<Lecturer> lecturers, List<Course> courses, TimetableGeneratorOptions options) {
+        long updateStart = System.currentTimeMillis();
+        if (options == null) {
+            options = new TimetableGeneratorOptions();
+        }
+        
+        List<TimetableSession> pinned = delta.getPinnedSessions(previous);
+        Map<String, Integer> displaced = delta.getDisplacedSessionCounts(previous);
+        
+        // Replaced courses are placed in full, other courses only for the sessions that were displaced
+        List<Course> coursesToPlace = new ArrayList<>();
+        Map<String, Integer> overrides = new HashMap<>();
+        for (Course course : delta.applyToCourses(courses)) {
+            if (delta.isCourseReplaced(course.getId())) {
+                coursesToPlace.add(course);
+            } else if (displaced.containsKey(course.getId())) {
+                coursesToPlace.add(course);
+                overrides.put(course.getId(), displaced.get(course.getId()));
+            }
+        }
+        TimetableLog.d(TAG, () -> "Updating timetable: keeping " + pinned.size() + " sessions, placing sessions for " +
+              coursesToPlace.size() + " courses");
+        
+        Timetable updated = previous != null
+                ? new Timetable(previous.getAcademicTerm(), previous.getAcademicYear(), previous.getDepartment())
+                : new Timetable();
+        for (TimetableSession session : pinned) {
+            updated.addSession(session);
+        }
+        if (coursesToPlace.isEmpty()) {
+            return updated;
+        }
+        
+        // Pinned sessions block their rooms and lecturers just like sessions from other departments
+        TimetableGeneratorOptions incrementalOptions = new TimetableGeneratorOptions(options);
+        incrementalOptions.getExistingTimetableSessions().addAll(pinned);
+        
+        this.sessionCountOverrides = overrides;
+        this.pinnedSessions = pinned;
+        try {
+            Timetable placed = generateTimetable(delta.filterResources(resources), delta.filterLecturers(lecturers),
+                                                 coursesToPlace, incrementalOptions);
+            for (TimetableSession session : placed.getSessions()) {
+                updated.addSession(session);
+            }
+        } finally {
+            this.sessionCountOverrides = new HashMap<>();
+            this.pinnedSessions = new ArrayList<>();
+        }
+        
+        TimetableLog.d(TAG, () -> "Timetable updated in " + (System.currentTimeMillis() - updateStart) + "ms");
+        return updated;
     }
 
     @Override
@@ -1570,14 +2617,4 @@ public class ChocoSolverTimetableGenerator implements TimetableGenerator {
         TimetableGenerator simpleGenerator = new SimpleTimetableGenerator();
         return simpleGenerator.hasConflicts(timetable);
     }
-
-    private String calculateEndTime(String startTime, int durationHours) {
-        String[] parts = startTime.split(":");
-        int hour = Integer.parseInt(parts[0]);
-        int minute = Integer.parseInt(parts[1]);
-        
-        hour += durationHours;
-        
-        return String.format("%02d:%02d", hour, minute);
-    }
 }
@@ -0,0 +1,248 @@
+package com.example.manager.timetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Finds sessions that need the same lecturer, resource or course at overlapping times.
+ *
+ * Times are compared in minutes since midnight, so sessions that don't start on the hour or
+ * that last several hours are handled like any other. Each session becomes one long key
+ * (owner index, then day and start minute, then its position), the keys are sorted, and a
+ * sweep over each owner's sessions keeps the ones that haven't ended yet. That is
+ * O(n log n) plus the number of conflicts found, instead of expanding every session hour by
+ * hour into maps.
+ *
+ * Sessions without an owner ID, a known day or a readable start time are ignored. A session
+ * whose end time is missing or not after its start is taken to last one hour.
+ */
+public class ConflictDetector {
+    public static final Function<TimetableSession, String> BY_LECTURER = TimetableSession::getLecturerId;
+    public static final Function<TimetableSession, String> BY_RESOURCE = TimetableSession::getResourceId;
+    public static final Function<TimetableSession, String> BY_COURSE = TimetableSession::getCourseId;
+
+    private static final int DEFAULT_LENGTH_MINUTES = 60;
+
+    // Key layout: owner index | minute of the week | position in the list
+    private static final int ROW_BITS = 24;
+    private static final int TIME_BITS = 14;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    /**
+     * Two sessions of the same owner that overlap.
+     */
+    public static class Conflict {
+        private final String ownerId;
+        private final int firstIndex;
+        private final int secondIndex;
+        private final TimetableSession first;
+        private final TimetableSession second;
+        private final int day;
+        private final int startMinute;
+        private final int endMinute;
+
+        Conflict(String ownerId, int firstIndex, int secondIndex, TimetableSession first, TimetableSession second,
+                 int day, int startMinute, int endMinute) {
+            this.ownerId = ownerId;
+            this.firstIndex = firstIndex;
+            this.secondIndex = secondIndex;
+            this.first = first;
+            this.second = second;
+            this.day = day;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        /**
+         * Gets the ID of the lecturer, resource or course both sessions need.
+         */
+        public String getOwnerId() {
+            return ownerId;
+        }
+
+        /**
+         * Gets the position in the checked list of the session that starts first.
+         */
+        public int getFirstIndex() {
+            return firstIndex;
+        }
+
+        /**
+         * Gets the position in the checked list of the session that starts second.
+         */
+        public int getSecondIndex() {
+            return secondIndex;
+        }
+
+        public TimetableSession getFirst() {
+            return first;
+        }
+
+        public TimetableSession getSecond() {
+            return second;
+        }
+
+        /**
+         * Gets the day index of the overlap, Monday being 0.
+         */
+        public int getDay() {
+            return day;
+        }
+
+        /**
+         * Gets the start of the overlap in minutes since midnight.
+         */
+        public int getStartMinute() {
+            return startMinute;
+        }
+
+        /**
+         * Gets the end of the overlap in minutes since midnight.
+         */
+        public int getEndMinute() {
+            return endMinute;
+        }
+
+        /**
+         * Formats the start of the overlap like the generators do, e.g. "09:00".
+         */
+        public String getStartTime() {
+            return String.format("%02d:%02d", startMinute / 60, startMinute % 60);
+        }
+
+        @Override
+        public String toString() {
+            return ownerId + " on " + TimetableSymbols.dayName(day) + " at " + getStartTime() + ": " +
+                    first.getCourseName() + " (" + first.getStartTime() + "-" + first.getEndTime() + ") and " +
+                    second.getCourseName() + " (" + second.getStartTime() + "-" + second.getEndTime() + ")";
+        }
+    }
+
+    /**
+     * Finds every pair of sessions that need the same owner at overlapping times.
+     *
+     * @param sessions The sessions to check
+     * @param owner Gives the ID a session can't share, e.g. {@link #BY_LECTURER}
+     * @return The conflicts, grouped by owner and ordered by time within each owner
+     */
+    public static List<Conflict> findConflicts(List<TimetableSession> sessions,
+                                               Function<TimetableSession, String> owner) {
+        List<Conflict> conflicts = new ArrayList<>();
+        sweep(sessions, owner, conflicts);
+        return conflicts;
+    }
+
+    /**
+     * Checks whether any two sessions need the same owner at overlapping times, stopping at
+     * the first conflict.
+     */
+    public static boolean hasConflict(List<TimetableSession> sessions, Function<TimetableSession, String> owner) {
+        return sweep(sessions, owner, null);
+    }
+
+    /**
+     * Checks whether two sessions are on the same day at overlapping times.
+     */
+    public static boolean overlaps(TimetableSession a, TimetableSession b) {
+        int day = TimetableSymbols.dayIndex(a.getDayOfWeek());
+        if (day < 0 || day != TimetableSymbols.dayIndex(b.getDayOfWeek())) {
+            return false;
+        }
+        int startA = TimetableSymbols.minuteOfDay(a.getStartTime());
+        int startB = TimetableSymbols.minuteOfDay(b.getStartTime());
+        if (startA < 0 || startB < 0) {
+            return false;
+        }
+        return startA < endMinute(b, startB) && startB < endMinute(a, startA);
+    }
+
+    /**
+     * Sweeps the sessions, adding conflicts to the list, or stopping at the first one if the
+     * list is null.
+     *
+     * @return true if a conflict was found
+     */
+    private static boolean sweep(List<TimetableSession> sessions, Function<TimetableSession, String> owner,
+                                 List<Conflict> conflicts) {
+        if (sessions == null || sessions.isEmpty()) {
+            return false;
+        }
+        int n = sessions.size();
+        if (n > ROW_MASK) {
+            throw new IllegalArgumentException("Too many sessions to check for conflicts: " + n);
+        }
+
+        IdDictionary owners = new IdDictionary();
+        long[] keys = new long[n];
+        int[] ends = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            TimetableSession session = sessions.get(i);
+            String ownerId = session != null ? owner.apply(session) : null;
+            if (ownerId == null || ownerId.isEmpty()) {
+                continue;
+            }
+            int day = TimetableSymbols.dayIndex(session.getDayOfWeek());
+            int start = TimetableSymbols.minuteOfDay(session.getStartTime());
+            if (day < 0 || start < 0) {
+                continue;
+            }
+            int weekMinute = day * TimetableSymbols.MINUTES_PER_DAY;
+            ends[i] = weekMinute + endMinute(session, start);
+            keys[count++] = ((long) owners.intern(ownerId) << (TIME_BITS + ROW_BITS)) |
+                    ((long) (weekMinute + start) << ROW_BITS) | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        // Sessions of the current owner that started earlier, some of which may still be running
+        int[] active = new int[8];
+        int activeCount = 0;
+        long currentOwner = -1;
+        boolean found = false;
+        for (int k = 0; k < count; k++) {
+            long key = keys[k];
+            long ownerIndex = key >>> (TIME_BITS + ROW_BITS);
+            int start = (int) ((key >>> ROW_BITS) & TIME_MASK);
+            int row = (int) (key & ROW_MASK);
+            if (ownerIndex != currentOwner) {
+                currentOwner = ownerIndex;
+                activeCount = 0;
+            }
+
+            int running = 0;
+            for (int a = 0; a < activeCount; a++) {
+                if (ends[active[a]] > start) {
+                    active[running++] = active[a];
+                }
+            }
+            activeCount = running;
+
+            for (int a = 0; a < activeCount; a++) {
+                if (conflicts == null) {
+                    return true;
+                }
+                found = true;
+                int other = active[a];
+                int day = start / TimetableSymbols.MINUTES_PER_DAY;
+                int dayStart = day * TimetableSymbols.MINUTES_PER_DAY;
+                conflicts.add(new Conflict(owners.idAt((int) ownerIndex), other, row,
+                        sessions.get(other), sessions.get(row), day,
+                        start - dayStart, Math.min(ends[other], ends[row]) - dayStart));
+            }
+
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = row;
+        }
+        return found;
+    }
+
+    private static int endMinute(TimetableSession session, int start) {
+        int end = TimetableSymbols.minuteOfDay(session.getEndTime());
+        return end > start ? end : Math.min(start + DEFAULT_LENGTH_MINUTES, TimetableSymbols.MINUTES_PER_DAY);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.manager.timetable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects where the time of one generation run goes, so runs can be compared across terms:
+ * fetch time per Firebase path, run phases (load, generate, validate, save), and per department
+ * the model size and solver statistics.
+ *
+ * Values are recorded under a scope, normally a department, and grouped, e.g. "model" or
+ * "solver". Generators find the registry and their scope in the options
+ * ({@link TimetableGeneratorOptions#setMetrics}) and record nothing if there is none.
+ * All methods are synchronized, so departments generated concurrently can share one registry.
+ *
+ * {@link #toJson()} exports a run as:
+ * <pre>
+ * {"runId": "...", "startedAt": 1700000000000, "totalMs": 5230,
+ *  "attributes": {"solver": "CHOCO", ...},
+ *  "fetches": {"resources": {"count": 3, "totalMs": 410, "maxMs": 380}, ...},
+ *  "phases": {"load": 450, "generate": 4100, "validate": 35, "save": 620},
+ *  "values": {"memory": {"peakUsedMb": 96}},
+ *  "scopes": {"Computer Science": {"phases": {"modelBuild": 120, "solve": 2900},
+ *                                  "values": {"model": {"variables": 412, ...},
+ *                                             "solver": {"nodes": 1840, ...}}}, ...}}
+ * </pre>
+ */
+public class GenerationMetrics {
+    private final String runId;
+    private final long startedAt;
+    private long totalMs = -1;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private final Map<String, long[]> fetches = new TreeMap<>(); // count, total, max
+    private final Scope run = new Scope();
+    private final Map<String, Scope> scopes = new TreeMap<>();
+
+    /**
+     * Phases and grouped values recorded for the run or one department.
+     */
+    private static class Scope {
+        final Map<String, Long> phases = new LinkedHashMap<>();
+        final Map<String, Map<String, Object>> values = new LinkedHashMap<>();
+    }
+
+    public GenerationMetrics(String runId) {
+        this.runId = runId;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * Records a setting of the run, e.g. the solver type or number of departments.
+     */
+    public synchronized void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    /**
+     * Records one fetch of a database path. Fetches of the same path are summed.
+     */
+    public synchronized void recordFetch(String path, long millis) {
+        long[] stats = fetches.computeIfAbsent(path, p -> new long[3]);
+        stats[0]++;
+        stats[1] += millis;
+        stats[2] = Math.max(stats[2], millis);
+    }
+
+    /**
+     * Records the duration of a phase of the whole run. Repeated phases are summed.
+     */
+    public synchronized void recordPhase(String phase, long millis) {
+        run.phases.merge(phase, millis, Long::sum);
+    }
+
+    /**
+     * Records the duration of a phase of one scope, e.g. the model build of a department.
+     *
+     * @param scope The department, or null for the whole run
+     */
+    public synchronized void recordPhase(String scope, String phase, long millis) {
+        scope(scope).phases.merge(phase, millis, Long::sum);
+    }
+
+    /**
+     * Sets a value of a scope, e.g. ("Computer Science", "solver", "nodes", 1840).
+     *
+     * @param scope The department, or null for the whole run
+     * @param value A Number, String or Boolean
+     */
+    public synchronized void set(String scope, String group, String name, Object value) {
+        scope(scope).values.computeIfAbsent(group, g -> new LinkedHashMap<>()).put(name, value);
+    }
+
+    /**
+     * Keeps the highest value seen for a value of the whole run, e.g. peak memory.
+     */
+    public synchronized void recordMax(String group, String name, long value) {
+        Map<String, Object> values = run.values.computeIfAbsent(group, g -> new LinkedHashMap<>());
+        Object current = values.get(name);
+        if (!(current instanceof Number) || ((Number) current).longValue() < value) {
+            values.put(name, value);
+        }
+    }
+
+    /**
+     * Marks the run as finished, fixing its total time.
+     */
+    public synchronized void finish() {
+        totalMs = System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * Exports the run as a JSON object; see the class documentation for the layout.
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        appendKey(json, "runId").append(quote(runId)).append(',');
+        appendKey(json, "startedAt").append(startedAt).append(',');
+        appendKey(json, "totalMs").append(totalMs >= 0 ? totalMs : System.currentTimeMillis() - startedAt).append(',');
+        appendKey(json, "attributes");
+        appendValues(json, attributes);
+        json.append(',');
+        appendKey(json, "fetches").append('{');
+        boolean first = true;
+        for (Map.Entry<String, long[]> fetch : fetches.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            long[] stats = fetch.getValue();
+            appendKey(json, fetch.getKey()).append("{\"count\":").append(stats[0])
+                    .append(",\"totalMs\":").append(stats[1])
+                    .append(",\"maxMs\":").append(stats[2]).append('}');
+        }
+        json.append("},");
+        appendScopeContents(json, run);
+        json.append(',');
+        appendKey(json, "scopes").append('{');
+        first = true;
+        for (Map.Entry<String, Scope> scope : scopes.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendKey(json, scope.getKey()).append('{');
+            appendScopeContents(json, scope.getValue());
+            json.append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private Scope scope(String scope) {
+        return scope == null ? run : scopes.computeIfAbsent(scope, s -> new Scope());
+    }
+
+    private static void appendScopeContents(StringBuilder json, Scope scope) {
+        appendKey(json, "phases");
+        appendValues(json, scope.phases);
+        json.append(',');
+        appendKey(json, "values").append('{');
+        boolean first = true;
+        for (Map.Entry<String, Map<String, Object>> group : scope.values.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendKey(json, group.getKey());
+            appendValues(json, group.getValue());
+        }
+        json.append('}');
+    }
+
+    private static void appendValues(StringBuilder json, Map<String, ?> values) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendKey(json, value.getKey()).append(toJsonValue(value.getValue()));
+        }
+        json.append('}');
+    }
+
+    private static StringBuilder appendKey(StringBuilder json, String key) {
+        return json.append(quote(key)).append(':');
+    }
+
+    private static String toJsonValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            // JSON has no NaN or infinity
+            return Double.isNaN(number) || Double.isInfinite(number) ? "null" : String.valueOf(number);
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return quote(value.toString());
+    }
+
+    private static String quote(String text) {
+        if (text == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
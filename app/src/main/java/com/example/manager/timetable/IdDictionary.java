@@ -0,0 +1,82 @@
+package com.example.manager.timetable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps string IDs (Firebase keys, day names) to dense int indices 0, 1, 2, ... in the order
+ * they are first seen, and back.
+ *
+ * Interning each ID once lets the engine keep its working data in int arrays and bitsets
+ * indexed by position instead of hashing and comparing strings in every loop. Looking up an
+ * index, an ID or the size takes no lock; adding a new ID is synchronized so a dictionary can
+ * be shared between threads.
+ */
+public class IdDictionary {
+    private final Map<String, Integer> indices = new ConcurrentHashMap<>();
+    // Only written under the lock; an ID is stored before size is raised past its index,
+    // so a reader that reads size first sees every ID below it
+    private volatile String[] ids = new String[16];
+    private volatile int size;
+
+    /**
+     * Returns the index of an ID, adding it if it hasn't been seen before.
+     *
+     * @param id The ID to intern; null is not allowed
+     * @return The ID's index
+     */
+    public int intern(String id) {
+        Integer index = indices.get(id);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indices.get(id);
+            if (index == null) {
+                index = size;
+                String[] current = ids;
+                if (index == current.length) {
+                    current = Arrays.copyOf(current, index * 2);
+                }
+                current[index] = id;
+                ids = current;
+                size = index + 1;
+                indices.put(id, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the index of an ID without adding it.
+     *
+     * @return The ID's index, or -1 if it is null or unknown
+     */
+    public int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        Integer index = indices.get(id);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the ID at an index.
+     *
+     * @throws IndexOutOfBoundsException if no ID has that index
+     */
+    public String idAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No ID at index " + index + ", size " + size);
+        }
+        return ids[index];
+    }
+
+    /**
+     * Returns the number of interned IDs; every index is below it.
+     */
+    public int size() {
+        return size;
+    }
+}
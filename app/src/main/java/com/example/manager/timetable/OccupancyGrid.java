@@ -0,0 +1,325 @@
+package com.example.manager.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Packed weekly occupancy for a set of schedulable entities (rooms, lecturers, ...).
+ *
+ * Every entity owns one {@code long} per day whose bits represent the time slots of that
+ * day: bit {@code slot} of word {@code entity * days + day}. A set bit means the entity is
+ * busy in that slot. A transposed view (slot -> bitset of entities) is kept alongside so
+ * that "which entity is free at this slot" is also a word-wide operation.
+ *
+ * Slot searches therefore reduce to AND/NOT over words followed by
+ * {@link Long#numberOfTrailingZeros(long)} instead of walking entities slot by slot. A day
+ * can have up to 64 slots, e.g. 16 hours in 15-minute slots; the number of days is not limited.
+ */
+public class OccupancyGrid {
+    private final int entityCount;
+    private final int days;
+    private final int slotsPerDay;
+    private final long dayMask;
+    private final int entityWords;
+
+    // entity * days + day -> busy slots of the day
+    private final long[] busy;
+    // entity * days + day -> busy slots that were blocked rather than booked
+    private final long[] blocked;
+    // day * slotsPerDay + slot -> bitset of busy entities
+    private final long[][] occupants;
+    // day * slotsPerDay + slot -> number of busy entities
+    private final int[] occupantCounts;
+    // day -> slots where every entity is busy
+    private final long[] saturated;
+
+    /**
+     * Creates an empty grid where every entity is free in every slot.
+     *
+     * @param entityCount Number of entities tracked by the grid
+     * @param days Number of teaching days in the week
+     * @param slotsPerDay Number of slots in each day
+     * @throws IllegalArgumentException if a day does not fit in 64 slots
+     */
+    public OccupancyGrid(int entityCount, int days, int slotsPerDay) {
+        if (entityCount < 0 || days <= 0 || slotsPerDay <= 0) {
+            throw new IllegalArgumentException("Invalid grid dimensions: " + entityCount + " x "
+                    + days + " x " + slotsPerDay);
+        }
+        if (slotsPerDay > Long.SIZE) {
+            throw new IllegalArgumentException("A day of " + slotsPerDay
+                    + " slots does not fit in a single word");
+        }
+        this.entityCount = entityCount;
+        this.days = days;
+        this.slotsPerDay = slotsPerDay;
+        this.dayMask = slotsPerDay == Long.SIZE ? -1L : (1L << slotsPerDay) - 1;
+        this.entityWords = (entityCount + 63) >>> 6;
+        this.busy = new long[entityCount * days];
+        this.blocked = new long[entityCount * days];
+        this.occupants = new long[days * slotsPerDay][entityWords];
+        this.occupantCounts = new int[days * slotsPerDay];
+        this.saturated = new long[days];
+        if (entityCount == 0) {
+            Arrays.fill(saturated, dayMask);
+        }
+    }
+
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int getSlotsPerDay() {
+        return slotsPerDay;
+    }
+
+    /**
+     * Returns a mask with every slot of a day set.
+     */
+    public long dayMask() {
+        return dayMask;
+    }
+
+    /**
+     * Returns a mask covering {@code length} consecutive slots starting at {@code slot}.
+     */
+    public long rangeMask(int slot, int length) {
+        long run = length >= Long.SIZE ? -1L : (1L << length) - 1;
+        return (run << slot) & dayMask;
+    }
+
+    /**
+     * Checks whether an entity is free in a single slot.
+     */
+    public boolean isFree(int entity, int day, int slot) {
+        return (busy[word(entity, day)] & (1L << slot)) == 0;
+    }
+
+    /**
+     * Checks whether an entity is free for {@code length} consecutive slots.
+     * Ranges that run past the end of the day are never free.
+     */
+    public boolean isFree(int entity, int day, int slot, int length) {
+        if (slot < 0 || slot + length > slotsPerDay) {
+            return false;
+        }
+        return (busy[word(entity, day)] & rangeMask(slot, length)) == 0;
+    }
+
+    /**
+     * Marks an entity busy in a single slot.
+     */
+    public void occupy(int entity, int day, int slot) {
+        occupy(entity, day, slot, 1);
+    }
+
+    /**
+     * Marks an entity busy for {@code length} consecutive slots. Slots outside the day are ignored.
+     */
+    public void occupy(int entity, int day, int slot, int length) {
+        int from = Math.max(0, slot);
+        int to = Math.min(slotsPerDay, slot + length);
+        int word = word(entity, day);
+        if (from < to) {
+            blocked[word] &= ~rangeMask(from, to - from);
+        }
+        for (int s = from; s < to; s++) {
+            long flag = 1L << s;
+            if ((busy[word] & flag) != 0) {
+                continue;
+            }
+            busy[word] |= flag;
+            int cell = day * slotsPerDay + s;
+            occupants[cell][entity >>> 6] |= 1L << entity;
+            if (++occupantCounts[cell] == entityCount) {
+                saturated[day] |= flag;
+            }
+        }
+    }
+
+    /**
+     * Marks an entity unavailable for {@code length} consecutive slots without booking it:
+     * the slots are busy for every search, but not counted by {@link #busyCount}.
+     */
+    public void block(int entity, int day, int slot, int length) {
+        int from = Math.max(0, slot);
+        int to = Math.min(slotsPerDay, slot + length);
+        if (from >= to) {
+            return;
+        }
+        int word = word(entity, day);
+        long newlyBusy = rangeMask(from, to - from) & ~busy[word];
+        occupy(entity, day, from, to - from);
+        blocked[word] |= newlyBusy;
+    }
+
+    /**
+     * Marks an entity free again for {@code length} consecutive slots.
+     */
+    public void release(int entity, int day, int slot, int length) {
+        int from = Math.max(0, slot);
+        int to = Math.min(slotsPerDay, slot + length);
+        int word = word(entity, day);
+        if (from < to) {
+            blocked[word] &= ~rangeMask(from, to - from);
+        }
+        for (int s = from; s < to; s++) {
+            long flag = 1L << s;
+            if ((busy[word] & flag) == 0) {
+                continue;
+            }
+            busy[word] &= ~flag;
+            int cell = day * slotsPerDay + s;
+            occupants[cell][entity >>> 6] &= ~(1L << entity);
+            occupantCounts[cell]--;
+            saturated[day] &= ~flag;
+        }
+    }
+
+    /**
+     * Returns the slots of a day in which the entity is free.
+     */
+    public long freeMask(int entity, int day) {
+        return ~busy[word(entity, day)] & dayMask;
+    }
+
+    /**
+     * Returns the slots of a day in which at least one entity is free.
+     */
+    public long anyFreeMask(int day) {
+        return ~saturated[day] & dayMask;
+    }
+
+    /**
+     * Returns the number of booked slots the entity has on the given day; blocked slots
+     * don't count.
+     */
+    public int busyCount(int entity, int day) {
+        int word = word(entity, day);
+        return Long.bitCount(busy[word] & ~blocked[word]);
+    }
+
+    /**
+     * Returns the slots of a day at which the entity is free for {@code length} consecutive slots.
+     */
+    public long freeStarts(int entity, int day, int length) {
+        return runStarts(freeMask(entity, day), length);
+    }
+
+    /**
+     * Returns the slots of a day at which a run of {@code length} slots is free and would not
+     * sit directly before or after one of the entity's busy slots, i.e. would not create a
+     * back-to-back booking.
+     */
+    public long isolatedFreeStarts(int entity, int day, int length) {
+        long taken = busy[word(entity, day)];
+        // A run starting at s touches slot s - 1 before it and slot s + length after it
+        long adjacent = (taken << 1) | (taken >>> length);
+        return freeStarts(entity, day, length) & ~adjacent;
+    }
+
+    /**
+     * Returns the slots of a day at which at least one entity is free for {@code length}
+     * consecutive slots.
+     */
+    public long anyFreeStarts(int day, int length) {
+        if (length == 1) {
+            return anyFreeMask(day);
+        }
+        long starts = 0L;
+        for (int entity = 0; entity < entityCount; entity++) {
+            starts |= freeStarts(entity, day, length);
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the first entity that is free at the given slot, or -1 if all are busy.
+     */
+    public int firstFreeEntity(int day, int slot) {
+        return firstFreeEntity(day, slot, 1);
+    }
+
+    /**
+     * Returns the first entity that is free for {@code length} consecutive slots, or -1 if
+     * there is none.
+     */
+    public int firstFreeEntity(int day, int slot, int length) {
+        if (slot < 0 || slot + length > slotsPerDay) {
+            return -1;
+        }
+        int base = day * slotsPerDay + slot;
+        for (int w = 0; w < entityWords; w++) {
+            long free = -1L;
+            for (int s = 0; s < length; s++) {
+                free &= ~occupants[base + s][w];
+            }
+            if (w == entityWords - 1 && (entityCount & 63) != 0) {
+                free &= (1L << (entityCount & 63)) - 1;
+            }
+            if (free != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slots of a day in which at least one of the candidates is free.
+     */
+    public long anyFreeMask(long[] candidates, int day) {
+        long mask = 0L;
+        for (int w = 0; w < entityWords; w++) {
+            long bits = candidates[w];
+            while (bits != 0) {
+                int entity = (w << 6) + Long.numberOfTrailingZeros(bits);
+                mask |= ~busy[word(entity, day)];
+                bits &= bits - 1;
+            }
+        }
+        return mask & dayMask;
+    }
+
+    /**
+     * Creates an empty entity bitset sized for this grid.
+     */
+    public long[] newEntitySet() {
+        return new long[entityWords];
+    }
+
+    /**
+     * Adds an entity to a bitset created with {@link #newEntitySet()}.
+     */
+    public static void addToSet(long[] set, int entity) {
+        set[entity >>> 6] |= 1L << entity;
+    }
+
+    /**
+     * Returns the index of the n-th (0-based) set bit of {@code mask}, or -1 if there are fewer.
+     */
+    public static int nthSetBit(long mask, int n) {
+        for (int i = 0; i < n && mask != 0; i++) {
+            mask &= mask - 1;
+        }
+        return mask == 0 ? -1 : Long.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Returns the bits s of a day mask for which bits s .. s + length - 1 are all set.
+     */
+    private long runStarts(long mask, int length) {
+        long starts = mask;
+        for (int i = 1; i < length && starts != 0; i++) {
+            starts &= mask >>> i;
+        }
+        // Runs that would cross the end of the day
+        return length > slotsPerDay ? 0L : starts & rangeMask(0, slotsPerDay - length + 1);
+    }
+
+    private int word(int entity, int day) {
+        return entity * days + day;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.manager.timetable;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timetable generator that races several generators against each other: the simple greedy
+ * generator and the Choco generator with its default search and a few seeded searches.
+ *
+ * The first timetable that has no conflicts and places every required session wins, and the
+ * other generators are stopped through the options' cancellation flag. If none is complete
+ * when the deadline passes, the conflict-free timetable with the most sessions is returned.
+ * The time to a usable timetable is therefore that of the fastest generator for the input.
+ *
+ * The caller's cancellation flag stops the whole race: the portfolio checks it while waiting
+ * and passes it on to the generators through the race's own flag.
+ *
+ * The racing generators don't claim slots in the options' reservation ledger, since only the
+ * winner's timetable is kept; callers commit the returned timetable themselves.
+ */
+public class PortfolioTimetableGenerator implements TimetableGenerator {
+    private static final String TAG = "PortfolioGenerator";
+
+    // Time allowed for the whole race (in milliseconds)
+    private static final long DEFAULT_DEADLINE_MS = 30000;
+
+    // How often the race checks the caller's cancellation flag (in milliseconds)
+    private static final long CANCELLATION_POLL_MS = 100;
+
+    // Seeds for the extra Choco searches; 0 is Choco's default search
+    private static final long[] CHOCO_SEEDS = {0L, 7L, 31L, 127L};
+
+    private final long deadlineMs;
+    private final int chocoSearches;
+    private String lastWinner;
+
+    /**
+     * Creates a portfolio with the default deadline, running as many Choco searches as there
+     * are spare cores.
+     */
+    public PortfolioTimetableGenerator() {
+        this(DEFAULT_DEADLINE_MS, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Creates a portfolio.
+     *
+     * @param deadlineMs Time allowed for the whole race, in milliseconds
+     * @param chocoSearches Number of Choco searches to run next to the simple generator (at least 1)
+     */
+    public PortfolioTimetableGenerator(long deadlineMs, int chocoSearches) {
+        this.deadlineMs = deadlineMs;
+        this.chocoSearches = Math.max(1, Math.min(chocoSearches, CHOCO_SEEDS.length));
+    }
+
+    /**
+     * Gets the name of the generator whose timetable was returned by the last call, e.g.
+     * "SIMPLE" or "CHOCO(seed=7)".
+     */
+    public String getLastWinner() {
+        return lastWinner;
+    }
+
+    @Override
+    public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses) {
+        return generateTimetable(resources, lecturers, courses, new TimetableGeneratorOptions());
+    }
+
+    @Override
+    public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses,
+                                       TimetableGeneratorOptions options) {
+        return race(countRequiredSessions(courses), options,
+                (generator, entryOptions) -> generator.generateTimetable(resources, lecturers, courses, entryOptions));
+    }
+
+    @Override
+    public Timetable updateTimetable(Timetable previous, TimetableDelta delta, List<Resource> resources,
+                                     List<Lecturer> lecturers, List<Course> courses, TimetableGeneratorOptions options) {
+        return race(countRequiredSessions(delta.applyToCourses(courses)), options,
+                (generator, entryOptions) -> generator.updateTimetable(previous, delta, resources, lecturers,
+                        courses, entryOptions));
+    }
+
+    @Override
+    public boolean hasConflicts(Timetable timetable) {
+        return new SimpleTimetableGenerator().hasConflicts(timetable);
+    }
+
+    /**
+     * One way of running a generator, shared by generation and update.
+     */
+    private interface Run {
+        Timetable apply(TimetableGenerator generator, TimetableGeneratorOptions options);
+    }
+
+    private Timetable race(int requiredSessions, TimetableGeneratorOptions options, Run run) {
+        if (options == null) {
+            options = new TimetableGeneratorOptions();
+        }
+        long start = System.currentTimeMillis();
+        long deadline = start + deadlineMs;
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        // Build the entries: the simple generator first, then the Choco searches
+        List<String> names = new ArrayList<>();
+        List<TimetableGenerator> generators = new ArrayList<>();
+        List<TimetableGeneratorOptions> entryOptions = new ArrayList<>();
+        names.add(SolverType.SIMPLE.name());
+        generators.add(new SimpleTimetableGenerator());
+        entryOptions.add(createEntryOptions(options, cancelled, 0L, names.get(0)));
+        for (int i = 0; i < chocoSearches; i++) {
+            names.add(SolverType.CHOCO.name() + "(seed=" + CHOCO_SEEDS[i] + ")");
+            generators.add(new ChocoSolverTimetableGenerator());
+            entryOptions.add(createEntryOptions(options, cancelled, CHOCO_SEEDS[i], names.get(i + 1)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(generators.size());
+        CompletionService<Timetable> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Timetable>, String> namesByFuture = new HashMap<>();
+        List<String> failures = new ArrayList<>();
+        Timetable best = null;
+        String bestName = null;
+
+        try {
+            for (int i = 0; i < generators.size(); i++) {
+                TimetableGenerator generator = generators.get(i);
+                TimetableGeneratorOptions generatorOptions = entryOptions.get(i);
+                namesByFuture.put(completion.submit(() -> run.apply(generator, generatorOptions)), names.get(i));
+            }
+
+            for (int finished = 0; finished < generators.size(); finished++) {
+                Future<Timetable> future = null;
+                long remaining = deadline - System.currentTimeMillis();
+                while (future == null && remaining > 0) {
+                    if (options.isCancelled()) {
+                        throw new CancellationException("Portfolio race was cancelled");
+                    }
+                    future = completion.poll(Math.min(remaining, CANCELLATION_POLL_MS), TimeUnit.MILLISECONDS);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                if (future == null) {
+                    TimetableLog.w(TAG, "Deadline of " + deadlineMs + "ms reached with " +
+                            (generators.size() - finished) + " generators still running");
+                    break;
+                }
+
+                String name = namesByFuture.get(future);
+                Timetable timetable;
+                try {
+                    timetable = future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    TimetableLog.w(TAG, name + " failed: " + cause.getMessage());
+                    failures.add(name + ": " + cause.getMessage());
+                    continue;
+                }
+
+                if (timetable == null || timetable.getSessions() == null || hasConflicts(timetable)) {
+                    TimetableLog.d(TAG, () -> name + " returned no usable timetable");
+                    failures.add(name + " returned no usable timetable");
+                    continue;
+                }
+
+                int sessions = timetable.getSessions().size();
+                TimetableLog.d(TAG, () -> name + " finished after " + (System.currentTimeMillis() - start) +
+                        "ms with " + sessions + "/" + requiredSessions + " sessions");
+                if (best == null || sessions > best.getSessions().size()) {
+                    best = timetable;
+                    bestName = name;
+                }
+                if (sessions >= requiredSessions) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Stop the losers; they check the flag between steps
+            cancelled.set(true);
+            executor.shutdownNow();
+        }
+
+        if (best == null) {
+            StringBuilder errorMsg = new StringBuilder("None of the solvers produced a conflict-free timetable within ")
+                    .append(deadlineMs / 1000).append(" seconds.");
+            for (String failure : failures) {
+                errorMsg.append("\n• ").append(failure);
+            }
+            throw new RuntimeException(errorMsg.toString());
+        }
+
+        lastWinner = bestName;
+        if (options.getMetrics() != null) {
+            options.getMetrics().set(options.getMetricsScope(), "portfolio", "winner", bestName);
+        }
+        TimetableLog.i(TAG, "Portfolio picked " + bestName + " after " + (System.currentTimeMillis() - start) +
+                "ms (" + best.getSessions().size() + "/" + requiredSessions + " sessions)");
+        return best;
+    }
+
+    private TimetableGeneratorOptions createEntryOptions(TimetableGeneratorOptions options, AtomicBoolean cancelled,
+                                                         long seed, String name) {
+        TimetableGeneratorOptions entryOptions = new TimetableGeneratorOptions(options);
+        // Each entry records its own solver statistics next to the others
+        if (options.getMetrics() != null) {
+            String scope = options.getMetricsScope();
+            entryOptions.setMetrics(options.getMetrics(), scope != null ? scope + "/" + name : name);
+        }
+        entryOptions.setReservationLedger(null, null);
+        entryOptions.setCancellationFlag(cancelled);
+        entryOptions.setSearchSeed(seed);
+        // The simple generator already races as an entry of its own
+        entryOptions.setWarmStart(false);
+        // The first complete timetable wins the race, so there is nothing to improve
+        entryOptions.setLnsTimeLimitMs(0);
+        entryOptions.setTimeLimitMs(options.getTimeLimitMs() > 0
+                ? Math.min(options.getTimeLimitMs(), deadlineMs) : deadlineMs);
+        return entryOptions;
+    }
+
+    /**
+     * Counts the sessions a complete timetable has, using the same rules as the generators:
+     * numberOfLectures, else requiredSessionsPerWeek, else 1, plus the lab sessions.
+     */
+    private static int countRequiredSessions(List<Course> courses) {
+        int total = 0;
+        for (Course course : courses) {
+            int sessions;
+            if (course.getNumberOfLectures() > 0) {
+                sessions = course.getNumberOfLectures();
+            } else if (course.getRequiredSessionsPerWeek() > 0) {
+                sessions = course.getRequiredSessionsPerWeek();
+            } else {
+                sessions = 1;
+            }
+            total += sessions + Math.max(0, course.getNumberOfLabs());
+        }
+        return total;
+    }
+}
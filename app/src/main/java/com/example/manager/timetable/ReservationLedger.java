@@ -0,0 +1,264 @@
+package com.example.manager.timetable;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared record of the rooms and lecturers claimed by departments generated at the same time.
+ * Each time cell is claimed with a CAS, and a claim is all-or-nothing for its whole session set.
+ */
+public class ReservationLedger {
+    private static final String TAG = "ReservationLedger";
+    private static final int RESOURCE = 0;
+    private static final int LECTURER = 1;
+
+    // cell key -> department holding it
+    private final Map<Long, String> claims = new ConcurrentHashMap<>();
+    private final IdDictionary resourceIds = new IdDictionary();
+    private final IdDictionary lecturerIds = new IdDictionary();
+    // department -> sessions it committed
+    private final Map<String, List<TimetableSession>> committedSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger rejectedClaims = new AtomicInteger();
+    private final int cellMinutes;
+
+    /**
+     * Creates a ledger with one-hour cells.
+     */
+    public ReservationLedger() {
+        this(SlotCalendar.DEFAULT_SLOT_MINUTES);
+    }
+
+    /**
+     * Creates a ledger whose cells are as long as the generators' time slots.
+     *
+     * @param cellMinutes Length of a cell in minutes
+     */
+    public ReservationLedger(int cellMinutes) {
+        if (cellMinutes <= 0) {
+            throw new IllegalArgumentException("Invalid cell length: " + cellMinutes);
+        }
+        this.cellMinutes = cellMinutes;
+    }
+
+    /**
+     * Claims a room and a lecturer for a booking.
+     *
+     * @param owner Department making the claim
+     * @param resourceId Room to claim, or null to claim only the lecturer
+     * @param lecturerId Lecturer to claim, or null to claim only the room
+     * @param day Day of the week, e.g. "Monday"
+     * @param startMinute Start of the booking in minutes since midnight, e.g. 540 for 9:00
+     * @param minutes Length of the booking in minutes
+     * @return true if every cell is now held by {@code owner}, false if another department holds one
+     */
+    public boolean tryReserve(String owner, String resourceId, String lecturerId, String day, int startMinute, int minutes) {
+        List<Long> taken = new ArrayList<>();
+        if (claimRange(owner, resourceId, lecturerId, day, startMinute, minutes, taken)) {
+            return true;
+        }
+        rollback(owner, taken);
+        rejectedClaims.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Releases a booking made with {@link #tryReserve}. Cells held by other departments are left alone.
+     */
+    public void release(String owner, String resourceId, String lecturerId, String day, int startMinute, int minutes) {
+        for (int cell = firstCell(startMinute); cell < endCell(startMinute, minutes); cell++) {
+            if (resourceId != null && !resourceId.isEmpty()) {
+                claims.remove(resourceKey(resourceId, day, cell), owner);
+            }
+            if (lecturerId != null && !lecturerId.isEmpty()) {
+                claims.remove(lecturerKey(lecturerId, day, cell), owner);
+            }
+        }
+    }
+
+    /**
+     * Claims every room and lecturer cell used by a department's timetable and records the sessions
+     * so that departments generated afterwards can avoid them.
+     *
+     * @return true if the whole timetable is now held by {@code owner}; false if any cell belongs to
+     *         another department, in which case nothing new is claimed
+     */
+    public boolean tryCommit(String owner, List<TimetableSession> sessions) {
+        List<Long> taken = new ArrayList<>();
+        for (TimetableSession session : sessions) {
+            int startMinute = TimetableSymbols.minuteOfDay(session.getStartTime());
+            int endMinute = TimetableSymbols.minuteOfDay(session.getEndTime());
+            if (TimetableSymbols.dayIndex(session.getDayOfWeek()) < 0 || startMinute < 0) {
+                TimetableLog.w(TAG, "Skipping session with invalid time: " + session.getDayOfWeek() + " " + session.getStartTime());
+                continue;
+            }
+            int minutes = endMinute > startMinute ? endMinute - startMinute : SlotCalendar.DEFAULT_SLOT_MINUTES;
+            if (!claimRange(owner, session.getResourceId(), session.getLecturerId(),
+                    session.getDayOfWeek(), startMinute, minutes, taken)) {
+                TimetableLog.d(TAG, () -> owner + " lost " + session.getDayOfWeek() + " " + session.getStartTime()
+                        + " for " + session.getCourseName() + " to another department");
+                rollback(owner, taken);
+                rejectedClaims.incrementAndGet();
+                return false;
+            }
+        }
+        committedSessions.put(owner, new ArrayList<>(sessions));
+        return true;
+    }
+
+    /**
+     * Drops every claim and committed session of a department, e.g. after its generation failed.
+     */
+    public void releaseAll(String owner) {
+        claims.values().removeIf(owner::equals);
+        committedSessions.remove(owner);
+    }
+
+    /**
+     * Checks whether every cell of a room booking is unclaimed or already held by {@code owner}.
+     */
+    public boolean isResourceFree(String owner, String resourceId, String day, int startMinute, int minutes) {
+        return isFree(owner, resourceIds.indexOf(resourceId), RESOURCE, day, startMinute, minutes);
+    }
+
+    /**
+     * Checks whether every cell of a lecturer booking is unclaimed or already held by {@code owner}.
+     */
+    public boolean isLecturerFree(String owner, String lecturerId, String day, int startMinute, int minutes) {
+        return isFree(owner, lecturerIds.indexOf(lecturerId), LECTURER, day, startMinute, minutes);
+    }
+
+    /**
+     * Returns the sessions committed by every department except {@code excludedOwner}.
+     */
+    public List<TimetableSession> getCommittedSessions(String excludedOwner) {
+        List<TimetableSession> sessions = new ArrayList<>();
+        for (Map.Entry<String, List<TimetableSession>> entry : committedSessions.entrySet()) {
+            if (!entry.getKey().equals(excludedOwner)) {
+                sessions.addAll(entry.getValue());
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Returns the cells claimed by departments that haven't committed a timetable yet, except
+     * {@code excludedOwner}, as one session per cell holding only its room or its lecturer.
+     * Committed departments are left out, since {@link #getCommittedSessions} covers them.
+     */
+    public List<TimetableSession> getPendingClaims(String excludedOwner) {
+        List<TimetableSession> sessions = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : claims.entrySet()) {
+            String holder = entry.getValue();
+            if (holder.equals(excludedOwner) || committedSessions.containsKey(holder)) {
+                continue;
+            }
+            long key = entry.getKey();
+            int dayIndex = (int) (key >>> 11) & 0x7;
+            if (dayIndex == 7) {
+                continue;
+            }
+            int index = (int) (key >>> 15);
+            int startMinute = (int) (key & 0x7FF) * cellMinutes;
+            TimetableSession session = new TimetableSession();
+            if (((key >>> 14) & 1) == RESOURCE) {
+                session.setResourceId(resourceIds.idAt(index));
+            } else {
+                session.setLecturerId(lecturerIds.idAt(index));
+            }
+            session.setDepartment(holder);
+            session.setDayOfWeek(TimetableSymbols.dayName(dayIndex));
+            session.setStartTime(formatTime(startMinute));
+            session.setEndTime(formatTime(startMinute + cellMinutes));
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * Returns how many claims were refused because another department held a cell.
+     */
+    public int getRejectedClaimCount() {
+        return rejectedClaims.get();
+    }
+
+    private boolean isFree(String owner, int index, int kind, String day, int startMinute, int minutes) {
+        if (index < 0) {
+            return true;
+        }
+        for (int cell = firstCell(startMinute); cell < endCell(startMinute, minutes); cell++) {
+            String holder = claims.get(cellKey(index, kind, day, cell));
+            if (holder != null && !holder.equals(owner)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean claimRange(String owner, String resourceId, String lecturerId, String day,
+                               int startMinute, int minutes, List<Long> taken) {
+        for (int cell = firstCell(startMinute); cell < endCell(startMinute, minutes); cell++) {
+            if (resourceId != null && !resourceId.isEmpty()
+                    && !claim(owner, resourceKey(resourceId, day, cell), taken)) {
+                return false;
+            }
+            if (lecturerId != null && !lecturerId.isEmpty()
+                    && !claim(owner, lecturerKey(lecturerId, day, cell), taken)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int firstCell(int startMinute) {
+        return startMinute / cellMinutes;
+    }
+
+    /**
+     * Returns the cell after the last one a booking touches; every booking covers at least one cell.
+     */
+    private int endCell(int startMinute, int minutes) {
+        return Math.max(firstCell(startMinute) + 1, (startMinute + minutes + cellMinutes - 1) / cellMinutes);
+    }
+
+    private boolean claim(String owner, long key, List<Long> taken) {
+        String holder = claims.putIfAbsent(key, owner);
+        if (holder == null) {
+            taken.add(key);
+            return true;
+        }
+        return holder.equals(owner);
+    }
+
+    private void rollback(String owner, List<Long> taken) {
+        for (Long key : taken) {
+            claims.remove(key, owner);
+        }
+        taken.clear();
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        return String.format("%d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private long resourceKey(String resourceId, String day, int cell) {
+        return cellKey(resourceIds.intern(resourceId), RESOURCE, day, cell);
+    }
+
+    private long lecturerKey(String lecturerId, String day, int cell) {
+        return cellKey(lecturerIds.intern(lecturerId), LECTURER, day, cell);
+    }
+
+    /**
+     * Packs a cell into a long: index | kind (1 bit) | day (3 bits) | cell of the day (11 bits,
+     * enough for one-minute cells). Unknown day names share day 7, so they can only cause extra
+     * conflicts, never hide one.
+     */
+    private static long cellKey(int index, int kind, String day, int cell) {
+        int dayIndex = TimetableSymbols.dayIndex(day);
+        return ((long) index << 15) | ((long) kind << 14) | ((long) (dayIndex >= 0 ? dayIndex : 7) << 11) | (cell & 0x7FF);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.manager.timetable;
+
+/**
+ * When the Choco solver abandons its search tree and starts again from the root, keeping
+ * what it learned about which variables fail (and, if enabled, the nogoods it recorded).
+ */
+public enum RestartPolicy {
+    /**
+     * Never restart
+     */
+    NONE,
+    
+    /**
+     * Restart after a number of fails following the Luby sequence (1, 1, 2, 1, 1, 2, 4, ...)
+     */
+    LUBY,
+    
+    /**
+     * Restart after a number of fails that grows geometrically
+     */
+    GEOMETRIC
+}
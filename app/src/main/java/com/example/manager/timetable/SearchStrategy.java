@@ -0,0 +1,28 @@
+package com.example.manager.timetable;
+
+/**
+ * Variable ordering of the Choco solver's search.
+ */
+public enum SearchStrategy {
+    /**
+     * Choco's default search, or seeded dom/wdeg if the options have a search seed
+     */
+    DEFAULT,
+    
+    /**
+     * Branches on the variable with the smallest domain relative to the weight of the
+     * constraints it failed in
+     */
+    DOM_WDEG,
+    
+    /**
+     * Branches on the variables whose domains were reduced most by recent propagation
+     */
+    ACTIVITY,
+    
+    /**
+     * Places the sessions with the scarcest rooms and busiest lecturers first, e.g. labs with
+     * a single compatible room, deciding room, lecturer, day and start slot of each in turn
+     */
+    MOST_CONSTRAINED
+}
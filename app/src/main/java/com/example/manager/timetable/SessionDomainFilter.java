@@ -0,0 +1,397 @@
+package com.example.manager.timetable;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Works out, before the Choco model is built, which rooms, lecturers and start slots each
+ * session can legally take, so its variables are created over those values only instead of
+ * every index and opening-hours constraint.
+ *
+ * A room is legal if it has the required type, is available, has seats and is the course's
+ * assigned room if it has one. A lecturer is legal if it is the course's assigned lecturer, or
+ * any lecturer given to the filter otherwise; the generators are given the department's
+ * lecturers from lecturer_departments, so those are the eligible ones. Rooms and lecturers
+ * that bookings of other departments leave no free start for are dropped, and a start slot is
+ * legal if it is open and at least one legal room and one legal lecturer are free for the
+ * whole session.
+ *
+ * Bookings are kept in {@link OccupancyGrid}s, so every check is a few word operations.
+ */
+public class SessionDomainFilter {
+    private static final String TAG = "SessionDomainFilter";
+
+    private final SlotCalendar calendar;
+    private final List<Resource> resources;
+    private final List<Lecturer> lecturers;
+    private final Map<String, Integer> resourceIndices = new HashMap<>();
+    private final Map<String, Integer> lecturerIndices = new HashMap<>();
+    private final OccupancyGrid resourceGrid;
+    private final OccupancyGrid lecturerGrid;
+
+    // Values removed from the full index ranges, over all filtered sessions
+    private int removedResources;
+    private int removedLecturers;
+    private int removedStarts;
+
+    /**
+     * The legal values of one session.
+     */
+    public static class Domains {
+        private final int[] resources;
+        private final int[] lecturers;
+        private final long[] startMasks; // Per day, bit s set if the session can start at slot s
+        // Per legal room or lecturer and day (i * days + d), the starts at which it is free
+        private final long[] resourceStartMasks;
+        private final long[] lecturerStartMasks;
+
+        Domains(int[] resources, int[] lecturers, long[] startMasks, long[] resourceStartMasks,
+                long[] lecturerStartMasks) {
+            this.resources = resources;
+            this.lecturers = lecturers;
+            this.startMasks = startMasks;
+            this.resourceStartMasks = resourceStartMasks;
+            this.lecturerStartMasks = lecturerStartMasks;
+        }
+
+        /**
+         * Gets the indices of the legal rooms.
+         */
+        public int[] getResources() {
+            return resources;
+        }
+
+        /**
+         * Gets the indices of the legal lecturers.
+         */
+        public int[] getLecturers() {
+            return lecturers;
+        }
+
+        /**
+         * Gets the days with at least one legal start slot.
+         */
+        public int[] getDays() {
+            List<Integer> days = new ArrayList<>();
+            for (int d = 0; d < startMasks.length; d++) {
+                if (startMasks[d] != 0) {
+                    days.add(d);
+                }
+            }
+            return days.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Gets the slots the session can start at on at least one day.
+         */
+        public int[] getStartSlots() {
+            return toSlots(unionMask());
+        }
+
+        /**
+         * Checks whether the legal start slots differ between days, in which case the day and
+         * start slot have to be constrained together, e.g. with {@link #getStartTuples()}.
+         */
+        public boolean startsDependOnDay() {
+            long union = unionMask();
+            for (long mask : startMasks) {
+                if (mask != 0 && mask != union) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets every legal (day, start slot) pair.
+         */
+        public int[][] getStartTuples() {
+            List<int[]> tuples = new ArrayList<>();
+            for (int d = 0; d < startMasks.length; d++) {
+                for (int slot : toSlots(startMasks[d])) {
+                    tuples.add(new int[]{d, slot});
+                }
+            }
+            return tuples.toArray(new int[0][]);
+        }
+
+        /**
+         * Checks whether bookings of other departments keep a legal room from some legal start,
+         * in which case the room has to be constrained together with the day and start slot,
+         * e.g. with {@link #getResourceTuples()}.
+         */
+        public boolean bookingsLimitResources() {
+            return isLimited(resourceStartMasks);
+        }
+
+        /**
+         * Gets every legal (day, start slot, room) triple.
+         */
+        public int[][] getResourceTuples() {
+            return toTuples(resources, resourceStartMasks);
+        }
+
+        /**
+         * Checks whether bookings of other departments keep a legal lecturer from some legal
+         * start; see {@link #bookingsLimitResources()}.
+         */
+        public boolean bookingsLimitLecturers() {
+            return isLimited(lecturerStartMasks);
+        }
+
+        /**
+         * Gets every legal (day, start slot, lecturer) triple.
+         */
+        public int[][] getLecturerTuples() {
+            return toTuples(lecturers, lecturerStartMasks);
+        }
+
+        /**
+         * Checks whether the session can be placed at all.
+         */
+        public boolean isEmpty() {
+            return resources.length == 0 || lecturers.length == 0 || unionMask() == 0;
+        }
+
+        private boolean isLimited(long[] valueStartMasks) {
+            int days = startMasks.length;
+            for (int i = 0; i < valueStartMasks.length; i++) {
+                if ((startMasks[i % days] & ~valueStartMasks[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int[][] toTuples(int[] values, long[] valueStartMasks) {
+            int days = startMasks.length;
+            List<int[]> tuples = new ArrayList<>();
+            for (int i = 0; i < values.length; i++) {
+                for (int d = 0; d < days; d++) {
+                    for (int slot : toSlots(startMasks[d] & valueStartMasks[i * days + d])) {
+                        tuples.add(new int[]{d, slot, values[i]});
+                    }
+                }
+            }
+            return tuples.toArray(new int[0][]);
+        }
+
+        private long unionMask() {
+            long union = 0L;
+            for (long mask : startMasks) {
+                union |= mask;
+            }
+            return union;
+        }
+
+        private int[] toSlots(long mask) {
+            int[] slots = new int[Long.bitCount(mask)];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * Creates a filter for sessions placed in the given rooms, by the given lecturers.
+     */
+    public SessionDomainFilter(SlotCalendar calendar, List<Resource> resources, List<Lecturer> lecturers) {
+        this.calendar = calendar;
+        this.resources = resources;
+        this.lecturers = lecturers;
+        for (int r = 0; r < resources.size(); r++) {
+            resourceIndices.put(resources.get(r).getId(), r);
+        }
+        for (int l = 0; l < lecturers.size(); l++) {
+            lecturerIndices.put(lecturers.get(l).getId(), l);
+        }
+        this.resourceGrid = new OccupancyGrid(resources.size(), calendar.getDays(), calendar.getSlotsPerDay());
+        this.lecturerGrid = new OccupancyGrid(lecturers.size(), calendar.getDays(), calendar.getSlotsPerDay());
+    }
+
+    /**
+     * Records a session another department already holds. Rooms and lecturers that aren't
+     * given to the filter are ignored.
+     *
+     * @param fromSlot First slot of the booking
+     * @param toSlot Slot after the last slot of the booking
+     */
+    public void addBooking(int day, int fromSlot, int toSlot, String resourceId, String lecturerId) {
+        Integer resource = resourceId != null ? resourceIndices.get(resourceId) : null;
+        if (resource != null) {
+            resourceGrid.occupy(resource, day, fromSlot, toSlot - fromSlot);
+        }
+        Integer lecturer = lecturerId != null ? lecturerIndices.get(lecturerId) : null;
+        if (lecturer != null) {
+            lecturerGrid.occupy(lecturer, day, fromSlot, toSlot - fromSlot);
+        }
+    }
+
+    /**
+     * Computes the legal values of a session of a course.
+     *
+     * @param slots Number of slots the session takes
+     * @param compatibleResources Indices of the rooms of the type the course requires
+     * @return The legal values; {@link Domains#isEmpty()} if the session can't be placed
+     */
+    public Domains filter(Course course, int slots, List<Integer> compatibleResources) {
+        int days = calendar.getDays();
+        long[] openStarts = new long[days];
+        for (int d = 0; d < days; d++) {
+            openStarts[d] = calendar.openStartMask(d, slots);
+        }
+
+        // Rooms: the assigned one, or the compatible ones that can be used at all
+        List<Integer> resourceCandidates = new ArrayList<>();
+        Integer assignedResource = isSet(course.getAssignedResourceId())
+                ? resourceIndices.get(course.getAssignedResourceId()) : null;
+        if (assignedResource != null) {
+            resourceCandidates.add(assignedResource);
+            TimetableLog.d(TAG, () -> "Course " + course.getName() + " constrained to resource " +
+                    resources.get(assignedResource).getName());
+        } else {
+            for (int r : compatibleResources) {
+                if (isUsable(resources.get(r))) {
+                    resourceCandidates.add(r);
+                }
+            }
+            if (resourceCandidates.isEmpty()) {
+                TimetableLog.w(TAG, "No available rooms with seats for course " + course.getName() +
+                        ", considering all compatible rooms");
+                resourceCandidates.addAll(compatibleResources);
+            }
+        }
+
+        // Lecturers: the assigned one, or any eligible lecturer
+        List<Integer> lecturerCandidates = new ArrayList<>();
+        Integer assignedLecturer = isSet(course.getAssignedLecturerId())
+                ? lecturerIndices.get(course.getAssignedLecturerId()) : null;
+        if (assignedLecturer != null) {
+            lecturerCandidates.add(assignedLecturer);
+            TimetableLog.d(TAG, () -> "Course " + course.getName() + " constrained to lecturer " +
+                    lecturers.get(assignedLecturer).getName());
+        } else {
+            for (int l = 0; l < lecturers.size(); l++) {
+                lecturerCandidates.add(l);
+            }
+        }
+
+        // Keep the rooms and lecturers that are free for the whole session at some open start,
+        // and the starts at which both a room and a lecturer are
+        List<Long> resourceStartMasks = new ArrayList<>();
+        int[] legalResources = freeCandidates(resourceGrid, resourceCandidates, openStarts, slots, resourceStartMasks);
+        List<Long> lecturerStartMasks = new ArrayList<>();
+        int[] legalLecturers = freeCandidates(lecturerGrid, lecturerCandidates, openStarts, slots, lecturerStartMasks);
+        long[] starts = new long[days];
+        for (int d = 0; d < days; d++) {
+            starts[d] = openStarts[d] & anyFree(resourceStartMasks, d, days) & anyFree(lecturerStartMasks, d, days);
+        }
+
+        Domains domains = new Domains(legalResources, legalLecturers, starts,
+                toArray(resourceStartMasks), toArray(lecturerStartMasks));
+        removedResources += resources.size() - legalResources.length;
+        removedLecturers += lecturers.size() - legalLecturers.length;
+        removedStarts += days * calendar.getSlotsPerDay() - domains.getStartTuples().length;
+        if (domains.isEmpty()) {
+            TimetableLog.w(TAG, "A session of " + course.getName() + " has no legal placement: " +
+                    legalResources.length + " rooms, " + legalLecturers.length + " lecturers, " +
+                    domains.getStartSlots().length + " start slots");
+        }
+        return domains;
+    }
+
+    /**
+     * Gets the number of room values removed from the full index range, over all sessions.
+     */
+    public int getRemovedResourceValues() {
+        return removedResources;
+    }
+
+    /**
+     * Gets the number of lecturer values removed from the full index range, over all sessions.
+     */
+    public int getRemovedLecturerValues() {
+        return removedLecturers;
+    }
+
+    /**
+     * Gets the number of (day, start slot) pairs removed from the full week, over all sessions.
+     */
+    public int getRemovedStartValues() {
+        return removedStarts;
+    }
+
+    /**
+     * Keeps the candidates that are free for the session at one of the open starts, adding
+     * for each kept candidate the starts per day at which it is.
+     */
+    private static int[] freeCandidates(OccupancyGrid grid, List<Integer> candidates, long[] openStarts,
+                                        int slots, List<Long> freeStarts) {
+        List<Integer> legal = new ArrayList<>();
+        long[] candidateStarts = new long[openStarts.length];
+        for (int candidate : candidates) {
+            boolean free = false;
+            for (int d = 0; d < openStarts.length; d++) {
+                candidateStarts[d] = grid.freeStarts(candidate, d, slots) & openStarts[d];
+                free |= candidateStarts[d] != 0;
+            }
+            if (free) {
+                legal.add(candidate);
+                for (long starts : candidateStarts) {
+                    freeStarts.add(starts);
+                }
+            }
+        }
+        return legal.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the starts of a day at which any candidate is free, from masks added by
+     * {@link #freeCandidates}.
+     */
+    private static long anyFree(List<Long> freeStarts, int day, int days) {
+        long starts = 0L;
+        for (int i = day; i < freeStarts.size(); i += days) {
+            starts |= freeStarts.get(i);
+        }
+        return starts;
+    }
+
+    private static long[] toArray(List<Long> masks) {
+        long[] array = new long[masks.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = masks.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Checks whether a room can host classes: it isn't marked unavailable and, if its capacity
+     * is known, has seats.
+     */
+    private static boolean isUsable(Resource resource) {
+        if ("no".equalsIgnoreCase(resource.getIsAvailable())) {
+            return false;
+        }
+        String capacity = resource.getCapacity();
+        if (capacity != null) {
+            try {
+                return Integer.parseInt(capacity.trim()) > 0;
+            } catch (NumberFormatException e) {
+                // Free text capacity, nothing to check
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.manager.timetable;
 
-import android.util.Log;
 
 import com.example.manager.admin.model.Resource;
 import com.example.manager.model.Lecturer;
@@ -8,12 +7,11 @@ import com.example.manager.model.Lecturer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 
 /**
  * A simple timetable generator that uses a greedy algorithm to allocate resources
@@ -21,12 +19,6 @@ import java.util.UUID;
  */
 public class SimpleTimetableGenerator implements TimetableGenerator {
     private static final String TAG = "SimpleTimetableGen";
-    private static final int DAYS_PER_WEEK = 5; // Monday to Friday
-    private static final int HOURS_PER_DAY = 8; // 9 AM to 5 PM
-    private static final int START_HOUR = 9; // Starting at 9 AM
-    
-    // Days of the week for output formatting
-    private static final String[] DAYS_OF_WEEK = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
     
     private Random random = new Random();
     // Default options
@@ -35,6 +27,10 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
     private boolean spreadCourseSessions = false;
     private int maxHoursPerDay = 6;
 
+    // Set by updateTimetable: how many sessions to place per course, and sessions that stay put
+    private Map<String, Integer> sessionCountOverrides = new HashMap<>();
+    private List<TimetableSession> pinnedSessions = new ArrayList<>();
+
     @Override
     public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses) {
         // Use default options
@@ -42,9 +38,28 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
     }
 
     @Override
-    public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses,
+    public Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturerList, List<Course> courses,
                                       TimetableGeneratorOptions options) {
-        Log.d(TAG, "Starting timetable generation with simple greedy algorithm");
+        TimetableLog.d(TAG, "Starting timetable generation with simple greedy algorithm");
+        
+        // Intern IDs once per run; the grids, day tracking and session counts are indexed by
+        // these ints. A duplicate ID keeps its first entry, so list positions match the indices.
+        IdDictionary lecturerIds = new IdDictionary();
+        List<Lecturer> lecturers = new ArrayList<>();
+        for (Lecturer lecturer : lecturerList) {
+            if (lecturer.getId() == null || lecturerIds.indexOf(lecturer.getId()) >= 0) {
+                TimetableLog.w(TAG, "Skipping lecturer with missing or duplicate ID: " + lecturer.getName());
+                continue;
+            }
+            lecturerIds.intern(lecturer.getId());
+            lecturers.add(lecturer);
+        }
+        IdDictionary courseIds = new IdDictionary();
+        for (Course course : courses) {
+            if (course.getId() != null) {
+                courseIds.intern(course.getId());
+            }
+        }
         
         // Apply options
         this.avoidBackToBackClasses = options.shouldAvoidBackToBackClasses();
@@ -56,7 +71,7 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
             this.maxHoursPerDay = options.getMaxHoursPerDay();
         }
         
-        Log.d(TAG, "Options: avoidBackToBack=" + this.avoidBackToBackClasses + 
+        TimetableLog.d(TAG, () -> "Options: avoidBackToBack=" + this.avoidBackToBackClasses + 
               ", avoidBackToBackStudents=" + avoidBackToBackStudentsClasses +
               ", preferEvenDistribution=" + this.preferEvenDistribution +
               ", spreadCourseSessions=" + this.spreadCourseSessions +
@@ -67,7 +82,7 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
         
         // Check for empty inputs
         if (resources.isEmpty() || lecturers.isEmpty() || courses.isEmpty()) {
-            Log.e(TAG, "Cannot generate timetable with empty resources, lecturers, or courses");
+            TimetableLog.e(TAG, "Cannot generate timetable with empty resources, lecturers, or courses");
             return timetable;
         }
         
@@ -78,65 +93,54 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
         unwantedRoomNames.add("a6");
         unwantedRoomNames.add("ac4");
         
+        IdDictionary resourceIds = new IdDictionary();
         List<Resource> filteredResources = new ArrayList<>();
         for (Resource resource : resources) {
+            if (resource.getId() == null || resourceIds.indexOf(resource.getId()) >= 0) {
+                TimetableLog.w(TAG, "Skipping resource with missing or duplicate ID: " + resource.getName());
+                continue;
+            }
             String resourceName = resource.getName().toLowerCase().trim();
             boolean isUnwanted = false;
             
             for (String unwantedName : unwantedRoomNames) {
                 if (resourceName.equals(unwantedName.toLowerCase().trim())) {
                     isUnwanted = true;
-                    Log.d(TAG, "Filtering out unwanted room: " + resource.getName());
+                    TimetableLog.d(TAG, () -> "Filtering out unwanted room: " + resource.getName());
                     break;
                 }
             }
             
             if (!isUnwanted) {
+                resourceIds.intern(resource.getId());
                 filteredResources.add(resource);
             }
         }
         
         // If we filtered out all resources, return empty timetable
         if (filteredResources.isEmpty()) {
-            Log.e(TAG, "All resources were filtered out as unwanted. Please add valid rooms.");
+            TimetableLog.e(TAG, "All resources were filtered out as unwanted. Please add valid rooms.");
             return timetable;
         }
         
         // Use filtered resources for the rest of the generation process
         resources = filteredResources;
         
-        // Create a lookup map for resources by ID to match assigned resources
-        Map<String, Resource> resourceMap = new HashMap<>();
-        for (Resource resource : resources) {
-            resourceMap.put(resource.getId(), resource);
-        }
-        
-        // Resource availability: resource index -> day -> hour -> available?
-        boolean[][][] resourceAvailability = new boolean[resources.size()][DAYS_PER_WEEK][HOURS_PER_DAY];
-        // Lecturer availability: lecturer index -> day -> hour -> available?
-        boolean[][][] lecturerAvailability = new boolean[lecturers.size()][DAYS_PER_WEEK][HOURS_PER_DAY];
+        // Teaching week: slot length and opening hours of each day
+        SlotCalendar calendar = options.getSlotCalendar();
+        int days = calendar.getDays();
+        int slotsPerDay = calendar.getSlotsPerDay();
+        int slotMinutes = calendar.getSlotMinutes();
+        TimetableLog.d(TAG, () -> "Scheduling into " + calendar);
         
-        // Initialize all slots as available
-        for (int r = 0; r < resources.size(); r++) {
-            for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                for (int h = 0; h < HOURS_PER_DAY; h++) {
-                    resourceAvailability[r][d][h] = true;
-                }
-            }
-        }
-        
-        for (int l = 0; l < lecturers.size(); l++) {
-            for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                for (int h = 0; h < HOURS_PER_DAY; h++) {
-                    lecturerAvailability[l][d][h] = true;
-                }
-            }
-        }
+        // Packed availability: one day word per resource / lecturer, all slots start free
+        OccupancyGrid resourceGrid = new OccupancyGrid(resources.size(), days, slotsPerDay);
+        OccupancyGrid lecturerGrid = new OccupancyGrid(lecturers.size(), days, slotsPerDay);
         
         // Mark resources and lecturers as unavailable based on existing sessions from other departments
         if (options.getExistingTimetableSessions() != null && !options.getExistingTimetableSessions().isEmpty()) {
             List<TimetableSession> existingSessions = options.getExistingTimetableSessions();
-            Log.d(TAG, "Processing " + existingSessions.size() + " existing sessions from other departments");
+            TimetableLog.d(TAG, () -> "Processing " + existingSessions.size() + " existing sessions from other departments");
             
             for (TimetableSession session : existingSessions) {
                 String resourceId = session.getResourceId();
@@ -150,118 +154,105 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
                     continue;
                 }
                 
-                // Map day of week to index (0-4 for Monday-Friday)
-                int dayIndex = -1;
-                for (int d = 0; d < DAYS_OF_WEEK.length; d++) {
-                    if (DAYS_OF_WEEK[d].equalsIgnoreCase(dayOfWeek)) {
-                        dayIndex = d;
-                        break;
-                    }
-                }
-                
+                // Map day of week to index (Monday is 0)
+                int dayIndex = TimetableSymbols.dayIndex(dayOfWeek);
                 if (dayIndex == -1) {
-                    Log.w(TAG, "Unknown day of week: " + dayOfWeek + " in existing session");
+                    TimetableLog.w(TAG, "Unknown day of week: " + dayOfWeek + " in existing session");
                     continue;
                 }
+                if (dayIndex >= days) {
+                    continue; // No teaching that day, nothing to block
+                }
                 
-                // Parse start and end hours
-                int startHour = parseHour(startTime);
-                int endHour = parseHour(endTime);
+                // Parse start and end times
+                int startMinute = TimetableSymbols.minuteOfDay(startTime);
+                int endMinute = TimetableSymbols.minuteOfDay(endTime);
                 
-                if (startHour < 0 || endHour < 0) {
-                    Log.w(TAG, "Invalid time format in existing session: " + startTime + " - " + endTime);
+                if (startMinute < 0 || endMinute <= startMinute) {
+                    TimetableLog.w(TAG, "Invalid time format in existing session: " + startTime + " - " + endTime);
                     continue;
                 }
                 
-                // Convert to our hour index (0-7 for 9AM-5PM)
-                int startHourIndex = startHour - START_HOUR;
-                int endHourIndex = endHour - START_HOUR;
+                // Convert to our slot range; every slot the session touches is blocked
+                int startSlot = Math.max(0, calendar.slotOf(startMinute));
+                int endSlot = Math.min(slotsPerDay, calendar.slotEndingAt(endMinute));
                 
-                if (startHourIndex < 0 || startHourIndex >= HOURS_PER_DAY ||
-                    endHourIndex < 0 || endHourIndex > HOURS_PER_DAY) {
-                    Log.w(TAG, "Existing session hours outside our time range: " + startHour + "-" + endHour);
+                if (startSlot >= endSlot) {
+                    TimetableLog.w(TAG, "Existing session hours outside our time range: " + startTime + "-" + endTime);
                     continue;
                 }
                 
                 // Mark the resource as unavailable
-                int resourceIndex = -1;
-                for (int r = 0; r < resources.size(); r++) {
-                    if (resources.get(r).getId().equals(resourceId)) {
-                        resourceIndex = r;
-                        break;
-                    }
-                }
-                
-                if (resourceIndex != -1) {
-                    for (int h = startHourIndex; h < endHourIndex; h++) {
-                        if (h >= 0 && h < HOURS_PER_DAY) {
-                            resourceAvailability[resourceIndex][dayIndex][h] = false;
-                            Log.d(TAG, "Marked resource " + resources.get(resourceIndex).getName() + 
-                                  " as unavailable on " + DAYS_OF_WEEK[dayIndex] + " at " + (START_HOUR + h) + 
-                                  ":00 due to existing session from another department");
-                        }
+                int resourceIndex = resourceIds.indexOf(resourceId);
+                if (resourceIndex >= 0) {
+                    resourceGrid.occupy(resourceIndex, dayIndex, startSlot, endSlot - startSlot);
+                    if (TimetableLog.isDebugEnabled()) {
+                        TimetableLog.d(TAG, "Marked resource " + resources.get(resourceIndex).getName() + 
+                              " as unavailable on " + dayOfWeek + " from " + startTime + 
+                              " to " + endTime + " due to existing session from another department");
                     }
                 } else {
-                    Log.w(TAG, "Could not find resource with ID: " + resourceId + " in our resources list");
+                    TimetableLog.w(TAG, "Could not find resource with ID: " + resourceId + " in our resources list");
                 }
                 
                 // Mark the lecturer as unavailable if we have their ID
                 if (lecturerId != null && !lecturerId.isEmpty()) {
-                    int lecturerIndex = -1;
-                    for (int l = 0; l < lecturers.size(); l++) {
-                        if (lecturers.get(l).getId().equals(lecturerId)) {
-                            lecturerIndex = l;
-                            break;
-                        }
-                    }
-                    
-                    if (lecturerIndex != -1) {
-                        for (int h = startHourIndex; h < endHourIndex; h++) {
-                            if (h >= 0 && h < HOURS_PER_DAY) {
-                                lecturerAvailability[lecturerIndex][dayIndex][h] = false;
-                                Log.d(TAG, "Marked lecturer " + lecturers.get(lecturerIndex).getName() + 
-                                      " as unavailable on " + DAYS_OF_WEEK[dayIndex] + " at " + (START_HOUR + h) + 
-                                      ":00 due to existing session from another department");
-                            }
+                    int lecturerIndex = lecturerIds.indexOf(lecturerId);
+                    if (lecturerIndex >= 0) {
+                        lecturerGrid.occupy(lecturerIndex, dayIndex, startSlot, endSlot - startSlot);
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Marked lecturer " + lecturers.get(lecturerIndex).getName() + 
+                                  " as unavailable on " + dayOfWeek + " from " + startTime + 
+                                  " to " + endTime + " due to existing session from another department");
                         }
                     }
                 }
             }
         }
         
+        // Ledger shared with departments generated at the same time (null when generating alone)
+        ReservationLedger ledger = options.getReservationLedger();
+        String owner = options.getReservationOwner();
+        
         // Pre-compute lecturer indices for quick lookup
         int teacher1Index = -1;
         
         // Find the index of Teacher 1 (for VR courses)
         for (int i = 0; i < lecturers.size(); i++) {
             Lecturer lecturer = lecturers.get(i);
-            Log.d(TAG, "Checking lecturer #" + i + ": '" + lecturer.getName() + "'");
+            if (TimetableLog.isDebugEnabled()) {
+                TimetableLog.d(TAG, "Checking lecturer #" + i + ": '" + lecturer.getName() + "'");
+            }
             
             // Try exact match first for "teacher1" (without space)
             if (lecturer.getName().equals("teacher1")) {
                 teacher1Index = i;
-                Log.d(TAG, "FOUND EXACT MATCH for teacher1: '" + lecturer.getName() + "' at index " + i);
+                if (TimetableLog.isDebugEnabled()) {
+                    TimetableLog.d(TAG, "FOUND EXACT MATCH for teacher1: '" + lecturer.getName() + "' at index " + i);
+                }
                 break;
             }
         }
         
         // If no exact match, try case-insensitive
         if (teacher1Index == -1) {
-            Log.d(TAG, "No exact match for 'teacher1', trying case-insensitive search");
+            TimetableLog.d(TAG, "No exact match for 'teacher1', trying case-insensitive search");
             for (int i = 0; i < lecturers.size(); i++) {
                 Lecturer lecturer = lecturers.get(i);
                 if (lecturer.getName().toLowerCase().equals("teacher1")) {
                     teacher1Index = i;
-                    Log.d(TAG, "FOUND CASE-INSENSITIVE MATCH for teacher1: '" + lecturer.getName() + "' at index " + i);
+                    if (TimetableLog.isDebugEnabled()) {
+                        TimetableLog.d(TAG, "FOUND CASE-INSENSITIVE MATCH for teacher1: '" + lecturer.getName() + "' at index " + i);
+                    }
                     break;
                 }
             }
         }
         
         if (teacher1Index == -1) {
-            Log.e(TAG, "WARNING: TEACHER 1 NOT FOUND in the lecturer list! VR courses will not be properly assigned.");
+            TimetableLog.e(TAG, "WARNING: TEACHER 1 NOT FOUND in the lecturer list! VR courses will not be properly assigned.");
         } else {
-            Log.d(TAG, "Teacher 1 found at index " + teacher1Index + ": " + lecturers.get(teacher1Index).getName());
+            TimetableLog.d(TAG, "Teacher 1 found at index " + teacher1Index + ": " + lecturers.get(teacher1Index).getName());
         }
         
         // Pre-compute lab room indices for quick lookup
@@ -275,12 +266,29 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
         }
         
         // Process each course
-        // Track which days already have sessions for each course (used for spreading sessions)
-        Map<String, Set<Integer>> courseDayAllocation = new HashMap<>();
+        // Track which days already have sessions for each course (used for spreading sessions):
+        // course index -> bit per day
+        int[] courseDays = new int[courseIds.size()];
+        for (TimetableSession pinned : pinnedSessions) {
+            int pinnedDay = TimetableSymbols.dayIndex(pinned.getDayOfWeek());
+            int pinnedCourse = courseIds.indexOf(pinned.getCourseId());
+            if (pinnedDay >= 0 && pinnedCourse >= 0) {
+                courseDays[pinnedCourse] |= 1 << pinnedDay;
+            }
+        }
         
         for (Course course : courses) {
+            if (options.isCancelled()) {
+                throw new CancellationException("Timetable generation was cancelled");
+            }
+            
             String courseName = course.getName();
             String courseId = course.getId();
+            int courseIndex = courseIds.indexOf(courseId);
+            if (courseIndex < 0) {
+                TimetableLog.w(TAG, "Skipping course without an ID: " + courseName);
+                continue;
+            }
             String courseCode = course.getCode() != null ? course.getCode() : "";
             boolean isVRCourse = courseName.contains("Virtual Reality") || courseCode.contains("VR");
             
@@ -290,34 +298,44 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
             // First check if numberOfLectures is set (this is from the Course Management UI)
             if (course.getNumberOfLectures() > 0) {
                 sessionsNeeded = course.getNumberOfLectures();
-                Log.d(TAG, "Using numberOfLectures (" + sessionsNeeded + ") from course management for: " + courseName);
+                TimetableLog.d(TAG, "Using numberOfLectures (" + sessionsNeeded + ") from course management for: " + courseName);
             } 
             // Fall back to requiredSessionsPerWeek if numberOfLectures is not set
             else if (course.getRequiredSessionsPerWeek() > 0) {
                 sessionsNeeded = course.getRequiredSessionsPerWeek();
-                Log.d(TAG, "Using requiredSessionsPerWeek (" + sessionsNeeded + ") as fallback for: " + courseName);
+                TimetableLog.d(TAG, "Using requiredSessionsPerWeek (" + sessionsNeeded + ") as fallback for: " + courseName);
             } 
             // Default to 1 if neither is set
             else {
                 sessionsNeeded = 1;
-                Log.d(TAG, "No session count specified, defaulting to 1 session for: " + courseName);
+                TimetableLog.d(TAG, () -> "No session count specified, defaulting to 1 session for: " + courseName);
             }
             
             // Add lab sessions if specified
             int labSessions = course.getNumberOfLabs();
             if (labSessions > 0) {
-                Log.d(TAG, "Adding " + labSessions + " lab sessions for: " + courseName);
+                TimetableLog.d(TAG, () -> "Adding " + labSessions + " lab sessions for: " + courseName);
                 // We'll handle these as regular sessions for now
                 sessionsNeeded += labSessions;
             }
             
+            // When updating a timetable only the displaced sessions are placed again
+            if (sessionCountOverrides.containsKey(courseId)) {
+                sessionsNeeded = sessionCountOverrides.get(courseId);
+                TimetableLog.d(TAG, "Placing " + sessionsNeeded + " displaced sessions for: " + courseName);
+            }
+            
+            // Every session of the course takes the same run of slots
+            int sessionSlots = calendar.slotsForDuration(course.getDurationHours());
+            int sessionMinutes = sessionSlots * slotMinutes;
+            
             // Find suitable resources for this course
             List<Integer> suitableResources;
             
             if (isVRCourse && !labRoomIndices.isEmpty()) {
                 // VR courses need lab rooms
                 suitableResources = new ArrayList<>(labRoomIndices);
-                Log.d(TAG, "VR course will use lab rooms (" + suitableResources.size() + " available)");
+                TimetableLog.d(TAG, () -> "VR course will use lab rooms (" + suitableResources.size() + " available)");
             } else {
                 // Other courses can use any room
                 suitableResources = new ArrayList<>();
@@ -334,28 +352,22 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
             
             if (assignedLecturerId != null && !assignedLecturerId.isEmpty()) {
                 // Try to find the assigned lecturer by ID
-                int assignedLecturerIndex = -1;
-                for (int l = 0; l < lecturers.size(); l++) {
-                    if (assignedLecturerId.equals(lecturers.get(l).getId())) {
-                        assignedLecturerIndex = l;
-                        break;
-                    }
-                }
+                int assignedLecturerIndex = lecturerIds.indexOf(assignedLecturerId);
                 
                 if (assignedLecturerIndex >= 0) {
                     // Use only the assigned lecturer
                     suitableLecturers.add(assignedLecturerIndex);
-                    Log.d(TAG, "Using pre-assigned lecturer '" + lecturers.get(assignedLecturerIndex).getName() + 
+                    TimetableLog.d(TAG, () -> "Using pre-assigned lecturer '" + lecturers.get(assignedLecturerIndex).getName() + 
                           "' for course: " + courseName);
                 } else {
                     // Assigned lecturer not found - treat as unassigned
-                    Log.w(TAG, "Assigned lecturer ID " + assignedLecturerId + " not found for course: " + 
+                    TimetableLog.w(TAG, "Assigned lecturer ID " + assignedLecturerId + " not found for course: " + 
                           courseName + " - will use any suitable lecturer");
                     
                     // For VR courses, prefer teacher1 if available
                     if (isVRCourse && teacher1Index >= 0) {
                         suitableLecturers.add(teacher1Index);
-                        Log.d(TAG, "VR course without valid assignment will use teacher1");
+                        TimetableLog.d(TAG, "VR course without valid assignment will use teacher1");
                     } else {
                         // For non-VR courses or if teacher1 not available, use any lecturer
                         for (int l = 0; l < lecturers.size(); l++) {
@@ -368,7 +380,7 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
                 // For VR courses, prefer teacher1
                 if (isVRCourse && teacher1Index >= 0) {
                     suitableLecturers.add(teacher1Index);
-                    Log.d(TAG, "VR course without assignment will use teacher1");
+                    TimetableLog.d(TAG, "VR course without assignment will use teacher1");
                 } else {
                     // For non-VR courses, use any lecturer
                     for (int l = 0; l < lecturers.size(); l++) {
@@ -379,18 +391,13 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
             
             // Skip if no suitable resources or lecturers
             if (suitableResources.isEmpty() || suitableLecturers.isEmpty()) {
-                Log.w(TAG, "Cannot schedule " + courseName + " - no suitable resources or lecturers");
+                TimetableLog.w(TAG, "Cannot schedule " + courseName + " - no suitable resources or lecturers");
                 continue;
             }
             
             // Try to schedule each session
             int sessionsScheduled = 0;
             
-            // Initialize course day allocation tracking if needed
-            if (!courseDayAllocation.containsKey(courseId)) {
-                courseDayAllocation.put(courseId, new HashSet<>());
-            }
-            
             // For each session needed for this course
             for (int session = 0; session < sessionsNeeded; session++) {
                 // Choose best resource and lecturer
@@ -401,19 +408,21 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
                 
                 // For even distribution, randomize the order of days
                 List<Integer> dayOrder = new ArrayList<>();
-                for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                    dayOrder.add(d);
+                for (int d = 0; d < days; d++) {
+                    if (calendar.isOpenDay(d)) {
+                        dayOrder.add(d);
+                    }
                 }
                 
                 // If we want to spread course sessions across days
                 if (this.spreadCourseSessions) {
                     // Get days that already have sessions for this course
-                    Set<Integer> daysWithSessions = courseDayAllocation.get(courseId);
+                    int daysWithSessions = courseDays[courseIndex];
                     
                     // First, filter out days that already have sessions for this course
                     List<Integer> daysWithoutSessions = new ArrayList<>();
                     for (Integer day : dayOrder) {
-                        if (!daysWithSessions.contains(day)) {
+                        if ((daysWithSessions & (1 << day)) == 0) {
                             daysWithoutSessions.add(day);
                         }
                     }
@@ -421,18 +430,18 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
                     // If we have days without sessions, only use those
                     if (!daysWithoutSessions.isEmpty()) {
                         dayOrder = daysWithoutSessions;
-                        Log.d(TAG, "Strictly enforcing spread course sessions - considering only " + 
+                        TimetableLog.d(TAG, "Strictly enforcing spread course sessions - considering only " + 
                               dayOrder.size() + " days without existing sessions for " + courseName);
                     } else {
                         // If all days already have sessions (unlikely but possible), 
                         // then keep original behavior (sort to prioritize)
-                        Log.d(TAG, "No days without sessions available for " + courseName + 
+                        TimetableLog.d(TAG, () -> "No days without sessions available for " + courseName + 
                               " - relaxing strict enforcement");
                         
                         // Sort days to prioritize those without sessions for this course
                         Collections.sort(dayOrder, (day1, day2) -> {
-                            boolean day1HasSession = daysWithSessions.contains(day1);
-                            boolean day2HasSession = daysWithSessions.contains(day2);
+                            boolean day1HasSession = (daysWithSessions & (1 << day1)) != 0;
+                            boolean day2HasSession = (daysWithSessions & (1 << day2)) != 0;
                             
                             if (day1HasSession && !day2HasSession) {
                                 return 1; // Prioritize day2 (doesn't have a session yet)
@@ -444,199 +453,183 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
                         });
                     }
                     
-                    Log.d(TAG, "Applying spread course sessions constraint for " + courseName);
+                    TimetableLog.d(TAG, () -> "Applying spread course sessions constraint for " + courseName);
                 } 
                 // If prefer even distribution, shuffle the days to avoid clustering
                 else if (this.preferEvenDistribution) {
                     Collections.shuffle(dayOrder, random);
-                    Log.d(TAG, "Applying even distribution constraint - randomizing day order");
+                    TimetableLog.d(TAG, "Applying even distribution constraint - randomizing day order");
                 }
                 
                 // Try to find an available slot for this course session
                 boolean sessionAllocated = false;
                 
-                // Calculate lecturer's teaching hours per day
-                int[] lecturerHoursPerDay = new int[DAYS_PER_WEEK];
-                for (int d = 0; d < DAYS_PER_WEEK; d++) {
-                    lecturerHoursPerDay[d] = 0;
-                    for (int h = 0; h < HOURS_PER_DAY; h++) {
-                        if (!lecturerAvailability[lecturerIndex][d][h]) {
-                            // Count hours already allocated to this lecturer
-                            lecturerHoursPerDay[d]++;
-                        }
-                    }
+                // Assigned resource (if any) is preferred whenever it is free
+                int assignedResourceIndex = -1;
+                if (course.getAssignedResourceId() != null && !course.getAssignedResourceId().isEmpty()) {
+                    assignedResourceIndex = resourceIds.indexOf(course.getAssignedResourceId());
+                }
+                
+                if (this.avoidBackToBackClasses) {
+                    TimetableLog.d(TAG, "Applying back-to-back avoidance constraint");
                 }
                 
                 // Try each day in the (potentially shuffled) order
-                for (int dayIndex = 0; !sessionAllocated && dayIndex < DAYS_PER_WEEK; dayIndex++) {
+                for (int dayIndex = 0; !sessionAllocated && dayIndex < dayOrder.size(); dayIndex++) {
                     int d = dayOrder.get(dayIndex);
                     
                     // If respecting max hours constraint, skip days where lecturer already has maximum hours
-                    if (lecturerHoursPerDay[d] >= this.maxHoursPerDay) {
-                        Log.d(TAG, "Skipping day " + DAYS_OF_WEEK[d] + " - lecturer already has " + 
-                              lecturerHoursPerDay[d] + " hours (max: " + this.maxHoursPerDay + ")");
+                    int lecturerMinutesToday = lecturerGrid.busyCount(lecturerIndex, d) * slotMinutes;
+                    if (lecturerMinutesToday >= this.maxHoursPerDay * 60) {
+                        TimetableLog.d(TAG, () -> "Skipping day " + TimetableSymbols.dayName(d) + " - lecturer already has " + 
+                              lecturerMinutesToday / 60.0 + " hours (max: " + this.maxHoursPerDay + ")");
                         continue;
                     }
                     
-                    // For avoiding back-to-back, sort hours to prefer those that don't create back-to-back
-                    List<Integer> hourOrder = new ArrayList<>();
-                    for (int h = 0; h < HOURS_PER_DAY; h++) {
-                        hourOrder.add(h);
+                    // Starts where the whole session fits in opening hours, the lecturer is free
+                    // throughout and at least one room is free throughout
+                    long daySlots = this.avoidBackToBackClasses
+                            // Drop starts that would sit directly next to another class of this lecturer
+                            ? lecturerGrid.isolatedFreeStarts(lecturerIndex, d, sessionSlots)
+                            : lecturerGrid.freeStarts(lecturerIndex, d, sessionSlots);
+                    daySlots &= resourceGrid.anyFreeStarts(d, sessionSlots) & calendar.openStartMask(d, sessionSlots);
+                    if (daySlots == 0) {
+                        continue;
                     }
                     
-                    if (this.avoidBackToBackClasses) {
-                        Log.d(TAG, "Applying back-to-back avoidance constraint");
-                        // First sort the hours to prefer those that don't create back-to-back classes
-                        Collections.sort(hourOrder, (hour1, hour2) -> {
-                            int backToBack1 = countBackToBackHours(lecturerAvailability[lecturerIndex], d, hour1, 1);
-                            int backToBack2 = countBackToBackHours(lecturerAvailability[lecturerIndex], d, hour2, 1);
-                            return Integer.compare(backToBack1, backToBack2); // Prefer fewer back-to-back hours
-                        });
-                        
-                        // Remove hours that would create back-to-back classes entirely
-                        hourOrder.removeIf(hour -> {
-                            int backToBack = countBackToBackHours(lecturerAvailability[lecturerIndex], d, hour, 1);
-                            if (backToBack > 0) {
-                                Log.d(TAG, "Removing hour " + (START_HOUR + hour) + ":00 for " + 
-                                      course.getName() + " on " + DAYS_OF_WEEK[d] + " - would create back-to-back classes");
-                                return true; // Remove this hour option
-                            }
-                            return false; // Keep this hour option
-                        });
+                    // Back-to-back avoidance keeps the earliest isolated start, otherwise pick at random
+                    int h = this.avoidBackToBackClasses
+                            ? Long.numberOfTrailingZeros(daySlots)
+                            : OccupancyGrid.nthSetBit(daySlots, random.nextInt(Long.bitCount(daySlots)));
+                    int startMinute = calendar.getSlotStartMinute(h);
+                    String dayName = TimetableSymbols.dayName(d);
+                    
+                    // Find available resource, prioritising the assigned one
+                    int resourceIndex;
+                    if (assignedResourceIndex >= 0 && resourceGrid.isFree(assignedResourceIndex, d, h, sessionSlots)) {
+                        resourceIndex = assignedResourceIndex;
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Using assigned resource " + resources.get(resourceIndex).getName() + 
+                                  " (ID: " + course.getAssignedResourceId() + ") for course " + course.getName());
+                        }
                     } else {
-                        // Otherwise, just shuffle for variety
-                        Collections.shuffle(hourOrder, random);
+                        if (assignedResourceIndex >= 0) {
+                            if (TimetableLog.isDebugEnabled()) {
+                                TimetableLog.d(TAG, "Assigned resource " + resources.get(assignedResourceIndex).getName() + 
+                                      " is not available at this time slot for course " + course.getName());
+                            }
+                        }
+                        resourceIndex = resourceGrid.firstFreeEntity(d, h, sessionSlots);
                     }
                     
-                    // Try each hour in the preferred order
-                    for (int hourIndex = 0; !sessionAllocated && hourIndex < hourOrder.size(); hourIndex++) {
-                        int h = hourOrder.get(hourIndex);
+                    // Claim the slot in the shared ledger so concurrently generated departments can't take it
+                    if (resourceIndex != -1 && ledger != null
+                            && !ledger.tryReserve(owner, resources.get(resourceIndex).getId(),
+                                    lecturers.get(lecturerIndex).getId(), dayName, startMinute, sessionMinutes)) {
+                        TimetableLog.d(TAG, () -> "Slot " + dayName + " " + formatTime(startMinute) + " was claimed by another department, retrying");
+                        // Blocked, not booked, so another department's claim doesn't count towards maxHoursPerDay
+                        boolean lecturerTaken = !ledger.isLecturerFree(owner, lecturers.get(lecturerIndex).getId(), dayName, startMinute, sessionMinutes);
+                        if (lecturerTaken) {
+                            lecturerGrid.block(lecturerIndex, d, h, sessionSlots);
+                        }
+                        if (!lecturerTaken || !ledger.isResourceFree(owner, resources.get(resourceIndex).getId(), dayName, startMinute, sessionMinutes)) {
+                            resourceGrid.block(resourceIndex, d, h, sessionSlots);
+                        }
+                        dayIndex--;
+                        continue;
+                    }
+                    
+                    if (resourceIndex != -1) {
                         
-                        // Find available resource
-                        int resourceIndex = -1;
+                        // Create a unique ID for this session
+                        String sessionId = UUID.randomUUID().toString();
                         
-                        // Check if course has an assigned resource and prioritize it
-                        if (course.getAssignedResourceId() != null && !course.getAssignedResourceId().isEmpty()) {
-                            String assignedResourceId = course.getAssignedResourceId();
-                            // Find the assigned resource in our resources list
-                            for (int r = 0; r < resources.size(); r++) {
-                                if (resources.get(r).getId().equals(assignedResourceId)) {
-                                    // Check if this assigned resource is available at this time slot
-                                    if (resourceAvailability[r][d][h]) {
-                                        resourceIndex = r;
-                                        Log.d(TAG, "Using assigned resource " + resources.get(r).getName() + 
-                                              " (ID: " + assignedResourceId + ") for course " + course.getName());
-                                        break;
-                                    } else {
-                                        Log.d(TAG, "Assigned resource " + resources.get(r).getName() + 
-                                              " is not available at this time slot for course " + course.getName());
-                                    }
-                                }
-                            }
-                        }
+                        // Create session
+                        TimetableSession timetableSession = new TimetableSession();
+                        timetableSession.setId(sessionId);
+                        timetableSession.setCourseId(course.getId());
+                        timetableSession.setCourseName(course.getName());
+                        timetableSession.setLecturerId(lecturers.get(lecturerIndex).getId());
+                        timetableSession.setLecturerName(lecturers.get(lecturerIndex).getName());
+                        timetableSession.setResourceId(resources.get(resourceIndex).getId());
+                        timetableSession.setResourceName(resources.get(resourceIndex).getName());
+                        timetableSession.setDayOfWeek(dayName);
+                        timetableSession.setStartTime(formatTime(startMinute));
+                        timetableSession.setEndTime(formatTime(startMinute + sessionMinutes));
+                        timetableSession.setSessionType(course.getCode());
                         
-                        // If no assigned resource or assigned resource not available, find any available resource
-                        if (resourceIndex == -1) {
-                            for (int r = 0; r < resources.size(); r++) {
-                                if (resourceAvailability[r][d][h]) {
-                                    resourceIndex = r;
-                                    break;
-                                }
-                            }
-                        }
+                        // Mark as unavailable for the whole session
+                        resourceGrid.occupy(resourceIndex, d, h, sessionSlots);
+                        lecturerGrid.occupy(lecturerIndex, d, h, sessionSlots);
                         
-                        // Check if lecturer is available
-                        boolean lecturerAvailable = lecturerAvailability[lecturerIndex][d][h];
+                        // Track that this course has a session on this day
+                        courseDays[courseIndex] |= 1 << d;
                         
-                        // Check if slot is available
-                        if (h < HOURS_PER_DAY && resourceIndex != -1 && lecturerAvailable) {
-                            
-                            // Create a unique ID for this session
-                            String sessionId = UUID.randomUUID().toString();
-                            
-                            // Create session
-                            TimetableSession timetableSession = new TimetableSession();
-                            timetableSession.setId(sessionId);
-                            timetableSession.setCourseId(course.getId());
-                            timetableSession.setCourseName(course.getName());
-                            timetableSession.setLecturerId(lecturers.get(lecturerIndex).getId());
-                            timetableSession.setLecturerName(lecturers.get(lecturerIndex).getName());
-                            timetableSession.setResourceId(resources.get(resourceIndex).getId());
-                            timetableSession.setResourceName(resources.get(resourceIndex).getName());
-                            timetableSession.setDayOfWeek(DAYS_OF_WEEK[d]);
-                            timetableSession.setStartTime((START_HOUR + h) + ":00");
-                            timetableSession.setEndTime((START_HOUR + h + 1) + ":00");
-                            timetableSession.setSessionType(course.getCode());
-                            
-                            // Mark as unavailable
-                            resourceAvailability[resourceIndex][d][h] = false;
-                            lecturerAvailability[lecturerIndex][d][h] = false;
-                            
-                            // Track that this course has a session on this day
-                            courseDayAllocation.get(courseId).add(d);
-                            
-                            // Add to timetable
-                            timetable.addSession(timetableSession);
-                            
-                            // Log
-                            Log.d(TAG, "Scheduled " + course.getName() + 
-                                   " on " + DAYS_OF_WEEK[d] + 
-                                   " at " + (START_HOUR + h) + ":00" +
+                        // Add to timetable
+                        timetable.addSession(timetableSession);
+                        
+                        // Log
+                        if (TimetableLog.isDebugEnabled()) {
+                            TimetableLog.d(TAG, "Scheduled " + course.getName() + 
+                                   " on " + dayName + 
+                                   " at " + formatTime(startMinute) +
                                    " with " + lecturers.get(lecturerIndex).getName() +
                                    " in " + resources.get(resourceIndex).getName() +
                                    " (constraints: back-to-back=" + this.avoidBackToBackClasses + 
                                    ", even-distribution=" + this.preferEvenDistribution + ")");
-                            
-                            sessionAllocated = true;
-                            sessionsScheduled++;
                         }
+                        
+                        sessionAllocated = true;
+                        sessionsScheduled++;
                     }
                 }
                 
                 if (!sessionAllocated) {
-                    Log.w(TAG, "Could not schedule session " + (session + 1) + " for " + courseName);
+                    TimetableLog.w(TAG, "Could not schedule session " + (session + 1) + " for " + courseName);
                 }
             }
             
-            Log.d(TAG, "Scheduled " + sessionsScheduled + "/" + sessionsNeeded + " sessions for " + courseName);
+            TimetableLog.d(TAG, "Scheduled " + sessionsScheduled + "/" + sessionsNeeded + " sessions for " + courseName);
         }
         
-        Log.d(TAG, "Timetable generation completed with " + timetable.getSessions().size() + " sessions");
+        TimetableLog.d(TAG, () -> "Timetable generation completed with " + timetable.getSessions().size() + " sessions");
         
-        // New validation check to ensure all courses are completely scheduled
-        Map<String, Integer> requiredSessionsMap = new HashMap<>();
-        Map<String, Integer> scheduledSessionsMap = new HashMap<>();
-        Map<String, String> courseNamesMap = new HashMap<>();
+        // New validation check to ensure all courses are completely scheduled, by course index
+        int[] requiredSessions = new int[courseIds.size()];
+        int[] scheduledSessions = new int[courseIds.size()];
+        String[] courseNames = new String[courseIds.size()];
         
-        // Initialize maps with required sessions for each course
+        // Initialize with required sessions for each course
         for (Course course : courses) {
-            String courseId = course.getId();
-            requiredSessionsMap.put(courseId, course.getRequiredSessionsPerWeek());
-            scheduledSessionsMap.put(courseId, 0);
-            courseNamesMap.put(courseId, course.getName() + " (" + course.getCode() + ")");
+            int courseIndex = courseIds.indexOf(course.getId());
+            if (courseIndex >= 0) {
+                requiredSessions[courseIndex] = sessionCountOverrides.getOrDefault(course.getId(), course.getRequiredSessionsPerWeek());
+                courseNames[courseIndex] = course.getName() + " (" + course.getCode() + ")";
+            }
         }
         
         // Count how many sessions were actually scheduled
         for (TimetableSession session : timetable.getSessions()) {
-            String courseId = session.getCourseId();
-            int currentCount = scheduledSessionsMap.getOrDefault(courseId, 0);
-            scheduledSessionsMap.put(courseId, currentCount + 1);
+            int courseIndex = courseIds.indexOf(session.getCourseId());
+            if (courseIndex >= 0) {
+                scheduledSessions[courseIndex]++;
+            }
         }
         
         // Check for courses with incomplete scheduling
-        List<String> unscheduledCourses = new ArrayList<>();
-        List<String> partiallyScheduledCourses = new ArrayList<>();
+        List<Integer> unscheduledCourses = new ArrayList<>();
+        List<Integer> partiallyScheduledCourses = new ArrayList<>();
         
-        for (String courseId : requiredSessionsMap.keySet()) {
-            int required = requiredSessionsMap.get(courseId);
-            int scheduled = scheduledSessionsMap.getOrDefault(courseId, 0);
+        for (int c = 0; c < courseIds.size(); c++) {
+            int required = requiredSessions[c];
+            int scheduled = scheduledSessions[c];
             
             if (scheduled == 0) {
-                unscheduledCourses.add(courseId);
-                Log.e(TAG, "Course " + courseNamesMap.get(courseId) + " has NO sessions scheduled!");
+                unscheduledCourses.add(c);
+                TimetableLog.e(TAG, "Course " + courseNames[c] + " has NO sessions scheduled!");
             } else if (scheduled < required) {
-                partiallyScheduledCourses.add(courseId);
-                Log.e(TAG, "Course " + courseNamesMap.get(courseId) + " has only " + 
+                partiallyScheduledCourses.add(c);
+                TimetableLog.e(TAG, "Course " + courseNames[c] + " has only " + 
                       scheduled + "/" + required + " sessions scheduled!");
             }
         }
@@ -647,19 +640,19 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
             
             if (!unscheduledCourses.isEmpty()) {
                 errorMsg.append("\n\nThe following courses could not be scheduled at all:\n");
-                for (String courseId : unscheduledCourses) {
-                    errorMsg.append("• ").append(courseNamesMap.get(courseId))
-                           .append(" - ").append(requiredSessionsMap.get(courseId))
+                for (int c : unscheduledCourses) {
+                    errorMsg.append("• ").append(courseNames[c])
+                           .append(" - ").append(requiredSessions[c])
                            .append(" sessions required\n");
                 }
             }
             
             if (!partiallyScheduledCourses.isEmpty()) {
                 errorMsg.append("\n\nThe following courses were only partially scheduled:\n");
-                for (String courseId : partiallyScheduledCourses) {
-                    int scheduled = scheduledSessionsMap.get(courseId);
-                    int required = requiredSessionsMap.get(courseId);
-                    errorMsg.append("• ").append(courseNamesMap.get(courseId))
+                for (int c : partiallyScheduledCourses) {
+                    int scheduled = scheduledSessions[c];
+                    int required = requiredSessions[c];
+                    errorMsg.append("• ").append(courseNames[c])
                            .append(" - ").append(scheduled).append("/").append(required)
                            .append(" sessions scheduled\n");
                 }
@@ -691,137 +684,74 @@ public class SimpleTimetableGenerator implements TimetableGenerator {
         return timetable;
     }
     
-    /**
-     * Find an available resource from the list of suitable resources for a given time slot.
-     */
-    private Integer findAvailableResource(boolean[][][] resourceAvailability, List<Integer> suitableResources, 
-                                         int day, int hour) {
-        // Randomize the order to avoid always picking the same resource
-        List<Integer> shuffledResources = new ArrayList<>(suitableResources);
-        Collections.shuffle(shuffledResources, random);
-        
-        for (Integer resourceIndex : shuffledResources) {
-            if (resourceAvailability[resourceIndex][day][hour]) {
-                return resourceIndex;
-            }
+    @Override
+    public Timetable updateTimetable(Timetable previous, TimetableDelta delta, List<Resource> resources,
+                                     List<Lecturer> lecturers, List<Course> courses, TimetableGeneratorOptions options) {
+        long updateStart = System.currentTimeMillis();
+        if (options == null) {
+            options = new TimetableGeneratorOptions();
         }
-        return null; // No available resource found
-    }
-    
-    /**
-     * Find an available lecturer from the list of suitable lecturers for a given time slot.
-     */
-    private Integer findAvailableLecturer(boolean[][][] lecturerAvailability, List<Integer> suitableLecturers, 
-                                         int day, int hour) {
-        // Randomize the order to avoid always picking the same lecturer
-        List<Integer> shuffledLecturers = new ArrayList<>(suitableLecturers);
-        Collections.shuffle(shuffledLecturers, random);
-        
-        for (Integer lecturerIndex : shuffledLecturers) {
-            if (lecturerAvailability[lecturerIndex][day][hour]) {
-                return lecturerIndex;
+        
+        List<TimetableSession> pinned = delta.getPinnedSessions(previous);
+        Map<String, Integer> displaced = delta.getDisplacedSessionCounts(previous);
+        
+        // Replaced courses are placed in full, other courses only for the sessions that were displaced
+        List<Course> coursesToPlace = new ArrayList<>();
+        Map<String, Integer> overrides = new HashMap<>();
+        for (Course course : delta.applyToCourses(courses)) {
+            if (delta.isCourseReplaced(course.getId())) {
+                coursesToPlace.add(course);
+            } else if (displaced.containsKey(course.getId())) {
+                coursesToPlace.add(course);
+                overrides.put(course.getId(), displaced.get(course.getId()));
             }
         }
-        return null; // No available lecturer found
-    }
-
-    @Override
-    public boolean hasConflicts(Timetable timetable) {
-        // Check for conflicts in the timetable
-        List<TimetableSession> sessions = timetable.getSessions();
-        
-        // Map to track resource usage: day -> hour -> resourceId -> session
-        Map<String, Map<String, Map<String, TimetableSession>>> resourceUsage = new HashMap<>();
+        TimetableLog.d(TAG, () -> "Updating timetable: keeping " + pinned.size() + " sessions, placing sessions for " +
+              coursesToPlace.size() + " courses");
+        
+        Timetable updated = previous != null
+                ? new Timetable(previous.getAcademicTerm(), previous.getAcademicYear(), previous.getDepartment())
+                : new Timetable();
+        for (TimetableSession session : pinned) {
+            updated.addSession(session);
+        }
+        if (coursesToPlace.isEmpty()) {
+            return updated;
+        }
         
-        // Map to track lecturer assignments: day -> hour -> lecturerId -> session
-        Map<String, Map<String, Map<String, TimetableSession>>> lecturerAssignments = new HashMap<>();
+        // Pinned sessions block their rooms and lecturers just like sessions from other departments
+        TimetableGeneratorOptions incrementalOptions = new TimetableGeneratorOptions(options);
+        incrementalOptions.getExistingTimetableSessions().addAll(pinned);
         
-        for (TimetableSession session : sessions) {
-            String day = session.getDayOfWeek();
-            String startTime = session.getStartTime();
-            String resourceId = session.getResourceId();
-            String lecturerId = session.getLecturerId();
-            
-            // Initialize maps if needed
-            if (!resourceUsage.containsKey(day)) {
-                resourceUsage.put(day, new HashMap<>());
-            }
-            if (!resourceUsage.get(day).containsKey(startTime)) {
-                resourceUsage.get(day).put(startTime, new HashMap<>());
-            }
-            
-            if (!lecturerAssignments.containsKey(day)) {
-                lecturerAssignments.put(day, new HashMap<>());
-            }
-            if (!lecturerAssignments.get(day).containsKey(startTime)) {
-                lecturerAssignments.get(day).put(startTime, new HashMap<>());
-            }
-            
-            // Check for resource conflicts
-            if (resourceUsage.get(day).get(startTime).containsKey(resourceId)) {
-                // Resource already used at this time
-                return true;
-            }
-            
-            // Check for lecturer conflicts
-            if (lecturerAssignments.get(day).get(startTime).containsKey(lecturerId)) {
-                // Lecturer already assigned at this time
-                return true;
+        this.sessionCountOverrides = overrides;
+        this.pinnedSessions = pinned;
+        try {
+            Timetable placed = generateTimetable(delta.filterResources(resources), delta.filterLecturers(lecturers),
+                                                 coursesToPlace, incrementalOptions);
+            for (TimetableSession session : placed.getSessions()) {
+                updated.addSession(session);
             }
-            
-            // Record usage
-            resourceUsage.get(day).get(startTime).put(resourceId, session);
-            lecturerAssignments.get(day).get(startTime).put(lecturerId, session);
+        } finally {
+            this.sessionCountOverrides = new HashMap<>();
+            this.pinnedSessions = new ArrayList<>();
         }
         
-        return false; // No conflicts found
+        TimetableLog.d(TAG, () -> "Timetable updated in " + (System.currentTimeMillis() - updateStart) + "ms");
+        return updated;
     }
 
-    /**
-     * Counts how many back-to-back hours would be created if a session is scheduled
-     * at the given day and starting hour.
-     * 
-     * @param lecturerAvail The lecturer's availability array
-     * @param day The day to check
-     * @param startHour The starting hour
-     * @param duration The session duration in hours
-     * @return The number of back-to-back hours created
-     */
-    private int countBackToBackHours(boolean[][] lecturerAvail, int day, int startHour, int duration) {
-        int count = 0;
-        
-        // Check hour before session
-        if (startHour > 0 && !lecturerAvail[day][startHour - 1]) {
-            count++;
-            Log.d(TAG, "Found back-to-back at day " + DAYS_OF_WEEK[day] + " - Class at " + 
-                  (START_HOUR + startHour - 1) + ":00 followed by proposed slot at " + (START_HOUR + startHour) + ":00");
-        }
-        
-        // Check hour after session
-        if (startHour + duration < HOURS_PER_DAY && !lecturerAvail[day][startHour + duration]) {
-            count++;
-            Log.d(TAG, "Found back-to-back at day " + DAYS_OF_WEEK[day] + " - Proposed slot at " + 
-                  (START_HOUR + startHour) + ":00 followed by class at " + (START_HOUR + startHour + duration) + ":00");
-        }
-        
-        return count;
+    @Override
+    public boolean hasConflicts(Timetable timetable) {
+        // A resource or lecturer booked twice at overlapping times
+        List<TimetableSession> sessions = timetable.getSessions();
+        return ConflictDetector.hasConflict(sessions, ConflictDetector.BY_RESOURCE) ||
+                ConflictDetector.hasConflict(sessions, ConflictDetector.BY_LECTURER);
     }
-    
+
     /**
-     * Parse hour from time string (e.g., "09:00" -> 9)
+     * Formats a minute of the day like the rest of the generator's output, e.g. "9:00" or "13:30".
      */
-    private int parseHour(String timeString) {
-        if (timeString == null || timeString.isEmpty()) {
-            return -1;
-        }
-        
-        try {
-            // Handle various formats like "9:00" or "09:00"
-            String hourPart = timeString.split(":")[0];
-            return Integer.parseInt(hourPart);
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing hour from time: " + timeString, e);
-            return -1;
-        }
+    private static String formatTime(int minuteOfDay) {
+        return String.format("%d:%02d", minuteOfDay / 60, minuteOfDay % 60);
     }
 }
@@ -0,0 +1,226 @@
+package com.example.manager.timetable;
+
+import java.util.Arrays;
+
+/**
+ * The teaching week the generators schedule into: how long a time slot is and when each day
+ * opens and closes.
+ *
+ * Every day shares one grid of slots, starting at the earliest opening time of the week and
+ * ending at the latest closing time. Slot {@code s} starts {@code s * slotMinutes} minutes after
+ * the grid starts; on days with shorter hours the slots outside them are closed. Day indices
+ * follow {@link TimetableSymbols} (Monday is 0), and the week runs up to the last open day.
+ *
+ * The default is Monday to Friday, 9:00 to 17:00, in one-hour slots.
+ */
+public class SlotCalendar {
+    public static final int DEFAULT_SLOT_MINUTES = 60;
+    public static final int DEFAULT_OPEN_MINUTE = 9 * 60;
+    public static final int DEFAULT_CLOSE_MINUTE = 17 * 60;
+
+    // The occupancy grid keeps a day of slots in one long
+    private static final int MAX_SLOTS_PER_DAY = Long.SIZE;
+    private static final int SATURDAY = 5;
+
+    private int slotMinutes;
+    // Per day index; a day with openMinute >= closeMinute is closed
+    private final int[] openMinute = new int[TimetableSymbols.DAY_NAMES.length];
+    private final int[] closeMinute = new int[TimetableSymbols.DAY_NAMES.length];
+
+    /**
+     * Creates the default calendar: Monday to Friday, 9:00 to 17:00, one-hour slots.
+     */
+    public SlotCalendar() {
+        this.slotMinutes = DEFAULT_SLOT_MINUTES;
+        for (int d = 0; d < SATURDAY; d++) {
+            openMinute[d] = DEFAULT_OPEN_MINUTE;
+            closeMinute[d] = DEFAULT_CLOSE_MINUTE;
+        }
+    }
+
+    /**
+     * Creates a copy of another calendar.
+     */
+    public SlotCalendar(SlotCalendar other) {
+        this.slotMinutes = other.slotMinutes;
+        System.arraycopy(other.openMinute, 0, openMinute, 0, openMinute.length);
+        System.arraycopy(other.closeMinute, 0, closeMinute, 0, closeMinute.length);
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    /**
+     * Sets the length of a time slot. Sessions start on slot boundaries and last a whole
+     * number of slots.
+     *
+     * @param slotMinutes Slot length in minutes; must divide an hour or a whole number of hours
+     */
+    public void setSlotMinutes(int slotMinutes) {
+        if (slotMinutes <= 0 || (60 % slotMinutes != 0 && slotMinutes % 60 != 0)) {
+            throw new IllegalArgumentException("Slot length must divide an hour or be whole hours: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+        checkSlotsPerDay();
+    }
+
+    /**
+     * Sets when teaching starts and ends on a day.
+     *
+     * @param day Day index, Monday being 0
+     * @param openMinute Start of teaching in minutes since midnight, e.g. 540 for 9:00
+     * @param closeMinute End of teaching in minutes since midnight; not after openMinute closes the day
+     */
+    public void setOpeningHours(int day, int openMinute, int closeMinute) {
+        if (day < 0 || day >= this.openMinute.length) {
+            throw new IllegalArgumentException("Invalid day index: " + day);
+        }
+        if (openMinute < 0 || closeMinute > TimetableSymbols.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Opening hours outside the day: " + openMinute + "-" + closeMinute);
+        }
+        this.openMinute[day] = openMinute;
+        this.closeMinute[day] = closeMinute;
+        checkSlotsPerDay();
+    }
+
+    /**
+     * Closes a day, so nothing is scheduled on it.
+     */
+    public void setClosed(int day) {
+        setOpeningHours(day, 0, 0);
+    }
+
+    /**
+     * Opens Saturday with Monday's hours, or closes it.
+     */
+    public void setSaturdayTeaching(boolean saturdayTeaching) {
+        if (saturdayTeaching) {
+            setOpeningHours(SATURDAY, openMinute[0], closeMinute[0]);
+        } else {
+            setClosed(SATURDAY);
+        }
+    }
+
+    public boolean hasSaturdayTeaching() {
+        return isOpenDay(SATURDAY);
+    }
+
+    /**
+     * Checks whether there is any teaching on a day.
+     */
+    public boolean isOpenDay(int day) {
+        return day >= 0 && day < openMinute.length && openMinute[day] < closeMinute[day];
+    }
+
+    /**
+     * Gets the number of days in the scheduling week: Monday up to the last open day.
+     */
+    public int getDays() {
+        for (int d = openMinute.length - 1; d > 0; d--) {
+            if (isOpenDay(d)) {
+                return d + 1;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Gets the minute of the day at which slot 0 starts: the earliest opening time of the week.
+     */
+    public int getFirstMinute() {
+        int first = Integer.MAX_VALUE;
+        for (int d = 0; d < openMinute.length; d++) {
+            if (isOpenDay(d)) {
+                first = Math.min(first, openMinute[d]);
+            }
+        }
+        return first == Integer.MAX_VALUE ? DEFAULT_OPEN_MINUTE : first;
+    }
+
+    /**
+     * Gets the number of slots in a day, from the earliest opening to the latest closing time of the week.
+     */
+    public int getSlotsPerDay() {
+        int last = getFirstMinute();
+        for (int d = 0; d < closeMinute.length; d++) {
+            if (isOpenDay(d)) {
+                last = Math.max(last, closeMinute[d]);
+            }
+        }
+        return Math.max(1, (last - getFirstMinute()) / slotMinutes);
+    }
+
+    /**
+     * Gets the minute of the day at which a slot starts.
+     */
+    public int getSlotStartMinute(int slot) {
+        return getFirstMinute() + slot * slotMinutes;
+    }
+
+    /**
+     * Gets the slot a minute of the day falls in. The result may be negative or past the last
+     * slot for times outside the grid.
+     */
+    public int slotOf(int minuteOfDay) {
+        return Math.floorDiv(minuteOfDay - getFirstMinute(), slotMinutes);
+    }
+
+    /**
+     * Gets the slot after the last one touched by a booking that ends at a minute of the day,
+     * so that [slotOf(start), slotEndingAt(end)) covers the booking.
+     */
+    public int slotEndingAt(int minuteOfDay) {
+        return -Math.floorDiv(getFirstMinute() - minuteOfDay, slotMinutes);
+    }
+
+    /**
+     * Checks whether a run of slots starting at {@code slot} lies within a day's opening hours.
+     */
+    public boolean isOpen(int day, int slot, int length) {
+        if (!isOpenDay(day) || slot < 0 || length <= 0 || slot + length > getSlotsPerDay()) {
+            return false;
+        }
+        int start = getSlotStartMinute(slot);
+        return start >= openMinute[day] && start + length * slotMinutes <= closeMinute[day];
+    }
+
+    /**
+     * Gets the slots of a day at which a run of {@code length} slots can start, as a bitmask
+     * (bit s set means the run starting at slot s is open).
+     */
+    public long openStartMask(int day, int length) {
+        long mask = 0L;
+        int slots = getSlotsPerDay();
+        for (int s = 0; s < slots; s++) {
+            if (isOpen(day, s, length)) {
+                mask |= 1L << s;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the number of slots a session of a course takes.
+     *
+     * @param durationHours The course's session length in hours, or 0 or less for one hour
+     */
+    public int slotsForDuration(int durationHours) {
+        int minutes = (durationHours > 0 ? durationHours : 1) * 60;
+        return Math.max(1, (minutes + slotMinutes - 1) / slotMinutes);
+    }
+
+    @Override
+    public String toString() {
+        return "SlotCalendar{" + slotMinutes + "min slots, " + getDays() + " days x " + getSlotsPerDay() +
+                " slots from " + getFirstMinute() / 60 + ":" + String.format("%02d", getFirstMinute() % 60) +
+                ", open=" + Arrays.toString(openMinute) + ", close=" + Arrays.toString(closeMinute) + "}";
+    }
+
+    private void checkSlotsPerDay() {
+        if (getSlotsPerDay() > MAX_SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("A day of " + getSlotsPerDay() + " slots of " + slotMinutes +
+                    " minutes is longer than the " + MAX_SLOTS_PER_DAY + " slots the generators support");
+        }
+    }
+}
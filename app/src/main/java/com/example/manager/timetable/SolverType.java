@@ -12,5 +12,11 @@ public enum SolverType {
     /**
      * Advanced Choco solver with complex constraint satisfaction
      */
-    CHOCO
+    CHOCO,
+    
+    /**
+     * Runs the simple solver and several Choco searches in parallel and keeps the first
+     * complete conflict-free timetable
+     */
+    PORTFOLIO
 }
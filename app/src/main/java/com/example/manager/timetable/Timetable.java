@@ -56,9 +56,13 @@ public class Timetable {
      */
     public List<TimetableSession> getSessionsByDay(String dayOfWeek) {
         List<TimetableSession> result = new ArrayList<>();
+        int day = TimetableSymbols.dayIndex(dayOfWeek);
+        if (day < 0) {
+            return result;
+        }
         
         for (TimetableSession session : sessions) {
-            if (session.getDayOfWeek().equalsIgnoreCase(dayOfWeek)) {
+            if (TimetableSymbols.dayIndex(session.getDayOfWeek()) == day) {
                 result.add(session);
             }
         }
@@ -0,0 +1,179 @@
+package com.example.manager.timetable;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes an edit to an already generated timetable: courses that were added, removed or
+ * changed, and resources or lecturers that are no longer available.
+ *
+ * Used with {@link TimetableGenerator#updateTimetable} so that only the sessions touched by the
+ * edit are placed again while every other session keeps its day, time, room and lecturer.
+ */
+public class TimetableDelta {
+    private final Map<String, Course> addedCourses = new LinkedHashMap<>();
+    private final Map<String, Course> changedCourses = new LinkedHashMap<>();
+    private final Set<String> removedCourseIds = new HashSet<>();
+    private final Set<String> unavailableResourceIds = new HashSet<>();
+    private final Set<String> unavailableLecturerIds = new HashSet<>();
+
+    /**
+     * Adds a new course whose sessions need to be placed.
+     */
+    public void addCourse(Course course) {
+        addedCourses.put(course.getId(), course);
+    }
+
+    /**
+     * Replaces a course; all of its previous sessions are placed again.
+     */
+    public void changeCourse(Course course) {
+        changedCourses.put(course.getId(), course);
+    }
+
+    /**
+     * Removes a course and all of its sessions.
+     */
+    public void removeCourse(String courseId) {
+        removedCourseIds.add(courseId);
+    }
+
+    /**
+     * Marks a resource unavailable; sessions using it are moved elsewhere.
+     */
+    public void markResourceUnavailable(String resourceId) {
+        unavailableResourceIds.add(resourceId);
+    }
+
+    /**
+     * Marks a lecturer unavailable; sessions taught by them are moved to another lecturer or slot.
+     */
+    public void markLecturerUnavailable(String lecturerId) {
+        unavailableLecturerIds.add(lecturerId);
+    }
+
+    public List<Course> getAddedCourses() {
+        return new ArrayList<>(addedCourses.values());
+    }
+
+    public List<Course> getChangedCourses() {
+        return new ArrayList<>(changedCourses.values());
+    }
+
+    public Set<String> getRemovedCourseIds() {
+        return removedCourseIds;
+    }
+
+    public Set<String> getUnavailableResourceIds() {
+        return unavailableResourceIds;
+    }
+
+    public Set<String> getUnavailableLecturerIds() {
+        return unavailableLecturerIds;
+    }
+
+    /**
+     * Checks whether the delta changes nothing.
+     */
+    public boolean isEmpty() {
+        return addedCourses.isEmpty() && changedCourses.isEmpty() && removedCourseIds.isEmpty()
+                && unavailableResourceIds.isEmpty() && unavailableLecturerIds.isEmpty();
+    }
+
+    /**
+     * Checks whether all sessions of a course have to be placed from scratch.
+     */
+    public boolean isCourseReplaced(String courseId) {
+        return addedCourses.containsKey(courseId) || changedCourses.containsKey(courseId)
+                || removedCourseIds.contains(courseId);
+    }
+
+    /**
+     * Checks whether a previously scheduled session has to be dropped or moved.
+     */
+    public boolean affects(TimetableSession session) {
+        return isCourseReplaced(session.getCourseId())
+                || unavailableResourceIds.contains(session.getResourceId())
+                || unavailableLecturerIds.contains(session.getLecturerId());
+    }
+
+    /**
+     * Returns the sessions of the previous timetable that stay exactly where they are.
+     */
+    public List<TimetableSession> getPinnedSessions(Timetable previous) {
+        List<TimetableSession> pinned = new ArrayList<>();
+        if (previous != null && previous.getSessions() != null) {
+            for (TimetableSession session : previous.getSessions()) {
+                if (!affects(session)) {
+                    pinned.add(session);
+                }
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Counts, per course, the sessions that lost their room or lecturer and must be moved.
+     * Courses that are added, changed or removed are not included.
+     */
+    public Map<String, Integer> getDisplacedSessionCounts(Timetable previous) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (previous != null && previous.getSessions() != null) {
+            for (TimetableSession session : previous.getSessions()) {
+                if (affects(session) && !isCourseReplaced(session.getCourseId())) {
+                    counts.merge(session.getCourseId(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Applies the course edits to the department's course list.
+     */
+    public List<Course> applyToCourses(List<Course> courses) {
+        List<Course> result = new ArrayList<>();
+        for (Course course : courses) {
+            if (removedCourseIds.contains(course.getId()) || addedCourses.containsKey(course.getId())) {
+                continue;
+            }
+            result.add(changedCourses.getOrDefault(course.getId(), course));
+        }
+        result.addAll(addedCourses.values());
+        return result;
+    }
+
+    /**
+     * Returns the resources that are still available.
+     */
+    public List<Resource> filterResources(List<Resource> resources) {
+        List<Resource> result = new ArrayList<>();
+        for (Resource resource : resources) {
+            if (!unavailableResourceIds.contains(resource.getId())) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lecturers that are still available.
+     */
+    public List<Lecturer> filterLecturers(List<Lecturer> lecturers) {
+        List<Lecturer> result = new ArrayList<>();
+        for (Lecturer lecturer : lecturers) {
+            if (!unavailableLecturerIds.contains(lecturer.getId())) {
+                result.add(lecturer);
+            }
+        }
+        return result;
+    }
+}
@@ -31,6 +31,21 @@ public interface TimetableGenerator {
     Timetable generateTimetable(List<Resource> resources, List<Lecturer> lecturers, List<Course> courses, 
                                TimetableGeneratorOptions options);
 
+    /**
+     * Updates a previously generated timetable after an edit. Only the sessions affected by the
+     * delta are placed again; every other session keeps its day, time, room and lecturer.
+     *
+     * @param previous The timetable to update
+     * @param delta Courses added, removed or changed and resources/lecturers no longer available
+     * @param resources List of available resources (rooms/labs)
+     * @param lecturers List of available lecturers
+     * @param courses The department's courses before the delta is applied
+     * @param options Configuration options for timetable generation
+     * @return The updated timetable
+     */
+    Timetable updateTimetable(Timetable previous, TimetableDelta delta, List<Resource> resources,
+                              List<Lecturer> lecturers, List<Course> courses, TimetableGeneratorOptions options);
+
     /**
      * Checks if a timetable has any conflicts.
      *
@@ -2,6 +2,7 @@ package com.example.manager.timetable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Configuration options for timetable generation.
@@ -14,8 +15,24 @@ public class TimetableGeneratorOptions {
     private boolean preferEvenDistribution;
     private boolean spreadCourseSessions;
     private int maxHoursPerDay;
+    private boolean useCompactModel; // Choco: global constraints instead of pairwise ones
+    private boolean useBookingTables; // Choco: other departments' bookings as tables, not pairwise constraints
     private ResourceFilter filter; // Added resource filter field
     private List<TimetableSession> existingTimetableSessions; // Existing sessions from other departments
+    private ReservationLedger reservationLedger; // Shared with departments generated concurrently
+    private String reservationOwner;
+    private long timeLimitMs; // 0 = generator default
+    private long searchSeed; // Choco: 0 = default search, otherwise seeded tie-breaking
+    private SearchStrategy searchStrategy = SearchStrategy.DEFAULT; // Choco: variable ordering
+    private RestartPolicy restartPolicy = RestartPolicy.NONE; // Choco: when to restart the search
+    private boolean recordNogoods; // Choco: learn from restarts
+    private AtomicBoolean cancellationFlag; // Set by another thread to stop generation early
+    private SlotCalendar slotCalendar; // Slot length and opening hours of the teaching week
+    private GenerationMetrics metrics; // Records model size and solver statistics, if set
+    private String metricsScope;
+    private boolean warmStart; // Choco: start the search from the greedy generator's timetable
+    private long lnsTimeLimitMs; // Choco: time to improve the first solution by LNS, 0 = off
+    private boolean breakSymmetries; // Choco: order interchangeable sessions and rooms
     
     // Singleton instance
     private static TimetableGeneratorOptions instance;
@@ -40,8 +57,10 @@ public class TimetableGeneratorOptions {
         this.preferEvenDistribution = false;
         this.spreadCourseSessions = false;
         this.maxHoursPerDay = 6; // Default max hours
+        this.useCompactModel = false;
         this.filter = null; // Default no filter
         this.existingTimetableSessions = new ArrayList<>(); // Default empty list
+        this.slotCalendar = new SlotCalendar(); // Monday to Friday, 9:00 to 17:00, hourly
     }
     
     /**
@@ -60,8 +79,43 @@ public class TimetableGeneratorOptions {
         this.preferEvenDistribution = preferEvenDistribution;
         this.spreadCourseSessions = spreadCourseSessions;
         this.maxHoursPerDay = maxHoursPerDay;
+        this.useCompactModel = false;
         this.filter = null; // Default no filter
         this.existingTimetableSessions = new ArrayList<>(); // Default empty list
+        this.slotCalendar = new SlotCalendar(); // Monday to Friday, 9:00 to 17:00, hourly
+    }
+    
+    /**
+     * Creates a copy of another set of options. The list of existing sessions is copied so it
+     * can be extended without touching the original.
+     * 
+     * @param other The options to copy
+     */
+    public TimetableGeneratorOptions(TimetableGeneratorOptions other) {
+        this.avoidBackToBackClasses = other.avoidBackToBackClasses;
+        this.avoidBackToBackStudents = other.avoidBackToBackStudents;
+        this.preferEvenDistribution = other.preferEvenDistribution;
+        this.spreadCourseSessions = other.spreadCourseSessions;
+        this.maxHoursPerDay = other.maxHoursPerDay;
+        this.useCompactModel = other.useCompactModel;
+        this.useBookingTables = other.useBookingTables;
+        this.filter = other.filter;
+        this.existingTimetableSessions = other.existingTimetableSessions != null
+                ? new ArrayList<>(other.existingTimetableSessions) : new ArrayList<>();
+        this.reservationLedger = other.reservationLedger;
+        this.reservationOwner = other.reservationOwner;
+        this.timeLimitMs = other.timeLimitMs;
+        this.searchSeed = other.searchSeed;
+        this.searchStrategy = other.searchStrategy;
+        this.restartPolicy = other.restartPolicy;
+        this.recordNogoods = other.recordNogoods;
+        this.cancellationFlag = other.cancellationFlag;
+        this.slotCalendar = new SlotCalendar(other.slotCalendar);
+        this.metrics = other.metrics;
+        this.metricsScope = other.metricsScope;
+        this.warmStart = other.warmStart;
+        this.lnsTimeLimitMs = other.lnsTimeLimitMs;
+        this.breakSymmetries = other.breakSymmetries;
     }
     
     /**
@@ -154,6 +208,47 @@ public class TimetableGeneratorOptions {
         this.maxHoursPerDay = maxHoursPerDay;
     }
     
+    /**
+     * Determines whether the Choco solver should build the compact model, which uses a
+     * combined slot variable per session and global constraints instead of pairwise ones.
+     * 
+     * @return true if the compact model should be used, false otherwise
+     */
+    public boolean shouldUseCompactModel() {
+        return useCompactModel;
+    }
+    
+    /**
+     * Sets whether the Choco solver should build the compact model.
+     * 
+     * @param useCompactModel true to use the compact model, false for the pairwise model
+     */
+    public void setUseCompactModel(boolean useCompactModel) {
+        this.useCompactModel = useCompactModel;
+    }
+    
+    /**
+     * Determines whether the Choco solver applies the sessions of other departments as one
+     * table per session instead of constraints per existing and new session pair.
+     * 
+     * @return true if bookings are applied as tables, false otherwise
+     */
+    public boolean shouldUseBookingTables() {
+        return useBookingTables;
+    }
+    
+    /**
+     * Sets whether the Choco solver applies the sessions of other departments as tables. The
+     * bookings are compiled into the slots each room and lecturer is busy in, and every session
+     * gets at most one table of its legal (day, start, room) and one of its legal (day, start,
+     * lecturer) triples, so the model doesn't grow with the number of existing sessions.
+     * 
+     * @param useBookingTables true to use tables, false for constraints per pair of sessions
+     */
+    public void setUseBookingTables(boolean useBookingTables) {
+        this.useBookingTables = useBookingTables;
+    }
+    
     /**
      * Gets the resource filter for this timetable generation.
      * 
@@ -189,4 +284,280 @@ public class TimetableGeneratorOptions {
     public void setExistingTimetableSessions(List<TimetableSession> existingTimetableSessions) {
         this.existingTimetableSessions = existingTimetableSessions;
     }
+    
+    /**
+     * Gets the ledger used to claim rooms and lecturers while other departments are being
+     * generated concurrently.
+     * 
+     * @return The shared reservation ledger, or null if generation is not concurrent
+     */
+    public ReservationLedger getReservationLedger() {
+        return reservationLedger;
+    }
+    
+    /**
+     * Gets the department that claims slots in the reservation ledger.
+     * 
+     * @return The owner used for ledger claims
+     */
+    public String getReservationOwner() {
+        return reservationOwner;
+    }
+    
+    /**
+     * Sets the ledger used to claim rooms and lecturers at assignment time.
+     * 
+     * @param reservationLedger The shared reservation ledger
+     * @param reservationOwner The department making the claims
+     */
+    public void setReservationLedger(ReservationLedger reservationLedger, String reservationOwner) {
+        this.reservationLedger = reservationLedger;
+        this.reservationOwner = reservationOwner;
+    }
+    
+    /**
+     * Gets the time the solver may spend on one generation.
+     * 
+     * @return Time limit in milliseconds, or 0 to use the generator's default
+     */
+    public long getTimeLimitMs() {
+        return timeLimitMs;
+    }
+    
+    /**
+     * Sets the time the solver may spend on one generation. When set, the Choco solver
+     * treats it as a hard deadline and does not retry with a longer limit.
+     * 
+     * @param timeLimitMs Time limit in milliseconds, or 0 to use the generator's default
+     */
+    public void setTimeLimitMs(long timeLimitMs) {
+        this.timeLimitMs = timeLimitMs;
+    }
+    
+    /**
+     * Gets the seed used by the Choco solver to break ties between equally good variables.
+     * 
+     * @return The search seed, or 0 for Choco's default search
+     */
+    public long getSearchSeed() {
+        return searchSeed;
+    }
+    
+    /**
+     * Sets the seed used by the Choco solver to break ties between equally good variables.
+     * Different seeds explore the search space in a different order.
+     * 
+     * @param searchSeed The search seed, or 0 for Choco's default search
+     */
+    public void setSearchSeed(long searchSeed) {
+        this.searchSeed = searchSeed;
+    }
+    
+    /**
+     * Gets the variable ordering of the Choco solver's search.
+     * 
+     * @return The search strategy
+     */
+    public SearchStrategy getSearchStrategy() {
+        return searchStrategy;
+    }
+    
+    /**
+     * Sets the variable ordering of the Choco solver's search. Every strategy except
+     * {@link SearchStrategy#DEFAULT} is combined with last-conflict reasoning, which retries
+     * the variable that caused the last fail first.
+     * 
+     * @param searchStrategy The search strategy
+     */
+    public void setSearchStrategy(SearchStrategy searchStrategy) {
+        if (searchStrategy == null) {
+            throw new IllegalArgumentException("Search strategy must not be null");
+        }
+        this.searchStrategy = searchStrategy;
+    }
+    
+    /**
+     * Gets when the Choco solver restarts its search.
+     * 
+     * @return The restart policy
+     */
+    public RestartPolicy getRestartPolicy() {
+        return restartPolicy;
+    }
+    
+    /**
+     * Sets when the Choco solver restarts its search. Restarts help strategies that learn
+     * from fails, such as dom/wdeg, to recover from bad decisions made early in the search.
+     * 
+     * @param restartPolicy The restart policy
+     */
+    public void setRestartPolicy(RestartPolicy restartPolicy) {
+        if (restartPolicy == null) {
+            throw new IllegalArgumentException("Restart policy must not be null");
+        }
+        this.restartPolicy = restartPolicy;
+    }
+    
+    /**
+     * Determines whether the Choco solver records nogoods on restarts.
+     * 
+     * @return true if nogoods are recorded, false otherwise
+     */
+    public boolean shouldRecordNogoods() {
+        return recordNogoods;
+    }
+    
+    /**
+     * Sets whether the Choco solver records the decisions that led to fails as nogoods when it
+     * restarts, so the restarted search doesn't explore them again. Has no effect without a
+     * restart policy.
+     * 
+     * @param recordNogoods true to record nogoods, false otherwise
+     */
+    public void setRecordNogoods(boolean recordNogoods) {
+        this.recordNogoods = recordNogoods;
+    }
+    
+    /**
+     * Gets the flag that stops generation when set.
+     * 
+     * @return The cancellation flag, or null if generation can't be cancelled
+     */
+    public AtomicBoolean getCancellationFlag() {
+        return cancellationFlag;
+    }
+    
+    /**
+     * Sets a flag that another thread can set to stop generation early. Generators check it
+     * between steps and throw a {@link java.util.concurrent.CancellationException} when it is set.
+     * 
+     * @param cancellationFlag The cancellation flag
+     */
+    public void setCancellationFlag(AtomicBoolean cancellationFlag) {
+        this.cancellationFlag = cancellationFlag;
+    }
+    
+    /**
+     * Checks whether generation has been cancelled.
+     * 
+     * @return true if the cancellation flag is set, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancellationFlag != null && cancellationFlag.get();
+    }
+    
+    /**
+     * Gets the teaching week the generators schedule into.
+     * 
+     * @return The slot calendar
+     */
+    public SlotCalendar getSlotCalendar() {
+        return slotCalendar;
+    }
+    
+    /**
+     * Sets the teaching week the generators schedule into: slot length, opening hours per day
+     * and whether Saturday is a teaching day.
+     * 
+     * @param slotCalendar The slot calendar, or null for the default Monday to Friday week
+     */
+    public void setSlotCalendar(SlotCalendar slotCalendar) {
+        this.slotCalendar = slotCalendar != null ? slotCalendar : new SlotCalendar();
+    }
+    
+    /**
+     * Gets the registry that generators record their model size and solver statistics in.
+     * 
+     * @return The metrics registry, or null if nothing is recorded
+     */
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the scope the generator's metrics are recorded under.
+     * 
+     * @return The scope, normally the department being generated
+     */
+    public String getMetricsScope() {
+        return metricsScope;
+    }
+    
+    /**
+     * Sets the registry that generators record their model size and solver statistics in.
+     * 
+     * @param metrics The metrics registry of the run, or null to record nothing
+     * @param metricsScope The scope to record under, normally the department being generated
+     */
+    public void setMetrics(GenerationMetrics metrics, String metricsScope) {
+        this.metrics = metrics;
+        this.metricsScope = metricsScope;
+    }
+    
+    /**
+     * Determines whether the Choco solver starts its search from the timetable of the greedy
+     * simple generator.
+     * 
+     * @return true if the search is warm started, false otherwise
+     */
+    public boolean shouldWarmStart() {
+        return warmStart;
+    }
+    
+    /**
+     * Sets whether the Choco solver first runs the greedy simple generator and uses its
+     * timetable as hints for the search, which usually finds a first solution much sooner.
+     * If the search finds nothing, the greedy timetable is used when it is complete.
+     * 
+     * @param warmStart true to warm start the search, false to search from scratch
+     */
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+    
+    /**
+     * Gets how long the Choco solver spends improving its first solution by large neighbourhood
+     * search.
+     * 
+     * @return The time in milliseconds, or 0 if the first solution is kept
+     */
+    public long getLnsTimeLimitMs() {
+        return lnsTimeLimitMs;
+    }
+    
+    /**
+     * Sets how long the Choco solver spends improving its first solution by large neighbourhood
+     * search: it repeatedly frees the sessions of one day, lecturer or room, keeps every other
+     * session where it is and re-solves for a better objective. This time comes on top of the
+     * time limit for finding the first solution.
+     * 
+     * @param lnsTimeLimitMs The time in milliseconds, or 0 to keep the first solution
+     */
+    public void setLnsTimeLimitMs(long lnsTimeLimitMs) {
+        if (lnsTimeLimitMs < 0) {
+            throw new IllegalArgumentException("Invalid LNS time limit: " + lnsTimeLimitMs);
+        }
+        this.lnsTimeLimitMs = lnsTimeLimitMs;
+    }
+    
+    /**
+     * Determines whether the Choco solver breaks symmetries between sessions and rooms.
+     * 
+     * @return true if symmetries are broken, false otherwise
+     */
+    public boolean shouldBreakSymmetries() {
+        return breakSymmetries;
+    }
+    
+    /**
+     * Sets whether the Choco solver breaks symmetries: the sessions of a course are
+     * interchangeable, so they are kept in order of day, start, room and lecturer, and rooms
+     * that every session can use equally and no other department has booked are used in order,
+     * so the search doesn't visit permutations of a timetable it has already rejected.
+     * 
+     * @param breakSymmetries true to break symmetries, false otherwise
+     */
+    public void setBreakSymmetries(boolean breakSymmetries) {
+        this.breakSymmetries = breakSymmetries;
+    }
 }
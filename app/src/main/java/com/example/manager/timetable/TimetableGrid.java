@@ -0,0 +1,116 @@
+package com.example.manager.timetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The sessions of a timetable bucketed by day and hour, as shown in the weekly grid.
+ *
+ * The buckets are filled in one pass over the sessions, so drawing a grid of D days by H hours
+ * costs O(n) instead of scanning every session for each of the D×H cells. A session appears in
+ * every hour it covers. Copies of the same session (same course, lecturer and hours on a day,
+ * e.g. from loading several departments) are listed once.
+ */
+public class TimetableGrid {
+    private static final String TAG = "TimetableGrid";
+
+    private final int days;
+    private final int startHour;
+    private final int endHour;
+    private final List<List<TimetableSession>> cells;
+
+    private TimetableGrid(int days, int startHour, int endHour) {
+        this.days = days;
+        this.startHour = startHour;
+        this.endHour = endHour;
+        int cellCount = days * (endHour - startHour);
+        this.cells = new ArrayList<>(Collections.nCopies(cellCount, (List<TimetableSession>) null));
+    }
+
+    /**
+     * Buckets sessions into a grid.
+     *
+     * @param sessions The sessions, in display order; sessions outside the grid are left out
+     * @param days Number of days shown, starting with Monday
+     * @param startHour First hour shown
+     * @param endHour Hour after the last one shown
+     */
+    public static TimetableGrid build(List<TimetableSession> sessions, int days, int startHour, int endHour) {
+        TimetableGrid grid = new TimetableGrid(days, startHour, Math.max(startHour, endHour));
+        if (sessions == null) {
+            return grid;
+        }
+
+        List<Set<String>> seenByDay = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            seenByDay.add(new HashSet<>());
+        }
+
+        int placed = 0;
+        for (TimetableSession session : sessions) {
+            int day = TimetableSymbols.dayIndex(session.getDayOfWeek());
+            int sessionStart = hourOf(session.getStartTime());
+            int sessionEnd = hourOf(session.getEndTime());
+            if (day < 0 || day >= days || sessionStart < 0 || sessionEnd <= sessionStart) {
+                continue;
+            }
+
+            String uniqueKey = session.getCourseId() + "_" + session.getLecturerId() + "_" +
+                    sessionStart + "_" + sessionEnd;
+            if (!seenByDay.get(day).add(uniqueKey)) {
+                continue;
+            }
+
+            int from = Math.max(sessionStart, grid.startHour);
+            int to = Math.min(sessionEnd, grid.endHour);
+            for (int hour = from; hour < to; hour++) {
+                int cell = grid.cellIndex(day, hour);
+                List<TimetableSession> bucket = grid.cells.get(cell);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(2);
+                    grid.cells.set(cell, bucket);
+                }
+                bucket.add(session);
+            }
+            if (from < to) {
+                placed++;
+            }
+        }
+
+        int placedSessions = placed;
+        TimetableLog.d(TAG, () -> "Bucketed " + placedSessions + " unique sessions of " + sessions.size() +
+                " into a " + days + "x" + (grid.endHour - grid.startHour) + " grid");
+        return grid;
+    }
+
+    /**
+     * Gets the sessions that take place on a day during an hour.
+     *
+     * @param day Day index, Monday being 0
+     * @param hour Hour of the day
+     * @return The sessions in display order; empty (and read-only) if there are none or the
+     *         cell is outside the grid
+     */
+    public List<TimetableSession> getSessions(int day, int hour) {
+        if (day < 0 || day >= days || hour < startHour || hour >= endHour) {
+            return Collections.emptyList();
+        }
+        List<TimetableSession> bucket = cells.get(cellIndex(day, hour));
+        return bucket != null ? Collections.unmodifiableList(bucket) : Collections.emptyList();
+    }
+
+    private int cellIndex(int day, int hour) {
+        return day * (endHour - startHour) + (hour - startHour);
+    }
+
+    /**
+     * The hour a time falls in, e.g. 9 for "09:30", or -1 if the time can't be read.
+     */
+    private static int hourOf(String time) {
+        int minute = TimetableSymbols.minuteOfDay(time);
+        return minute >= 0 ? minute / 60 : -1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.manager.timetable;
+
+import java.util.function.Supplier;
+
+/**
+ * Logging used by the timetable engine instead of {@code android.util.Log}, so the engine can
+ * also run on a plain JVM (benchmarks, command line tools).
+ *
+ * Messages go to a {@link Sink}; the app installs one that forwards to logcat, and the default
+ * prints to the console. Messages below the minimum level are dropped before they reach the
+ * sink. The {@link Supplier} overloads only build the message when the level is enabled, so
+ * debug logging inside solver loops costs no string concatenation when debug is off.
+ */
+public final class TimetableLog {
+    // Same values as the android.util.Log priorities
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    // Minimum level that turns logging off completely
+    public static final int OFF = Integer.MAX_VALUE;
+
+    /**
+     * Receives the messages that pass the level check.
+     */
+    public interface Sink {
+        void log(int level, String tag, String message, Throwable error);
+    }
+
+    private static final Sink CONSOLE_SINK = (level, tag, message, error) -> {
+        java.io.PrintStream out = level >= WARN ? System.err : System.out;
+        out.println(levelName(level) + "/" + tag + ": " + message);
+        if (error != null) {
+            error.printStackTrace(out);
+        }
+    };
+
+    private static volatile Sink sink = CONSOLE_SINK;
+    private static volatile int minLevel = INFO;
+
+    private TimetableLog() {
+    }
+
+    /**
+     * Sets where messages go. Passing null restores the console sink.
+     */
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : CONSOLE_SINK;
+    }
+
+    /**
+     * Sets the lowest level that is logged, e.g. {@link #DEBUG} to see solver details.
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static int getMinLevel() {
+        return minLevel;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    /**
+     * Checks whether debug messages are logged; use it to skip building debug-only data.
+     */
+    public static boolean isDebugEnabled() {
+        return DEBUG >= minLevel;
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG >= minLevel) {
+            sink.log(DEBUG, tag, message, null);
+        }
+    }
+
+    public static void d(String tag, Supplier<String> message) {
+        if (DEBUG >= minLevel) {
+            sink.log(DEBUG, tag, message.get(), null);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (INFO >= minLevel) {
+            sink.log(INFO, tag, message, null);
+        }
+    }
+
+    public static void i(String tag, Supplier<String> message) {
+        if (INFO >= minLevel) {
+            sink.log(INFO, tag, message.get(), null);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (WARN >= minLevel) {
+            sink.log(WARN, tag, message, null);
+        }
+    }
+
+    public static void w(String tag, Supplier<String> message) {
+        if (WARN >= minLevel) {
+            sink.log(WARN, tag, message.get(), null);
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (ERROR >= minLevel) {
+            sink.log(ERROR, tag, message, null);
+        }
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        if (ERROR >= minLevel) {
+            sink.log(ERROR, tag, message, error);
+        }
+    }
+
+    private static String levelName(int level) {
+        switch (level) {
+            case VERBOSE: return "V";
+            case DEBUG: return "D";
+            case INFO: return "I";
+            case WARN: return "W";
+            default: return "E";
+        }
+    }
+}
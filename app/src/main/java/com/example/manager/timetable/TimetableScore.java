@@ -0,0 +1,150 @@
+package com.example.manager.timetable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Soft-constraint quality of a timetable: how unevenly sessions are spread over the week and
+ * how many back-to-back hours students and lecturers get. Lower is better for every figure.
+ *
+ * Scores are computed from the sessions themselves, so timetables from any generator can be
+ * compared. The Choco solver's own objective value is carried along when there is one.
+ */
+public class TimetableScore {
+    private static final int WEEKDAYS = 5;
+
+    private final int dayImbalance;
+    private final int studentBackToBack;
+    private final int lecturerBackToBack;
+    private final int objectiveValue;
+    private final int solutionNumber;
+    private final long elapsedMs;
+
+    public TimetableScore(int dayImbalance, int studentBackToBack, int lecturerBackToBack,
+                          int objectiveValue, int solutionNumber, long elapsedMs) {
+        this.dayImbalance = dayImbalance;
+        this.studentBackToBack = studentBackToBack;
+        this.lecturerBackToBack = lecturerBackToBack;
+        this.objectiveValue = objectiveValue;
+        this.solutionNumber = solutionNumber;
+        this.elapsedMs = elapsedMs;
+    }
+
+    /**
+     * Scores a timetable.
+     *
+     * @param timetable The timetable to score
+     * @param objectiveValue The solver's objective value, or -1 if there is none
+     * @param solutionNumber Which solution of the search this is, starting at 1
+     * @param elapsedMs Time spent searching until this solution was found
+     */
+    public static TimetableScore evaluate(Timetable timetable, int objectiveValue, int solutionNumber, long elapsedMs) {
+        int[] sessionsPerDay = new int[WEEKDAYS];
+        // day -> hours in use by the department, and lecturer|day -> hours they teach
+        Map<String, Set<Integer>> studentHours = new HashMap<>();
+        Map<String, Set<Integer>> lecturerHours = new HashMap<>();
+
+        if (timetable != null && timetable.getSessions() != null) {
+            for (TimetableSession session : timetable.getSessions()) {
+                int hour = parseHour(session.getStartTime());
+                String day = session.getDayOfWeek();
+                if (day == null || hour < 0) {
+                    continue;
+                }
+                int dayIndex = TimetableSymbols.dayIndex(day);
+                if (dayIndex >= 0 && dayIndex < WEEKDAYS) {
+                    sessionsPerDay[dayIndex]++;
+                }
+                studentHours.computeIfAbsent(day, k -> new HashSet<>()).add(hour);
+                if (session.getLecturerId() != null) {
+                    lecturerHours.computeIfAbsent(session.getLecturerId() + "|" + day, k -> new HashSet<>()).add(hour);
+                }
+            }
+        }
+
+        int max = 0;
+        int min = Integer.MAX_VALUE;
+        for (int count : sessionsPerDay) {
+            max = Math.max(max, count);
+            min = Math.min(min, count);
+        }
+        return new TimetableScore(max - min, countAdjacentHours(studentHours), countAdjacentHours(lecturerHours),
+                objectiveValue, solutionNumber, elapsedMs);
+    }
+
+    /**
+     * Gets the difference in sessions between the busiest and the quietest day.
+     */
+    public int getDayImbalance() {
+        return dayImbalance;
+    }
+
+    /**
+     * Gets the number of hours in which students go straight from one class to the next.
+     */
+    public int getStudentBackToBack() {
+        return studentBackToBack;
+    }
+
+    /**
+     * Gets the number of hours in which a lecturer goes straight from one class to the next.
+     */
+    public int getLecturerBackToBack() {
+        return lecturerBackToBack;
+    }
+
+    /**
+     * Gets the solver's objective value, or -1 if the timetable wasn't produced by an optimizing search.
+     */
+    public int getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    public int getSolutionNumber() {
+        return solutionNumber;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * Combines the figures into one penalty, weighting student back-to-back hours like the
+     * Choco model does.
+     */
+    public int getTotalPenalty() {
+        return dayImbalance + 20 * studentBackToBack + lecturerBackToBack;
+    }
+
+    @Override
+    public String toString() {
+        return "solution #" + solutionNumber + " after " + elapsedMs + "ms: dayImbalance=" + dayImbalance +
+                ", studentBackToBack=" + studentBackToBack + ", lecturerBackToBack=" + lecturerBackToBack +
+                (objectiveValue >= 0 ? ", objective=" + objectiveValue : "");
+    }
+
+    private static int countAdjacentHours(Map<String, Set<Integer>> hoursByKey) {
+        int count = 0;
+        for (Set<Integer> hours : hoursByKey.values()) {
+            for (int hour : hours) {
+                if (hours.contains(hour + 1)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int parseHour(String time) {
+        if (time == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(time.split(":")[0].trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.manager.timetable;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  Represents a single session in a timetable lecture, lab, et
  */
@@ -152,6 +155,35 @@ public class TimetableSession {
         this.department = department;
     }
     
+    /**
+     * Returns the session as the map Firebase would store for it, with the same keys as
+     * its getters. Fields that are not set are left out.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        putIfSet(map, "id", id);
+        putIfSet(map, "courseId", courseId);
+        putIfSet(map, "courseName", courseName);
+        putIfSet(map, "lecturerId", lecturerId);
+        putIfSet(map, "lecturerName", lecturerName);
+        putIfSet(map, "resourceId", resourceId);
+        putIfSet(map, "resourceName", resourceName);
+        putIfSet(map, "dayOfWeek", dayOfWeek);
+        putIfSet(map, "startTime", startTime);
+        putIfSet(map, "endTime", endTime);
+        putIfSet(map, "sessionType", sessionType);
+        putIfSet(map, "timetableId", timetableId);
+        putIfSet(map, "uniqueSessionKey", uniqueSessionKey);
+        putIfSet(map, "department", department);
+        return map;
+    }
+    
+    private static void putIfSet(Map<String, Object> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+    
     /**
      * Check if this session overlaps with another session
      * 
@@ -159,15 +191,7 @@ public class TimetableSession {
      * @return true if sessions overlap, false otherwise
      */
     public boolean overlapsWith(TimetableSession other) {
-        // Only sessions on the same day can overlap
-        if (!this.dayOfWeek.equals(other.dayOfWeek)) {
-            return false;
-        }
-        
-        // Convert time strings to comparable values
-        // This is a simplified approach - in a real implementation you might want to use
-        // proper time objects or integers representing minutes since midnight
-        return !(this.endTime.compareTo(other.startTime) <= 0 || 
-                 this.startTime.compareTo(other.endTime) >= 0);
+        // Compare minutes since midnight; comparing "9:00" with "10:00" as strings gets it wrong
+        return ConflictDetector.overlaps(this, other);
     }
 }
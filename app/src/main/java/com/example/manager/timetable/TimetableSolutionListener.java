@@ -0,0 +1,15 @@
+package com.example.manager.timetable;
+
+/**
+ * Receives the timetables found by an anytime search, each one better than the last.
+ */
+public interface TimetableSolutionListener {
+    /**
+     * Called on the solver thread for every improving timetable.
+     *
+     * @param timetable A complete, conflict-free timetable
+     * @param score Its quality and when it was found
+     * @return true to keep searching for a better timetable, false to stop and keep this one
+     */
+    boolean onSolution(Timetable timetable, TimetableScore score);
+}
@@ -0,0 +1,77 @@
+package com.example.manager.timetable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed indices of the days of the week and parsing of session times, so the engine can
+ * compare days and times as ints instead of strings.
+ */
+public final class TimetableSymbols {
+    /**
+     * Day names in index order; Monday is 0.
+     */
+    public static final String[] DAY_NAMES = {
+            "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+    };
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final Map<String, Integer> DAY_INDICES = new HashMap<>();
+    static {
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            DAY_INDICES.put(DAY_NAMES[d], d);
+            DAY_INDICES.put(DAY_NAMES[d].toLowerCase(), d);
+            DAY_INDICES.put(DAY_NAMES[d].toUpperCase(), d);
+        }
+    }
+
+    private TimetableSymbols() {
+    }
+
+    /**
+     * Returns the index of a day name (Monday is 0, Sunday is 6), ignoring case.
+     *
+     * @return The day index, or -1 if the name is null or not a day
+     */
+    public static int dayIndex(String dayName) {
+        if (dayName == null) {
+            return -1;
+        }
+        Integer index = DAY_INDICES.get(dayName);
+        if (index == null) {
+            // Unusual spellings like "monday " or "MonDay"
+            index = DAY_INDICES.get(dayName.trim().toLowerCase());
+        }
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the name of a day index.
+     */
+    public static String dayName(int dayIndex) {
+        return DAY_NAMES[dayIndex];
+    }
+
+    /**
+     * Parses a time such as "9:00" or "09:30" into minutes since midnight.
+     *
+     * @return The minute of the day, or -1 if the time can't be read
+     */
+    public static int minuteOfDay(String time) {
+        if (time == null) {
+            return -1;
+        }
+        int colon = time.indexOf(':');
+        try {
+            int hour = Integer.parseInt((colon >= 0 ? time.substring(0, colon) : time).trim());
+            int minute = colon >= 0 ? Integer.parseInt(time.substring(colon + 1).trim()) : 0;
+            if (hour < 0 || hour > 24 || minute < 0 || minute >= 60) {
+                return -1;
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.manager.timetable;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.manager.timetable.TimetableFixtures.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Conflicts are found by comparing minutes, so sessions that start off the hour overlap only
+ * where their minutes do.
+ */
+public class ConflictDetectorTest {
+
+    @Test
+    public void sessionsStartingOffTheHourOverlap() {
+        TimetableSession first = session("a", "algo", "l0", "r0", "Monday", "9:30", "10:30");
+        TimetableSession second = session("b", "db", "l0", "r1", "Monday", "10:15", "11:15");
+        List<TimetableSession> sessions = Arrays.asList(first, second);
+
+        assertTrue(ConflictDetector.overlaps(first, second));
+        assertTrue(ConflictDetector.hasConflict(sessions, ConflictDetector.BY_LECTURER));
+        assertFalse(ConflictDetector.hasConflict(sessions, ConflictDetector.BY_RESOURCE));
+
+        List<ConflictDetector.Conflict> conflicts = ConflictDetector.findConflicts(sessions, ConflictDetector.BY_LECTURER);
+        assertEquals(1, conflicts.size());
+        ConflictDetector.Conflict conflict = conflicts.get(0);
+        assertEquals("l0", conflict.getOwnerId());
+        assertSame(first, conflict.getFirst());
+        assertSame(second, conflict.getSecond());
+        assertEquals(0, conflict.getDay());
+        assertEquals(10 * 60 + 15, conflict.getStartMinute());
+        assertEquals(10 * 60 + 30, conflict.getEndMinute());
+    }
+
+    @Test
+    public void sessionsInTheSameHourThatDontOverlapAreNoConflict() {
+        TimetableSession first = session("a", "algo", "l0", "r0", "Monday", "9:00", "9:30");
+        TimetableSession second = session("b", "db", "l0", "r0", "Monday", "09:30", "10:00");
+
+        assertFalse(ConflictDetector.overlaps(first, second));
+        assertFalse(ConflictDetector.hasConflict(Arrays.asList(first, second), ConflictDetector.BY_LECTURER));
+    }
+
+    @Test
+    public void longSessionOverlapsEveryLaterSessionItSpans() {
+        TimetableSession lecture = session("a", "algo", "l0", "r0", "Tuesday", "13:45", "16:45");
+        TimetableSession early = session("b", "db", "l1", "r0", "Tuesday", "14:30", "15:00");
+        TimetableSession late = session("c", "os", "l2", "r0", "Tuesday", "16:30", "17:30");
+        TimetableSession otherDay = session("d", "net", "l3", "r0", "Wednesday", "14:30", "15:30");
+
+        List<ConflictDetector.Conflict> conflicts = ConflictDetector.findConflicts(
+                Arrays.asList(lecture, early, late, otherDay), ConflictDetector.BY_RESOURCE);
+        assertEquals(2, conflicts.size());
+        assertSame(early, conflicts.get(0).getSecond());
+        assertSame(late, conflicts.get(1).getSecond());
+        assertEquals(16 * 60 + 45, conflicts.get(1).getEndMinute());
+    }
+
+    @Test
+    public void sessionWithoutEndTimeLastsOneHour() {
+        TimetableSession open = session("a", "algo", "l0", "r0", "Friday", "11:20", null);
+        TimetableSession during = session("b", "db", "l0", "r1", "Friday", "12:10", "12:40");
+        TimetableSession after = session("c", "os", "l0", "r2", "Friday", "12:20", "13:00");
+
+        assertTrue(ConflictDetector.overlaps(open, during));
+        assertFalse(ConflictDetector.overlaps(open, after));
+    }
+}
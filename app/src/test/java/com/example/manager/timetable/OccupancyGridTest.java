@@ -0,0 +1,92 @@
+package com.example.manager.timetable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run-length masks of the occupancy grid on a calendar of 30-minute slots, where a two-hour
+ * session is a run of four slots.
+ */
+public class OccupancyGridTest {
+
+    private static final int MONDAY = 0;
+
+    @Test
+    public void freeStartsLeaveRoomForTheWholeRun() {
+        SlotCalendar calendar = halfHourCalendar();
+        OccupancyGrid grid = new OccupancyGrid(2, calendar.getDays(), calendar.getSlotsPerDay());
+        int length = calendar.slotsForDuration(2);
+        assertEquals(4, length);
+        assertEquals(16, grid.getSlotsPerDay());
+
+        // Room 0 is taken from 10:00 to 12:00
+        int taken = calendar.slotOf(10 * 60);
+        grid.occupy(0, MONDAY, taken, length);
+        assertEquals(4, grid.busyCount(0, MONDAY));
+        assertFalse(grid.isFree(0, MONDAY, taken + 3));
+        assertTrue(grid.isFree(0, MONDAY, taken + 4));
+
+        // 9:00 is too short before 10:00; from 12:00 up to 15:00 a run still ends by 17:00
+        assertEquals(grid.rangeMask(6, 7), grid.freeStarts(0, MONDAY, length));
+        assertEquals(grid.rangeMask(0, 13), grid.freeStarts(1, MONDAY, length));
+        assertEquals(grid.rangeMask(0, 13), grid.anyFreeStarts(MONDAY, length));
+    }
+
+    @Test
+    public void isolatedFreeStartsSkipRunsNextToABooking() {
+        SlotCalendar calendar = halfHourCalendar();
+        OccupancyGrid grid = new OccupancyGrid(1, calendar.getDays(), calendar.getSlotsPerDay());
+        grid.occupy(0, MONDAY, calendar.slotOf(10 * 60), 4);
+
+        // 12:00 would start right after the booking, so the first isolated start is 12:30
+        assertEquals(grid.rangeMask(7, 6), grid.isolatedFreeStarts(0, MONDAY, 4));
+        assertEquals(0L, grid.isolatedFreeStarts(0, MONDAY, 17));
+    }
+
+    @Test
+    public void firstFreeEntityNeedsTheWholeRunFree() {
+        SlotCalendar calendar = halfHourCalendar();
+        OccupancyGrid grid = new OccupancyGrid(70, calendar.getDays(), calendar.getSlotsPerDay());
+        for (int room = 0; room < 69; room++) {
+            grid.occupy(room, MONDAY, 2, 4);
+        }
+        assertEquals(69, grid.firstFreeEntity(MONDAY, 2, 4));
+        assertEquals(0, grid.firstFreeEntity(MONDAY, 6, 4));
+
+        // One busy slot in the middle of the run is enough to rule the last room out
+        grid.occupy(69, MONDAY, 4);
+        assertEquals(-1, grid.firstFreeEntity(MONDAY, 2, 4));
+        assertEquals(0L, grid.anyFreeMask(MONDAY) & grid.rangeMask(4, 1));
+        assertEquals(-1, grid.firstFreeEntity(MONDAY, 13, 4));
+
+        grid.release(3, MONDAY, 2, 4);
+        assertEquals(3, grid.firstFreeEntity(MONDAY, 2, 4));
+        assertEquals(grid.dayMask(), grid.anyFreeMask(MONDAY));
+    }
+
+    @Test
+    public void blockedSlotsAreBusyButNotCounted() {
+        OccupancyGrid grid = new OccupancyGrid(1, 5, 16);
+        grid.occupy(0, MONDAY, 0, 2);
+        grid.block(0, MONDAY, 1, 4);
+        assertEquals(2, grid.busyCount(0, MONDAY));
+        assertEquals(grid.rangeMask(5, 11), grid.freeMask(0, MONDAY));
+        assertEquals(-1, grid.firstFreeEntity(MONDAY, 3, 2));
+
+        // Booking a blocked slot counts it; releasing clears it either way
+        grid.occupy(0, MONDAY, 4, 2);
+        assertEquals(4, grid.busyCount(0, MONDAY));
+        grid.release(0, MONDAY, 0, 16);
+        grid.occupy(0, MONDAY, 2, 1);
+        assertEquals(1, grid.busyCount(0, MONDAY));
+    }
+
+    private static SlotCalendar halfHourCalendar() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.setSlotMinutes(30);
+        return calendar;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.manager.timetable;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.manager.timetable.TimetableFixtures.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Claims in the shared ledger are all-or-nothing: a claim that loses one cell to another
+ * department leaves no cell of its own behind.
+ */
+public class ReservationLedgerTest {
+
+    @BeforeClass
+    public static void silenceLog() {
+        TimetableLog.setMinLevel(TimetableLog.OFF);
+    }
+
+    @Test
+    public void failedReserveReleasesTheCellsItTook() {
+        ReservationLedger ledger = new ReservationLedger();
+        assertTrue(ledger.tryReserve("CS", null, "l0", "Monday", 11 * 60, 60));
+
+        // Room r0 is free, but lecturer l0 is taken from 11:00, two hours into the booking
+        assertFalse(ledger.tryReserve("IT", "r0", "l0", "Monday", 9 * 60, 180));
+        assertTrue(ledger.isResourceFree("CS", "r0", "Monday", 9 * 60, 180));
+        assertTrue(ledger.isLecturerFree("CS", "l0", "Monday", 9 * 60, 120));
+        assertEquals(1, ledger.getRejectedClaimCount());
+    }
+
+    @Test
+    public void failedReserveKeepsCellsTheOwnerAlreadyHeld() {
+        ReservationLedger ledger = new ReservationLedger();
+        assertTrue(ledger.tryReserve("IT", "r0", null, "Monday", 9 * 60, 60));
+        assertTrue(ledger.tryReserve("CS", "r0", null, "Monday", 10 * 60, 60));
+
+        // Re-claims IT's 9:00 room cell and takes lecturer l0, then loses the 10:00 room cell to CS
+        assertFalse(ledger.tryReserve("IT", "r0", "l0", "Monday", 9 * 60, 120));
+        assertFalse(ledger.isResourceFree("CS", "r0", "Monday", 9 * 60, 60));
+        assertTrue(ledger.isLecturerFree("CS", "l0", "Monday", 9 * 60, 120));
+    }
+
+    @Test
+    public void failedCommitClaimsNothing() {
+        ReservationLedger ledger = new ReservationLedger();
+        assertTrue(ledger.tryCommit("CS", Collections.singletonList(
+                session("cs1", "os", "l1", "r1", "Tuesday", "14:00", "15:00"))));
+
+        List<TimetableSession> sessions = Arrays.asList(
+                session("it1", "algo", "l0", "r0", "Monday", "9:00", "10:00"),
+                session("it2", "db", "l2", "r2", "Wednesday", "10:00", "11:00"),
+                session("it3", "net", "l3", "r1", "Tuesday", "14:30", "15:30"));
+        assertFalse(ledger.tryCommit("IT", sessions));
+
+        assertTrue(ledger.isResourceFree("CS", "r0", "Monday", 9 * 60, 60));
+        assertTrue(ledger.isLecturerFree("CS", "l2", "Wednesday", 10 * 60, 60));
+        assertTrue(ledger.isLecturerFree("CS", "l3", "Tuesday", 14 * 60, 120));
+        assertTrue(ledger.getCommittedSessions("CS").isEmpty());
+        assertEquals(1, ledger.getCommittedSessions("IT").size());
+    }
+
+    @Test
+    public void releaseAllDropsClaimsAndCommittedSessions() {
+        ReservationLedger ledger = new ReservationLedger(30);
+        assertTrue(ledger.tryCommit("CS", Collections.singletonList(
+                session("cs1", "os", "l0", "r0", "Thursday", "9:30", "10:00"))));
+        assertTrue(ledger.isResourceFree("IT", "r0", "Thursday", 9 * 60, 30));
+        assertFalse(ledger.isResourceFree("IT", "r0", "Thursday", 9 * 60 + 45, 30));
+
+        ledger.releaseAll("CS");
+        assertTrue(ledger.isResourceFree("IT", "r0", "Thursday", 9 * 60 + 30, 30));
+        assertTrue(ledger.getCommittedSessions("IT").isEmpty());
+        assertTrue(ledger.tryReserve("IT", "r0", "l0", "Thursday", 9 * 60 + 30, 30));
+    }
+
+    @Test
+    public void pendingClaimsListOtherUncommittedDepartmentsCellByCell() {
+        ReservationLedger ledger = new ReservationLedger(30);
+        assertTrue(ledger.tryReserve("CS", "r0", null, "Tuesday", 9 * 60, 60));
+        assertTrue(ledger.tryReserve("IT", null, "l0", "Friday", 14 * 60, 30));
+        assertTrue(ledger.tryCommit("EE", Collections.singletonList(
+                session("ee1", "os", "l1", "r1", "Monday", "9:00", "10:00"))));
+
+        List<TimetableSession> claims = ledger.getPendingClaims("IT");
+        assertEquals(2, claims.size());
+        for (TimetableSession claim : claims) {
+            assertEquals("r0", claim.getResourceId());
+            assertNull(claim.getLecturerId());
+            assertEquals("Tuesday", claim.getDayOfWeek());
+        }
+
+        List<TimetableSession> itClaims = ledger.getPendingClaims("CS");
+        assertEquals(1, itClaims.size());
+        assertEquals("l0", itClaims.get(0).getLecturerId());
+        assertEquals("14:00", itClaims.get(0).getStartTime());
+        assertEquals("14:30", itClaims.get(0).getEndTime());
+    }
+}
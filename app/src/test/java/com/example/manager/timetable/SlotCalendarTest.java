@@ -0,0 +1,95 @@
+package com.example.manager.timetable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The slot grid of the teaching week: slot boundaries, opening hours per day and the number
+ * of slots a session takes.
+ */
+public class SlotCalendarTest {
+
+    @Test
+    public void defaultCalendarIsWeekdaysNineToFiveInHours() {
+        SlotCalendar calendar = new SlotCalendar();
+        assertEquals(5, calendar.getDays());
+        assertEquals(8, calendar.getSlotsPerDay());
+        assertEquals(9 * 60, calendar.getFirstMinute());
+        assertEquals(16 * 60, calendar.getSlotStartMinute(7));
+        assertFalse(calendar.hasSaturdayTeaching());
+        assertEquals(2, calendar.slotsForDuration(2));
+        assertEquals(1, calendar.slotsForDuration(0));
+    }
+
+    @Test
+    public void bookingOffTheSlotGridCoversEverySlotItTouches() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.setSlotMinutes(30);
+        assertEquals(16, calendar.getSlotsPerDay());
+
+        // 9:45 to 11:15 touches the 9:30, 10:00, 10:30 and 11:00 slots
+        assertEquals(1, calendar.slotOf(9 * 60 + 45));
+        assertEquals(5, calendar.slotEndingAt(11 * 60 + 15));
+        assertEquals(4, calendar.slotEndingAt(11 * 60));
+        assertEquals(-1, calendar.slotOf(8 * 60 + 59));
+        assertEquals(2, calendar.slotsForDuration(1));
+    }
+
+    @Test
+    public void shorterDaysCloseTheirSlotsOfTheSharedGrid() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.setOpeningHours(0, 8 * 60, 17 * 60);
+        calendar.setOpeningHours(4, 9 * 60, 13 * 60);
+        assertEquals(8 * 60, calendar.getFirstMinute());
+        assertEquals(9, calendar.getSlotsPerDay());
+
+        // Monday opens at 8:00; the other days only at 9:00, which is slot 1
+        assertTrue(calendar.isOpen(0, 0, 2));
+        assertFalse(calendar.isOpen(1, 0, 1));
+        assertTrue(calendar.isOpen(1, 1, 8));
+        // Friday closes at 13:00, so a two-hour session can start at 11:00 at the latest
+        assertEquals(0b1110L, calendar.openStartMask(4, 2));
+        assertFalse(calendar.isOpen(4, 5, 1));
+    }
+
+    @Test
+    public void saturdayExtendsTheWeekWithMondaysHours() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.setOpeningHours(0, 10 * 60, 16 * 60);
+        calendar.setSaturdayTeaching(true);
+        assertEquals(6, calendar.getDays());
+        assertTrue(calendar.isOpen(5, 1, 6));
+        assertFalse(calendar.isOpen(5, 0, 1));
+
+        calendar.setClosed(4);
+        calendar.setSaturdayTeaching(false);
+        assertEquals(4, calendar.getDays());
+        assertFalse(calendar.isOpenDay(4));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        SlotCalendar calendar = new SlotCalendar();
+        SlotCalendar copy = new SlotCalendar(calendar);
+        copy.setSlotMinutes(15);
+        copy.setClosed(2);
+        assertEquals(60, calendar.getSlotMinutes());
+        assertTrue(calendar.isOpenDay(2));
+        assertEquals(32, copy.getSlotsPerDay());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void slotLengthMustDivideAnHour() {
+        new SlotCalendar().setSlotMinutes(45);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dayMustFitInOneWordOfSlots() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.setSlotMinutes(5);
+        calendar.setOpeningHours(0, 8 * 60, 20 * 60);
+    }
+}
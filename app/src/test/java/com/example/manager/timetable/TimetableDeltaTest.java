@@ -0,0 +1,108 @@
+package com.example.manager.timetable;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.manager.timetable.TimetableFixtures.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Which sessions of a previous timetable a delta keeps, moves or drops for a partial re-place.
+ */
+public class TimetableDeltaTest {
+
+    @Test
+    public void unavailableRoomDisplacesOnlyItsSessions() {
+        Timetable previous = previousTimetable();
+        TimetableDelta delta = new TimetableDelta();
+        delta.markResourceUnavailable("r1");
+
+        List<TimetableSession> pinned = delta.getPinnedSessions(previous);
+        assertEquals(3, pinned.size());
+        for (TimetableSession session : pinned) {
+            assertFalse("r1".equals(session.getResourceId()));
+        }
+        assertEquals(Collections.singletonMap("algo", 1), delta.getDisplacedSessionCounts(previous));
+        assertFalse(delta.isCourseReplaced("algo"));
+    }
+
+    @Test
+    public void unavailableLecturerDisplacesEveryCourseTheyTeach() {
+        Timetable previous = previousTimetable();
+        TimetableDelta delta = new TimetableDelta();
+        delta.markLecturerUnavailable("l0");
+
+        Map<String, Integer> displaced = delta.getDisplacedSessionCounts(previous);
+        assertEquals(2, (int) displaced.get("algo"));
+        assertEquals(1, (int) displaced.get("db"));
+        assertEquals(1, delta.getPinnedSessions(previous).size());
+    }
+
+    @Test
+    public void replacedCoursesArePlacedFromScratchNotDisplaced() {
+        Timetable previous = previousTimetable();
+        Course changed = course("algo", 3);
+        Course added = course("net", 1);
+        TimetableDelta delta = new TimetableDelta();
+        delta.changeCourse(changed);
+        delta.removeCourse("db");
+        delta.addCourse(added);
+        delta.markResourceUnavailable("r0");
+
+        assertTrue(delta.getPinnedSessions(previous).isEmpty());
+        // algo and db are replaced, so the room only displaces the os session
+        assertEquals(Collections.singletonMap("os", 1), delta.getDisplacedSessionCounts(previous));
+
+        List<Course> courses = delta.applyToCourses(Arrays.asList(course("algo", 2), course("db", 1), course("os", 1)));
+        assertEquals(3, courses.size());
+        assertSame(changed, courses.get(0));
+        assertEquals("os", courses.get(1).getId());
+        assertSame(added, courses.get(2));
+    }
+
+    @Test
+    public void filtersDropUnavailableRoomsAndLecturers() {
+        TimetableDelta delta = new TimetableDelta();
+        assertTrue(delta.isEmpty());
+        delta.markResourceUnavailable("r1");
+        delta.markLecturerUnavailable("l1");
+        assertFalse(delta.isEmpty());
+
+        List<Resource> resources = delta.filterResources(Arrays.asList(
+                new Resource("r0", "Room 0", "LECTURE_HALL", "40", "admin", "IT", "yes"),
+                new Resource("r1", "Room 1", "LECTURE_HALL", "40", "admin", "IT", "yes")));
+        List<Lecturer> lecturers = delta.filterLecturers(Arrays.asList(
+                new Lecturer("l0", "Lecturer 0", "contact", 1, "IT"),
+                new Lecturer("l1", "Lecturer 1", "contact", 1, "IT")));
+        assertEquals(1, resources.size());
+        assertEquals("r0", resources.get(0).getId());
+        assertEquals(1, lecturers.size());
+        assertEquals("l0", lecturers.get(0).getId());
+    }
+
+    /**
+     * algo twice with l0 (in r0 and r1), db with l0 in r2 and os with l1 in r0.
+     */
+    private static Timetable previousTimetable() {
+        Timetable previous = new Timetable();
+        previous.addSession(session("s0", "algo", "l0", "r0", "Monday", "9:00", "10:00"));
+        previous.addSession(session("s1", "algo", "l0", "r1", "Tuesday", "9:00", "10:00"));
+        previous.addSession(session("s2", "db", "l0", "r2", "Wednesday", "9:00", "10:00"));
+        previous.addSession(session("s3", "os", "l1", "r0", "Thursday", "9:00", "10:00"));
+        return previous;
+    }
+
+    private static Course course(String id, int sessions) {
+        return new Course(id, id.toUpperCase(), "CS-" + id, 3, "IT", sessions, "LECTURE_HALL");
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.manager.timetable;
+
+/**
+ * Sessions for the engine tests, built with one argument order everywhere so a swapped room
+ * and lecturer can't slip through as another valid call.
+ */
+final class TimetableFixtures {
+
+    private TimetableFixtures() {
+    }
+
+    /**
+     * A lecture of a course, e.g. {@code session("s0", "algo", "l0", "r0", "Monday", "9:00", "10:00")}.
+     * Names are derived from the IDs.
+     *
+     * @param lecturerId Lecturer teaching the session
+     * @param resourceId Room the session is held in
+     */
+    static TimetableSession session(String id, String courseId, String lecturerId, String resourceId,
+                                    String day, String start, String end) {
+        return new TimetableSession(id, courseId, "Course " + courseId, lecturerId, "Lecturer " + lecturerId,
+                resourceId, "Room " + resourceId, day, start, end, "LECTURE");
+    }
+}
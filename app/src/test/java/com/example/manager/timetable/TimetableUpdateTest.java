@@ -0,0 +1,72 @@
+package com.example.manager.timetable;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.manager.timetable.TimetableFixtures.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Partial re-placement through {@link TimetableGenerator#updateTimetable}: only the sessions
+ * touched by the delta are placed again, and the result still has every session of the course.
+ */
+public class TimetableUpdateTest {
+
+    @BeforeClass
+    public static void silenceLog() {
+        TimetableLog.setMinLevel(TimetableLog.OFF);
+    }
+
+    @Test
+    public void simpleGeneratorMovesSessionOutOfUnavailableRoom() {
+        assertSessionMoved(new SimpleTimetableGenerator());
+    }
+
+    @Test
+    public void chocoGeneratorMovesSessionOutOfUnavailableRoom() {
+        assertSessionMoved(new ChocoSolverTimetableGenerator());
+    }
+
+    private void assertSessionMoved(TimetableGenerator generator) {
+        List<Resource> resources = Arrays.asList(
+                new Resource("r0", "Room 0", "LECTURE_HALL", "40", "admin", "IT", "yes"),
+                new Resource("r1", "Room 1", "LECTURE_HALL", "40", "admin", "IT", "yes"),
+                new Resource("r2", "Room 2", "LECTURE_HALL", "40", "admin", "IT", "yes"));
+        List<Lecturer> lecturers = Collections.singletonList(new Lecturer("l0", "Lecturer 0", "contact", 1, "IT"));
+        Course course = new Course("algo", "Algo", "CS201", 3, "IT", 2, "LECTURE_HALL");
+        course.setAssignedLecturerId("l0");
+
+        Timetable previous = new Timetable();
+        TimetableSession kept = session("s0", "algo", "l0", "r0", "Monday", "9:00", "10:00");
+        previous.addSession(kept);
+        previous.addSession(session("s1", "algo", "l0", "r1", "Tuesday", "9:00", "10:00"));
+
+        TimetableDelta delta = new TimetableDelta();
+        delta.markResourceUnavailable("r1");
+
+        TimetableGeneratorOptions options = new TimetableGeneratorOptions();
+        options.setTimeLimitMs(10000);
+        Timetable updated = generator.updateTimetable(previous, delta, resources, lecturers,
+                Collections.singletonList(course), options);
+
+        List<TimetableSession> sessions = new ArrayList<>(updated.getSessions());
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.contains(kept));
+        for (TimetableSession session : sessions) {
+            assertEquals("algo", session.getCourseId());
+            assertNotEquals("r1", session.getResourceId());
+        }
+        assertFalse(generator.hasConflicts(updated));
+    }
+}
@@ -0,0 +1,24 @@
+// JVM-only benchmarks for the timetable engine. Run with: ./gradlew :benchmark:jmh
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    implementation(project(":engine"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    // Reports allocation rate (gc.alloc.rate.norm) next to the timings
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
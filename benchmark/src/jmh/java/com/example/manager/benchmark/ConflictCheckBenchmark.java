@@ -0,0 +1,134 @@
+package com.example.manager.benchmark;
+
+import com.example.manager.timetable.ConflictDetector;
+import com.example.manager.timetable.SimpleTimetableGenerator;
+import com.example.manager.timetable.Timetable;
+import com.example.manager.timetable.TimetableGeneratorOptions;
+import com.example.manager.timetable.TimetableLog;
+import com.example.manager.timetable.TimetableSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conflict checks over a fully generated university: {@code hasConflicts} on the merged
+ * timetable and the cross-department room validation run after unified generation, next to the
+ * hour-by-hour check that validation used before it moved to {@link ConflictDetector}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConflictCheckBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public SyntheticUniversity.Scale scale;
+
+    private final SimpleTimetableGenerator generator = new SimpleTimetableGenerator();
+    private final Map<String, Timetable> departmentTimetables = new LinkedHashMap<>();
+    private final Timetable mergedTimetable = new Timetable();
+    private final List<TimetableSession> validatedSessions = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        // Measure the solver, not console output
+        TimetableLog.setMinLevel(TimetableLog.OFF);
+        SyntheticUniversity university = SyntheticUniversity.generate(scale, SyntheticUniversity.DEFAULT_SEED);
+        List<TimetableSession> existingSessions = new ArrayList<>();
+        for (String department : university.getDepartments()) {
+            TimetableGeneratorOptions options = new TimetableGeneratorOptions();
+            options.setExistingTimetableSessions(new ArrayList<>(existingSessions));
+            Timetable timetable = generator.generateTimetable(university.getResources(),
+                    university.getLecturers(department), university.getCourses(department), options);
+            for (TimetableSession session : timetable.getSessions()) {
+                session.setDepartment(department);
+                mergedTimetable.addSession(session);
+            }
+            existingSessions.addAll(timetable.getSessions());
+            departmentTimetables.put(department, timetable);
+        }
+
+        // The validation only checks sessions with a room, a day and both times
+        for (TimetableSession session : mergedTimetable.getSessions()) {
+            if (session.getResourceId() != null && session.getDayOfWeek() != null
+                    && session.getStartTime() != null && session.getEndTime() != null) {
+                validatedSessions.add(session);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean hasConflicts() {
+        return generator.hasConflicts(mergedTimetable);
+    }
+
+    /**
+     * The check UnifiedTimetableGeneratorActivity.validateNoResourceConflictsAcrossDepartments
+     * runs on the sessions of all departments.
+     */
+    @Benchmark
+    public int validateAcrossDepartments() {
+        return ConflictDetector.findConflicts(validatedSessions, ConflictDetector.BY_RESOURCE).size();
+    }
+
+    /**
+     * Baseline: the hour-by-hour validation replaced by {@link ConflictDetector}.
+     */
+    @Benchmark
+    public int validateAcrossDepartmentsHourlyBaseline() {
+        return countHourlyResourceConflicts(departmentTimetables);
+    }
+
+    /**
+     * The old validation, kept only as a baseline: resourceId -> day -> "HH:00" -> session,
+     * checked hour by hour, so it misses overlaps that start off the hour.
+     */
+    static int countHourlyResourceConflicts(Map<String, Timetable> departmentTimetables) {
+        int conflicts = 0;
+        Map<String, Map<String, Map<String, TimetableSession>>> resourceUsage = new HashMap<>();
+        for (Timetable timetable : departmentTimetables.values()) {
+            for (TimetableSession session : timetable.getSessions()) {
+                String resourceId = session.getResourceId();
+                String dayOfWeek = session.getDayOfWeek();
+                if (resourceId == null || dayOfWeek == null
+                        || session.getStartTime() == null || session.getEndTime() == null) {
+                    continue;
+                }
+                Map<String, TimetableSession> timeMap = resourceUsage
+                        .computeIfAbsent(resourceId, k -> new HashMap<>())
+                        .computeIfAbsent(dayOfWeek, k -> new HashMap<>());
+                int startHour = parseHour(session.getStartTime());
+                int endHour = parseHour(session.getEndTime());
+                for (int hour = startHour; hour < endHour; hour++) {
+                    String timeSlot = String.format("%02d:00", hour);
+                    if (timeMap.containsKey(timeSlot)) {
+                        conflicts++;
+                    } else {
+                        timeMap.put(timeSlot, session);
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static int parseHour(String timeString) {
+        try {
+            return Integer.parseInt(timeString.split(":")[0]);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
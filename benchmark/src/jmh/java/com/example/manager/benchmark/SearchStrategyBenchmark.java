@@ -0,0 +1,81 @@
+package com.example.manager.benchmark;
+
+import com.example.manager.timetable.ChocoSolverTimetableGenerator;
+import com.example.manager.timetable.RestartPolicy;
+import com.example.manager.timetable.SearchStrategy;
+import com.example.manager.timetable.Timetable;
+import com.example.manager.timetable.TimetableGeneratorOptions;
+import com.example.manager.timetable.TimetableLog;
+import com.example.manager.timetable.TimetableSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates every department of a synthetic university with the Choco solver, like
+ * {@link TimetableGenerationBenchmark}, for each combination of search strategy, restart policy
+ * and nogood recording. Each department gets a time limit, so a strategy that gets stuck shows
+ * up as slow rather than stalling the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchStrategyBenchmark {
+
+    private static final long TIME_LIMIT_MS = 10000;
+
+    @Param({"SMALL", "MEDIUM"})
+    public SyntheticUniversity.Scale scale;
+
+    @Param({"DEFAULT", "DOM_WDEG", "ACTIVITY", "MOST_CONSTRAINED"})
+    public SearchStrategy strategy;
+
+    @Param({"NONE", "LUBY", "GEOMETRIC"})
+    public RestartPolicy restarts;
+
+    // Only has an effect with restarts
+    @Param({"false", "true"})
+    public boolean nogoods;
+
+    private SyntheticUniversity university;
+
+    @Setup
+    public void setUp() {
+        // Measure the solver, not console output
+        TimetableLog.setMinLevel(TimetableLog.OFF);
+        university = SyntheticUniversity.generate(scale, SyntheticUniversity.DEFAULT_SEED);
+    }
+
+    @Benchmark
+    public List<Timetable> generateAllDepartments() {
+        List<Timetable> timetables = new ArrayList<>();
+        List<TimetableSession> existingSessions = new ArrayList<>();
+        for (String department : university.getDepartments()) {
+            TimetableGeneratorOptions options = new TimetableGeneratorOptions();
+            options.setPreferEvenDistribution(true);
+            options.setUseCompactModel(true);
+            options.setExistingTimetableSessions(new ArrayList<>(existingSessions));
+            options.setTimeLimitMs(TIME_LIMIT_MS);
+            options.setSearchStrategy(strategy);
+            options.setRestartPolicy(restarts);
+            options.setRecordNogoods(nogoods);
+
+            Timetable timetable = new ChocoSolverTimetableGenerator().generateTimetable(university.getResources(),
+                    university.getLecturers(department), university.getCourses(department), options);
+
+            existingSessions.addAll(timetable.getSessions());
+            timetables.add(timetable);
+        }
+        return timetables;
+    }
+}
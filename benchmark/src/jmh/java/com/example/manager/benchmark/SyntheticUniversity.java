@@ -0,0 +1,130 @@
+package com.example.manager.benchmark;
+
+import com.example.manager.admin.model.Resource;
+import com.example.manager.model.Lecturer;
+import com.example.manager.timetable.Course;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator for university-shaped benchmark data: departments with their own courses
+ * and lecturers, sharing one pool of rooms and labs.
+ *
+ * The same scale and seed always produce the same data, so runs can be compared over time.
+ * Course counts per department stay within what a 5 x 8 week can hold, since students of a
+ * department can't attend two courses at once.
+ */
+public final class SyntheticUniversity {
+
+    /**
+     * University sizes used by the benchmarks.
+     */
+    public enum Scale {
+        SMALL(1, 8, 6, 10),
+        MEDIUM(4, 30, 6, 12),
+        LARGE(12, 80, 8, 14);
+
+        final int departments;
+        final int resources;
+        final int lecturersPerDepartment;
+        final int coursesPerDepartment;
+
+        Scale(int departments, int resources, int lecturersPerDepartment, int coursesPerDepartment) {
+            this.departments = departments;
+            this.resources = resources;
+            this.lecturersPerDepartment = lecturersPerDepartment;
+            this.coursesPerDepartment = coursesPerDepartment;
+        }
+    }
+
+    public static final long DEFAULT_SEED = 20240901L;
+
+    private static final String[] DEPARTMENT_NAMES = {
+            "Computer Science", "Information Technology", "Mathematics", "Physics", "Chemistry",
+            "Biology", "Economics", "Business", "Engineering", "Architecture", "Law", "Psychology"
+    };
+
+    private final List<Resource> resources = new ArrayList<>();
+    private final Map<String, List<Lecturer>> lecturersByDepartment = new LinkedHashMap<>();
+    private final Map<String, List<Course>> coursesByDepartment = new LinkedHashMap<>();
+
+    private SyntheticUniversity() {
+    }
+
+    /**
+     * Generates a university of the given scale.
+     */
+    public static SyntheticUniversity generate(Scale scale, long seed) {
+        Random random = new Random(seed);
+        SyntheticUniversity university = new SyntheticUniversity();
+
+        // Roughly one lab for every four rooms
+        for (int r = 0; r < scale.resources; r++) {
+            boolean lab = r % 4 == 3;
+            String capacity = String.valueOf(lab ? 20 + random.nextInt(20) : 30 + random.nextInt(120));
+            university.resources.add(new Resource("res_" + r, (lab ? "Lab " : "Room ") + r,
+                    lab ? "LAB" : "LECTURE_HALL", capacity, "admin", "Building " + (r / 10), "yes"));
+        }
+
+        for (int d = 0; d < scale.departments; d++) {
+            String department = DEPARTMENT_NAMES[d % DEPARTMENT_NAMES.length];
+
+            List<Lecturer> lecturers = new ArrayList<>();
+            for (int l = 0; l < scale.lecturersPerDepartment; l++) {
+                lecturers.add(new Lecturer("lec_" + d + "_" + l, "Lecturer " + d + "." + l,
+                        "lecturer" + d + "_" + l + "@example.com", random.nextInt(10), department));
+            }
+
+            List<Course> courses = new ArrayList<>();
+            for (int c = 0; c < scale.coursesPerDepartment; c++) {
+                boolean lab = random.nextInt(5) == 0;
+                Course course = new Course("course_" + d + "_" + c, department + " " + (100 + c),
+                        "D" + d + "C" + c, 3, department, 1 + random.nextInt(2), lab ? "LAB" : "LECTURE_HALL");
+                course.setNumberOfLectures(course.getRequiredSessionsPerWeek());
+                course.setDurationHours(1);
+                // Most courses come with a lecturer assigned in course management
+                if (random.nextInt(4) != 0) {
+                    course.setAssignedLecturerId(lecturers.get(random.nextInt(lecturers.size())).getId());
+                }
+                courses.add(course);
+            }
+
+            university.lecturersByDepartment.put(department, lecturers);
+            university.coursesByDepartment.put(department, courses);
+        }
+        return university;
+    }
+
+    public List<String> getDepartments() {
+        return new ArrayList<>(coursesByDepartment.keySet());
+    }
+
+    public List<Resource> getResources() {
+        return Collections.unmodifiableList(resources);
+    }
+
+    public List<Lecturer> getLecturers(String department) {
+        return lecturersByDepartment.get(department);
+    }
+
+    /**
+     * Returns fresh copies of a department's courses; the generators adjust course fields while solving.
+     */
+    public List<Course> getCourses(String department) {
+        List<Course> copies = new ArrayList<>();
+        for (Course course : coursesByDepartment.get(department)) {
+            Course copy = new Course(course.getId(), course.getName(), course.getCode(), course.getCreditHours(),
+                    course.getDepartment(), course.getRequiredSessionsPerWeek(), course.getRequiredRoomType(),
+                    course.getAssignedLecturerId(), course.getAssignedResourceId());
+            copy.setNumberOfLectures(course.getNumberOfLectures());
+            copy.setDurationHours(course.getDurationHours());
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
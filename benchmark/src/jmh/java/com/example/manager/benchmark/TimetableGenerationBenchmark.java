@@ -0,0 +1,80 @@
+package com.example.manager.benchmark;
+
+import com.example.manager.timetable.ChocoSolverTimetableGenerator;
+import com.example.manager.timetable.PortfolioTimetableGenerator;
+import com.example.manager.timetable.SimpleTimetableGenerator;
+import com.example.manager.timetable.SolverType;
+import com.example.manager.timetable.Timetable;
+import com.example.manager.timetable.TimetableGenerator;
+import com.example.manager.timetable.TimetableGeneratorOptions;
+import com.example.manager.timetable.TimetableLog;
+import com.example.manager.timetable.TimetableSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates every department of a synthetic university one after another, passing the sessions
+ * of the departments already generated as existing sessions, the way the unified generator does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimetableGenerationBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public SyntheticUniversity.Scale scale;
+
+    @Param({"SIMPLE", "CHOCO", "PORTFOLIO"})
+    public SolverType solver;
+
+    private SyntheticUniversity university;
+
+    @Setup
+    public void setUp() {
+        // Measure the solver, not console output
+        TimetableLog.setMinLevel(TimetableLog.OFF);
+        university = SyntheticUniversity.generate(scale, SyntheticUniversity.DEFAULT_SEED);
+    }
+
+    @Benchmark
+    public List<Timetable> generateAllDepartments() {
+        List<Timetable> timetables = new ArrayList<>();
+        List<TimetableSession> existingSessions = new ArrayList<>();
+        for (String department : university.getDepartments()) {
+            TimetableGeneratorOptions options = new TimetableGeneratorOptions();
+            options.setPreferEvenDistribution(true);
+            options.setUseCompactModel(true);
+            options.setExistingTimetableSessions(new ArrayList<>(existingSessions));
+
+            TimetableGenerator generator = createGenerator();
+            Timetable timetable = generator.generateTimetable(university.getResources(),
+                    university.getLecturers(department), university.getCourses(department), options);
+
+            existingSessions.addAll(timetable.getSessions());
+            timetables.add(timetable);
+        }
+        return timetables;
+    }
+
+    private TimetableGenerator createGenerator() {
+        switch (solver) {
+            case CHOCO:
+                return new ChocoSolverTimetableGenerator();
+            case PORTFOLIO:
+                return new PortfolioTimetableGenerator();
+            default:
+                return new SimpleTimetableGenerator();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+// Pure-Java build of the timetable engine, for running it off-device (benchmarks, tools).
+// Build with: ./gradlew :engine:jar, test with: ./gradlew :engine:test
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// The engine is compiled straight from the app sources; it only depends on the model classes
+// and logs through TimetableLog, so no Android classes are needed.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/manager/timetable/**",
+                "com/example/manager/admin/model/CourseItem.java",
+                "com/example/manager/admin/model/Resource.java",
+                "com/example/manager/model/Lecturer.java"
+            )
+        }
+    }
+    // The engine's unit tests, which the app also runs
+    test {
+        java {
+            srcDir("../app/src/test/java")
+            include("com/example/manager/timetable/**")
+        }
+    }
+}
+
+dependencies {
+    // Choco Solver and its dependencies, same jars as the app
+    api(fileTree(mapOf(
+        "dir" to "../app/libs",
+        "include" to listOf("*.jar")
+    )))
+    implementation(libs.trove4j)
+    testImplementation(libs.junit)
+}